@@ -0,0 +1,112 @@
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures how long GameAnalyzer takes over whole games. Games are played on the
+ * board model by two engine bots of different depths, so that some turns are
+ * worse than others, and each is analysed from its recorded history with a cold
+ * table on one thread and then on several. The report of the first game is printed.
+ */
+public class AnalysisBenchmark {
+    private static final int MAX_TURNS = 200;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of games, the analysis depth, threads,
+     *             grid size, comma-separated God Cards of the two players and
+     *             comma-separated search depths of the two bots
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int gridSize = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        String[] godNames = (args.length > 4 ? args[4] : "none,none").split(",");
+        String[] botDepths = (args.length > 5 ? args[5] : "1,3").split(",");
+
+        GodCard[] godCards = new GodCard[2];
+        int[] depths = new int[2];
+        for (int p = 0; p < 2; p++) {
+            godCards[p] = Position.toGodCard(Position.parseGod(godNames[p]));
+            depths[p] = Integer.parseInt(botDepths[p]);
+        }
+
+        SplittableRandom random = new SplittableRandom(49);
+        GameAnalyzer single = new GameAnalyzer(depth, GameAnalyzer.DEFAULT_BLUNDER_THRESHOLD, 1, 20);
+        GameAnalyzer parallel = new GameAnalyzer(depth, GameAnalyzer.DEFAULT_BLUNDER_THRESHOLD, threads, 20);
+        // One game first so the searches are compiled before anything is timed
+        BoardLogic warmUp = playGame(gridSize, godCards, depths, random);
+        single.analyze(warmUp);
+        parallel.analyze(warmUp);
+
+        long[] nanos = new long[2];
+        int turns = 0;
+        int blunders = 0;
+        int differing = 0;
+        for (int g = 0; g < games; g++) {
+            BoardLogic game = playGame(gridSize, godCards, depths, random);
+            single.clearTable();
+            parallel.clearTable();
+            long start = System.nanoTime();
+            List<TurnAnalysis> expected = single.analyze(game);
+            nanos[0] += System.nanoTime() - start;
+            start = System.nanoTime();
+            List<TurnAnalysis> analysis = parallel.analyze(game);
+            nanos[1] += System.nanoTime() - start;
+
+            turns += analysis.size();
+            for (int t = 0; t < analysis.size(); t++) {
+                if (analysis.get(t).isBlunder()) blunders++;
+                // Searches that share a table can see each other's entries in a different order
+                if (analysis.get(t).getBestScore() != expected.get(t).getBestScore()) differing++;
+            }
+            if (g == 0) {
+                System.out.printf("Game 1, %s v %s, depth %d v %d, analysed to depth %d%n", godNames[0], godNames[1],
+                        depths[0], depths[1], depth);
+                GameAnalyzer.printReport(analysis, gridSize);
+                System.out.println();
+            }
+        }
+        single.shutdown();
+        parallel.shutdown();
+
+        System.out.printf("%d games, %d turns, %d blunders, analysed to depth %d%n", games, turns, blunders, depth);
+        System.out.printf("1 thread : %8.1f ms per game, %6.1f ms per turn%n", nanos[0] / 1e6 / games,
+                nanos[0] / 1e6 / Math.max(1, turns));
+        System.out.printf("%d threads: %8.1f ms per game, %6.1f ms per turn, speed-up %.2fx%n", threads,
+                nanos[1] / 1e6 / games, nanos[1] / 1e6 / Math.max(1, turns), (double) nanos[0] / nanos[1]);
+        System.out.printf("%d turns scored differently with %d threads%n", differing, threads);
+    }
+
+    /**
+     * Plays one game on the board model: random placements, then every turn
+     * chosen by a fixed-depth search and submitted as board actions.
+     *
+     * @param gridSize The grid size
+     * @param godCards The card of each player
+     * @param depths The search depth of each player's bot
+     * @param random The source of the placements
+     * @return The board, with the game's history
+     */
+    private static BoardLogic playGame(int gridSize, GodCard[] godCards, int[] depths, SplittableRandom random) {
+        BoardLogic board = new BoardLogic(new GameConfig(gridSize, 2, 2, 1), new GameState());
+        for (int p = 0; p < 2; p++) {
+            board.getPlayers().get(p).setGodCard(godCards[p]);
+        }
+        GameState state = board.getGameState();
+        while (!state.isGameStarted() && !state.isGameOver()) {
+            board.placeNextPiece(random.nextInt(gridSize), random.nextInt(gridSize));
+        }
+        for (int turn = 0; turn < MAX_TURNS && !state.isGameOver(); turn++) {
+            Position position = Position.fromBoard(board);
+            SearchEngine engine = new SearchEngine(position, new IncrementalEvaluator(position), 16);
+            SearchResult result = engine.search(depths[position.getSideToMove()], 0);
+            if (result.getTurn() == Turn.NONE) break;
+            if (board.applyBatch(ComputerPlayer.toActions(position, result.getTurn())) != -1) {
+                throw new IllegalStateException("The board rejected the engine's turn");
+            }
+        }
+        return board;
+    }
+}
@@ -3,44 +3,44 @@
  * Apollo's power: Your worker may move into an opponent worker's space by forcing 
  * their worker to the space yours just vacated.
  */
-public class ApolloGodCard extends BaseGodCard {
+public final class ApolloGodCard extends BaseGodCard {
+    /** The shared instance. */
+    public static final ApolloGodCard INSTANCE = new ApolloGodCard();
     
-    public ApolloGodCard() {
+    private ApolloGodCard() {
         super("Apollo",
               "Your worker may move into an opponent worker's space by forcing their worker to the space yours just vacated.");
     }
 
     @Override
-    public boolean isValidMove(BoardLogic boardLogic, int fromRow, int fromCol, int toRow, int toCol) {
-        if (!isValidPosition(boardLogic, toRow, toCol)) {
-            return false;
-        }
+    public int getCapabilities() {
+        return MOVE_RULE | AFTER_MOVE;
+    }
 
-        // Check if move is to adjacent space
-        int rowDiff = Math.abs(fromRow - toRow);
-        int colDiff = Math.abs(fromCol - toCol);
-        if (rowDiff > 1 || colDiff > 1 || (rowDiff == 0 && colDiff == 0)) {
+    @Override
+    public boolean isValidMove(BoardLogic boardLogic, int fromRow, int fromCol, int toRow, int toCol) {
+        // Check if move is to an adjacent space on the board
+        if (!boardLogic.getNeighbourTable().isAdjacent(fromRow, fromCol, toRow, toCol)) {
             return false;
         }
 
         GridCell targetCell = boardLogic.getCell(toRow, toCol);
-        GameEntity occupant = targetCell.getOccupant();
 
         // Allow moving to empty spaces normally
-        if (occupant == null) {
+        if (targetCell.getOccupant() == null) {
             return super.isValidMove(boardLogic, fromRow, fromCol, toRow, toCol);
         }
 
         // Special Apollo power: can swap with opponent's worker
-        if (occupant instanceof Player) {
-            Player worker = (Player) occupant;
-            // Check if it's an opponent's worker (different color)
-            if (!worker.getColor().equals(boardLogic.getCell(fromRow, fromCol).getOccupant().getColor())) {
-                // Check if height difference is at most 1 level
-                int fromHeight = boardLogic.getCell(fromRow, fromCol).getBuildingLevel();
-                int toHeight = targetCell.getBuildingLevel();
-                return Math.abs(toHeight - fromHeight) <= 1;
-            }
+        WorkerRegistry workers = boardLogic.getWorkerRegistry();
+        int worker = workers.getWorkerAt(toRow, toCol);
+        int mover = workers.getWorkerAt(fromRow, fromCol);
+        if (worker != WorkerRegistry.NONE && mover != WorkerRegistry.NONE
+                && workers.getOwner(worker) != workers.getOwner(mover)) {
+            // The usual height rule applies: up at most one level, down any number
+            int fromHeight = boardLogic.getCell(fromRow, fromCol).getBuildingLevel();
+            int toHeight = targetCell.getBuildingLevel();
+            return toHeight <= fromHeight + 1;
         }
 
         return false;
@@ -48,22 +48,29 @@ public class ApolloGodCard extends BaseGodCard {
 
     @Override
     public void afterMove(BoardLogic boardLogic, int fromRow, int fromCol, int toRow, int toCol) {
-        GridCell targetCell = boardLogic.getCell(toRow, toCol);
-        GameEntity occupant = targetCell.getOccupant();
+        GameEntity displaced = boardLogic.getDisplacedEntity();
 
         // If we moved into an opponent's space, swap their worker to our old space
-        if (occupant instanceof Player) {
-            Player worker = (Player) occupant;
-            if (!worker.getColor().equals(boardLogic.getCell(fromRow, fromCol).getOccupant().getColor())) {
+        WorkerRegistry workers = boardLogic.getWorkerRegistry();
+        int displacedWorker = workers.getWorkerId(displaced);
+        int mover = workers.getWorkerAt(toRow, toCol);
+        if (displacedWorker != WorkerRegistry.NONE && mover != WorkerRegistry.NONE) {
+            Player worker = workers.getPiece(displacedWorker);
+            if (workers.getOwner(displacedWorker) != workers.getOwner(mover)) {
                 // Move opponent's worker to our old space
                 worker.setPosition(fromRow, fromCol);
                 boardLogic.getCell(fromRow, fromCol).setOccupant(worker);
+
+                ApolloSwapEvent swapEvent = new ApolloSwapEvent();
+                if (swapEvent.shouldCommit()) {
+                    swapEvent.swappedWorker = worker.getName();
+                    swapEvent.fromRow = fromRow;
+                    swapEvent.fromCol = fromCol;
+                    swapEvent.toRow = toRow;
+                    swapEvent.toCol = toCol;
+                    swapEvent.commit();
+                }
             }
         }
     }
-
-    private boolean isValidPosition(BoardLogic boardLogic, int row, int col) {
-        return row >= 0 && row < boardLogic.getConfig().getGridSize() && 
-               col >= 0 && col < boardLogic.getConfig().getGridSize();
-    }
 } 
\ No newline at end of file
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an Apollo move that swapped places with an opponent worker.
+ * Disabled by default; enable santorini.ApolloSwap in a recording to capture it.
+ */
+@Name("santorini.ApolloSwap")
+@Label("Apollo Swap")
+@Category({"Santorini", "Actions"})
+@Description("An Apollo worker moved into an opponent's space and forced it back")
+@Enabled(false)
+@StackTrace(false)
+public class ApolloSwapEvent extends Event {
+    @Label("Swapped Worker")
+    String swappedWorker;
+
+    @Label("From Row")
+    int fromRow;
+
+    @Label("From Column")
+    int fromCol;
+
+    @Label("To Row")
+    int toRow;
+
+    @Label("To Column")
+    int toCol;
+}
@@ -1,6 +1,7 @@
 /**
  * Base implementation of GodCard that provides default behavior.
- * Most God Cards can extend this class and override only the methods they need to modify.
+ * Most God Cards can extend this class and override only the methods they need to modify,
+ * declaring those in getCapabilities().
  */
 public class BaseGodCard implements GodCard {
     private final String name;
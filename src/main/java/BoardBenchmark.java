@@ -0,0 +1,124 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures the cost of playing a turn on the board model as the grid grows.
+ * Random games are played on each grid size with the same players, and the time
+ * taken by each turn's move and build, applied as one batch, is averaged. Per-turn
+ * work depends on the number of workers rather than cells, so the cost should
+ * stay flat from the smallest board to the largest.
+ */
+public class BoardBenchmark {
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of turns per grid size, the number of
+     *             players and comma-separated grid sizes
+     */
+    public static void main(String[] args) {
+        int turns = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int numPlayers = args.length > 1 ? Integer.parseInt(args[1]) : GameConfig.MAX_PLAYERS;
+        String[] sizes = (args.length > 2 ? args[2] : "8,16,32,64").split(",");
+
+        for (String size : sizes) {
+            int gridSize = Integer.parseInt(size);
+            if (numPlayers * 2 >= gridSize * gridSize) {
+                System.out.printf("%2dx%-2d is too small for %d players%n", gridSize, gridSize, numPlayers);
+                continue;
+            }
+            // Once to warm up, then measured
+            playTurns(gridSize, numPlayers, turns);
+            long nanos = playTurns(gridSize, numPlayers, turns);
+            System.out.printf("%2dx%-2d %2d players: %8.1f ns per turn%n", gridSize, gridSize, numPlayers,
+                    (double) nanos / turns);
+        }
+    }
+
+    /**
+     * Plays random turns, starting a new game whenever one ends.
+     *
+     * @param gridSize The grid size
+     * @param numPlayers The number of players
+     * @param turns The number of turns to play
+     * @return The total time spent applying the turns
+     */
+    private static long playTurns(int gridSize, int numPlayers, int turns) {
+        SplittableRandom random = new SplittableRandom(39);
+        BoardLogic board = null;
+        List<GameAction> batch = new ArrayList<>();
+        long nanos = 0;
+        int played = 0;
+        while (played < turns) {
+            if (board == null || board.getGameState().isGameOver()) {
+                board = new BoardLogic(new GameConfig(gridSize, numPlayers, 2, 1), new GameState());
+                while (!board.getGameState().isGameStarted()) {
+                    board.placeNextPiece(random.nextInt(gridSize), random.nextInt(gridSize));
+                }
+            }
+            if (!chooseTurn(board, random, batch)) {
+                // The player is trapped by a build; end the game by forfeit
+                board = null;
+                continue;
+            }
+            long start = System.nanoTime();
+            board.applyBatch(batch);
+            nanos += System.nanoTime() - start;
+            played++;
+        }
+        return nanos;
+    }
+
+    /**
+     * Chooses a random legal move and build for the current player.
+     *
+     * @param board The board
+     * @param random The random source
+     * @param batch Receives the move and the build
+     * @return false if the current player has no legal move and build
+     */
+    private static boolean chooseTurn(BoardLogic board, SplittableRandom random, List<GameAction> batch) {
+        List<Player> pieces = board.getPlayerPieces(board.getGameState().getCurrentPlayer());
+        int firstPiece = random.nextInt(pieces.size());
+        int firstDirection = random.nextInt(8);
+        for (int p = 0; p < pieces.size(); p++) {
+            Player piece = pieces.get((firstPiece + p) % pieces.size());
+            for (int d = 0; d < 8; d++) {
+                int direction = (firstDirection + d) % 8;
+                int toRow = piece.getRow() + rowStep(direction);
+                int toCol = piece.getCol() + colStep(direction);
+                if (!board.isValidMove(piece.getRow(), piece.getCol(), toRow, toCol)) continue;
+                for (int b = 0; b < 8; b++) {
+                    int buildRow = toRow + rowStep((direction + b) % 8);
+                    int buildCol = toCol + colStep((direction + b) % 8);
+                    boolean fromCell = buildRow == piece.getRow() && buildCol == piece.getCol();
+                    if (fromCell || board.isValidBuild(toRow, toCol, buildRow, buildCol)) {
+                        batch.clear();
+                        batch.add(GameAction.move(piece.getRow(), piece.getCol(), toRow, toCol));
+                        batch.add(GameAction.build(toRow, toCol, buildRow, buildCol));
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the row step of one of the eight directions.
+     * @param direction The direction, 0 to 7
+     * @return -1, 0 or 1
+     */
+    private static int rowStep(int direction) {
+        return direction < 3 ? -1 : direction < 5 ? 0 : 1;
+    }
+
+    /**
+     * Gets the column step of one of the eight directions.
+     * @param direction The direction, 0 to 7
+     * @return -1, 0 or 1
+     */
+    private static int colStep(int direction) {
+        return direction == 0 || direction == 3 || direction == 5 ? -1 : direction == 1 || direction == 6 ? 0 : 1;
+    }
+}
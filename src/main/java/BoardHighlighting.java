@@ -1,24 +1,55 @@
+import javax.swing.SwingUtilities;
 import javax.swing.border.LineBorder;
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Handles the highlighting of cells on the game board.
  * This class is responsible for visually indicating valid moves, selected pieces, and build locations.
+ * 
+ * In the optional hint mode it also labels the engine's best turns for the current
+ * player: the worker, where it moves with the turn's score, and where it builds.
+ * Hints are searched on a background thread and refined after every completed
+ * search depth. Each request gets a generation number, and hints are only drawn
+ * if no newer request or cancellation has happened since, so stale hints never
+ * appear on a newer position.
+ * 
+ * The cells currently highlighted or labelled are remembered, so clearing them
+ * and drawing new highlights touches only the cells around the workers, however
+ * large the board is.
  */
 public class BoardHighlighting {
-    private final GridCell[][] cells;
+    private static final long HINT_TIME_LIMIT_NANOS = 10_000_000_000L;
+    
+    private final CellView[][] cellViews;
     private final GameConfig config;
+    private final NeighbourTable neighbourTable;
+    private final List<CellView> highlightedViews;
+    private final List<CellView> hintedViews;
+    private final Object hintLock = new Object();
+    private int hintCount;
+    private boolean hintsRequested;
+    private long hintedHash;
+    private ExecutorService hintExecutor;
+    private SearchEngine hintEngine;
+    private long hintGeneration;
+    private boolean hintSearching;
     
     /**
      * Creates a new board highlighting manager.
      * 
      * @param config The game configuration
-     * @param cells The grid cells
+     * @param cellViews The views of the grid cells
      */
-    public BoardHighlighting(GameConfig config, GridCell[][] cells) {
+    public BoardHighlighting(GameConfig config, CellView[][] cellViews) {
         this.config = config;
-        this.cells = cells;
+        this.neighbourTable = NeighbourTable.forGridSize(config.getGridSize());
+        this.cellViews = cellViews;
+        this.highlightedViews = new ArrayList<>();
+        this.hintedViews = new ArrayList<>();
     }
     
     /**
@@ -28,15 +59,20 @@ public class BoardHighlighting {
      * @param playerPieces The map of players to their pieces
      */
     public void highlightValidMoves(GameState gameState, java.util.Map<Player, List<Player>> playerPieces) {
-        // First clear all highlights
-        clearAllHighlights();
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.HIGHLIGHT);
+        try {
+            // First clear all highlights
+            clearAllHighlights();
 
-        if (gameState.isGameStarted()) {
-            if (gameState.getSelectedPiece() != null) {
-                highlightSelectedPiece(gameState);
-            } else {
-                highlightCurrentPlayerPieces(gameState, playerPieces);
+            if (gameState.isGameStarted()) {
+                if (gameState.getSelectedPiece() != null) {
+                    highlightSelectedPiece(gameState);
+                } else {
+                    highlightCurrentPlayerPieces(gameState, playerPieces);
+                }
             }
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.HIGHLIGHT, startNanos);
         }
     }
     
@@ -44,11 +80,24 @@ public class BoardHighlighting {
      * Clears all highlights from the board.
      */
     public void clearAllHighlights() {
-        for (int i = 0; i < config.getGridSize(); i++) {
-            for (int j = 0; j < config.getGridSize(); j++) {
-                cells[i][j].getVisualComponent().setBorder(new LineBorder(Color.BLACK, 1));
-            }
+        for (CellView view : highlightedViews) {
+            view.getVisualComponent().setBorder(new LineBorder(Color.BLACK, 1));
         }
+        highlightedViews.clear();
+    }
+    
+    /**
+     * Highlights a cell with a coloured border until the highlights are next cleared.
+     * 
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @param color The border colour
+     * @param thickness The border thickness
+     */
+    private void highlight(int row, int col, Color color, int thickness) {
+        CellView view = cellViews[row][col];
+        view.getVisualComponent().setBorder(new LineBorder(color, thickness));
+        highlightedViews.add(view);
     }
     
     /**
@@ -60,14 +109,15 @@ public class BoardHighlighting {
         // Highlight the selected piece with a yellow border
         int selectedRow = gameState.getSelectedPiece().getRow();
         int selectedCol = gameState.getSelectedPiece().getCol();
-        cells[selectedRow][selectedCol].getVisualComponent().setBorder(new LineBorder(Color.YELLOW, 3));
+        highlight(selectedRow, selectedCol, Color.YELLOW, 3);
         
-        // Highlight valid moves from the selected piece
-        for (int x = 0; x < config.getGridSize(); x++) {
-            for (int y = 0; y < config.getGridSize(); y++) {
-                if (isValidMove(selectedRow, selectedCol, x, y)) {
-                    cells[x][y].getVisualComponent().setBorder(new LineBorder(Color.GREEN, 3));
-                }
+        // Highlight valid moves from the selected piece, which are all next to it
+        int gridSize = neighbourTable.getGridSize();
+        int cell = selectedRow * gridSize + selectedCol;
+        for (int i = 0; i < neighbourTable.count(cell); i++) {
+            int target = neighbourTable.packedNeighbour(cell, i);
+            if (isValidMove(selectedRow, selectedCol, target / gridSize, target % gridSize)) {
+                highlight(target / gridSize, target % gridSize, Color.GREEN, 3);
             }
         }
     }
@@ -81,13 +131,12 @@ public class BoardHighlighting {
     private void highlightCurrentPlayerPieces(GameState gameState, java.util.Map<Player, List<Player>> playerPieces) {
         List<Player> currentPlayerPieces = playerPieces.get(gameState.getCurrentPlayer());
         
-        for (int i = 0; i < config.getGridSize(); i++) {
-            for (int j = 0; j < config.getGridSize(); j++) {
-                GameEntity occupant = cells[i][j].getOccupant();
-                if (occupant != null && currentPlayerPieces.contains(occupant)) {
-                    // Highlight the current player's pieces with a light border
-                    cells[i][j].getVisualComponent().setBorder(new LineBorder(gameState.getCurrentPlayer().getColor().brighter(), 2));
-                }
+        for (Player piece : currentPlayerPieces) {
+            int row = piece.getRow();
+            int col = piece.getCol();
+            if (isValidPosition(row, col) && cellViews[row][col].getCell().getOccupant() == piece) {
+                // Highlight the current player's pieces with a light border
+                highlight(row, col, gameState.getCurrentPlayer().getColor().brighter(), 2);
             }
         }
     }
@@ -99,16 +148,22 @@ public class BoardHighlighting {
      * @param workerCol The column of the worker
      */
     public void highlightValidBuilds(int workerRow, int workerCol) {
-        // First clear all highlights
-        clearAllHighlights();
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.HIGHLIGHT);
+        try {
+            // First clear all highlights
+            clearAllHighlights();
 
-        // Highlight valid build locations
-        for (int i = 0; i < config.getGridSize(); i++) {
-            for (int j = 0; j < config.getGridSize(); j++) {
-                if (isValidBuild(workerRow, workerCol, i, j)) {
-                    cells[i][j].getVisualComponent().setBorder(new LineBorder(Color.GREEN, 2));
+            // Highlight valid build locations, which are all next to the worker
+            int gridSize = neighbourTable.getGridSize();
+            int cell = workerRow * gridSize + workerCol;
+            for (int i = 0; i < neighbourTable.count(cell); i++) {
+                int target = neighbourTable.packedNeighbour(cell, i);
+                if (isValidBuild(workerRow, workerCol, target / gridSize, target % gridSize)) {
+                    highlight(target / gridSize, target % gridSize, Color.GREEN, 2);
                 }
             }
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.HIGHLIGHT, startNanos);
         }
     }
     
@@ -122,24 +177,15 @@ public class BoardHighlighting {
      * @return true if the move is valid, false otherwise
      */
     private boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
-        if (!isValidPosition(toRow, toCol)) return false;
+        // Valid move is one step in any direction (including diagonally), on the board
+        if (!neighbourTable.isAdjacent(fromRow, fromCol, toRow, toCol)) return false;
         
         // Check if target cell is occupied or has a dome
-        GridCell targetCell = cells[toRow][toCol];
+        GridCell targetCell = cellViews[toRow][toCol].getCell();
         if (targetCell.getOccupant() != null || targetCell.hasDome()) return false;
         
-        // Check if the move is within one cell in any direction
-        int rowDiff = Math.abs(fromRow - toRow);
-        int colDiff = Math.abs(fromCol - toCol);
-        
-        // Get source and target cell heights
-        int sourceHeight = cells[fromRow][fromCol].getBuildingLevel();
-        int targetHeight = targetCell.getBuildingLevel();
-        
-        // Valid move is one step in any direction (including diagonally)
-        // but not staying in the same place, and can only move up one level
-        return (rowDiff <= 1 && colDiff <= 1) && !(rowDiff == 0 && colDiff == 0) 
-               && (targetHeight <= sourceHeight + 1);
+        // Can only move up one level
+        return targetCell.getBuildingLevel() <= cellViews[fromRow][fromCol].getCell().getBuildingLevel() + 1;
     }
     
     /**
@@ -152,21 +198,195 @@ public class BoardHighlighting {
      * @return true if the build is valid, false otherwise
      */
     private boolean isValidBuild(int workerRow, int workerCol, int buildRow, int buildCol) {
-        if (!isValidPosition(buildRow, buildCol)) return false;
-        
-        // Check if target cell is adjacent to worker
-        int rowDiff = Math.abs(workerRow - buildRow);
-        int colDiff = Math.abs(workerCol - buildCol);
-        if (rowDiff > 1 || colDiff > 1 || (rowDiff == 0 && colDiff == 0)) return false;
+        // Check if target cell is on the board and adjacent to worker
+        if (!neighbourTable.isAdjacent(workerRow, workerCol, buildRow, buildCol)) return false;
         
         // Check if target cell is occupied or has a dome
-        GridCell targetCell = cells[buildRow][buildCol];
+        GridCell targetCell = cellViews[buildRow][buildCol].getCell();
         if (targetCell.getOccupant() != null || targetCell.hasDome()) return false;
         
         // Check if building level is less than 4
         return targetCell.getBuildingLevel() < 4;
     }
     
+    /**
+     * Marks the cells where another player could win on their next turn by
+     * stepping onto level 3, so the current player can see the danger.
+     * 
+     * @param rows The cells to mark: bit col of rows[row] is set for each one
+     */
+    public void highlightThreats(long[] rows) {
+        for (int row = 0; row < rows.length; row++) {
+            for (long bits = rows[row]; bits != 0; bits &= bits - 1) {
+                highlight(row, Long.numberOfTrailingZeros(bits), Color.RED, 3);
+            }
+        }
+    }
+    
+    /**
+     * Sets how many of the engine's best turns to show as hints.
+     * 
+     * @param count The number of turns to show, or 0 to turn hints off
+     */
+    public void setHintCount(int count) {
+        cancelHints();
+        this.hintCount = count;
+    }
+    
+    /**
+     * Gets how many of the engine's best turns are shown as hints.
+     * @return The number of turns, or 0 if hints are off
+     */
+    public int getHintCount() {
+        return hintCount;
+    }
+    
+    /**
+     * Starts searching hints for a position, replacing any hints for an earlier one.
+     * Returns at once; the hints are drawn as the search deepens. Does nothing if
+     * hints are off or this position's hints are already being shown.
+     * 
+     * @param position The position at the start of the current player's turn
+     */
+    public void requestHints(Position position) {
+        if (hintCount == 0 || (hintsRequested && position.getHash() == hintedHash)) return;
+        cancelHints();
+        hintsRequested = true;
+        hintedHash = position.getHash();
+        
+        if (hintExecutor == null) {
+            hintExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hint-search");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        long generation;
+        synchronized (hintLock) {
+            generation = hintGeneration;
+        }
+        Position snapshot = new Position(position);
+        int count = hintCount;
+        hintExecutor.execute(() -> searchHints(snapshot, count, generation));
+    }
+    
+    /**
+     * Stops any hint search and removes the hints from the board.
+     * Called whenever the board changes.
+     */
+    public void cancelHints() {
+        synchronized (hintLock) {
+            hintGeneration++;
+            if (hintSearching) hintEngine.stop();
+        }
+        hintsRequested = false;
+        clearHintLabels();
+    }
+    
+    /**
+     * Removes every hint label from the board.
+     */
+    private void clearHintLabels() {
+        for (CellView view : hintedViews) {
+            view.setHint(null);
+        }
+        hintedViews.clear();
+    }
+    
+    /**
+     * Searches a position and publishes hints after every iteration.
+     * Runs on the hint thread.
+     * 
+     * @param position The position to search
+     * @param count The number of turns to show
+     * @param generation The request's generation
+     */
+    private void searchHints(Position position, int count, long generation) {
+        synchronized (hintLock) {
+            if (generation != hintGeneration) return;
+            if (hintEngine == null) {
+                Position enginePosition = new Position(position);
+                hintEngine = new SearchEngine(enginePosition, new IncrementalEvaluator(enginePosition));
+            }
+            hintEngine.getPosition().copyFrom(position);
+            hintEngine.setSearchListener((depth, turns, scores, found) ->
+                    publishHints(position, generation, turns, scores, found), count);
+            hintEngine.resetLimits(System.nanoTime() + HINT_TIME_LIMIT_NANOS);
+            hintSearching = true;
+        }
+        hintEngine.searchUntilStopped(SearchEngine.MAX_DEPTH);
+        synchronized (hintLock) {
+            hintSearching = false;
+        }
+    }
+    
+    /**
+     * Turns the best turns of an iteration into cell labels and hands them to the
+     * event dispatch thread. Runs on the hint thread.
+     * 
+     * @param position The searched position
+     * @param generation The request's generation
+     * @param turns The best turns, best first
+     * @param scores Their scores
+     * @param count The number of turns
+     */
+    private void publishHints(Position position, long generation, long[] turns, int[] scores, int count) {
+        String[] labels = new String[position.getCellCount()];
+        for (int i = 0; i < count; i++) {
+            String rank = String.valueOf(i + 1);
+            long turn = turns[i];
+            addLabel(labels, position.getWorkerCell(Turn.worker(turn)), rank + "W");
+            addLabel(labels, Turn.to(turn), rank + ":" + formatScore(scores[i]));
+            if (Turn.build(turn) != Turn.NO_CELL) addLabel(labels, Turn.build(turn), rank + "B");
+            if (Turn.secondBuild(turn) != Turn.NO_CELL) addLabel(labels, Turn.secondBuild(turn), rank + "B");
+        }
+        SwingUtilities.invokeLater(() -> showHints(generation, labels));
+    }
+    
+    /**
+     * Adds a label to a cell, after any it already has.
+     * 
+     * @param labels The labels by cell index
+     * @param cell The cell index
+     * @param label The label to add
+     */
+    private static void addLabel(String[] labels, int cell, String label) {
+        labels[cell] = labels[cell] == null ? label : labels[cell] + " " + label;
+    }
+    
+    /**
+     * Formats a search score for display.
+     * @param score The score for the current player
+     * @return "win", "loss", or the signed score
+     */
+    private static String formatScore(int score) {
+        if (score >= SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH) return "win";
+        if (score <= -(SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH)) return "loss";
+        return (score > 0 ? "+" : "") + score;
+    }
+    
+    /**
+     * Draws hint labels, unless a newer request or cancellation has happened since
+     * they were searched. Runs on the event dispatch thread.
+     * 
+     * @param generation The generation the labels belong to
+     * @param labels The labels by cell index
+     */
+    private void showHints(long generation, String[] labels) {
+        synchronized (hintLock) {
+            if (generation != hintGeneration) return;
+        }
+        clearHintLabels();
+        int size = config.getGridSize();
+        for (int cell = 0; cell < labels.length; cell++) {
+            if (labels[cell] != null) {
+                CellView view = cellViews[cell / size][cell % size];
+                view.setHint(labels[cell]);
+                hintedViews.add(view);
+            }
+        }
+    }
+    
     /**
      * Checks if a position is within the bounds of the grid.
      * @param row The row position
@@ -174,6 +394,6 @@ public class BoardHighlighting {
      * @return true if the position is valid, false otherwise
      */
     private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < config.getGridSize() && col >= 0 && col < config.getGridSize();
+        return neighbourTable.contains(row, col);
     }
 } 
\ No newline at end of file
@@ -1,4 +1,6 @@
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,42 +10,70 @@ import java.util.Map;
  * This class is responsible for managing game rules, piece movement, and building.
  */
 public class BoardLogic {
-    private final GridCell[][] cells;
+    // One 0xRRGGBB colour per player, up to GameConfig.MAX_PLAYERS: red, blue, green, yellow,
+    // magenta, cyan, orange, purple, teal, brown, pink, olive, navy, maroon, lime and grey
+    private static final int[] PLAYER_COLORS = {0xFF0000, 0x0000FF, 0x00FF00, 0xFFFF00, 0xFF00FF, 0x00FFFF,
+            0xFF8000, 0x8000FF, 0x008080, 0x8B4513, 0xFF69B4, 0x808000, 0x000080, 0x800000, 0x80FF00, 0x808080};
+    // Cells are stored in square chunks of this many per side, created on first access
+    private static final int CHUNK_SIZE = 8;
+
+    private final GridCell[][] chunks;
+    private final int chunksPerRow;
+    private final CellJournal cellJournal;
     private final GameConfig config;
+    private final NeighbourTable neighbourTable;
     private final GameState gameState;
     private final List<GameEntity> entities;
     private final List<Player> players;
     private final Map<Player, List<Player>> playerPieces;
     private final Map<Player, Integer> piecesPlaced;
+    private final WorkerRegistry workers;
+    private final MobilityIndex mobilityIndex;
+    private final List<GameAction> history; // Every accepted action in order, enough to replay the game
+    private CellListener changeListener; // Told about every cell change after the indexes, or null
+    private GameEntity displacedEntity; // Entity that stood on the target of the move in progress
+    private BoardSnapshot openSnapshot; // Snapshot recording cell changes, while a batch is applied
+    private final GodRules[] godRules; // Per player, rebuilt whenever the player's God Card changes
+    private boolean hookElisionEnabled;
     
     /**
-     * Creates a new board logic manager.
+     * Creates a new board logic manager with an empty grid.
+     * The grid cells are plain model objects, so no UI is required. They are
+     * created a chunk at a time as they are first used, so a large board that is
+     * mostly empty costs little.
      * 
      * @param config The game configuration
-     * @param cells The grid cells
      * @param gameState The game state
      */
-    public BoardLogic(GameConfig config, GridCell[][] cells, GameState gameState) {
+    public BoardLogic(GameConfig config, GameState gameState) {
         this.config = config;
-        this.cells = cells;
+        this.neighbourTable = NeighbourTable.forGridSize(config.getGridSize());
+        this.chunksPerRow = (config.getGridSize() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        this.chunks = new GridCell[chunksPerRow * chunksPerRow][];
+        this.cellJournal = new CellJournal();
+        this.godRules = new GodRules[config.getNumPlayers()];
+        this.hookElisionEnabled = true;
         this.gameState = gameState;
         this.entities = new ArrayList<>();
         this.players = new ArrayList<>();
         this.playerPieces = new HashMap<>();
         this.piecesPlaced = new HashMap<>();
+        this.history = new ArrayList<>();
         
         // Initialize players
         initializePlayers();
+        
+        // Track workers and their move counts as cells change, for constant-time lookups and trap checks
+        this.workers = new WorkerRegistry(config.getGridSize(), players, playerPieces);
+        this.mobilityIndex = new MobilityIndex(this, players, workers);
     }
     
     /**
      * Initializes the players and their pieces.
      */
     private void initializePlayers() {
-        java.awt.Color[] playerColors = {java.awt.Color.RED, java.awt.Color.BLUE, java.awt.Color.GREEN, 
-                                         java.awt.Color.YELLOW, java.awt.Color.MAGENTA, java.awt.Color.CYAN};
         for (int i = 0; i < config.getNumPlayers(); i++) {
-            java.awt.Color playerColor = playerColors[i % playerColors.length];
+            int playerColor = PLAYER_COLORS[i % PLAYER_COLORS.length];
             Player player = new Player(playerColor, "Player " + (i + 1));
             players.add(player);
             
@@ -70,18 +100,35 @@ public class BoardLogic {
      * @return true if the entity was added successfully, false otherwise
      */
     public boolean addEntity(GameEntity entity, int row, int col) {
-        if (isValidPosition(row, col) && cells[row][col].getOccupant() == null) {
-            // Place the entity on the board
-            cells[row][col].setOccupant(entity);
-            entity.setPosition(row, col);
-            entities.add(entity);
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.ADD_ENTITY);
+        try {
+            if (isValidPosition(row, col) && getCell(row, col).getOccupant() == null) {
+                // Place the entity on the board
+                getCell(row, col).setOccupant(entity);
+                entity.setPosition(row, col);
+                entities.add(entity);
+                history.add(GameAction.place(row, col));
             
-            // Update placement state
-            updatePlacementState();
+                // Update placement state
+                updatePlacementState();
             
-            return true;
+                return true;
+            }
+            GameMetrics.recordRejection(isValidPosition(row, col) ? RejectionReason.OCCUPIED : RejectionReason.OUT_OF_BOUNDS,
+                    getPlacingPlayerGodCard());
+            return false;
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.ADD_ENTITY, startNanos);
         }
-        return false;
+    }
+    
+    /**
+     * Gets the God Card of the player whose placement turn it is.
+     * @return The God Card, or null if the player has none or placement is over
+     */
+    private GodCard getPlacingPlayerGodCard() {
+        int index = gameState.getCurrentPlayerPlacementIndex();
+        return index < players.size() ? players.get(index).getGodCard() : null;
     }
     
     /**
@@ -107,7 +154,15 @@ public class BoardLogic {
      * Starts the game after all pieces have been placed.
      */
     public void startGame() {
+        // Pick up any God Cards assigned while the pieces were being placed
+        mobilityIndex.rebuild();
         gameState.startGame(players, config.getMovesPerTurn());
+        
+        // A first player boxed in by the placements is trapped like any other,
+        // and loses to the player before them
+        if (!hasValidMoves(gameState.getCurrentPlayer())) {
+            gameState.endGame(players.get(players.size() - 1));
+        }
     }
     
     /**
@@ -121,51 +176,150 @@ public class BoardLogic {
     public boolean moveEntity(GameEntity entity, int toRow, int toCol) {
         if (entity == null) return false;
 
-        int fromRow = entity.getRow();
-        int fromCol = entity.getCol();
-        Player currentPlayer = gameState.getCurrentPlayer();
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.MOVE_ENTITY);
+        try {
+            int fromRow = entity.getRow();
+            int fromCol = entity.getCol();
+            Player currentPlayer = gameState.getCurrentPlayer();
+            GodRules rules = getGodRules(currentPlayer);
+            GodCard godCard = rules.godCard;
         
-        // Check if move is valid according to the player's God Card rules
-        if (currentPlayer != null && currentPlayer.getGodCard() != null) {
-            GodCard godCard = currentPlayer.getGodCard();
-            
             // Execute any pre-move actions
-            godCard.beforeMove(this, fromRow, fromCol, toRow, toCol);
-            
-            // Check if move is valid according to God Card rules
-            if (!godCard.isValidMove(this, fromRow, fromCol, toRow, toCol)) {
+            if (rules.beforeMove) {
+                godCard.beforeMove(this, fromRow, fromCol, toRow, toCol);
+            }
+        
+            // Check if move is valid according to the player's God Card rules
+            boolean valid = rules.moveRule
+                    ? godCard.isValidMove(this, fromRow, fromCol, toRow, toCol)
+                    : isValidMove(fromRow, fromCol, toRow, toCol);
+            if (!valid) {
+                GameMetrics.recordRejection(getMoveRejectionReason(fromRow, fromCol, toRow, toCol), godCard);
                 return false;
             }
-        } else if (!isValidMove(fromRow, fromCol, toRow, toCol)) {
-            return false;
-        }
 
-        // Get the source and destination cells
-        GridCell sourceCell = getCell(fromRow, fromCol);
-        GridCell destCell = getCell(toRow, toCol);
+            // Get the source and destination cells
+            GridCell sourceCell = getCell(fromRow, fromCol);
+            GridCell destCell = getCell(toRow, toCol);
 
-        // Move the entity
-        sourceCell.setOccupant(null);
-        destCell.setOccupant(entity);
-        entity.setPosition(toRow, toCol);
+            // Move the entity, remembering anything it displaced for the God Card to deal with
+            displacedEntity = destCell.getOccupant();
+            sourceCell.setOccupant(null);
+            destCell.setOccupant(entity);
+            entity.setPosition(toRow, toCol);
+            history.add(GameAction.move(fromRow, fromCol, toRow, toCol));
 
-        // Execute any post-move actions if player has a God Card
-        if (currentPlayer != null && currentPlayer.getGodCard() != null) {
-            currentPlayer.getGodCard().afterMove(this, fromRow, fromCol, toRow, toCol);
-        }
+            // Execute any post-move actions
+            if (rules.afterMove) {
+                godCard.afterMove(this, fromRow, fromCol, toRow, toCol);
+            }
+            displacedEntity = null;
 
-        // Check for winning condition - moving from lower level to level 3
-        if (sourceCell.getBuildingLevel() < 3 && destCell.getBuildingLevel() == 3) {
-            gameState.endGame(gameState.getCurrentPlayer());
+            // Check for winning condition - moving from lower level to level 3
+            boolean winning = sourceCell.getBuildingLevel() < 3 && destCell.getBuildingLevel() == 3;
+            MoveActionEvent moveEvent = new MoveActionEvent();
+            if (moveEvent.shouldCommit()) {
+                moveEvent.player = currentPlayer != null ? currentPlayer.getName() : null;
+                moveEvent.godCard = godCardName(currentPlayer);
+                moveEvent.fromRow = fromRow;
+                moveEvent.fromCol = fromCol;
+                moveEvent.toRow = toRow;
+                moveEvent.toCol = toCol;
+                moveEvent.winning = winning;
+                moveEvent.commit();
+            }
+            if (winning) {
+                gameState.endGame(gameState.getCurrentPlayer());
+                return true;
+            }
+        
+            // A worker with nowhere to build, which can happen after an Apollo swap,
+            // loses like a trapped player: to the player before
+            if (!hasValidBuild(rules, toRow, toCol)) {
+                int previousIndex = (gameState.getCurrentPlayerIndex() - 1 + players.size()) % players.size();
+                gameState.endGame(players.get(previousIndex));
+                return true;
+            }
+
+            // Enter build phase after successful move (only if game is not over)
+            if (!gameState.isGameOver()) {
+                gameState.setInBuildPhase(true);
+            }
+        
             return true;
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.MOVE_ENTITY, startNanos);
         }
-
-        // Enter build phase after successful move (only if game is not over)
-        if (!gameState.isGameOver()) {
-            gameState.setInBuildPhase(true);
+    }
+    
+    /**
+     * Checks whether a worker that has just moved can build anywhere.
+     * 
+     * @param rules The rules of the worker's player
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @return true if at least one neighbouring cell can be built on
+     */
+    private boolean hasValidBuild(GodRules rules, int workerRow, int workerCol) {
+        int gridSize = config.getGridSize();
+        int cell = workerRow * gridSize + workerCol;
+        for (int i = 0; i < neighbourTable.count(cell); i++) {
+            int target = neighbourTable.packedNeighbour(cell, i);
+            int row = target / gridSize;
+            int col = target % gridSize;
+            boolean valid = rules.buildRule
+                    ? rules.godCard.isValidBuild(this, workerRow, workerCol, row, col)
+                    : isValidBuild(workerRow, workerCol, row, col);
+            if (valid) return true;
         }
-        
-        return true;
+        return false;
+    }
+    
+    /**
+     * Gets the name of a player's God Card for event recording.
+     * @param player The player, or null
+     * @return The God Card's name, or null if there is none
+     */
+    private static String godCardName(Player player) {
+        return player != null && player.getGodCard() != null ? player.getGodCard().getName() : null;
+    }
+    
+    /**
+     * Works out why a move was rejected, for metrics.
+     * Only called on the rejection path, so it does not slow down legal moves.
+     * 
+     * @param fromRow The starting row
+     * @param fromCol The starting column
+     * @param toRow The target row
+     * @param toCol The target column
+     * @return The first standard rule the move breaks, or GOD_RULE if it breaks none
+     */
+    private RejectionReason getMoveRejectionReason(int fromRow, int fromCol, int toRow, int toCol) {
+        if (!isValidPosition(toRow, toCol)) return RejectionReason.OUT_OF_BOUNDS;
+        if (!neighbourTable.isAdjacent(fromRow, fromCol, toRow, toCol)) return RejectionReason.NOT_ADJACENT;
+        GridCell targetCell = getCell(toRow, toCol);
+        if (targetCell.hasDome()) return RejectionReason.DOME;
+        if (targetCell.getOccupant() != null) return RejectionReason.OCCUPIED;
+        if (targetCell.getBuildingLevel() > getCell(fromRow, fromCol).getBuildingLevel() + 1) return RejectionReason.TOO_HIGH;
+        return RejectionReason.GOD_RULE;
+    }
+    
+    /**
+     * Works out why a build was rejected, for metrics.
+     * 
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @param buildRow The row to build on
+     * @param buildCol The column to build on
+     * @return The first standard rule the build breaks, or GOD_RULE if it breaks none
+     */
+    private RejectionReason getBuildRejectionReason(int workerRow, int workerCol, int buildRow, int buildCol) {
+        if (!isValidPosition(buildRow, buildCol)) return RejectionReason.OUT_OF_BOUNDS;
+        if (!neighbourTable.isAdjacent(workerRow, workerCol, buildRow, buildCol)) return RejectionReason.NOT_ADJACENT;
+        GridCell targetCell = getCell(buildRow, buildCol);
+        if (targetCell.hasDome()) return RejectionReason.DOME;
+        if (targetCell.getOccupant() != null) return RejectionReason.OCCUPIED;
+        return RejectionReason.GOD_RULE;
     }
     
     /**
@@ -178,24 +332,15 @@ public class BoardLogic {
      * @return true if the move is valid, false otherwise
      */
     public boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
-        if (!isValidPosition(toRow, toCol)) return false;
+        // Valid move is one step in any direction (including diagonally), on the board
+        if (!neighbourTable.isAdjacent(fromRow, fromCol, toRow, toCol)) return false;
         
         // Check if target cell is occupied or has a dome
-        GridCell targetCell = cells[toRow][toCol];
+        GridCell targetCell = getCell(toRow, toCol);
         if (targetCell.getOccupant() != null || targetCell.hasDome()) return false;
         
-        // Check if the move is within one cell in any direction
-        int rowDiff = Math.abs(fromRow - toRow);
-        int colDiff = Math.abs(fromCol - toCol);
-        
-        // Get source and target cell heights
-        int sourceHeight = cells[fromRow][fromCol].getBuildingLevel();
-        int targetHeight = targetCell.getBuildingLevel();
-        
-        // Valid move is one step in any direction (including diagonally)
-        // but not staying in the same place, and can only move up one level
-        return (rowDiff <= 1 && colDiff <= 1) && !(rowDiff == 0 && colDiff == 0) 
-               && (targetHeight <= sourceHeight + 1);
+        // Can only move up one level
+        return targetCell.getBuildingLevel() <= getCell(fromRow, fromCol).getBuildingLevel() + 1;
     }
     
     /**
@@ -208,15 +353,11 @@ public class BoardLogic {
      * @return true if the build is valid, false otherwise
      */
     public boolean isValidBuild(int workerRow, int workerCol, int buildRow, int buildCol) {
-        if (!isValidPosition(buildRow, buildCol)) return false;
-        
-        // Check if target cell is adjacent to worker
-        int rowDiff = Math.abs(workerRow - buildRow);
-        int colDiff = Math.abs(workerCol - buildCol);
-        if (rowDiff > 1 || colDiff > 1 || (rowDiff == 0 && colDiff == 0)) return false;
+        // Check if target cell is on the board and adjacent to worker
+        if (!neighbourTable.isAdjacent(workerRow, workerCol, buildRow, buildCol)) return false;
         
         // Check if target cell is occupied or has a dome
-        GridCell targetCell = cells[buildRow][buildCol];
+        GridCell targetCell = getCell(buildRow, buildCol);
         if (targetCell.getOccupant() != null || targetCell.hasDome()) return false;
         
         // Check if building level is less than 4
@@ -233,39 +374,228 @@ public class BoardLogic {
      * @return true if the build was successful, false otherwise
      */
     public boolean build(int workerRow, int workerCol, int buildRow, int buildCol) {
-        Player currentPlayer = gameState.getCurrentPlayer();
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.BUILD);
+        try {
+            Player currentPlayer = gameState.getCurrentPlayer();
+            GodRules rules = getGodRules(currentPlayer);
+            GodCard godCard = rules.godCard;
         
-        // Check if build is valid according to the player's God Card rules
-        if (currentPlayer != null && currentPlayer.getGodCard() != null) {
-            GodCard godCard = currentPlayer.getGodCard();
-            
             // Execute any pre-build actions
-            godCard.beforeBuild(this, workerRow, workerCol, buildRow, buildCol);
-            
-            // Check if build is valid according to God Card rules
-            if (!godCard.isValidBuild(this, workerRow, workerCol, buildRow, buildCol)) {
+            if (rules.beforeBuild) {
+                godCard.beforeBuild(this, workerRow, workerCol, buildRow, buildCol);
+            }
+        
+            // Check if build is valid according to the player's God Card rules
+            boolean valid = rules.buildRule
+                    ? godCard.isValidBuild(this, workerRow, workerCol, buildRow, buildCol)
+                    : isValidBuild(workerRow, workerCol, buildRow, buildCol);
+            if (!valid) {
+                GameMetrics.recordRejection(getBuildRejectionReason(workerRow, workerCol, buildRow, buildCol), godCard);
                 return false;
             }
-        } else if (!isValidBuild(workerRow, workerCol, buildRow, buildCol)) {
-            return false;
-        }
 
-        GridCell targetCell = cells[buildRow][buildCol];
-        int currentLevel = targetCell.getBuildingLevel();
-        targetCell.setBuildingLevel(currentLevel + 1);
+            GridCell targetCell = getCell(buildRow, buildCol);
+            int currentLevel = targetCell.getBuildingLevel();
+            targetCell.setBuildingLevel(currentLevel + 1);
+            history.add(GameAction.build(workerRow, workerCol, buildRow, buildCol));
+        
+            BuildActionEvent buildEvent = new BuildActionEvent();
+            if (buildEvent.shouldCommit()) {
+                buildEvent.player = currentPlayer != null ? currentPlayer.getName() : null;
+                buildEvent.godCard = godCardName(currentPlayer);
+                buildEvent.buildRow = buildRow;
+                buildEvent.buildCol = buildCol;
+                buildEvent.level = currentLevel + 1;
+                buildEvent.commit();
+            }
 
-        // Execute any post-build actions if player has a God Card
-        if (currentPlayer != null && currentPlayer.getGodCard() != null) {
-            currentPlayer.getGodCard().afterBuild(this, workerRow, workerCol, buildRow, buildCol);
+            // Execute any post-build actions
+            if (rules.afterBuild) {
+                godCard.afterBuild(this, workerRow, workerCol, buildRow, buildCol);
+            }
+        
+            // Stay in the build phase while the God Card offers another build
+            if (rules.extraBuild && godCard.hasExtraBuild(this)) {
+                return true;
+            }
+        
+            // Exit build phase and switch turns
+            gameState.setInBuildPhase(false);
+            gameState.switchToNextPlayer(players, config.getMovesPerTurn(), this);
+        
+            return true;
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.BUILD, startNanos);
+        }
+    }
+    
+    /**
+     * Places the next unplaced piece of the player whose placement turn it is.
+     * 
+     * @param row The row position
+     * @param col The column position
+     * @return true if the piece was placed, false if the placement is illegal
+     */
+    public boolean placeNextPiece(int row, int col) {
+        if (gameState.isGameStarted() || gameState.isGameOver()) {
+            GameMetrics.recordRejection(RejectionReason.WRONG_PHASE, null);
+            return false;
+        }
+        
+        Player placingPlayer = players.get(gameState.getCurrentPlayerPlacementIndex());
+        List<Player> pieces = playerPieces.get(placingPlayer);
+        int placed = piecesPlaced.get(placingPlayer);
+        if (placed >= pieces.size()) {
+            GameMetrics.recordRejection(RejectionReason.WRONG_PHASE, placingPlayer.getGodCard());
+            return false;
+        }
+        
+        return addEntity(pieces.get(placed), row, col);
+    }
+    
+    /**
+     * Moves one of the current player's workers, enforcing the turn order.
+     * The moved worker becomes the selected piece that must build afterwards.
+     * 
+     * @param fromRow The row of the worker
+     * @param fromCol The column of the worker
+     * @param toRow The target row
+     * @param toCol The target column
+     * @return true if the worker was moved, false if the move is illegal
+     */
+    public boolean moveWorker(int fromRow, int fromCol, int toRow, int toCol) {
+        if (!gameState.isGameStarted() || gameState.isGameOver() || gameState.isInBuildPhase()) {
+            GameMetrics.recordRejection(RejectionReason.WRONG_PHASE, getCurrentPlayerGodCard());
+            return false;
+        }
+        if (!isValidPosition(fromRow, fromCol)) {
+            GameMetrics.recordRejection(RejectionReason.OUT_OF_BOUNDS, getCurrentPlayerGodCard());
+            return false;
+        }
+        
+        GameEntity occupant = getCell(fromRow, fromCol).getOccupant();
+        if (!isCurrentPlayerWorker(occupant)) {
+            GameMetrics.recordRejection(RejectionReason.NOT_OWN_WORKER, getCurrentPlayerGodCard());
+            return false;
+        }
+        
+        Player worker = (Player) occupant;
+        Player previousSelection = gameState.getSelectedPiece();
+        gameState.setSelectedPiece(worker);
+        if (!moveEntity(worker, toRow, toCol)) {
+            gameState.setSelectedPiece(previousSelection);
+            return false;
+        }
+        return true;
+    }
+    
+    /**
+     * Builds with the worker that moved this turn, enforcing the turn order.
+     * 
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @param buildRow The row to build on
+     * @param buildCol The column to build on
+     * @return true if the build succeeded, false if it is illegal
+     */
+    public boolean buildWithSelectedWorker(int workerRow, int workerCol, int buildRow, int buildCol) {
+        if (gameState.isGameOver() || !gameState.isInBuildPhase()) {
+            GameMetrics.recordRejection(RejectionReason.WRONG_PHASE, getCurrentPlayerGodCard());
+            return false;
         }
         
-        // Exit build phase and switch turns
+        Player worker = gameState.getSelectedPiece();
+        if (worker == null || worker.getRow() != workerRow || worker.getCol() != workerCol) {
+            GameMetrics.recordRejection(RejectionReason.NOT_OWN_WORKER, getCurrentPlayerGodCard());
+            return false;
+        }
+        
+        return build(workerRow, workerCol, buildRow, buildCol);
+    }
+    
+    /**
+     * Ends the current player's turn without taking an optional extra build,
+     * such as Demeter's second build.
+     * 
+     * @return true if the turn ended, false if no optional build was pending
+     */
+    public boolean endTurn() {
+        GodRules rules = getGodRules(gameState.getCurrentPlayer());
+        GodCard godCard = rules.godCard;
+        if (gameState.isGameOver() || !gameState.isInBuildPhase() || !rules.extraBuild || !godCard.hasExtraBuild(this)) {
+            GameMetrics.recordRejection(RejectionReason.WRONG_PHASE, godCard);
+            return false;
+        }
+        
+        history.add(GameAction.endTurn());
         gameState.setInBuildPhase(false);
         gameState.switchToNextPlayer(players, config.getMovesPerTurn(), this);
-        
         return true;
     }
     
+    /**
+     * Gets the God Card of the current player.
+     * @return The God Card, or null if there is no current player or they have none
+     */
+    private GodCard getCurrentPlayerGodCard() {
+        Player currentPlayer = gameState.getCurrentPlayer();
+        return currentPlayer != null ? currentPlayer.getGodCard() : null;
+    }
+    
+    /**
+     * Applies a single action, enforcing the turn order.
+     * 
+     * @param action The action to apply
+     * @return true if the action was legal and applied, false otherwise
+     */
+    public boolean applyAction(GameAction action) {
+        switch (action.getType()) {
+            case PLACE:
+                return placeNextPiece(action.getToRow(), action.getToCol());
+            case MOVE:
+                return moveWorker(action.getFromRow(), action.getFromCol(), action.getToRow(), action.getToCol());
+            case BUILD:
+                return buildWithSelectedWorker(action.getFromRow(), action.getFromCol(),
+                        action.getToRow(), action.getToCol());
+            case END_TURN:
+                return endTurn();
+            default:
+                return false;
+        }
+    }
+    
+    /**
+     * Applies a batch of actions atomically.
+     * The actions are applied in order straight through the rules; if any of them is
+     * illegal the board and game state are restored to exactly how they were before the call.
+     * A batch may be applied while another is open, as by a change listener: if the
+     * inner batch fails only its own actions are undone, and if it succeeds its
+     * changes become part of the outer batch, undone with it if that fails later.
+     * 
+     * @param actions The actions to apply
+     * @return -1 if every action was applied, otherwise the index of the first illegal action
+     */
+    public int applyBatch(List<GameAction> actions) {
+        if (actions.isEmpty()) return -1;
+        
+        BoardSnapshot outerSnapshot = openSnapshot;
+        BoardSnapshot snapshot = new BoardSnapshot();
+        openSnapshot = snapshot;
+        try {
+            for (int i = 0; i < actions.size(); i++) {
+                if (!applyAction(actions.get(i))) {
+                    openSnapshot = null;
+                    snapshot.restore();
+                    return i;
+                }
+            }
+            if (outerSnapshot != null) snapshot.mergeInto(outerSnapshot);
+            return -1;
+        } finally {
+            openSnapshot = outerSnapshot;
+        }
+    }
+    
     /**
      * Checks if a position is within the bounds of the grid.
      * @param row The row position
@@ -273,7 +603,7 @@ public class BoardLogic {
      * @return true if the position is valid, false otherwise
      */
     private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < config.getGridSize() && col >= 0 && col < config.getGridSize();
+        return neighbourTable.contains(row, col);
     }
     
     /**
@@ -283,7 +613,54 @@ public class BoardLogic {
      * @return The cell at the specified position
      */
     public GridCell getCell(int row, int col) {
-        return cells[row][col];
+        int chunkIndex = (row / CHUNK_SIZE) * chunksPerRow + col / CHUNK_SIZE;
+        GridCell[] chunk = chunks[chunkIndex];
+        if (chunk == null) {
+            chunk = createChunk(chunkIndex);
+        }
+        return chunk[(row % CHUNK_SIZE) * CHUNK_SIZE + col % CHUNK_SIZE];
+    }
+    
+    /**
+     * Copies the building level of every cell into an array indexed by
+     * row * gridSize + col. Only cells that have been created are read: the
+     * rest have never been built on, so their entries are left at 0 and no
+     * chunk is created.
+     * 
+     * @param levels Receives the levels; must start out all 0
+     */
+    public void copyBuildingLevels(byte[] levels) {
+        int gridSize = config.getGridSize();
+        for (GridCell[] chunk : chunks) {
+            if (chunk == null) continue;
+            for (GridCell cell : chunk) {
+                if (cell != null) levels[cell.getRow() * gridSize + cell.getCol()] = (byte) cell.getBuildingLevel();
+            }
+        }
+    }
+    
+    /**
+     * Creates the cells of a chunk and starts tracking their changes.
+     * Cells of a chunk that fall outside the grid are left null.
+     * 
+     * @param chunkIndex The index of the chunk
+     * @return The chunk's cells
+     */
+    private GridCell[] createChunk(int chunkIndex) {
+        GridCell[] chunk = new GridCell[CHUNK_SIZE * CHUNK_SIZE];
+        int firstRow = (chunkIndex / chunksPerRow) * CHUNK_SIZE;
+        int firstCol = (chunkIndex % chunksPerRow) * CHUNK_SIZE;
+        int lastRow = Math.min(firstRow + CHUNK_SIZE, config.getGridSize());
+        int lastCol = Math.min(firstCol + CHUNK_SIZE, config.getGridSize());
+        for (int row = firstRow; row < lastRow; row++) {
+            for (int col = firstCol; col < lastCol; col++) {
+                GridCell cell = new GridCell(row, col);
+                cell.setIndexListener(cellJournal);
+                chunk[(row - firstRow) * CHUNK_SIZE + col - firstCol] = cell;
+            }
+        }
+        chunks[chunkIndex] = chunk;
+        return chunk;
     }
     
     /**
@@ -314,39 +691,182 @@ public class BoardLogic {
     
     /**
      * Checks if a player has any valid moves available.
-     * Used to determine if a player is trapped and should lose.
+     * Used to determine if a player is trapped and should lose. Answered in
+     * constant time from the mobility index, which checks moves with the
+     * player's God Card.
      * 
      * @param player The player to check for valid moves
      * @return true if the player has at least one valid move, false if trapped
      */
     public boolean hasValidMoves(Player player) {
-        List<Player> pieces = playerPieces.get(player);
-        
-        // Check each piece of the player
-        for (Player piece : pieces) {
-            int pieceRow = piece.getRow();
-            int pieceCol = piece.getCol();
-            
-            // Check all adjacent cells
-            for (int i = -1; i <= 1; i++) {
-                for (int j = -1; j <= 1; j++) {
-                    if (i == 0 && j == 0) continue; // Skip current position
-                    
-                    int targetRow = pieceRow + i;
-                    int targetCol = pieceCol + j;
-                    
-                    // If there's a valid move available, the player is not trapped
-                    if (isValidMove(pieceRow, pieceCol, targetRow, targetCol)) {
-                        return true;
-                    }
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.HAS_VALID_MOVES);
+        try {
+            boolean hasMoves = mobilityIndex.getPlayerMoveCount(player) > 0;
+            return hasMoves;
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.HAS_VALID_MOVES, startNanos);
+        }
+    }
+
+    /**
+     * Checks if a move is valid for one of a player's workers: under the player's
+     * God Card rule if it has one, otherwise under the standard rules.
+     * 
+     * @param playerIndex The index of the player whose worker moves
+     * @param fromRow The starting row
+     * @param fromCol The starting column
+     * @param toRow The target row
+     * @param toCol The target column
+     * @return true if the move is valid, false otherwise
+     */
+    public boolean isValidMoveFor(int playerIndex, int fromRow, int fromCol, int toRow, int toCol) {
+        GodRules rules = getGodRules(playerIndex);
+        return rules.moveRule
+                ? rules.godCard.isValidMove(this, fromRow, fromCol, toRow, toCol)
+                : isValidMove(fromRow, fromCol, toRow, toCol);
+    }
+    
+    /**
+     * Turns skipping of the God Card hooks a card does not use on or off.
+     * On by default; turning it off calls every hook of every card, as a baseline
+     * for benchmarks.
+     * 
+     * @param enabled Whether to skip unused hooks
+     */
+    public void setHookElisionEnabled(boolean enabled) {
+        this.hookElisionEnabled = enabled;
+        Arrays.fill(godRules, null);
+    }
+    
+    /**
+     * Gets the rules of a player's God Card, building them on first use and again
+     * whenever the player's card has changed.
+     * 
+     * @param player The player, may be null
+     * @return The player's rules
+     */
+    private GodRules getGodRules(Player player) {
+        int index = workers.getPlayerIndex(player);
+        return index != WorkerRegistry.NONE ? getGodRules(index) : GodRules.STANDARD;
+    }
+    
+    /**
+     * Gets the rules of a player's God Card, building them on first use and again
+     * whenever the player's card has changed.
+     * 
+     * @param playerIndex The index of the player
+     * @return The player's rules
+     */
+    private GodRules getGodRules(int playerIndex) {
+        GodCard godCard = players.get(playerIndex).getGodCard();
+        GodRules rules = godRules[playerIndex];
+        if (rules == null || rules.godCard != godCard) {
+            rules = new GodRules(godCard, hookElisionEnabled);
+            godRules[playerIndex] = rules;
+        }
+        return rules;
+    }
+    
+    /**
+     * Marks the cells a player could win on by moving next: the level-3 cells next
+     * to one of its workers on level 2 that the worker may enter under the player's
+     * God Card. Only the workers' neighbourhoods are looked at, so the cost does
+     * not depend on the grid size.
+     * 
+     * @param playerIndex The index of the player
+     * @param rows Receives the cells: bit col of rows[row] is set for each one,
+     *             in addition to any bits already set
+     * @return The number of cells newly marked
+     */
+    public int threatenedSquares(int playerIndex, long[] rows) {
+        int count = 0;
+        for (int worker = 0; worker < workers.getWorkerCount(); worker++) {
+            if (workers.getOwner(worker) != playerIndex || workers.getRow(worker) == WorkerRegistry.NONE) continue;
+            int row = workers.getRow(worker);
+            int col = workers.getCol(worker);
+            if (getCell(row, col).getBuildingLevel() != 2) continue;
+            int cell = row * config.getGridSize() + col;
+            for (int i = 0; i < neighbourTable.count(cell); i++) {
+                int target = neighbourTable.packedNeighbour(cell, i);
+                int toRow = target / config.getGridSize();
+                int toCol = target % config.getGridSize();
+                long bit = 1L << toCol;
+                if ((rows[toRow] & bit) != 0 || getCell(toRow, toCol).getBuildingLevel() != 3) continue;
+                if (isValidMoveFor(playerIndex, row, col, toRow, toCol)) {
+                    rows[toRow] |= bit;
+                    count++;
                 }
             }
         }
-        
-        // If we get here, no valid moves were found
-        return false;
+        return count;
+    }
+
+    /**
+     * Checks if an entity is one of the current player's workers.
+     * @param entity The entity to check, may be null
+     * @return true if the entity is a worker owned by the current player
+     */
+    public boolean isCurrentPlayerWorker(GameEntity entity) {
+        int worker = workers.getWorkerId(entity);
+        return worker != WorkerRegistry.NONE && players.get(workers.getOwner(worker)) == gameState.getCurrentPlayer();
     }
 
+    /**
+     * Gets every action accepted so far, placements included, in the order they
+     * were played. Applying them with applyAction to a new board whose players
+     * hold the same God Cards replays the game.
+     * @return A read-only view of the history
+     */
+    public List<GameAction> getHistory() {
+        return Collections.unmodifiableList(history);
+    }
+
+    /**
+     * Gets the registry of the board's workers.
+     * @return The worker registry
+     */
+    public WorkerRegistry getWorkerRegistry() {
+        return workers;
+    }
+
+    /**
+     * Gets the index of legal move counts per worker.
+     * @return The mobility index
+     */
+    public MobilityIndex getMobilityIndex() {
+        return mobilityIndex;
+    }
+
+    /**
+     * Gets the entity that stood on the destination of the move being applied.
+     * Only meaningful inside GodCard.afterMove, where a God Card that lets workers
+     * move into occupied spaces must relocate it.
+     * 
+     * @return The displaced entity, or null if the destination was empty
+     */
+    public GameEntity getDisplacedEntity() {
+        return displacedEntity;
+    }
+
+    /**
+     * Sets the listener told about every cell change on the board, once the
+     * worker registry and mobility index have seen it. Unlike a view's cell
+     * listener it also hears about cells that have not been created yet when
+     * it is set.
+     * @param changeListener The listener, or null for none
+     */
+    public void setChangeListener(CellListener changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Gets the neighbourhoods of the cells of this board's grid size.
+     * @return The shared neighbour table
+     */
+    public NeighbourTable getNeighbourTable() {
+        return neighbourTable;
+    }
+    
     /**
      * Gets the game configuration.
      * @return The game configuration
@@ -362,4 +882,182 @@ public class BoardLogic {
     public GameState getGameState() {
         return gameState;
     }
-} 
\ No newline at end of file
+
+    /**
+     * The rule pipeline of one player: which of their God Card's rules and hooks
+     * to call. Built from the card's capability flags, so hooks it does not use
+     * are skipped rather than called as empty defaults.
+     */
+    private static final class GodRules {
+        static final GodRules STANDARD = new GodRules(null, true);
+        
+        final GodCard godCard;
+        final boolean moveRule;
+        final boolean buildRule;
+        final boolean beforeMove;
+        final boolean afterMove;
+        final boolean beforeBuild;
+        final boolean afterBuild;
+        final boolean extraBuild;
+        
+        /**
+         * Builds the rules of a God Card.
+         * 
+         * @param godCard The card, or null for the standard rules only
+         * @param elideHooks Whether to skip the hooks the card does not declare
+         */
+        GodRules(GodCard godCard, boolean elideHooks) {
+            int capabilities = godCard == null ? 0
+                    : elideHooks ? godCard.getCapabilities() : GodCard.ALL_CAPABILITIES;
+            this.godCard = godCard;
+            this.moveRule = (capabilities & GodCard.MOVE_RULE) != 0;
+            this.buildRule = (capabilities & GodCard.BUILD_RULE) != 0;
+            this.beforeMove = (capabilities & GodCard.BEFORE_MOVE) != 0;
+            this.afterMove = (capabilities & GodCard.AFTER_MOVE) != 0;
+            this.beforeBuild = (capabilities & GodCard.BEFORE_BUILD) != 0;
+            this.afterBuild = (capabilities & GodCard.AFTER_BUILD) != 0;
+            this.extraBuild = (capabilities & GodCard.EXTRA_BUILD) != 0;
+        }
+    }
+
+    /**
+     * Forwards cell changes to the worker registry, the mobility index and then
+     * the change listener, and records each cell's state before its first change while a batch is
+     * being applied.
+     */
+    private final class CellJournal implements CellListener {
+        @Override
+        public void cellChanging(GridCell cell) {
+            if (openSnapshot != null) {
+                openSnapshot.recordCell(cell);
+            }
+        }
+        
+        @Override
+        public void cellChanged(GridCell cell) {
+            workers.cellChanged(cell);
+            mobilityIndex.cellChanged(cell);
+            if (changeListener != null) {
+                changeListener.cellChanged(cell);
+            }
+        }
+    }
+
+    /**
+     * Copy of everything an action can change: building levels, occupants, piece
+     * positions, placement counts, the length of the history and the game state,
+     * which includes the God Card turn state.
+     * Restoring it puts the board back exactly as it was when it was taken.
+     * 
+     * Cells are not copied up front: while the snapshot is open each cell's state
+     * is recorded just before its first change, so taking and restoring a
+     * snapshot costs time in the number of workers and changed cells, not in the
+     * size of the board.
+     */
+    private final class BoardSnapshot {
+        private final List<GridCell> changedCells;
+        private final List<Integer> buildingLevels;
+        private final List<GameEntity> occupants;
+        private final int[] piecePositions;
+        private final int[] placedCounts;
+        private final int entityCount;
+        private final int historySize;
+        private final GameState savedState;
+        
+        /**
+         * Captures the current board.
+         */
+        private BoardSnapshot() {
+            changedCells = new ArrayList<>();
+            buildingLevels = new ArrayList<>();
+            occupants = new ArrayList<>();
+            
+            piecePositions = new int[players.size() * config.getPiecesPerPlayer() * 2];
+            placedCounts = new int[players.size()];
+            int index = 0;
+            for (int p = 0; p < players.size(); p++) {
+                Player player = players.get(p);
+                for (Player piece : playerPieces.get(player)) {
+                    piecePositions[index++] = piece.getRow();
+                    piecePositions[index++] = piece.getCol();
+                }
+                placedCounts[p] = piecesPlaced.get(player);
+            }
+            
+            entityCount = entities.size();
+            historySize = history.size();
+            savedState = new GameState();
+            savedState.copyFrom(gameState);
+        }
+        
+        /**
+         * Records a cell's state, unless it has changed before since the snapshot was taken.
+         * @param cell The cell about to change
+         */
+        private void recordCell(GridCell cell) {
+            recordCell(cell, cell.getBuildingLevel(), cell.getOccupant());
+        }
+        
+        /**
+         * Records a cell's earlier state, unless it has changed before since the snapshot was taken.
+         * 
+         * @param cell The cell
+         * @param buildingLevel Its building level before its first change
+         * @param occupant Its occupant before its first change
+         */
+        private void recordCell(GridCell cell, int buildingLevel, GameEntity occupant) {
+            // A turn changes only a handful of cells, so a linear search is enough
+            for (GridCell changedCell : changedCells) {
+                if (changedCell == cell) return;
+            }
+            changedCells.add(cell);
+            buildingLevels.add(buildingLevel);
+            occupants.add(occupant);
+        }
+        
+        /**
+         * Hands the cells this snapshot recorded to the snapshot of an enclosing batch.
+         * A cell this snapshot recorded had not changed since it was opened, so its
+         * recorded state is also the state the outer snapshot needs for any cell it
+         * has not recorded itself. Everything else the outer snapshot captured up front.
+         * 
+         * @param outer The snapshot of the enclosing batch
+         */
+        private void mergeInto(BoardSnapshot outer) {
+            for (int i = 0; i < changedCells.size(); i++) {
+                outer.recordCell(changedCells.get(i), buildingLevels.get(i), occupants.get(i));
+            }
+        }
+        
+        /**
+         * Restores the board to the captured state.
+         */
+        private void restore() {
+            for (int i = 0; i < changedCells.size(); i++) {
+                GridCell cell = changedCells.get(i);
+                if (cell.getBuildingLevel() != buildingLevels.get(i)) {
+                    cell.setBuildingLevel(buildingLevels.get(i));
+                }
+                if (cell.getOccupant() != occupants.get(i)) {
+                    cell.setOccupant(occupants.get(i));
+                }
+            }
+            
+            int index = 0;
+            for (int p = 0; p < players.size(); p++) {
+                Player player = players.get(p);
+                for (Player piece : playerPieces.get(player)) {
+                    piece.setPosition(piecePositions[index], piecePositions[index + 1]);
+                    index += 2;
+                }
+                piecesPlaced.put(player, placedCounts[p]);
+            }
+            
+            while (entities.size() > entityCount) {
+                entities.remove(entities.size() - 1);
+            }
+            history.subList(historySize, history.size()).clear();
+            gameState.copyFrom(savedState);
+        }
+    }
+} 
@@ -14,18 +14,23 @@ import java.util.Map;
 public class BoardUI {
     private final JPanel boardPanel;
     private final JPanel turnIndicator;
-    private final GridCell[][] cells;
+    private final CellView[][] cellViews;
     private final GameConfig config;
     
     /**
-     * Creates a new board UI manager.
+     * Creates a new board UI manager with a view for every cell of the board.
      * 
      * @param config The game configuration
-     * @param cells The grid cells
+     * @param boardLogic The board logic owning the model cells
      */
-    public BoardUI(GameConfig config, GridCell[][] cells) {
+    public BoardUI(GameConfig config, BoardLogic boardLogic) {
         this.config = config;
-        this.cells = cells;
+        this.cellViews = new CellView[config.getGridSize()][config.getGridSize()];
+        for (int i = 0; i < config.getGridSize(); i++) {
+            for (int j = 0; j < config.getGridSize(); j++) {
+                cellViews[i][j] = new CellView(boardLogic.getCell(i, j));
+            }
+        }
         
         // Initialize UI components
         this.boardPanel = new JPanel(new GridLayout(config.getGridSize(), config.getGridSize()));
@@ -34,23 +39,29 @@ public class BoardUI {
     }
     
     /**
-     * Initializes the board UI by creating and configuring all cells.
+     * Initializes the board UI by adding every cell view to the board panel.
      * 
      * @param gameBoard The game board instance
      */
     public void initialize(GridGameBoard gameBoard) {
-        // Create grid cells
         for (int i = 0; i < config.getGridSize(); i++) {
             for (int j = 0; j < config.getGridSize(); j++) {
-                GridCell cell = new GridCell(i, j);
-                cells[i][j] = cell;
+                CellView cellView = cellViews[i][j];
                 CellClickListener clickListener = new CellClickListener(gameBoard, i, j);
-                cell.getVisualComponent().addMouseListener(clickListener);
-                boardPanel.add(cell.getVisualComponent());
+                cellView.getVisualComponent().addMouseListener(clickListener);
+                boardPanel.add(cellView.getVisualComponent());
             }
         }
     }
     
+    /**
+     * Gets the views of all cells.
+     * @return The cell views indexed by row and column
+     */
+    public CellView[][] getCellViews() {
+        return cellViews;
+    }
+    
     /**
      * Updates the turn indicator to show whose turn it is.
      * 
@@ -0,0 +1,57 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+
+/**
+ * Pool of fixed-size direct byte buffers.
+ * Connections borrow their read and write buffers from the pool when they are
+ * accepted and return them when they close, so steady-state traffic allocates nothing.
+ * The pool is not thread-safe; it is owned by the server's selector thread.
+ */
+public class BufferPool {
+    private final ArrayDeque<ByteBuffer> free;
+    private final int bufferSize;
+    private final int maxPooled;
+
+    /**
+     * Creates a new buffer pool.
+     *
+     * @param bufferSize The capacity of each buffer in bytes
+     * @param maxPooled The maximum number of idle buffers to keep
+     */
+    public BufferPool(int bufferSize, int maxPooled) {
+        this.free = new ArrayDeque<>();
+        this.bufferSize = bufferSize;
+        this.maxPooled = maxPooled;
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating one if the pool is empty.
+     * @return A buffer ready for writing
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.pollFirst();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     * @param buffer The buffer to return
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer != null && buffer.capacity() == bufferSize && free.size() < maxPooled) {
+            free.addFirst(buffer);
+        }
+    }
+
+    /**
+     * Gets the capacity of the buffers handed out by this pool.
+     * @return The buffer size in bytes
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+}
@@ -0,0 +1,34 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an accepted build.
+ * Disabled by default; enable santorini.Build in a recording to capture it.
+ */
+@Name("santorini.Build")
+@Label("Build")
+@Category({"Santorini", "Actions"})
+@Description("An accepted build")
+@Enabled(false)
+@StackTrace(false)
+public class BuildActionEvent extends Event {
+    @Label("Player")
+    String player;
+
+    @Label("God Card")
+    String godCard;
+
+    @Label("Build Row")
+    int buildRow;
+
+    @Label("Build Column")
+    int buildCol;
+
+    @Label("New Level")
+    int level;
+}
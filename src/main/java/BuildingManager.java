@@ -5,7 +5,7 @@
  */
 public class BuildingManager {
     private final GridCell[][] cells;
-    private final int gridSize;
+    private final NeighbourTable neighbourTable;
     
     /**
      * Creates a new building manager.
@@ -15,7 +15,7 @@ public class BuildingManager {
      */
     public BuildingManager(GridCell[][] cells, int gridSize) {
         this.cells = cells;
-        this.gridSize = gridSize;
+        this.neighbourTable = NeighbourTable.forGridSize(gridSize);
     }
     
     /**
@@ -28,12 +28,8 @@ public class BuildingManager {
      * @return true if the build is valid, false otherwise
      */
     public boolean isValidBuild(int workerRow, int workerCol, int buildRow, int buildCol) {
-        if (!isValidPosition(buildRow, buildCol)) return false;
-        
-        // Check if target cell is adjacent to worker
-        int rowDiff = Math.abs(workerRow - buildRow);
-        int colDiff = Math.abs(workerCol - buildCol);
-        if (rowDiff > 1 || colDiff > 1 || (rowDiff == 0 && colDiff == 0)) return false;
+        // Check if target cell is on the board and adjacent to worker
+        if (!neighbourTable.isAdjacent(workerRow, workerCol, buildRow, buildCol)) return false;
         
         // Check if target cell is occupied or has a dome
         GridCell targetCell = cells[buildRow][buildCol];
@@ -61,14 +57,4 @@ public class BuildingManager {
         
         return true;
     }
-    
-    /**
-     * Checks if a position is within the bounds of the grid.
-     * @param row The row position
-     * @param col The column position
-     * @return true if the position is valid, false otherwise
-     */
-    private boolean isValidPosition(int row, int col) {
-        return row >= 0 && row < gridSize && col >= 0 && col < gridSize;
-    }
 } 
\ No newline at end of file
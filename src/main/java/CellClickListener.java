@@ -26,6 +26,9 @@ public class CellClickListener extends MouseAdapter {
 
     @Override
     public void mouseClicked(MouseEvent e) {
+        // The human waits while the computer places or plays
+        if (gameBoard.isComputerToAct()) return;
+        
         if (!gameBoard.isGameStarted()) {
             handlePlacementPhase();
         } else {
@@ -110,10 +113,15 @@ public class CellClickListener extends MouseAdapter {
 
     /**
      * Handles clicks during the build phase.
+     * Clicking the building worker itself ends the turn when its God Card offers
+     * an optional extra build, such as Demeter's second build.
      */
     private void handleBuildPhase() {
         Player selectedPiece = gameBoard.getSelectedPiece();
-        if (selectedPiece != null) {
+        if (selectedPiece == null) return;
+        if (selectedPiece.getRow() == row && selectedPiece.getCol() == col) {
+            gameBoard.endTurn();
+        } else {
             gameBoard.build(selectedPiece.getRow(), selectedPiece.getCol(), row, col);
         }
     }
@@ -125,6 +133,6 @@ public class CellClickListener extends MouseAdapter {
      * @return true if the piece belongs to the current player, false otherwise
      */
     private boolean isCurrentPlayerPiece(Player piece) {
-        return gameBoard.getPlayerPieces(gameBoard.getCurrentPlayer()).contains(piece);
+        return gameBoard.isCurrentPlayerPiece(piece);
     }
 } 
\ No newline at end of file
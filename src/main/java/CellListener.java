@@ -0,0 +1,17 @@
+/**
+ * Listener notified when the occupant or building level of a grid cell changes.
+ * Used by views to keep their rendering in sync with the model.
+ */
+public interface CellListener {
+    /**
+     * Called just before a cell's state changes, while it still holds the old state.
+     * @param cell The cell about to change
+     */
+    default void cellChanging(GridCell cell) {}
+
+    /**
+     * Called after a cell's state has changed.
+     * @param cell The cell that changed
+     */
+    void cellChanged(GridCell cell);
+}
@@ -0,0 +1,135 @@
+import javax.swing.JPanel;
+import javax.swing.border.LineBorder;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.AlphaComposite;
+
+/**
+ * Swing view of a single grid cell.
+ * Draws the cell's building level and its occupant, and repaints whenever the
+ * underlying GridCell reports a change.
+ */
+public class CellView implements CellListener {
+    private final GridCell cell;
+    private final JPanel visualComponent;
+    private final JPanel pieceComponent;
+    private String hint;
+
+    /**
+     * Creates a new view for a cell and starts observing it.
+     * 
+     * @param cell The cell to display
+     */
+    public CellView(GridCell cell) {
+        this.cell = cell;
+        this.visualComponent = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                
+                // Draw the building level with semi-transparency
+                Graphics2D g2d = (Graphics2D) g;
+                AlphaComposite alphaComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f);
+                g2d.setComposite(alphaComposite);
+                drawBuildingLevel(g2d);
+            }
+            
+            @Override
+            protected void paintChildren(Graphics g) {
+                super.paintChildren(g);
+                
+                // Draw the hint last so the occupant does not hide it
+                drawHint((Graphics2D) g);
+            }
+        };
+        this.visualComponent.setBorder(new LineBorder(Color.BLACK, 1));
+        this.visualComponent.setLayout(new BorderLayout());
+        this.pieceComponent = new JPanel();
+        this.pieceComponent.setPreferredSize(new Dimension(40, 40));
+        cell.setListener(this);
+        cellChanged(cell);
+    }
+
+    @Override
+    public void cellChanged(GridCell changedCell) {
+        GameEntity occupant = changedCell.getOccupant();
+        visualComponent.removeAll();
+        if (occupant != null) {
+            pieceComponent.setBackground(occupant.getColor());
+            visualComponent.add(pieceComponent, BorderLayout.CENTER);
+        }
+        visualComponent.revalidate();
+        visualComponent.repaint();
+    }
+
+    /**
+     * Draws the building level visualization.
+     * @param g The Graphics object to draw with
+     */
+    private void drawBuildingLevel(Graphics2D g) {
+        int buildingLevel = cell.getBuildingLevel();
+        if (buildingLevel == 0) return;
+
+        int width = visualComponent.getWidth();
+        int height = visualComponent.getHeight();
+        int padding = 8;
+        
+        if (buildingLevel == 4) {
+            // Draw dome (black circle) with semi-transparency
+            g.setColor(new Color(0, 0, 0, 180));
+            int circleSize = Math.min(width, height) - 2 * padding;
+            g.fillOval(padding, padding, circleSize, circleSize);
+        } else {
+            // Draw concentric squares for levels 1-3 with semi-transparency
+            Color levelColor = new Color(100, 100, 100, 180);
+            g.setColor(levelColor);
+            for (int i = 0; i < buildingLevel; i++) {
+                int size = Math.min(width, height) - 2 * padding - (i * 12);
+                int x = padding + (i * 6);
+                int y = padding + (i * 6);
+                g.fillRect(x, y, size, size);
+                g.setColor(new Color(50, 50, 50, 180));
+                g.drawRect(x, y, size, size);
+            }
+        }
+    }
+
+    /**
+     * Draws the hint text, if any, along the top of the cell.
+     * @param g The Graphics object to draw with
+     */
+    private void drawHint(Graphics2D g) {
+        if (hint == null) return;
+        g.setComposite(AlphaComposite.SrcOver);
+        g.setColor(new Color(200, 90, 0));
+        g.drawString(hint, 4, g.getFontMetrics().getAscent() + 2);
+    }
+
+    /**
+     * Sets the hint text drawn over the cell.
+     * @param hint The text, or null to remove it
+     */
+    public void setHint(String hint) {
+        this.hint = hint;
+        visualComponent.repaint();
+    }
+
+    /**
+     * Gets the cell shown by this view.
+     * @return The model cell
+     */
+    public GridCell getCell() {
+        return cell;
+    }
+
+    /**
+     * Gets the visual component of this cell.
+     * @return The JPanel that visually represents this cell
+     */
+    public JPanel getVisualComponent() {
+        return visualComponent;
+    }
+}
@@ -0,0 +1,260 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Chooses turns for a computer-controlled player with a SearchEngine running on
+ * a background thread, so the caller never blocks.
+ *
+ * With pondering on, the engine keeps thinking while the opponent does: after
+ * choosing a turn it predicts the reply from its transposition table and searches
+ * the position that reply would lead to. If the opponent plays the predicted
+ * reply (a ponder hit) that search simply carries on, with only what is left of
+ * the engine's time budget, and often answers at once. Otherwise (a ponder miss)
+ * it is stopped and a normal search starts; the transposition table and history
+ * it filled are shared, so the work still speeds the new search up.
+ *
+ * Thinking time is either a fixed amount per turn or comes from a TimeManager
+ * keeping a game clock. On a ponder hit the manager sets the turn's budget as for
+ * any other turn, and the time already spent pondering counts against it.
+ *
+ * Only supports two players: with more, the position after the engine's turn is
+ * not the one the engine moves in next.
+ */
+public class ComputerPlayer {
+    private static final int IDLE = 0;
+    private static final int PENDING = 1;
+    private static final int RUNNING = 2;
+    private static final int HIT = 3;
+    private static final int MISSED = 4;
+
+    private final SearchEngine engine;
+    private final long timePerTurnNanos;
+    private final TimeManager timeManager;
+    private final ExecutorService executor;
+    private boolean pondering;
+    private int ponderState;
+    private long ponderHash;
+    private long ponderStart;
+    private long hitDeadline;
+    private Future<Long> ponderFuture;
+    private long ponderHits;
+    private long ponderMisses;
+
+    /**
+     * Creates a computer player.
+     *
+     * @param layout A position with the grid size, players, workers and God Cards of the game
+     * @param timePerTurnNanos The thinking time allowed per turn
+     */
+    public ComputerPlayer(Position layout, long timePerTurnNanos) {
+        this(layout, timePerTurnNanos, null);
+    }
+
+    /**
+     * Creates a computer player whose thinking time comes from a game clock.
+     *
+     * @param layout A position with the grid size, players, workers and God Cards of the game
+     * @param timeManager The manager of the computer's clock; only used by this player from now on
+     */
+    public ComputerPlayer(Position layout, TimeManager timeManager) {
+        this(layout, 0, timeManager);
+    }
+
+    /**
+     * Creates a computer player.
+     *
+     * @param layout A position with the grid size, players, workers and God Cards of the game
+     * @param timePerTurnNanos The thinking time allowed per turn, if there is no time manager
+     * @param timeManager The manager of the computer's clock, or null for a fixed time per turn
+     */
+    private ComputerPlayer(Position layout, long timePerTurnNanos, TimeManager timeManager) {
+        Position position = new Position(layout);
+        this.engine = new SearchEngine(position, new IncrementalEvaluator(position));
+        this.timePerTurnNanos = timePerTurnNanos;
+        this.timeManager = timeManager;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "computer-player");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pondering = layout.getNumPlayers() == 2;
+        this.ponderState = IDLE;
+    }
+
+    /**
+     * Turns pondering on or off. Takes effect from the next turn chosen.
+     * @param pondering Whether to think on the opponent's time
+     */
+    public synchronized void setPondering(boolean pondering) {
+        this.pondering = pondering && engine.getPosition().getNumPlayers() == 2;
+    }
+
+    /**
+     * Starts choosing a turn for the side to move.
+     *
+     * @param current The position to play in; not modified or kept after the turn is chosen
+     * @return The chosen turn once the search finishes, Turn.NONE if there is no legal turn
+     */
+    public synchronized Future<Long> requestTurn(Position current) {
+        if (ponderState == PENDING || ponderState == RUNNING) {
+            if (current.getHash() == ponderHash) {
+                ponderHits++;
+                long now = System.nanoTime();
+                long used = ponderState == RUNNING ? now - ponderStart : 0;
+                long budget = timePerTurnNanos;
+                if (timeManager != null) {
+                    timeManager.startTurn(current, now);
+                    budget = timeManager.getSoftBudget();
+                }
+                hitDeadline = now + Math.max(0, budget - used);
+                if (ponderState == RUNNING) engine.setDeadline(hitDeadline);
+                ponderState = HIT;
+                notifyAll();
+                return ponderFuture;
+            }
+            ponderMisses++;
+            if (ponderState == RUNNING) engine.stop();
+            ponderState = MISSED;
+            notifyAll();
+        }
+        Position snapshot = new Position(current);
+        return executor.submit(() -> think(snapshot));
+    }
+
+    /**
+     * Searches a position with the normal time budget. Runs on the engine thread.
+     * @param current The position to search
+     * @return The chosen turn
+     */
+    private long think(Position current) {
+        engine.getPosition().copyFrom(current);
+        SearchResult result = timeManager != null ? engine.search(SearchEngine.MAX_DEPTH, timeManager)
+                : engine.search(SearchEngine.MAX_DEPTH, timePerTurnNanos);
+        synchronized (this) {
+            ponderState = IDLE;
+            startPondering(result.getTurn());
+        }
+        return result.getTurn();
+    }
+
+    /**
+     * Searches the predicted position until the opponent's actual turn is known.
+     * Runs on the engine thread.
+     *
+     * @return The turn to play on a hit, or Turn.NONE on a miss
+     * @throws InterruptedException If the player is shut down while waiting
+     */
+    private long ponder() throws InterruptedException {
+        synchronized (this) {
+            if (ponderState == MISSED) {
+                ponderState = IDLE;
+                return Turn.NONE;
+            }
+            if (ponderState == HIT) {
+                engine.resetLimits(hitDeadline);
+            } else {
+                engine.resetLimits(Long.MAX_VALUE);
+                ponderStart = System.nanoTime();
+                ponderState = RUNNING;
+            }
+        }
+        SearchResult result = engine.searchUntilStopped(SearchEngine.MAX_DEPTH);
+        synchronized (this) {
+            // A search that ends by itself, say on finding a forced win, waits for the verdict
+            while (ponderState == RUNNING) wait();
+            boolean hit = ponderState == HIT;
+            ponderState = IDLE;
+            if (!hit) return Turn.NONE;
+            if (timeManager != null) timeManager.endTurn(System.nanoTime());
+            startPondering(result.getTurn());
+            return result.getTurn();
+        }
+    }
+
+    /**
+     * Plays the engine's turn and the expected reply on the engine's position and
+     * queues a ponder search of the result. Runs on the engine thread, with the
+     * engine's position at the position the turn was chosen in.
+     *
+     * @param turn The turn the engine is about to play
+     */
+    private void startPondering(long turn) {
+        if (!pondering || turn == Turn.NONE || Turn.hasFlag(turn, Turn.FLAG_WIN)) return;
+        long reply = engine.getExpectedReply(turn);
+        if (reply == Turn.NONE || Turn.hasFlag(reply, Turn.FLAG_WIN)) return;
+        Position position = engine.getPosition();
+        position.makeTurn(turn);
+        position.makeTurn(reply);
+        ponderHash = position.getHash();
+        ponderState = PENDING;
+        ponderFuture = executor.submit(this::ponder);
+    }
+
+    /**
+     * Converts a turn into board actions.
+     *
+     * @param position The position the turn is played in
+     * @param turn The turn
+     * @return The move followed by every build, and an end of turn if Demeter
+     *         passes up the second build
+     * @throws IllegalArgumentException If the side to move has an engine-only god,
+     *         or the turn uses a power no board card has
+     */
+    public static List<GameAction> toActions(Position position, long turn) {
+        int god = position.getGod(position.getSideToMove());
+        if (Position.isEngineOnlyGod(god)) {
+            throw new IllegalArgumentException("The board has no " + Position.getGodName(god)
+                    + " card; it is engine-only");
+        }
+        if (Turn.hasFlag(turn, Turn.FLAG_PUSH | Turn.FLAG_DOME | Turn.FLAG_BUILD_FIRST | Turn.FLAG_DOUBLE_MOVE)) {
+            throw new IllegalArgumentException("The board has no God Card for turn "
+                    + Turn.toString(turn, position.getGridSize()));
+        }
+        int size = position.getGridSize();
+        int from = position.getWorkerCell(Turn.worker(turn));
+        int to = Turn.to(turn);
+        List<GameAction> actions = new ArrayList<>();
+        actions.add(GameAction.move(from / size, from % size, to / size, to % size));
+        int build = Turn.build(turn);
+        if (build != Turn.NO_CELL) {
+            actions.add(GameAction.build(to / size, to % size, build / size, build % size));
+        }
+        int secondBuild = Turn.secondBuild(turn);
+        if (secondBuild != Turn.NO_CELL) {
+            actions.add(GameAction.build(to / size, to % size, secondBuild / size, secondBuild % size));
+        } else if (build != Turn.NO_CELL && position.getGod(position.getSideToMove()) == Position.GOD_DEMETER) {
+            actions.add(GameAction.endTurn());
+        }
+        return actions;
+    }
+
+    /**
+     * Gets the number of turns answered by a ponder search.
+     * @return The ponder hit count
+     */
+    public synchronized long getPonderHits() {
+        return ponderHits;
+    }
+
+    /**
+     * Gets the number of ponder searches thrown away because the opponent played
+     * a different turn.
+     * @return The ponder miss count
+     */
+    public synchronized long getPonderMisses() {
+        return ponderMisses;
+    }
+
+    /**
+     * Stops any search and the engine thread.
+     */
+    public synchronized void shutdown() {
+        ponderState = MISSED;
+        engine.stop();
+        notifyAll();
+        executor.shutdownNow();
+    }
+}
@@ -2,21 +2,34 @@
  * Demeter God Card implementation.
  * Demeter's power: Your worker may build one additional time, but not on the same space.
  */
-public class DemeterGodCard extends BaseGodCard {
-    private boolean hasBuiltOnce;
-    private int lastBuildRow;
-    private int lastBuildCol;
+public final class DemeterGodCard extends BaseGodCard {
+    /** The shared instance. */
+    public static final DemeterGodCard INSTANCE = new DemeterGodCard();
 
-    public DemeterGodCard() {
+    // Turn state: 0 before the first build, then FIRST_BUILD | row << 16 | col of the first build,
+    // then SECOND_BUILD once the worker has built twice
+    private static final long FIRST_BUILD = 1L << 62;
+    private static final long SECOND_BUILD = 1L << 61;
+
+    private DemeterGodCard() {
         super("Demeter",
               "Your worker may build one additional time, but not on the same space.");
-        resetTurnState();
+    }
+
+    @Override
+    public int getCapabilities() {
+        return BUILD_RULE | AFTER_BUILD | EXTRA_BUILD;
     }
 
     @Override
     public boolean isValidBuild(BoardLogic boardLogic, int workerRow, int workerCol, int buildRow, int buildCol) {
+        long state = boardLogic.getGameState().getGodCardState();
+        if (state == SECOND_BUILD) {
+            return false;
+        }
+
         // If this is the second build, check that it's not on the same space
-        if (hasBuiltOnce && buildRow == lastBuildRow && buildCol == lastBuildCol) {
+        if ((state & FIRST_BUILD) != 0 && buildRow == firstBuildRow(state) && buildCol == firstBuildCol(state)) {
             return false;
         }
 
@@ -25,26 +38,44 @@ public class DemeterGodCard extends BaseGodCard {
 
     @Override
     public void afterBuild(BoardLogic boardLogic, int workerRow, int workerCol, int buildRow, int buildCol) {
-        if (!hasBuiltOnce) {
+        GameState gameState = boardLogic.getGameState();
+        long state = gameState.getGodCardState();
+        if (state == 0L) {
             // First build - record the location and offer a second build
-            hasBuiltOnce = true;
-            lastBuildRow = buildRow;
-            lastBuildCol = buildCol;
-            
-            // Don't end the build phase yet
-            boardLogic.getGameState().setInBuildPhase(true);
+            gameState.setGodCardState(FIRST_BUILD | (long) buildRow << 16 | buildCol);
         } else {
-            // Second build - reset state and proceed normally
-            resetTurnState();
+            DemeterSecondBuildEvent secondBuildEvent = new DemeterSecondBuildEvent();
+            if (secondBuildEvent.shouldCommit()) {
+                secondBuildEvent.firstBuildRow = firstBuildRow(state);
+                secondBuildEvent.firstBuildCol = firstBuildCol(state);
+                secondBuildEvent.buildRow = buildRow;
+                secondBuildEvent.buildCol = buildCol;
+                secondBuildEvent.commit();
+            }
+            gameState.setGodCardState(SECOND_BUILD);
         }
     }
 
+    @Override
+    public boolean hasExtraBuild(BoardLogic boardLogic) {
+        return (boardLogic.getGameState().getGodCardState() & FIRST_BUILD) != 0;
+    }
+
+    /**
+     * Gets the row of the first build from the turn state.
+     * @param state The turn state after the first build
+     * @return The row
+     */
+    private static int firstBuildRow(long state) {
+        return (int) (state >>> 16) & 0xFFFF;
+    }
+
     /**
-     * Resets the turn state when the turn ends.
+     * Gets the column of the first build from the turn state.
+     * @param state The turn state after the first build
+     * @return The column
      */
-    private void resetTurnState() {
-        hasBuiltOnce = false;
-        lastBuildRow = -1;
-        lastBuildCol = -1;
+    private static int firstBuildCol(long state) {
+        return (int) state & 0xFFFF;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the additional build granted by Demeter.
+ * Disabled by default; enable santorini.DemeterSecondBuild in a recording to capture it.
+ */
+@Name("santorini.DemeterSecondBuild")
+@Label("Demeter Second Build")
+@Category({"Santorini", "Actions"})
+@Description("The additional build of a Demeter worker")
+@Enabled(false)
+@StackTrace(false)
+public class DemeterSecondBuildEvent extends Event {
+    @Label("First Build Row")
+    int firstBuildRow;
+
+    @Label("First Build Column")
+    int firstBuildCol;
+
+    @Label("Build Row")
+    int buildRow;
+
+    @Label("Build Column")
+    int buildCol;
+}
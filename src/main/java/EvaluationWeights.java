@@ -0,0 +1,72 @@
+/**
+ * Weights of the static evaluation features.
+ * The score of a position is the sum over features of weight times the
+ * difference between the side's feature total and the opponents' average.
+ * Weights are in hundredths of a level of height advantage.
+ */
+public class EvaluationWeights {
+    /** Building level the worker stands on. */
+    public static final int HEIGHT = 0;
+    /** Free level-3 cells next to a worker standing on level 2. */
+    public static final int CLIMB = 1;
+    /** Cells the worker can move to. */
+    public static final int MOBILITY = 2;
+    /** Domes next to a worker standing on level 2 or higher. */
+    public static final int DOME_DENIAL = 3;
+    /** Closeness of the worker to the centre of the board. */
+    public static final int CENTRALITY = 4;
+    /** Apollo only: opponent workers the worker could swap with. */
+    public static final int APOLLO_SWAP = 5;
+    /** Demeter only: free cells the worker could build on. */
+    public static final int DEMETER_BUILDS = 6;
+    /** The worker cannot move at all. */
+    public static final int IMMOBILE = 7;
+
+    /** The number of features. */
+    public static final int FEATURE_COUNT = 8;
+
+    private static final String[] FEATURE_NAMES = {
+        "height", "climb", "mobility", "domeDenial", "centrality", "apolloSwap", "demeterBuilds", "immobile"
+    };
+
+    private static final int[] DEFAULTS = {100, 150, 8, -30, 10, 20, 4, -80};
+
+    private final int[] weights;
+
+    /**
+     * Creates a set of weights.
+     * @param weights One weight per feature
+     */
+    public EvaluationWeights(int[] weights) {
+        if (weights.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("Expected " + FEATURE_COUNT + " weights, got " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    /**
+     * Gets the hand-tuned default weights.
+     * @return The default weights
+     */
+    public static EvaluationWeights defaults() {
+        return new EvaluationWeights(DEFAULTS);
+    }
+
+    /**
+     * Gets the weight of a feature.
+     * @param feature The feature index
+     * @return The weight
+     */
+    public int get(int feature) {
+        return weights[feature];
+    }
+
+    /**
+     * Gets the name of a feature.
+     * @param feature The feature index
+     * @return The name
+     */
+    public static String getFeatureName(int feature) {
+        return FEATURE_NAMES[feature];
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures the cost of evaluating a position after each make/unmake, for grid
+ * sizes 5x5 to 10x10, with the incremental evaluator and with a full rescan.
+ * Every incremental score is also checked against the rescan.
+ */
+public class EvaluatorBenchmark {
+    private static final int ITERATIONS = 1_000_000;
+
+    // Receives the scores so the JIT cannot drop the evaluations
+    private static volatile long sink;
+
+    /**
+     * Runs the benchmark.
+     * @param args Optional God Card of both players: none, apollo or demeter
+     */
+    public static void main(String[] args) {
+        int god = args.length > 0 ? Position.parseGod(args[0]) : Position.GOD_NONE;
+        SplittableRandom random = new SplittableRandom(42);
+        System.out.println("size  turns  make/unmake(ns)  incremental(ns)  rescan(ns)  mismatches");
+        for (int size = 5; size <= 10; size++) {
+            Position position;
+            long[] turns;
+            int count;
+            do {
+                position = createRandomPosition(size, god, random);
+                turns = new long[TurnGenerator.maxTurns(position)];
+                count = TurnGenerator.generate(position, turns);
+            } while (count == 0);
+            IncrementalEvaluator evaluator = new IncrementalEvaluator(position, EvaluationWeights.defaults());
+
+            int mismatches = 0;
+            for (int i = 0; i < count; i++) {
+                position.makeTurn(turns[i]);
+                if (evaluator.evaluate(0) != evaluator.evaluateFromScratch(0)) mismatches++;
+                position.unmakeTurn();
+            }
+
+            for (int warmup = 0; warmup < 2; warmup++) {
+                sink += run(position, null, turns, count, false);
+                sink += run(position, evaluator, turns, count, true);
+                sink += run(position, evaluator, turns, count, false);
+            }
+            long start = System.nanoTime();
+            sink += run(position, null, turns, count, false);
+            long baseline = System.nanoTime() - start;
+            start = System.nanoTime();
+            sink += run(position, evaluator, turns, count, true);
+            long incremental = System.nanoTime() - start;
+            start = System.nanoTime();
+            sink += run(position, evaluator, turns, count, false);
+            long rescan = System.nanoTime() - start;
+
+            System.out.printf("%2dx%-2d %5d  %15.1f  %15.1f  %10.1f  %10d%n", size, size, count,
+                    (double) baseline / ITERATIONS, (double) incremental / ITERATIONS, (double) rescan / ITERATIONS, mismatches);
+        }
+    }
+
+    /**
+     * Cycles through the turns, making, evaluating and unmaking each.
+     *
+     * @param position The position
+     * @param evaluator The evaluator attached to the position, or null to only make and unmake
+     * @param turns The legal turns
+     * @param count The number of legal turns
+     * @param incremental Whether to use the incremental evaluation
+     * @return The sum of the scores, so the work is not optimised away
+     */
+    private static long run(Position position, IncrementalEvaluator evaluator, long[] turns, int count,
+                            boolean incremental) {
+        long sum = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            position.makeTurn(turns[i % count]);
+            if (evaluator != null) {
+                sum += incremental ? evaluator.evaluate(0) : evaluator.evaluateFromScratch(0);
+            }
+            position.unmakeTurn();
+        }
+        return sum;
+    }
+
+    /**
+     * Creates a mid-game position: random buildings and two workers each for two players.
+     *
+     * @param size The grid size
+     * @param god The God Card of both players
+     * @param random The random source
+     * @return The position
+     */
+    private static Position createRandomPosition(int size, int god, SplittableRandom random) {
+        Position position = new Position(size, 2, 2, new int[] {god, god});
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int roll = random.nextInt(10);
+                position.setHeight(row, col, roll < 4 ? 0 : roll < 7 ? 1 : roll < 9 ? 2 : 3);
+            }
+        }
+        int worker = 0;
+        while (worker < position.getWorkerCount()) {
+            int cell = random.nextInt(size * size);
+            if (position.getWorkerAt(cell) == Position.NONE && position.getHeight(cell) < 3) {
+                position.placeWorker(worker++, cell / size, cell % size);
+            }
+        }
+        return position;
+    }
+}
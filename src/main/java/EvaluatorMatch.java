@@ -0,0 +1,117 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Plays the n-tuple evaluator against the hand-tuned evaluator, both driving the
+ * same alpha-beta search with the same time per turn. Colours alternate between
+ * games and each pair of games starts from the same random placement.
+ */
+public class EvaluatorMatch {
+    private static final int MAX_PLIES = 300;
+    private static final int SPEED_ITERATIONS = 1_000_000;
+
+    /**
+     * Runs the match.
+     *
+     * @param args Network file, and optionally games, milliseconds per turn,
+     *             grid size and comma-separated God Cards of two players
+     * @throws IOException If the network cannot be read
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: EvaluatorMatch <network> [games] [millisPerTurn] [gridSize] [gods]");
+            return;
+        }
+        NTupleNetwork network = NTupleNetwork.load(Paths.get(args[0]));
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        long timePerTurn = (args.length > 2 ? Long.parseLong(args[2]) : 50) * 1_000_000L;
+        int gridSize = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int[] gods = new int[2];
+        if (args.length > 4) {
+            String[] names = args[4].split(",");
+            gods[0] = Position.parseGod(names[0]);
+            gods[1] = Position.parseGod(names[names.length - 1]);
+        }
+
+        reportSpeed(network, gridSize, gods);
+
+        SplittableRandom random = new SplittableRandom(2024);
+        int ntupleWins = 0;
+        int handWins = 0;
+        long ntupleDepth = 0;
+        long handDepth = 0;
+        long ntupleSearches = 0;
+        long handSearches = 0;
+        long seed = 0;
+        for (int game = 0; game < games; game++) {
+            if (game % 2 == 0) seed = random.nextLong();
+            int ntuplePlayer = game % 2;
+
+            Position ntuplePosition = new Position(gridSize, 2, 2, gods);
+            ntuplePosition.resetRandomly(new SplittableRandom(seed));
+            Position handPosition = new Position(ntuplePosition);
+            SearchEngine ntupleEngine = new SearchEngine(ntuplePosition, new NTupleEvaluator(ntuplePosition, network));
+            SearchEngine handEngine = new SearchEngine(handPosition, new IncrementalEvaluator(handPosition));
+
+            int winner = Position.NONE;
+            for (int ply = 0; ply < MAX_PLIES && winner == Position.NONE; ply++) {
+                boolean ntupleToMove = ntuplePosition.getSideToMove() == ntuplePlayer;
+                SearchResult result = (ntupleToMove ? ntupleEngine : handEngine).search(SearchEngine.MAX_DEPTH, timePerTurn);
+                if (ntupleToMove) {
+                    ntupleDepth += result.getDepth();
+                    ntupleSearches++;
+                } else {
+                    handDepth += result.getDepth();
+                    handSearches++;
+                }
+                if (result.getTurn() == Turn.NONE) {
+                    winner = (ntuplePosition.getSideToMove() + 1) % 2;
+                    break;
+                }
+                ntuplePosition.makeTurn(result.getTurn());
+                handPosition.makeTurn(result.getTurn());
+                winner = ntuplePosition.getWinner();
+            }
+            if (winner == ntuplePlayer) {
+                ntupleWins++;
+            } else if (winner != Position.NONE) {
+                handWins++;
+            }
+            System.out.printf("game %d: n-tuple %d, hand-tuned %d%n", game + 1, ntupleWins, handWins);
+        }
+        System.out.printf("n-tuple average depth %.2f, hand-tuned average depth %.2f%n",
+                (double) ntupleDepth / Math.max(1, ntupleSearches), (double) handDepth / Math.max(1, handSearches));
+    }
+
+    /**
+     * Prints the time each evaluator needs for one make/evaluate/unmake cycle.
+     *
+     * @param network The n-tuple network
+     * @param gridSize The grid size
+     * @param gods The God Card of each player
+     */
+    private static void reportSpeed(NTupleNetwork network, int gridSize, int[] gods) {
+        Position position = new Position(gridSize, 2, 2, gods);
+        position.resetRandomly(new SplittableRandom(1));
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        PositionEvaluator[] evaluators = {new NTupleEvaluator(position, network), new IncrementalEvaluator(position)};
+        String[] names = {"n-tuple", "hand-tuned"};
+        for (int e = 0; e < evaluators.length; e++) {
+            position.setListener(evaluators[e]);
+            evaluators[e].positionReset();
+            long sum = 0;
+            long start = 0;
+            for (int i = 0; i < 2 * SPEED_ITERATIONS; i++) {
+                if (i == SPEED_ITERATIONS) start = System.nanoTime();
+                position.makeTurn(turns[i % count]);
+                sum += evaluators[e].evaluate(0);
+                position.unmakeTurn();
+            }
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("%s: %.1f ns per make/evaluate/unmake (checksum %d)%n",
+                    names[e], (double) elapsed / SPEED_ITERATIONS, sum);
+        }
+    }
+}
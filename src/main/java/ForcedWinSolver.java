@@ -0,0 +1,110 @@
+/**
+ * Proves forced wins in a two-player Position by exhaustive search.
+ *
+ * Unlike SearchEngine there is no evaluation, no depth-limited guess and no
+ * table: every turn of the attacker is tried and every reply of the defender,
+ * so a win it reports is a proof. A player wins by moving up onto level 3, or
+ * when the opponent is left with no legal turn. The search is cut short only by
+ * facts: ThreatDetector, which never reports a win that is not there, ends a
+ * line as soon as either side can win on the spot.
+ *
+ * A solver works on its own position and is not thread-safe; give each thread
+ * its own.
+ */
+public class ForcedWinSolver {
+    private final Position position;
+    private final long[][] turnBuffers;
+
+    /**
+     * Creates a solver.
+     *
+     * @param position The position to solve; it is restored after every call
+     * @param maxWinTurns The most turns of the attacker any call will ask about
+     */
+    public ForcedWinSolver(Position position, int maxWinTurns) {
+        if (position.getNumPlayers() != 2) {
+            throw new IllegalArgumentException("Only two-player positions can be solved");
+        }
+        this.position = position;
+        this.turnBuffers = new long[2 * maxWinTurns + 1][TurnGenerator.maxTurns(position)];
+    }
+
+    /**
+     * Checks whether the side to move can force a win within a number of its own turns.
+     *
+     * @param turns The number of turns, at least 1
+     * @return true if every defence loses by then
+     */
+    public boolean forcesWin(int turns) {
+        return forcesWin(turns, 0);
+    }
+
+    /**
+     * Checks whether a turn of the side to move forces a win within a number of
+     * its own turns, counting that one.
+     *
+     * @param turn A legal turn of the side to move
+     * @param turns The number of turns, at least 1
+     * @return true if every defence to the turn loses in time
+     */
+    public boolean turnForcesWin(long turn, int turns) {
+        int attacker = position.getSideToMove();
+        position.makeTurn(turn);
+        boolean wins = defenceLoses(attacker, turns, 1);
+        position.unmakeTurn();
+        return wins;
+    }
+
+    /**
+     * Gets the position this solver works on.
+     * @return The position
+     */
+    public Position getPosition() {
+        return position;
+    }
+
+    /**
+     * Checks whether the side to move can force a win.
+     *
+     * @param turns The attacker's turns left, counting this one
+     * @param ply The distance from the first call, to pick a turn buffer
+     * @return true if some turn wins whatever the defender does
+     */
+    private boolean forcesWin(int turns, int ply) {
+        int attacker = position.getSideToMove();
+        if (ThreatDetector.canWin(position, attacker)) return true;
+        long[] buffer = turnBuffers[ply];
+        int count = TurnGenerator.generate(position, buffer);
+        for (int i = 0; i < count; i++) {
+            position.makeTurn(buffer[i]);
+            boolean wins = defenceLoses(attacker, turns, ply + 1);
+            position.unmakeTurn();
+            if (wins) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the defender, to move after one of the attacker's turns, loses.
+     *
+     * @param attacker The attacking player
+     * @param turns The attacker's turns left, counting the one just played
+     * @param ply The distance from the first call, to pick a turn buffer
+     * @return true if the attacker has already won or wins against every reply
+     */
+    private boolean defenceLoses(int attacker, int turns, int ply) {
+        if (position.getWinner() == attacker) return true;
+        long[] buffer = turnBuffers[ply];
+        int count = TurnGenerator.generate(position, buffer);
+        // A defender with no legal turn is trapped and loses
+        if (count == 0) return true;
+        if (turns == 1 || ThreatDetector.canWin(position, position.getSideToMove())) return false;
+        for (int i = 0; i < count; i++) {
+            position.makeTurn(buffer[i]);
+            boolean loses = position.getWinner() == Position.NONE && forcesWin(turns - 1, ply + 1);
+            position.unmakeTurn();
+            if (!loses) return false;
+        }
+        return true;
+    }
+}
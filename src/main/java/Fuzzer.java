@@ -0,0 +1,634 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays seeded random games on the board model and checks it after every action.
+ *
+ * Each game draws its grid size, players, pieces and God Cards from its own seed,
+ * derived from the run's seed and the game's number, so any game can be replayed
+ * alone whichever thread first played it. Next to the board the fuzzer keeps a
+ * plain model of the rules: it decides which actions are legal, mostly plays one
+ * of those and now and then an arbitrary one, and after each action compares the
+ * board with the model. Heights must stay within 0-4, no two workers may share a
+ * cell, the phase may only change as the rules allow, and the game must be won
+ * exactly when a worker steps from below level 3 onto level 3 (or when the next
+ * player is trapped).
+ *
+ * A failing game is cut down to the shortest list of actions found that still
+ * fails the same check, and printed with the command that replays it.
+ */
+public class Fuzzer {
+    private static final int MAX_ACTIONS = 1_000;
+    private static final int REPORT_INTERVAL = 100_000;
+    private static final int MAX_REPORTED_FAILURES = 10;
+
+    // The God Cards the board implements; null is a player without one
+    private static final GodCard[] GOD_CARDS = {null, ApolloGodCard.INSTANCE, DemeterGodCard.INSTANCE};
+
+    private final long seed;
+    private final long games;
+    private final AtomicLong nextGame;
+    private final AtomicLong gamesPlayed;
+    private final AtomicLong actionsPlayed;
+    private final List<String> failures;
+
+    /**
+     * Creates a fuzzer.
+     *
+     * @param seed The seed of the run
+     * @param firstGame The number of the first game to play
+     * @param games The number of games to play
+     */
+    public Fuzzer(long seed, long firstGame, long games) {
+        this.seed = seed;
+        this.games = firstGame + games;
+        this.nextGame = new AtomicLong(firstGame);
+        this.gamesPlayed = new AtomicLong();
+        this.actionsPlayed = new AtomicLong();
+        this.failures = new ArrayList<>();
+    }
+
+    /**
+     * Plays every game on several threads.
+     *
+     * @param threads The number of threads
+     * @return The reports of the failing games, at most MAX_REPORTED_FAILURES
+     * @throws InterruptedException If interrupted while waiting for the threads
+     */
+    public List<String> run(int threads) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Thread(() -> playGames(start), "fuzzer-" + i));
+        }
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+        return failures;
+    }
+
+    /**
+     * Gets the number of games played so far.
+     * @return The game count
+     */
+    public long getGamesPlayed() {
+        return gamesPlayed.get();
+    }
+
+    /**
+     * Gets the number of actions applied so far, legal or not.
+     * @return The action count
+     */
+    public long getActionsPlayed() {
+        return actionsPlayed.get();
+    }
+
+    /**
+     * Takes games from the shared counter until none are left.
+     * @param start When the run started, for progress reports
+     */
+    private void playGames(long start) {
+        for (long game = nextGame.getAndIncrement(); game < games; game = nextGame.getAndIncrement()) {
+            Setup setup = new Setup(gameSeed(seed, game));
+            List<GameAction> actions = new ArrayList<>();
+            Failure failure = play(setup, new SplittableRandom(setup.seed), actions);
+            actionsPlayed.addAndGet(actions.size());
+            if (failure != null) report(game, setup, minimise(setup, actions, failure));
+            long played = gamesPlayed.incrementAndGet();
+            if (played % REPORT_INTERVAL == 0) {
+                double hours = (System.nanoTime() - start) / 3.6e12;
+                System.out.printf("%,d games, %,.0f games per hour%n", played, played / hours);
+            }
+        }
+    }
+
+    /**
+     * Records a failing game.
+     *
+     * @param game The game's number
+     * @param setup The game's setup
+     * @param failure The minimised failure
+     */
+    private void report(long game, Setup setup, Failure failure) {
+        StringBuilder text = new StringBuilder();
+        text.append("Game ").append(game).append(" of seed ").append(seed).append(": ").append(failure.check)
+                .append(" after ").append(failure.actions.size()).append(" actions\n  ").append(setup)
+                .append("\n  ").append(failure.actions)
+                .append("\n  replay with: java Fuzzer 1 ").append(seed).append(" 1 ").append(game);
+        synchronized (failures) {
+            if (failures.size() < MAX_REPORTED_FAILURES) failures.add(text.toString());
+        }
+    }
+
+    /**
+     * Derives the seed of one game, so every game can be replayed on its own.
+     *
+     * @param seed The seed of the run
+     * @param game The game's number
+     * @return The game's seed
+     */
+    static long gameSeed(long seed, long game) {
+        return new SplittableRandom(seed ^ (game * 0x9E3779B97F4A7C15L)).nextLong();
+    }
+
+    /**
+     * Plays a random game, or replays a list of actions when random is null.
+     *
+     * @param setup The game's setup
+     * @param random The random source, or null to replay
+     * @param actions The actions to replay, or receives the actions played
+     * @return The first failed check, or null if the game passed them all
+     */
+    static Failure play(Setup setup, SplittableRandom random, List<GameAction> actions) {
+        Checker checker = new Checker(setup);
+        List<GameAction> legal = new ArrayList<>();
+        int count = random == null ? actions.size() : MAX_ACTIONS;
+        for (int i = 0; !checker.isOver(); i++) {
+            checker.legalActions(legal);
+            if (legal.isEmpty()) {
+                return new Failure("the game is not over but there is no legal action",
+                        new ArrayList<>(actions.subList(0, i)));
+            }
+            if (i == count) break;
+            GameAction action;
+            if (random == null) {
+                action = actions.get(i);
+            } else {
+                action = random.nextInt(10) == 0 ? checker.arbitraryAction(random) : legal.get(random.nextInt(legal.size()));
+                actions.add(action);
+            }
+            String check = checker.apply(action);
+            if (check != null) return new Failure(check, new ArrayList<>(actions.subList(0, i + 1)));
+        }
+        return null;
+    }
+
+    /**
+     * Cuts a failing game down to a shorter list of actions that fails the same
+     * check, by removing ever smaller runs of actions. Actions made illegal by a
+     * removal are simply rejected on replay.
+     *
+     * @param setup The game's setup
+     * @param actions The actions played
+     * @param failure The failure
+     * @return The failure of the shortest list found
+     */
+    static Failure minimise(Setup setup, List<GameAction> actions, Failure failure) {
+        Failure best = failure;
+        for (int run = best.actions.size() / 2; run >= 1; ) {
+            boolean removed = false;
+            for (int start = 0; start < best.actions.size() - 1; ) {
+                List<GameAction> candidate = new ArrayList<>(best.actions.subList(0, start));
+                candidate.addAll(best.actions.subList(Math.min(start + run, best.actions.size()), best.actions.size()));
+                Failure replayed = candidate.isEmpty() ? null : play(setup, null, candidate);
+                if (replayed != null && replayed.check.equals(failure.check)) {
+                    best = replayed;
+                    removed = true;
+                } else {
+                    start += run;
+                }
+            }
+            if (!removed) run /= 2;
+        }
+        return best;
+    }
+
+    /**
+     * Runs the fuzzer.
+     *
+     * @param args Optionally the number of games, the seed, the number of threads
+     *             and the number of the first game
+     * @throws InterruptedException If interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0x5EEDL;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long firstGame = args.length > 3 ? Long.parseLong(args[3]) : 0;
+
+        Fuzzer fuzzer = new Fuzzer(seed, firstGame, games);
+        long start = System.nanoTime();
+        List<String> failures = fuzzer.run(threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        for (String failure : failures) System.out.println(failure);
+        System.out.printf("%,d games, %,d actions in %.1f s on %d threads: %,.0f games per hour, %d failing%n",
+                fuzzer.getGamesPlayed(), fuzzer.getActionsPlayed(), seconds, threads,
+                fuzzer.getGamesPlayed() * 3600 / seconds, failures.size());
+        if (!failures.isEmpty()) System.exit(1);
+    }
+
+    /**
+     * The configuration and God Cards of one game, drawn from its seed.
+     */
+    static final class Setup {
+        final long seed;
+        final GameConfig config;
+        final GodCard[] godCards;
+
+        /**
+         * Draws a setup. Most games are on small boards, where pieces crowd each
+         * other and rare situations come up more often.
+         *
+         * @param seed The game's seed
+         */
+        Setup(long seed) {
+            this.seed = seed;
+            SplittableRandom random = new SplittableRandom(~seed);
+            int gridSize = random.nextInt(8) == 0 ? 9 + random.nextInt(8) : 3 + random.nextInt(6);
+            int numPlayers = 2 + (random.nextInt(4) == 0 ? random.nextInt(GameConfig.MAX_PLAYERS - 1) : random.nextInt(3));
+            int pieces = 1 + random.nextInt(3);
+            // Leave at least two cells free so somebody can move
+            while (numPlayers * pieces > gridSize * gridSize - 2) {
+                if (pieces > 1) pieces--; else numPlayers--;
+            }
+            this.config = new GameConfig(gridSize, numPlayers, pieces, 1);
+            this.godCards = new GodCard[numPlayers];
+            for (int p = 0; p < numPlayers; p++) {
+                godCards[p] = GOD_CARDS[random.nextInt(GOD_CARDS.length)];
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(config.getGridSize()).append('x').append(config.getGridSize()).append(", ")
+                    .append(config.getPiecesPerPlayer()).append(" pieces each, gods");
+            for (GodCard godCard : godCards) text.append(' ').append(godCard != null ? godCard.getName() : "none");
+            return text.toString();
+        }
+    }
+
+    /**
+     * A failed check and the actions that led to it, the last one included.
+     */
+    static final class Failure {
+        final String check;
+        final List<GameAction> actions;
+
+        Failure(String check, List<GameAction> actions) {
+            this.check = check;
+            this.actions = actions;
+        }
+    }
+
+    /**
+     * A board with the plain rules model it is checked against.
+     */
+    private static final class Checker {
+        private static final int PLACEMENT = 0;
+        private static final int MOVE = 1;
+        private static final int BUILD = 2;
+        private static final int OVER = 3;
+        private static final String[] PHASE_NAMES = {"placement", "move", "build", "over"};
+
+        private final BoardLogic board;
+        private final GodCard[] godCards;
+        private final int size;
+        private final int numPlayers;
+        private final int pieces;
+        private final List<Player> players;
+        private final List<List<Player>> playerPieces;
+        private final int[] heights;
+        private final int[] workerAt;
+        private final int[] workerCell;
+        private int phase;
+        private int current;
+        private int placed;
+        private int winner;
+        private int builder;
+        private int firstBuild;
+        private int builds;
+
+        /**
+         * Creates a board for a setup, with every piece still to place.
+         * @param setup The game's setup
+         */
+        Checker(Setup setup) {
+            this.board = new BoardLogic(setup.config, new GameState());
+            this.godCards = setup.godCards;
+            this.size = setup.config.getGridSize();
+            this.numPlayers = setup.config.getNumPlayers();
+            this.pieces = setup.config.getPiecesPerPlayer();
+            this.players = board.getPlayers();
+            this.playerPieces = new ArrayList<>();
+            for (int p = 0; p < numPlayers; p++) {
+                players.get(p).setGodCard(godCards[p]);
+                playerPieces.add(board.getPlayerPieces(players.get(p)));
+            }
+            this.heights = new int[size * size];
+            this.workerAt = new int[size * size];
+            this.workerCell = new int[numPlayers * pieces];
+            Arrays.fill(workerAt, -1);
+            Arrays.fill(workerCell, -1);
+            this.phase = PLACEMENT;
+            this.winner = -1;
+        }
+
+        /**
+         * Checks whether the model's game is over.
+         * @return true once somebody has won
+         */
+        boolean isOver() {
+            return phase == OVER;
+        }
+
+        /**
+         * Lists the legal actions of the model.
+         * @param actions Receives the actions, replacing its contents
+         */
+        void legalActions(List<GameAction> actions) {
+            actions.clear();
+            if (phase == PLACEMENT) {
+                for (int cell = 0; cell < heights.length; cell++) {
+                    if (workerAt[cell] == -1) actions.add(GameAction.place(cell / size, cell % size));
+                }
+            } else if (phase == MOVE) {
+                for (int worker = current * pieces; worker < (current + 1) * pieces; worker++) {
+                    int from = workerCell[worker];
+                    for (int d = 0; d < 9; d++) {
+                        int to = neighbour(from, d);
+                        if (isLegalMove(from, to)) actions.add(GameAction.move(from / size, from % size, to / size, to % size));
+                    }
+                }
+            } else if (phase == BUILD) {
+                int from = workerCell[builder];
+                for (int d = 0; d < 9; d++) {
+                    int to = neighbour(from, d);
+                    if (isLegalBuild(from, to)) actions.add(GameAction.build(from / size, from % size, to / size, to % size));
+                }
+                if (isLegalEndTurn()) actions.add(GameAction.endTurn());
+            }
+        }
+
+        /**
+         * Makes up an action of any type near a random cell, which may or may not be legal.
+         * @param random The random source
+         * @return The action
+         */
+        GameAction arbitraryAction(SplittableRandom random) {
+            int row = random.nextInt(size);
+            int col = random.nextInt(size);
+            if (phase != PLACEMENT && random.nextBoolean()) {
+                int cell = workerCell[random.nextInt(workerCell.length)];
+                row = cell / size;
+                col = cell % size;
+            }
+            int toRow = row + random.nextInt(5) - 2;
+            int toCol = col + random.nextInt(5) - 2;
+            switch (random.nextInt(4)) {
+                case 0:
+                    return GameAction.place(toRow, toCol);
+                case 1:
+                    return GameAction.move(row, col, toRow, toCol);
+                case 2:
+                    return GameAction.build(row, col, toRow, toCol);
+                default:
+                    return GameAction.endTurn();
+            }
+        }
+
+        /**
+         * Applies an action to the board and the model and compares them.
+         * @param action The action
+         * @return The check the board failed, or null if it passed them all
+         */
+        String apply(GameAction action) {
+            boolean legal = isLegal(action);
+            boolean accepted;
+            try {
+                accepted = board.applyAction(action);
+            } catch (RuntimeException e) {
+                return "the board threw " + e + " on " + action;
+            }
+            if (accepted != legal) {
+                return "the board " + (accepted ? "accepted illegal " : "rejected legal ") + action
+                        + " in the " + PHASE_NAMES[phase] + " phase";
+            }
+            if (accepted) play(action);
+            return compare();
+        }
+
+        /**
+         * Checks an action against the model's rules.
+         * @param action The action
+         * @return true if the action is legal
+         */
+        private boolean isLegal(GameAction action) {
+            int to = cell(action.getToRow(), action.getToCol());
+            int from = cell(action.getFromRow(), action.getFromCol());
+            switch (action.getType()) {
+                case PLACE:
+                    return phase == PLACEMENT && to != -1 && workerAt[to] == -1;
+                case MOVE:
+                    return phase == MOVE && from != -1 && workerAt[from] != -1
+                            && workerAt[from] / pieces == current && isLegalMove(from, to);
+                case BUILD:
+                    return phase == BUILD && from == workerCell[builder] && isLegalBuild(from, to);
+                default:
+                    return isLegalEndTurn();
+            }
+        }
+
+        /**
+         * Checks a move of the current player under the model's rules.
+         *
+         * @param from The worker's cell
+         * @param to The destination, or -1 if off the board
+         * @return true if the move is legal
+         */
+        private boolean isLegalMove(int from, int to) {
+            if (to == -1 || !isAdjacent(from, to) || heights[to] == 4 || heights[to] > heights[from] + 1) return false;
+            if (workerAt[to] == -1) return true;
+            return godCards[current] == ApolloGodCard.INSTANCE && workerAt[to] / pieces != current;
+        }
+
+        /**
+         * Checks a build of the current player under the model's rules.
+         *
+         * @param from The building worker's cell
+         * @param to The build cell, or -1 if off the board
+         * @return true if the build is legal
+         */
+        private boolean isLegalBuild(int from, int to) {
+            if (to == -1 || !isAdjacent(from, to) || heights[to] == 4 || workerAt[to] != -1) return false;
+            return builds == 0 || (godCards[current] == DemeterGodCard.INSTANCE && builds == 1 && to != firstBuild);
+        }
+
+        /**
+         * Checks whether the current player may end the turn without building again.
+         * @return true after Demeter's first build
+         */
+        private boolean isLegalEndTurn() {
+            return phase == BUILD && godCards[current] == DemeterGodCard.INSTANCE && builds == 1;
+        }
+
+        /**
+         * Plays a legal action on the model.
+         * @param action The action
+         */
+        private void play(GameAction action) {
+            int to = cell(action.getToRow(), action.getToCol());
+            switch (action.getType()) {
+                case PLACE:
+                    int worker = current * pieces + placed % pieces;
+                    workerAt[to] = worker;
+                    workerCell[worker] = to;
+                    placed++;
+                    if (placed % pieces == 0) current++;
+                    if (placed == workerCell.length) {
+                        current = numPlayers - 1;
+                        endTurn();
+                    }
+                    break;
+                case MOVE:
+                    int from = cell(action.getFromRow(), action.getFromCol());
+                    int mover = workerAt[from];
+                    int displaced = workerAt[to];
+                    workerAt[from] = displaced;
+                    if (displaced != -1) workerCell[displaced] = from;
+                    workerAt[to] = mover;
+                    workerCell[mover] = to;
+                    if (heights[from] < 3 && heights[to] == 3) {
+                        winner = current;
+                        phase = OVER;
+                    } else {
+                        builder = mover;
+                        builds = 0;
+                        phase = BUILD;
+                        // A worker with nowhere to build loses to the player before
+                        boolean canBuild = false;
+                        for (int d = 0; d < 9; d++) canBuild |= isLegalBuild(to, neighbour(to, d));
+                        if (!canBuild) {
+                            winner = (current - 1 + numPlayers) % numPlayers;
+                            phase = OVER;
+                        }
+                    }
+                    break;
+                case BUILD:
+                    heights[to]++;
+                    firstBuild = to;
+                    builds++;
+                    if (!isLegalEndTurn()) endTurn();
+                    break;
+                default:
+                    endTurn();
+            }
+        }
+
+        /**
+         * Passes the turn on, or starts the game after the placements; a player
+         * with no legal move loses to the one before.
+         */
+        private void endTurn() {
+            int previous = current;
+            current = (current + 1) % numPlayers;
+            builds = 0;
+            phase = MOVE;
+            for (int worker = current * pieces; worker < (current + 1) * pieces; worker++) {
+                for (int d = 0; d < 9; d++) {
+                    if (isLegalMove(workerCell[worker], neighbour(workerCell[worker], d))) return;
+                }
+            }
+            winner = previous;
+            phase = OVER;
+        }
+
+        /**
+         * Compares the board with the model.
+         * @return The check the board failed, or null if it matches
+         */
+        private String compare() {
+            GameState state = board.getGameState();
+            int boardPhase = state.isGameOver() ? OVER : !state.isGameStarted() ? PLACEMENT
+                    : state.isInBuildPhase() ? BUILD : MOVE;
+            if (boardPhase != phase) {
+                return "the board is in the " + PHASE_NAMES[boardPhase] + " phase, not " + PHASE_NAMES[phase];
+            }
+            if (phase == OVER) {
+                Player expected = players.get(winner);
+                if (state.getWinner() != expected) {
+                    return "the winner is " + name(state.getWinner()) + ", not " + expected.getName();
+                }
+            } else if (phase != PLACEMENT && state.getCurrentPlayerIndex() != current) {
+                return "player " + state.getCurrentPlayerIndex() + " is to play, not " + current;
+            }
+
+            int occupied = 0;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    GridCell cell = board.getCell(row, col);
+                    int level = cell.getBuildingLevel();
+                    if (level < 0 || level > 4) return "cell " + row + "," + col + " has level " + level;
+                    if (level != heights[row * size + col]) {
+                        return "cell " + row + "," + col + " has level " + level + ", not " + heights[row * size + col];
+                    }
+                    if (cell.getOccupant() != null) occupied++;
+                }
+            }
+            if (occupied != placed) return occupied + " cells are occupied by " + placed + " workers";
+            WorkerRegistry registry = board.getWorkerRegistry();
+            for (int worker = 0; worker < placed; worker++) {
+                Player piece = playerPieces.get(worker / pieces).get(worker % pieces);
+                int cell = workerCell[worker];
+                if (piece.getRow() != cell / size || piece.getCol() != cell % size) {
+                    return piece.getName() + " is on " + piece.getRow() + "," + piece.getCol()
+                            + ", not " + cell / size + "," + cell % size;
+                }
+                if (board.getCell(piece.getRow(), piece.getCol()).getOccupant() != piece) {
+                    return piece.getName() + " shares its cell " + piece.getRow() + "," + piece.getCol();
+                }
+                if (registry.getRow(worker) != piece.getRow() || registry.getCol(worker) != piece.getCol()) {
+                    return "the worker registry has " + piece.getName() + " on " + registry.getRow(worker) + ","
+                            + registry.getCol(worker);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Gets a cell index.
+         *
+         * @param row The row
+         * @param col The column
+         * @return The index, or -1 if the cell is off the board
+         */
+        private int cell(int row, int col) {
+            return row < 0 || row >= size || col < 0 || col >= size ? -1 : row * size + col;
+        }
+
+        /**
+         * Gets a cell of the 3x3 block centred on another.
+         *
+         * @param cell The centre cell
+         * @param index The position in the block, 0 to 8, row by row
+         * @return The cell index, or -1 if it is off the board
+         */
+        private int neighbour(int cell, int index) {
+            return cell(cell / size + index / 3 - 1, cell % size + index % 3 - 1);
+        }
+
+        /**
+         * Checks whether two cells are neighbours.
+         *
+         * @param a A cell index
+         * @param b Another cell index
+         * @return true if they touch, diagonals included
+         */
+        private boolean isAdjacent(int a, int b) {
+            int rows = Math.abs(a / size - b / size);
+            int cols = Math.abs(a % size - b % size);
+            return rows <= 1 && cols <= 1 && a != b;
+        }
+
+        /**
+         * Gets a player's name for reports.
+         * @param player The player, or null
+         * @return The name, or "nobody"
+         */
+        private static String name(Player player) {
+            return player != null ? player.getName() : "nobody";
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * A single player action that can be submitted to BoardLogic.
+ * Actions are immutable so batches of them can be stored, replayed and shared.
+ */
+public final class GameAction {
+    /**
+     * The kinds of action a player can take.
+     */
+    public enum Type {
+        /** Place the next unplaced piece of the placing player. */
+        PLACE,
+        /** Move one of the current player's workers. */
+        MOVE,
+        /** Build with the worker that moved this turn. */
+        BUILD,
+        /** End the turn without taking an optional extra build. */
+        END_TURN
+    }
+
+    private final Type type;
+    private final int fromRow;
+    private final int fromCol;
+    private final int toRow;
+    private final int toCol;
+
+    private GameAction(Type type, int fromRow, int fromCol, int toRow, int toCol) {
+        this.type = type;
+        this.fromRow = fromRow;
+        this.fromCol = fromCol;
+        this.toRow = toRow;
+        this.toCol = toCol;
+    }
+
+    /**
+     * Creates a placement action.
+     *
+     * @param row The row to place on
+     * @param col The column to place on
+     * @return The action
+     */
+    public static GameAction place(int row, int col) {
+        return new GameAction(Type.PLACE, -1, -1, row, col);
+    }
+
+    /**
+     * Creates a move action.
+     *
+     * @param fromRow The row of the worker
+     * @param fromCol The column of the worker
+     * @param toRow The target row
+     * @param toCol The target column
+     * @return The action
+     */
+    public static GameAction move(int fromRow, int fromCol, int toRow, int toCol) {
+        return new GameAction(Type.MOVE, fromRow, fromCol, toRow, toCol);
+    }
+
+    /**
+     * Creates a build action.
+     *
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @param buildRow The row to build on
+     * @param buildCol The column to build on
+     * @return The action
+     */
+    public static GameAction build(int workerRow, int workerCol, int buildRow, int buildCol) {
+        return new GameAction(Type.BUILD, workerRow, workerCol, buildRow, buildCol);
+    }
+
+    /**
+     * Creates an action that ends the turn without taking an optional extra build.
+     *
+     * @return The action
+     */
+    public static GameAction endTurn() {
+        return new GameAction(Type.END_TURN, -1, -1, -1, -1);
+    }
+
+    /**
+     * Gets the kind of action.
+     * @return The action type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets the row the acting worker starts on.
+     * @return The worker's row, or -1 for placements
+     */
+    public int getFromRow() {
+        return fromRow;
+    }
+
+    /**
+     * Gets the column the acting worker starts on.
+     * @return The worker's column, or -1 for placements
+     */
+    public int getFromCol() {
+        return fromCol;
+    }
+
+    /**
+     * Gets the target row of the action.
+     * @return The placement, move or build row
+     */
+    public int getToRow() {
+        return toRow;
+    }
+
+    /**
+     * Gets the target column of the action.
+     * @return The placement, move or build column
+     */
+    public int getToCol() {
+        return toCol;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) return true;
+        if (!(other instanceof GameAction)) return false;
+        GameAction action = (GameAction) other;
+        return type == action.type && fromRow == action.fromRow && fromCol == action.fromCol
+                && toRow == action.toRow && toCol == action.toCol;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((((type.ordinal() * 31 + fromRow) * 31 + fromCol) * 31 + toRow) * 31) + toCol;
+    }
+
+    @Override
+    public String toString() {
+        switch (type) {
+            case PLACE:
+                return "place(" + toRow + "," + toCol + ")";
+            case MOVE:
+                return "move(" + fromRow + "," + fromCol + "->" + toRow + "," + toCol + ")";
+            case END_TURN:
+                return "endTurn()";
+            default:
+                return "build(" + fromRow + "," + fromCol + "->" + toRow + "," + toCol + ")";
+        }
+    }
+}
@@ -0,0 +1,288 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Analyses a finished two-player game turn by turn: the best turn in each
+ * position, how much the played turn lost against it, and whether that was a
+ * blunder.
+ *
+ * The game is replayed from the board's action history to find the position at
+ * the start of every turn, and the position it ended in. Each of these is then
+ * searched to a fixed depth as its own task on a thread pool, all the engines
+ * sharing one transposition table, so a position's search reuses what the
+ * searches of nearby positions have already found. A search gives the best turn
+ * and its score; the played turn's score is the negated score of the position
+ * it led to, searched to the same depth. One search per position is enough for
+ * both, as in the usual engine analysis of chess games.
+ *
+ * Only two-player games can be analysed: with more players the engine's scores
+ * are paranoid, from the point of view of the side to move against all the
+ * others, so the score of one position says nothing exact about the player who
+ * moved into it.
+ */
+public class GameAnalyzer {
+    /** Score loss, in evaluation units, from which a turn counts as a blunder. */
+    public static final int DEFAULT_BLUNDER_THRESHOLD = 300;
+
+    // Losses are capped at this in averages, so one missed win does not swamp the rest
+    private static final int MAX_AVERAGE_LOSS = 1000;
+
+    private final int depth;
+    private final int blunderThreshold;
+    private final int threads;
+    private final TranspositionTable table;
+    private ExecutorService executor;
+
+    /**
+     * Creates an analyser.
+     *
+     * @param depth The depth every position is searched to, in turns, at least 1
+     * @param blunderThreshold The score loss from which a turn counts as a blunder
+     * @param threads The number of positions to search at once
+     * @param tableSizeLog2 The base-2 logarithm of the number of entries in the shared transposition table
+     */
+    public GameAnalyzer(int depth, int blunderThreshold, int threads, int tableSizeLog2) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("The analysis depth must be at least 1");
+        }
+        this.depth = depth;
+        this.blunderThreshold = blunderThreshold;
+        this.threads = Math.max(1, threads);
+        this.table = new TranspositionTable(tableSizeLog2);
+    }
+
+    /**
+     * Analyses every turn of a game, from its recorded history. The game does not
+     * need to be over; the turns played so far are analysed.
+     *
+     * @param game The board the game was played on
+     * @return One analysis per turn, in order
+     * @throws IllegalArgumentException If the game does not have two players or
+     *         its history does not replay
+     */
+    public List<TurnAnalysis> analyze(BoardLogic game) {
+        List<Player> players = game.getPlayers();
+        if (players.size() != 2) {
+            throw new IllegalArgumentException("Only two-player games can be analysed");
+        }
+        List<Position> positions = replay(game);
+        if (positions.size() < 2) return new ArrayList<>();
+
+        // The last position only needs a search if the game did not end there
+        int searches = positions.get(positions.size() - 1).getWinner() == Position.NONE
+                ? positions.size() : positions.size() - 1;
+        long[] played = new long[positions.size() - 1];
+        List<Future<SearchResult>> pending = new ArrayList<>(searches);
+        ExecutorService pool = getExecutor();
+        for (int i = 0; i < searches; i++) {
+            Position before = positions.get(i);
+            Position after = i + 1 < positions.size() ? positions.get(i + 1) : null;
+            int index = i;
+            pending.add(pool.submit(() -> analyzePosition(before, after, played, index)));
+        }
+        SearchResult[] results = new SearchResult[searches];
+        for (int i = 0; i < searches; i++) {
+            try {
+                results[i] = pending.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while analysing", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Analysis worker failed", e.getCause());
+            }
+        }
+
+        List<TurnAnalysis> turns = new ArrayList<>(played.length);
+        for (int i = 0; i < played.length; i++) {
+            int player = positions.get(i).getSideToMove();
+            SearchResult best = results[i];
+            int playedScore;
+            if (played[i] == best.getTurn() && played[i] != Turn.NONE) {
+                playedScore = best.getScore();
+            } else {
+                // A turn the engine does not generate, such as a move with no build after it, is still
+                // scored from where it led: usually a loss
+                playedScore = getPlayedScore(positions.get(i + 1), i + 1 < searches ? results[i + 1] : null, player);
+            }
+            boolean missedWin = best.getScore() >= SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH
+                    && playedScore < SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH;
+            boolean blunder = played[i] != best.getTurn()
+                    && (missedWin || best.getScore() - playedScore >= blunderThreshold);
+            turns.add(new TurnAnalysis(i + 1, player, played[i], best.getTurn(), best.getScore(), playedScore,
+                    blunder));
+        }
+        return turns;
+    }
+
+    /**
+     * Replays a game's history on a new board with the same God Cards.
+     *
+     * @param game The board the game was played on
+     * @return The position at the start of every turn, followed by the position after the last turn
+     * @throws IllegalArgumentException If an action of the history is illegal on replay
+     */
+    private static List<Position> replay(BoardLogic game) {
+        BoardLogic board = new BoardLogic(game.getConfig(), new GameState());
+        for (int p = 0; p < game.getPlayers().size(); p++) {
+            board.getPlayers().get(p).setGodCard(game.getPlayers().get(p).getGodCard());
+        }
+        GameState state = board.getGameState();
+        List<Position> positions = new ArrayList<>();
+        List<GameAction> history = game.getHistory();
+        for (int i = 0; i < history.size(); i++) {
+            GameAction action = history.get(i);
+            // Every turn opens with a move
+            if (state.isGameStarted() && !state.isInBuildPhase() && action.getType() == GameAction.Type.MOVE) {
+                positions.add(Position.fromBoard(board));
+            }
+            if (!board.applyAction(action)) {
+                throw new IllegalArgumentException("Action " + i + " of the history does not replay: " + action);
+            }
+        }
+        if (!positions.isEmpty()) positions.add(Position.fromBoard(board));
+        return positions;
+    }
+
+    /**
+     * Searches one position and finds which of its turns led to the next.
+     * Runs on a pool thread, on copies, so the shared positions are only read.
+     *
+     * @param before The position to search
+     * @param after The position after the turn played, or null for the last position
+     * @param played Receives the turn played at index
+     * @param index The number of the position
+     * @return The result of the search
+     */
+    private SearchResult analyzePosition(Position before, Position after, long[] played, int index) {
+        Position position = new Position(before);
+        if (after != null) played[index] = findPlayedTurn(position, after);
+        SearchEngine engine = new SearchEngine(position, new IncrementalEvaluator(position), table);
+        return engine.search(depth, 0);
+    }
+
+    /**
+     * Finds the turn that leads from one position to another.
+     *
+     * @param position The position the turn was played in; it is restored
+     * @param after The position the turn led to
+     * @return The turn, or Turn.NONE if none of the engine's turns matches, as
+     *         when a worker moved where it could not build and lost
+     */
+    private static long findPlayedTurn(Position position, Position after) {
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        for (int i = 0; i < count; i++) {
+            position.makeTurn(turns[i]);
+            boolean matches = sameBoard(position, after);
+            position.unmakeTurn();
+            if (matches) return turns[i];
+        }
+        return Turn.NONE;
+    }
+
+    /**
+     * Checks whether two positions have the same buildings and workers.
+     *
+     * @param a One position
+     * @param b The other position
+     * @return true if every cell has the same height and worker
+     */
+    private static boolean sameBoard(Position a, Position b) {
+        for (int cell = 0; cell < a.getCellCount(); cell++) {
+            if (a.getHeight(cell) != b.getHeight(cell) || a.getWorkerAt(cell) != b.getWorkerAt(cell)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Scores a played turn from the position it led to.
+     *
+     * @param after The position after the turn
+     * @param result The search of that position, or null if the game ended there
+     * @param player The player who took the turn
+     * @return The score of the turn for the player
+     */
+    private static int getPlayedScore(Position after, SearchResult result, int player) {
+        int winner = after.getWinner();
+        if (winner != Position.NONE) {
+            return winner == player ? SearchEngine.WIN_SCORE - 1 : -(SearchEngine.WIN_SCORE - 1);
+        }
+        int score = -result.getScore();
+        // A win seen from the next position is one turn further from this one
+        if (score >= SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH) return score - 1;
+        if (score <= -(SearchEngine.WIN_SCORE - SearchEngine.MAX_DEPTH)) return score + 1;
+        return score;
+    }
+
+    /**
+     * Prints every turn with its best alternative, followed by each player's
+     * average score loss and number of blunders.
+     *
+     * @param turns The analysis of the game
+     * @param gridSize The grid size, to show turns as coordinates
+     */
+    public static void printReport(List<TurnAnalysis> turns, int gridSize) {
+        System.out.println("turn  player  played                     best                       score    loss");
+        long[] totalLoss = new long[2];
+        int[] counts = new int[2];
+        int[] blunders = new int[2];
+        for (TurnAnalysis turn : turns) {
+            int player = turn.getPlayer();
+            String played = turn.getPlayedTurn() == Turn.NONE ? "?" : Turn.toString(turn.getPlayedTurn(), gridSize);
+            String best = turn.getPlayedTurn() == turn.getBestTurn() ? "=" : Turn.toString(turn.getBestTurn(), gridSize);
+            System.out.printf("%4d  %6d  %-25s  %-25s  %7s  %6d%s%n", turn.getTurnNumber(), player + 1, played, best,
+                    formatScore(turn.getBestScore()), turn.getLoss(), turn.isBlunder() ? "  ??" : "");
+            totalLoss[player] += Math.min(MAX_AVERAGE_LOSS, turn.getLoss());
+            counts[player]++;
+            if (turn.isBlunder()) blunders[player]++;
+        }
+        for (int player = 0; player < 2; player++) {
+            System.out.printf("player %d: %d turns, average loss %.1f, %d blunders%n", player + 1, counts[player],
+                    (double) totalLoss[player] / Math.max(1, counts[player]), blunders[player]);
+        }
+    }
+
+    /**
+     * Formats a score, showing a forced win or loss as the turns to it.
+     * @param score The score
+     * @return The score as text
+     */
+    private static String formatScore(int score) {
+        int distance = SearchEngine.WIN_SCORE - Math.abs(score);
+        if (distance > SearchEngine.MAX_DEPTH) return Integer.toString(score);
+        return (score > 0 ? "W" : "L") + distance;
+    }
+
+    /**
+     * Gets the pool the positions are searched on, creating it on first use.
+     * @return The pool
+     */
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads, runnable -> {
+                Thread thread = new Thread(runnable, "game-analyzer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Clears the shared transposition table, so the next analysis starts cold.
+     */
+    public void clearTable() {
+        table.clear();
+    }
+
+    /**
+     * Stops the pool threads. The analyser must not be used afterwards.
+     */
+    public void shutdown() {
+        if (executor != null) executor.shutdown();
+    }
+}
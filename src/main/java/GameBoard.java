@@ -1,8 +1,8 @@
-import javax.swing.JPanel;
-
 /**
  * Represents a game board that can contain game entities.
  * This interface defines the basic operations that all game boards must implement.
+ * It carries no view concerns, so it can be implemented without Swing;
+ * see GameBoardView for the visual contract.
  */
 public interface GameBoard {
     /**
@@ -40,21 +40,9 @@ public interface GameBoard {
      */
     boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol);
     
-    /**
-     * Gets the visual panel representing the game board.
-     * @return The JPanel that visually represents the game board
-     */
-    JPanel getBoardPanel();
-    
     /**
      * Gets the current player.
      * @return The current player
      */
     Player getCurrentPlayer();
-    
-    /**
-     * Gets the turn indicator panel.
-     * @return The JPanel that shows whose turn it is
-     */
-    JPanel getTurnIndicator();
 } 
\ No newline at end of file
@@ -0,0 +1,19 @@
+import javax.swing.JPanel;
+
+/**
+ * Visual contract for a game board displayed with Swing.
+ * Kept separate from GameBoard so headless boards never touch AWT components.
+ */
+public interface GameBoardView {
+    /**
+     * Gets the visual panel representing the game board.
+     * @return The JPanel that visually represents the game board
+     */
+    JPanel getBoardPanel();
+    
+    /**
+     * Gets the turn indicator panel.
+     * @return The JPanel that shows whose turn it is
+     */
+    JPanel getTurnIndicator();
+}
@@ -4,6 +4,13 @@
  * Encapsulates all configurable parameters.
  */
 public class GameConfig {
+    /** The largest supported grid size. */
+    public static final int MAX_GRID_SIZE = 64;
+    /** The smallest supported number of players. */
+    public static final int MIN_PLAYERS = 2;
+    /** The largest supported number of players. */
+    public static final int MAX_PLAYERS = 16;
+    
     private final int gridSize;
     private final int numPlayers;
     private final int piecesPerPlayer;
@@ -0,0 +1,25 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for the end of a game.
+ * Disabled by default; enable santorini.GameEnd in a recording to capture it.
+ */
+@Name("santorini.GameEnd")
+@Label("Game End")
+@Category({"Santorini", "Game"})
+@Description("A game ended")
+@Enabled(false)
+@StackTrace(false)
+public class GameEndEvent extends Event {
+    @Label("Winner")
+    String winner;
+
+    @Label("Winner God Card")
+    String godCard;
+}
@@ -1,22 +1,12 @@
 
 
-import javax.swing.JPanel;
 import java.awt.Color;
 
 /**
  * Base class for all game entities that can occupy cells on the board.
+ * Entities are pure model objects; views decide how to draw them.
  */
 public abstract class GameEntity {
-    protected JPanel visualComponent;
-
-    /**
-     * Gets the visual component representing this entity.
-     * @return The visual component
-     */
-    public JPanel getVisualComponent() {
-        return visualComponent;
-    }
-
     /**
      * Gets the row position of this entity.
      * @return The row position
@@ -41,4 +31,10 @@ public abstract class GameEntity {
      * @return The color of the entity
      */
     public abstract Color getColor();
+
+    /**
+     * Gets the color of this entity without creating any AWT objects.
+     * @return The color as a 0xRRGGBB value
+     */
+    public abstract int getColorRgb();
 } 
\ No newline at end of file
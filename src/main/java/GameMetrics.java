@@ -0,0 +1,400 @@
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide metrics for the game engine, exposed through JMX.
+ * Every thread records into its own plain histograms and counters, found through
+ * a ThreadLocal, so recording takes no locks and no atomic operations and never
+ * shares a cache line with another thread. The threads' records are merged only
+ * when the metrics are read; those reads are not synchronized with the
+ * recording threads, so a read may miss the last few samples. Metrics can be
+ * switched off with -Dsantorini.metrics.disabled=true, in which case ENABLED is
+ * a constant false and the JIT removes the instrumentation entirely.
+ *
+ * Every operation is counted, but only some are timed. An operation called
+ * inside another, as a build ends the turn and the turn switch checks the next
+ * player's moves, is never timed; its time is part of the enclosing operation's,
+ * so no time is counted twice. Of the outermost calls of each operation, each
+ * thread times the first and then one in every SAMPLE_INTERVAL, set with
+ * -Dsantorini.metrics.sampleInterval (1 times every call). The histograms are
+ * therefore samples: their means and percentiles estimate the whole, but the
+ * slowest call can be missed. Reading the clock costs more than the rest of the
+ * recording put together, and sampling keeps it out of most turns.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+    /** Whether metrics are recorded at all. */
+    public static final boolean ENABLED = !Boolean.getBoolean("santorini.metrics.disabled");
+
+    /** Each thread times one in this many outermost calls of an operation. */
+    public static final int SAMPLE_INTERVAL = Math.max(1, Integer.getInteger("santorini.metrics.sampleInterval", 16));
+
+    /** The JMX object name the metrics are registered under. */
+    public static final String OBJECT_NAME = "santorini:type=GameMetrics";
+
+    /**
+     * Operations whose latency is measured.
+     */
+    public enum Operation {
+        ADD_ENTITY,
+        MOVE_ENTITY,
+        BUILD,
+        HAS_VALID_MOVES,
+        SWITCH_TO_NEXT_PLAYER,
+        HIGHLIGHT
+    }
+
+    // God Card columns of the rejection table
+    private static final String[] GOD_NAMES = {"None", "Apollo", "Demeter", "Other"};
+    // Returned by startTimer() for an operation that is counted but not timed; never a clock reading in practice
+    private static final long UNTIMED = Long.MIN_VALUE;
+
+    private static final GameMetrics INSTANCE = createAndRegister();
+    private static final ThreadLocal<ThreadMetrics> LOCAL = ThreadLocal.withInitial(() -> INSTANCE.register());
+
+    // The records of every thread that has recorded, guarded by itself
+    private final List<ThreadMetrics> threads;
+    // The merged records of threads that have ended
+    private final ThreadMetrics retired;
+
+    private GameMetrics() {
+        this.threads = new ArrayList<>();
+        this.retired = new ThreadMetrics(null);
+    }
+
+    /**
+     * Gets the process-wide metrics instance.
+     * @return The metrics
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts a measured operation. Reads the clock only if no other measured
+     * operation is running on this thread and the call is due to be sampled.
+     * Every call must be matched by a recordLatency() call, in a finally block so
+     * that an exception cannot leave the operation open.
+     *
+     * @param operation The operation that is starting
+     * @return The value to pass to recordLatency()
+     */
+    public static long startTimer(Operation operation) {
+        if (!ENABLED) return 0L;
+        ThreadMetrics metrics = LOCAL.get();
+        if (metrics.depth++ > 0 || --metrics.untilSample[operation.ordinal()] > 0) return UNTIMED;
+        metrics.untilSample[operation.ordinal()] = SAMPLE_INTERVAL;
+        return System.nanoTime();
+    }
+
+    /**
+     * Ends an operation started with startTimer(), recording its latency if it
+     * was timed and only counting it otherwise.
+     *
+     * @param operation The operation that finished
+     * @param startNanos The value returned by startTimer()
+     */
+    public static void recordLatency(Operation operation, long startNanos) {
+        if (ENABLED) {
+            ThreadMetrics metrics = LOCAL.get();
+            metrics.depth--;
+            if (startNanos == UNTIMED) {
+                metrics.untimedCounts[operation.ordinal()]++;
+            } else {
+                metrics.latencies[operation.ordinal()].record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    /**
+     * Records a rejected action.
+     *
+     * @param reason Why the action was rejected
+     * @param godCard The acting player's God Card, or null if they have none
+     */
+    public static void recordRejection(RejectionReason reason, GodCard godCard) {
+        if (ENABLED) {
+            LOCAL.get().rejections[reason.ordinal()][godIndex(godCard)]++;
+        }
+    }
+
+    /**
+     * Records that a game finished placement and started play.
+     */
+    public static void recordGameStarted() {
+        if (ENABLED) {
+            LOCAL.get().gamesStarted++;
+        }
+    }
+
+    /**
+     * Records that a game ended.
+     */
+    public static void recordGameFinished() {
+        if (ENABLED) {
+            LOCAL.get().gamesFinished++;
+        }
+    }
+
+    /**
+     * Gets the sampled latencies of an operation, merged over every thread.
+     * Calls nested inside another measured operation are never included.
+     *
+     * @param operation The operation
+     * @return A copy of its histogram
+     */
+    public LatencyHistogram getLatency(Operation operation) {
+        return snapshot().latencies[operation.ordinal()];
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        ThreadMetrics total = snapshot();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            counts.put(operation.name(),
+                    total.latencies[operation.ordinal()].getCount() + total.untimedCounts[operation.ordinal()]);
+        }
+        return counts;
+    }
+
+    @Override
+    public Map<String, Double> getOperationMeanMicros() {
+        ThreadMetrics total = snapshot();
+        Map<String, Double> means = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            means.put(operation.name(), total.latencies[operation.ordinal()].getMean() / 1000.0);
+        }
+        return means;
+    }
+
+    @Override
+    public Map<String, Double> getOperationP50Micros() {
+        return percentiles(50);
+    }
+
+    @Override
+    public Map<String, Double> getOperationP99Micros() {
+        return percentiles(99);
+    }
+
+    @Override
+    public Map<String, Double> getOperationMaxMicros() {
+        ThreadMetrics total = snapshot();
+        Map<String, Double> maxima = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            maxima.put(operation.name(), total.latencies[operation.ordinal()].getMax() / 1000.0);
+        }
+        return maxima;
+    }
+
+    @Override
+    public Map<String, Long> getRejections() {
+        ThreadMetrics total = snapshot();
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (RejectionReason reason : RejectionReason.values()) {
+            for (int god = 0; god < GOD_NAMES.length; god++) {
+                long count = total.rejections[reason.ordinal()][god];
+                if (count > 0) {
+                    counts.put(reason.name() + "/" + GOD_NAMES[god], count);
+                }
+            }
+        }
+        return counts;
+    }
+
+    @Override
+    public long getTotalRejections() {
+        long total = 0;
+        for (long[] row : snapshot().rejections) {
+            for (long count : row) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getGamesStarted() {
+        return snapshot().gamesStarted;
+    }
+
+    @Override
+    public long getGamesFinished() {
+        return snapshot().gamesFinished;
+    }
+
+    /**
+     * Clears every metric. Samples that other threads record while this runs
+     * may be partly kept.
+     */
+    @Override
+    public void reset() {
+        synchronized (threads) {
+            retired.clear();
+            for (ThreadMetrics metrics : threads) {
+                metrics.clear();
+            }
+        }
+    }
+
+    /**
+     * Collects one percentile of every operation.
+     * @param percentile The percentile in the range 0-100
+     * @return Latencies in microseconds keyed by operation name
+     */
+    private Map<String, Double> percentiles(double percentile) {
+        ThreadMetrics total = snapshot();
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            values.put(operation.name(), total.latencies[operation.ordinal()].getPercentile(percentile) / 1000.0);
+        }
+        return values;
+    }
+
+    /**
+     * Creates the records of the calling thread and adds them to the list.
+     * Threads that have ended are folded into the retired records first, so the
+     * list stays as long as the number of live threads.
+     *
+     * @return The new records
+     */
+    private ThreadMetrics register() {
+        ThreadMetrics metrics = new ThreadMetrics(Thread.currentThread());
+        synchronized (threads) {
+            retireEndedThreads();
+            threads.add(metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Merges the records of every thread.
+     * @return The totals
+     */
+    private ThreadMetrics snapshot() {
+        ThreadMetrics total = new ThreadMetrics(null);
+        synchronized (threads) {
+            retireEndedThreads();
+            total.add(retired);
+            for (ThreadMetrics metrics : threads) {
+                total.add(metrics);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Moves the records of threads that have ended into the retired records.
+     * Called with the list locked.
+     */
+    private void retireEndedThreads() {
+        for (Iterator<ThreadMetrics> it = threads.iterator(); it.hasNext();) {
+            ThreadMetrics metrics = it.next();
+            if (!metrics.thread.isAlive()) {
+                retired.add(metrics);
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Maps a God Card to its column in the rejection table.
+     * @param godCard The God Card, or null
+     * @return The column index
+     */
+    private static int godIndex(GodCard godCard) {
+        if (godCard == null) return 0;
+        if (godCard instanceof ApolloGodCard) return 1;
+        if (godCard instanceof DemeterGodCard) return 2;
+        return 3;
+    }
+
+    /**
+     * Creates the singleton and registers it with the platform MBean server when metrics are enabled.
+     * @return The metrics instance
+     */
+    private static GameMetrics createAndRegister() {
+        GameMetrics metrics = new GameMetrics();
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, new ObjectName(OBJECT_NAME));
+            } catch (Exception e) {
+                // Metrics still work in-process if JMX registration is unavailable
+                System.err.println("Could not register game metrics MBean: " + e.getMessage());
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * The records of one thread, written only by that thread. Also used for the
+     * retired records and for merged totals, which have no thread.
+     */
+    private static final class ThreadMetrics {
+        private final Thread thread;
+        private final LatencyHistogram[] latencies;
+        private final long[] untimedCounts;
+        private final long[][] rejections;
+        private long gamesStarted;
+        private long gamesFinished;
+        // The number of outermost calls of each operation left until one is timed
+        private final int[] untilSample;
+        // The number of measured operations running on the thread
+        private int depth;
+
+        /**
+         * Creates empty records.
+         * @param thread The recording thread, or null for merged records
+         */
+        ThreadMetrics(Thread thread) {
+            this.thread = thread;
+            this.latencies = new LatencyHistogram[Operation.values().length];
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LatencyHistogram();
+            }
+            this.untimedCounts = new long[latencies.length];
+            this.untilSample = new int[latencies.length];
+            Arrays.fill(untilSample, 1);
+            this.rejections = new long[RejectionReason.values().length][GOD_NAMES.length];
+        }
+
+        /**
+         * Adds another thread's records to these.
+         * @param other The records to add
+         */
+        void add(ThreadMetrics other) {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i].add(other.latencies[i]);
+                untimedCounts[i] += other.untimedCounts[i];
+            }
+            for (int reason = 0; reason < rejections.length; reason++) {
+                for (int god = 0; god < GOD_NAMES.length; god++) {
+                    rejections[reason][god] += other.rejections[reason][god];
+                }
+            }
+            gamesStarted += other.gamesStarted;
+            gamesFinished += other.gamesFinished;
+        }
+
+        /**
+         * Clears the records, but not the state of operations in progress.
+         */
+        void clear() {
+            for (LatencyHistogram histogram : latencies) {
+                histogram.reset();
+            }
+            Arrays.fill(untimedCounts, 0);
+            for (long[] row : rejections) {
+                Arrays.fill(row, 0);
+            }
+            gamesStarted = 0;
+            gamesFinished = 0;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.Map;
+
+/**
+ * JMX management interface for the game engine metrics.
+ * Registered under the object name santorini:type=GameMetrics.
+ */
+public interface GameMetricsMXBean {
+    /**
+     * Gets the number of calls per instrumented operation.
+     * @return Call counts keyed by operation name
+     */
+    Map<String, Long> getOperationCounts();
+
+    /**
+     * Gets the mean latency per instrumented operation.
+     * @return Mean latencies in microseconds keyed by operation name
+     */
+    Map<String, Double> getOperationMeanMicros();
+
+    /**
+     * Gets the median latency per instrumented operation.
+     * @return p50 latencies in microseconds keyed by operation name
+     */
+    Map<String, Double> getOperationP50Micros();
+
+    /**
+     * Gets the 99th percentile latency per instrumented operation.
+     * @return p99 latencies in microseconds keyed by operation name
+     */
+    Map<String, Double> getOperationP99Micros();
+
+    /**
+     * Gets the largest sampled latency per instrumented operation.
+     * @return Maximum latencies in microseconds keyed by operation name
+     */
+    Map<String, Double> getOperationMaxMicros();
+
+    /**
+     * Gets the rejected actions broken down by reason and God Card.
+     * @return Counts keyed by "REASON/God", omitting combinations that never occurred
+     */
+    Map<String, Long> getRejections();
+
+    /**
+     * Gets the total number of rejected actions.
+     * @return The rejection count
+     */
+    long getTotalRejections();
+
+    /**
+     * Gets the number of games that finished placement and started play.
+     * @return The number of games started
+     */
+    long getGamesStarted();
+
+    /**
+     * Gets the number of games that ended.
+     * @return The number of games finished
+     */
+    long getGamesFinished();
+
+    /**
+     * Clears every metric.
+     */
+    void reset();
+}
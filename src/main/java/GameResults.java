@@ -0,0 +1,112 @@
+import java.util.Arrays;
+
+/**
+ * Growable table of two-sided game results in primitive columns, for rating
+ * millions of games without an object per game. Each result records the rating
+ * period it belongs to, the two rated entities by index, and the first entity's
+ * score. Results must be added in period order, so a period is a contiguous run.
+ */
+public class GameResults {
+    /** Score of a win for the first entity. */
+    public static final double WIN = 1.0;
+    /** Score of a draw. */
+    public static final double DRAW = 0.5;
+    /** Score of a loss for the first entity. */
+    public static final double LOSS = 0.0;
+
+    private int[] periods;
+    private int[] firsts;
+    private int[] seconds;
+    private byte[] halfPoints; // The first entity's score, doubled: 2 win, 1 draw, 0 loss
+    private int size;
+
+    /**
+     * Creates an empty table.
+     * @param expectedResults The number of results to size the table for
+     */
+    public GameResults(int expectedResults) {
+        int capacity = Math.max(16, expectedResults);
+        this.periods = new int[capacity];
+        this.firsts = new int[capacity];
+        this.seconds = new int[capacity];
+        this.halfPoints = new byte[capacity];
+    }
+
+    /**
+     * Adds a result.
+     *
+     * @param period The rating period, no earlier than that of the last result added
+     * @param first The index of the first entity
+     * @param second The index of the second entity, different from the first
+     * @param score The first entity's score: WIN, DRAW or LOSS
+     * @throws IllegalArgumentException If the period goes backwards, the entities
+     *         are the same or the score is not a win, draw or loss
+     */
+    public void add(int period, int first, int second, double score) {
+        if (size > 0 && period < periods[size - 1]) {
+            throw new IllegalArgumentException("Period " + period + " comes after period " + periods[size - 1]);
+        }
+        if (first == second || first < 0 || second < 0) {
+            throw new IllegalArgumentException("Invalid entities: " + first + " and " + second);
+        }
+        if (score != WIN && score != DRAW && score != LOSS) {
+            throw new IllegalArgumentException("Invalid score: " + score);
+        }
+        if (size == periods.length) {
+            int capacity = size * 2;
+            periods = Arrays.copyOf(periods, capacity);
+            firsts = Arrays.copyOf(firsts, capacity);
+            seconds = Arrays.copyOf(seconds, capacity);
+            halfPoints = Arrays.copyOf(halfPoints, capacity);
+        }
+        periods[size] = period;
+        firsts[size] = first;
+        seconds[size] = second;
+        halfPoints[size] = (byte) (score * 2);
+        size++;
+    }
+
+    /**
+     * Gets the number of results.
+     * @return The number of results added
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the rating period of a result.
+     * @param result The index of the result
+     * @return The period
+     */
+    public int getPeriod(int result) {
+        return periods[result];
+    }
+
+    /**
+     * Gets the first entity of a result.
+     * @param result The index of the result
+     * @return The entity's index
+     */
+    public int getFirst(int result) {
+        return firsts[result];
+    }
+
+    /**
+     * Gets the second entity of a result.
+     * @param result The index of the result
+     * @return The entity's index
+     */
+    public int getSecond(int result) {
+        return seconds[result];
+    }
+
+    /**
+     * Gets the first entity's score in a result.
+     * @param result The index of the result
+     * @return WIN, DRAW or LOSS
+     */
+    public double getScore(int result) {
+        return halfPoints[result] * 0.5;
+    }
+}
@@ -0,0 +1,490 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Non-blocking TCP server that hosts many concurrent games in one JVM.
+ * A single selector thread accepts connections, decodes fixed-size request
+ * frames straight out of pooled buffers and applies them to the addressed
+ * GameSession. Any connection may drive any number of games.
+ *
+ * A connection may also spectate any number of games. Accepted actions are
+ * published to each game's SpectatorFeed once, and after every pass over the
+ * ready keys the queued feeds are delivered to their spectators' output buffers.
+ */
+public class GameServer {
+    private static final int DEFAULT_PORT = 7077;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long REPORT_INTERVAL_NANOS = 5_000_000_000L;
+
+    private final int port;
+    private final int maxGames;
+    private final SessionTable sessions;
+    private final BufferPool bufferPool;
+    private final LatencyHistogram intervalLatency;
+    private final LatencyHistogram totalLatency;
+    private final List<SpectatorFeed> queuedFeeds;
+    private final List<Connection> pendingFlushes;
+    private Selector selector;
+    private volatile boolean running;
+    private long intervalStart;
+
+    /**
+     * Creates a new game server.
+     *
+     * @param port The TCP port to listen on
+     * @param maxGames The maximum number of concurrently hosted games
+     */
+    public GameServer(int port, int maxGames) {
+        this.port = port;
+        this.maxGames = maxGames;
+        this.sessions = new SessionTable(maxGames);
+        this.bufferPool = new BufferPool(BUFFER_SIZE, 1024);
+        this.intervalLatency = new LatencyHistogram();
+        this.totalLatency = new LatencyHistogram();
+        this.queuedFeeds = new ArrayList<>();
+        this.pendingFlushes = new ArrayList<>();
+    }
+
+    /**
+     * Runs the selector loop until stop() is called.
+     * @throws IOException If the listening socket cannot be opened
+     */
+    public void run() throws IOException {
+        selector = Selector.open();
+        try (ServerSocketChannel serverChannel = ServerSocketChannel.open()) {
+            serverChannel.bind(new InetSocketAddress(port));
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+            running = true;
+            intervalStart = System.nanoTime();
+
+            while (running) {
+                selector.select(1000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+                deliverFeeds();
+                reportIfDue();
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection) {
+                    closeConnection(key);
+                }
+            }
+            selector.close();
+        }
+    }
+
+    /**
+     * Asks the selector loop to exit.
+     */
+    public void stop() {
+        running = false;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Gets the latency histogram of every action processed since startup.
+     * @return The cumulative action latency histogram
+     */
+    public LatencyHistogram getTotalLatency() {
+        return totalLatency;
+    }
+
+    /**
+     * Dispatches a ready selection key.
+     * @param key The ready key
+     */
+    private void handleKey(SelectionKey key) {
+        if (!key.isValid()) return;
+        try {
+            if (key.isAcceptable()) {
+                accept((ServerSocketChannel) key.channel());
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (key.isWritable()) {
+                flush(connection);
+                drainSubscriptions(connection);
+            }
+            if (key.isReadable()) {
+                int read = connection.channel.read(connection.in);
+                if (read < 0) {
+                    closeConnection(key);
+                    return;
+                }
+            }
+            processFrames(connection);
+            flush(connection);
+            updateInterest(key, connection);
+        } catch (IOException e) {
+            closeConnection(key);
+        }
+    }
+
+    /**
+     * Accepts a pending connection and gives it pooled buffers.
+     * @param serverChannel The listening channel
+     * @throws IOException If the connection cannot be configured
+     */
+    private void accept(ServerSocketChannel serverChannel) throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel, bufferPool.acquire(), bufferPool.acquire());
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    /**
+     * Decodes and handles every complete request frame in the input buffer,
+     * stopping early if the output buffer cannot hold another response.
+     * @param connection The connection to process
+     */
+    private void processFrames(Connection connection) {
+        ByteBuffer in = connection.in;
+        ByteBuffer out = connection.out;
+        in.flip();
+        while (in.remaining() >= Protocol.REQUEST_FRAME_SIZE
+                && out.remaining() >= Protocol.RESPONSE_FRAME_SIZE) {
+            handleFrame(connection, in, out);
+        }
+        in.compact();
+    }
+
+    /**
+     * Handles one request frame and writes its response frame.
+     *
+     * @param connection The connection the frame arrived on
+     * @param in The input buffer positioned at the start of a frame
+     * @param out The output buffer to append the response to
+     */
+    private void handleFrame(Connection connection, ByteBuffer in, ByteBuffer out) {
+        long start = System.nanoTime();
+        int gameId = in.getInt();
+        byte opcode = in.get();
+        int arg0 = in.get();
+        int arg1 = in.get();
+        int arg2 = in.get();
+        int arg3 = in.get();
+        in.get(); // reserved
+        short sequence = in.getShort();
+
+        byte status;
+        GameSession session = null;
+        boolean isAction = false;
+        switch (opcode) {
+            case Protocol.OP_NEW_GAME:
+                if (sessions.get(gameId) != null) {
+                    status = Protocol.STATUS_GAME_EXISTS;
+                } else if (sessions.size() >= maxGames) {
+                    status = Protocol.STATUS_SERVER_FULL;
+                } else if (!isValidConfig(arg0, arg1, arg2, arg3)) {
+                    status = Protocol.STATUS_ILLEGAL;
+                } else {
+                    session = new GameSession(gameId, new GameConfig(arg0, arg1, arg2, arg3));
+                    sessions.add(session);
+                    status = Protocol.STATUS_OK;
+                }
+                break;
+            case Protocol.OP_PLACE:
+            case Protocol.OP_MOVE:
+            case Protocol.OP_BUILD:
+                session = sessions.get(gameId);
+                if (session == null) {
+                    status = Protocol.STATUS_UNKNOWN_GAME;
+                    break;
+                }
+                isAction = true;
+                boolean accepted;
+                if (opcode == Protocol.OP_PLACE) {
+                    accepted = session.place(arg0, arg1);
+                } else if (opcode == Protocol.OP_MOVE) {
+                    accepted = session.move(arg0, arg1, arg2, arg3);
+                } else {
+                    accepted = session.build(arg0, arg1, arg2, arg3);
+                }
+                status = accepted ? Protocol.STATUS_OK : Protocol.STATUS_ILLEGAL;
+                if (accepted && session.getFeed() != null) {
+                    queueFeed(session.getFeed());
+                }
+                break;
+            case Protocol.OP_CLOSE_GAME:
+                GameSession removed = sessions.remove(gameId);
+                if (removed != null && removed.getFeed() != null) {
+                    removed.getFeed().close();
+                    queueFeed(removed.getFeed());
+                }
+                status = removed != null ? Protocol.STATUS_OK : Protocol.STATUS_UNKNOWN_GAME;
+                break;
+            case Protocol.OP_SPECTATE:
+                session = sessions.get(gameId);
+                if (session == null) {
+                    status = Protocol.STATUS_UNKNOWN_GAME;
+                } else if (findSubscription(connection, gameId) != null) {
+                    status = Protocol.STATUS_ILLEGAL;
+                } else {
+                    connection.subscriptions.add(session.openFeed().subscribe(connection));
+                    queueFeed(session.getFeed());
+                    status = Protocol.STATUS_OK;
+                }
+                break;
+            case Protocol.OP_UNSPECTATE:
+                SpectatorFeed.Subscriber subscriber = findSubscription(connection, gameId);
+                if (subscriber == null) {
+                    status = Protocol.STATUS_UNKNOWN_GAME;
+                } else {
+                    subscriber.unsubscribe();
+                    connection.subscriptions.remove(subscriber);
+                    status = Protocol.STATUS_OK;
+                }
+                break;
+            default:
+                status = Protocol.STATUS_BAD_FRAME;
+                break;
+        }
+
+        out.putInt(gameId);
+        out.put(status);
+        if (session != null) {
+            out.put(session.getPhase());
+            out.put((byte) session.getActingPlayerIndex());
+            out.put((byte) session.getWinnerIndex());
+        } else {
+            out.put((byte) -1);
+            out.put((byte) -1);
+            out.put((byte) -1);
+        }
+        out.put((byte) 0);
+        out.put((byte) 0);
+        out.putShort(sequence);
+
+        if (isAction) {
+            long elapsed = System.nanoTime() - start;
+            intervalLatency.record(elapsed);
+            totalLatency.record(elapsed);
+        }
+    }
+
+    /**
+     * Finds a connection's subscription to a game's feed.
+     *
+     * @param connection The connection
+     * @param gameId The game id
+     * @return The subscription, or null if the connection does not spectate the game
+     */
+    private static SpectatorFeed.Subscriber findSubscription(Connection connection, int gameId) {
+        for (SpectatorFeed.Subscriber subscriber : connection.subscriptions) {
+            if (subscriber.getFeed().getSession().getGameId() == gameId) return subscriber;
+        }
+        return null;
+    }
+
+    /**
+     * Queues a feed to be delivered at the end of the current pass, once however
+     * many actions it publishes in the meantime.
+     * @param feed The feed
+     */
+    private void queueFeed(SpectatorFeed feed) {
+        if (feed.markQueued()) {
+            queuedFeeds.add(feed);
+        }
+    }
+
+    /**
+     * Copies the new frames of every queued feed into its spectators' output
+     * buffers, then flushes each connection that received any. A spectator whose
+     * buffer is full is left behind in the ring and caught up when its socket
+     * becomes writable again.
+     */
+    private void deliverFeeds() {
+        for (SpectatorFeed feed : queuedFeeds) {
+            feed.clearQueued();
+            // Draining may drop a subscriber, which moves the last one into its place
+            for (int i = feed.getSubscriberCount() - 1; i >= 0; i--) {
+                SpectatorFeed.Subscriber subscriber = feed.getSubscriber(i);
+                Connection connection = (Connection) subscriber.getAttachment();
+                if (!subscriber.drain(connection.out)) {
+                    connection.subscriptions.remove(subscriber);
+                }
+                if (!connection.flushPending) {
+                    connection.flushPending = true;
+                    pendingFlushes.add(connection);
+                }
+            }
+        }
+        queuedFeeds.clear();
+        for (Connection connection : pendingFlushes) {
+            connection.flushPending = false;
+            if (!connection.key.isValid()) continue;
+            try {
+                flush(connection);
+                updateInterest(connection.key, connection);
+            } catch (IOException e) {
+                closeConnection(connection.key);
+            }
+        }
+        pendingFlushes.clear();
+    }
+
+    /**
+     * Copies the frames a connection's subscriptions are behind on into its
+     * output buffer, as far as they fit, and flushes it.
+     * @param connection The connection
+     * @throws IOException If the write fails
+     */
+    private void drainSubscriptions(Connection connection) throws IOException {
+        Iterator<SpectatorFeed.Subscriber> subscriptions = connection.subscriptions.iterator();
+        while (subscriptions.hasNext()) {
+            SpectatorFeed.Subscriber subscriber = subscriptions.next();
+            if (subscriber.hasPending() && !subscriber.drain(connection.out)) {
+                subscriptions.remove();
+            }
+        }
+        flush(connection);
+    }
+
+    /**
+     * Checks the parameters of a new-game request.
+     *
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param piecesPerPlayer The number of pieces each player has
+     * @param movesPerTurn The number of moves per turn
+     * @return true if the parameters describe a playable game
+     */
+    private static boolean isValidConfig(int gridSize, int numPlayers, int piecesPerPlayer, int movesPerTurn) {
+        return gridSize >= 2 && gridSize <= GameConfig.MAX_GRID_SIZE
+                && numPlayers >= GameConfig.MIN_PLAYERS && numPlayers <= GameConfig.MAX_PLAYERS
+                && piecesPerPlayer >= 1 && movesPerTurn >= 1
+                && numPlayers * piecesPerPlayer < gridSize * gridSize;
+    }
+
+    /**
+     * Writes as much pending output as the socket accepts.
+     * @param connection The connection to flush
+     * @throws IOException If the write fails
+     */
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        if (out.position() == 0) return;
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+    }
+
+    /**
+     * Registers for write readiness only while output is pending.
+     *
+     * @param key The connection's selection key
+     * @param connection The connection
+     */
+    private void updateInterest(SelectionKey key, Connection connection) {
+        int ops = connection.out.position() > 0 || hasPendingFrames(connection)
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE
+                : SelectionKey.OP_READ;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+    }
+
+    /**
+     * Checks whether any of a connection's subscriptions has frames not yet copied to it.
+     * @param connection The connection
+     * @return true if a subscription is behind
+     */
+    private static boolean hasPendingFrames(Connection connection) {
+        for (SpectatorFeed.Subscriber subscriber : connection.subscriptions) {
+            if (subscriber.hasPending()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes a connection and returns its buffers to the pool.
+     * @param key The connection's selection key
+     */
+    private void closeConnection(SelectionKey key) {
+        Connection connection = (Connection) key.attachment();
+        key.cancel();
+        for (SpectatorFeed.Subscriber subscriber : connection.subscriptions) {
+            subscriber.unsubscribe();
+        }
+        connection.subscriptions.clear();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            // Nothing more to do for a connection that is already gone
+        }
+        bufferPool.release(connection.in);
+        bufferPool.release(connection.out);
+    }
+
+    /**
+     * Prints throughput and latency for the last interval when it has elapsed.
+     */
+    private void reportIfDue() {
+        long now = System.nanoTime();
+        long elapsed = now - intervalStart;
+        if (elapsed < REPORT_INTERVAL_NANOS) return;
+
+        if (intervalLatency.getCount() > 0) {
+            System.out.printf("[server] games=%d actions/s=%.0f p50=%.1fus p99=%.1fus max=%.1fus%n",
+                    sessions.size(),
+                    intervalLatency.getCount() * 1e9 / elapsed,
+                    intervalLatency.getPercentile(50) / 1000.0,
+                    intervalLatency.getPercentile(99) / 1000.0,
+                    intervalLatency.getMax() / 1000.0);
+        }
+        intervalLatency.reset();
+        intervalStart = now;
+    }
+
+    /**
+     * Per-connection state: the channel, its pooled buffers and the games it spectates.
+     * The input buffer is kept in write mode between reads and the output
+     * buffer holds responses and feed frames not yet written to the socket.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in;
+        private final ByteBuffer out;
+        private final List<SpectatorFeed.Subscriber> subscriptions;
+        private SelectionKey key;
+        private boolean flushPending;
+
+        private Connection(SocketChannel channel, ByteBuffer in, ByteBuffer out) {
+            this.channel = channel;
+            this.in = in;
+            this.out = out;
+            this.subscriptions = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Starts a server from the command line.
+     *
+     * @param args Optional port and maximum number of games
+     * @throws IOException If the server socket cannot be opened
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxGames = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        System.out.println("Santorini game server listening on port " + port);
+        new GameServer(port, maxGames).run();
+    }
+}
@@ -0,0 +1,175 @@
+import java.util.List;
+
+/**
+ * A single server-hosted game.
+ * Wraps the rules in BoardLogic and GameState and enforces the turn order a
+ * remote client must follow: placement first, then move followed by build.
+ */
+public class GameSession {
+    private final int gameId;
+    private final GameConfig config;
+    private final GameState gameState;
+    private final BoardLogic boardLogic;
+    private SpectatorFeed feed; // Opened by the first spectator
+
+    /**
+     * Creates a new game session.
+     *
+     * @param gameId The identifier clients use to address this game
+     * @param config The game configuration
+     */
+    public GameSession(int gameId, GameConfig config) {
+        this.gameId = gameId;
+        this.config = config;
+        this.gameState = new GameState();
+        this.boardLogic = new BoardLogic(config, gameState);
+    }
+
+    /**
+     * Places the next unplaced piece of the player whose placement turn it is.
+     *
+     * @param row The row position
+     * @param col The column position
+     * @return true if the piece was placed, false if the placement is illegal
+     */
+    public boolean place(int row, int col) {
+        return published(boardLogic.placeNextPiece(row, col));
+    }
+
+    /**
+     * Moves one of the current player's workers.
+     *
+     * @param fromRow The row of the worker
+     * @param fromCol The column of the worker
+     * @param toRow The target row
+     * @param toCol The target column
+     * @return true if the worker was moved, false if the move is illegal
+     */
+    public boolean move(int fromRow, int fromCol, int toRow, int toCol) {
+        return published(boardLogic.moveWorker(fromRow, fromCol, toRow, toCol));
+    }
+
+    /**
+     * Builds with the worker that moved this turn.
+     *
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @param buildRow The row to build on
+     * @param buildCol The column to build on
+     * @return true if the build succeeded, false if it is illegal
+     */
+    public boolean build(int workerRow, int workerCol, int buildRow, int buildCol) {
+        return published(boardLogic.buildWithSelectedWorker(workerRow, workerCol, buildRow, buildCol));
+    }
+
+    /**
+     * Applies a batch of actions atomically.
+     *
+     * @param actions The actions to apply
+     * @return -1 if every action was applied, otherwise the index of the first illegal action
+     */
+    public int applyBatch(List<GameAction> actions) {
+        int illegal = boardLogic.applyBatch(actions);
+        published(illegal == -1);
+        return illegal;
+    }
+
+    /**
+     * Publishes the cells an action changed to the spectators, if it was accepted.
+     * @param accepted Whether the action was accepted
+     * @return The value of accepted
+     */
+    private boolean published(boolean accepted) {
+        if (feed != null) {
+            if (accepted) {
+                feed.publish();
+            } else {
+                feed.discardPending();
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Gets the spectator feed of this game, opening it on first use. Until then
+     * the game pays nothing for spectating.
+     * @return The feed
+     */
+    public SpectatorFeed openFeed() {
+        if (feed == null) {
+            feed = new SpectatorFeed(this, SpectatorFeed.DEFAULT_CAPACITY, SpectatorFeed.DEFAULT_MAX_RESYNCS);
+            boardLogic.setChangeListener(feed);
+        }
+        return feed;
+    }
+
+    /**
+     * Gets the spectator feed of this game.
+     * @return The feed, or null if nobody has spectated the game
+     */
+    public SpectatorFeed getFeed() {
+        return feed;
+    }
+
+    /**
+     * Gets the phase of the game as reported on the wire.
+     * @return One of the Protocol.PHASE_* constants
+     */
+    public byte getPhase() {
+        if (gameState.isGameOver()) return Protocol.PHASE_OVER;
+        if (!gameState.isGameStarted()) return Protocol.PHASE_PLACEMENT;
+        return gameState.isInBuildPhase() ? Protocol.PHASE_BUILD : Protocol.PHASE_MOVE;
+    }
+
+    /**
+     * Gets the index of the player who acts next.
+     * @return The placing player's index during placement, otherwise the current player's index
+     */
+    public int getActingPlayerIndex() {
+        if (!gameState.isGameStarted() && !gameState.isGameOver()) {
+            return gameState.getCurrentPlayerPlacementIndex();
+        }
+        return gameState.getCurrentPlayerIndex();
+    }
+
+    /**
+     * Gets the index of the winning player.
+     * @return The winner's index, or -1 if the game has no winner yet
+     */
+    public int getWinnerIndex() {
+        Player winner = gameState.getWinner();
+        return winner == null ? -1 : boardLogic.getPlayers().indexOf(winner);
+    }
+
+    /**
+     * Gets the identifier of this game.
+     * @return The game identifier
+     */
+    public int getGameId() {
+        return gameId;
+    }
+
+    /**
+     * Gets the game configuration.
+     * @return The game configuration
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Gets the board logic backing this session.
+     * @return The board logic
+     */
+    public BoardLogic getBoardLogic() {
+        return boardLogic;
+    }
+
+    /**
+     * Gets the game state backing this session.
+     * @return The game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+}
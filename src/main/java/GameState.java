@@ -14,6 +14,7 @@ public class GameState {
     private Player currentPlayer;
     private Player selectedPiece;
     private boolean inBuildPhase; // Track if we're in the build phase
+    private long godCardState; // Turn state of the current player's God Card, 0 at the start of each turn
     
     /**
      * Creates a new game state.
@@ -28,6 +29,26 @@ public class GameState {
         this.currentPlayer = null;
         this.selectedPiece = null;
         this.inBuildPhase = false;
+        this.godCardState = 0L;
+    }
+    
+    /**
+     * Copies every field of another game state into this one.
+     * Used to snapshot and restore the state around atomic batches of actions.
+     * 
+     * @param other The game state to copy from
+     */
+    public void copyFrom(GameState other) {
+        this.gameStarted = other.gameStarted;
+        this.gameOver = other.gameOver;
+        this.winner = other.winner;
+        this.currentPlayerIndex = other.currentPlayerIndex;
+        this.currentPlayerPlacementIndex = other.currentPlayerPlacementIndex;
+        this.movesRemaining = other.movesRemaining;
+        this.currentPlayer = other.currentPlayer;
+        this.selectedPiece = other.selectedPiece;
+        this.inBuildPhase = other.inBuildPhase;
+        this.godCardState = other.godCardState;
     }
     
     /**
@@ -51,6 +72,8 @@ public class GameState {
         currentPlayer = players.get(currentPlayerIndex);
         selectedPiece = null;
         inBuildPhase = false;
+        godCardState = 0L;
+        GameMetrics.recordGameStarted();
     }
     
     /**
@@ -139,22 +162,56 @@ public class GameState {
      * @param boardLogic The board logic instance to check for valid moves
      */
     public void switchToNextPlayer(List<Player> players, int movesPerTurn, BoardLogic boardLogic) {
-        currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
-        currentPlayer = players.get(currentPlayerIndex);
-        movesRemaining = movesPerTurn;
-        selectedPiece = null;
-        inBuildPhase = false;
+        long startNanos = GameMetrics.startTimer(GameMetrics.Operation.SWITCH_TO_NEXT_PLAYER);
+        try {
+            TurnSwitchEvent turnEvent = new TurnSwitchEvent();
+            turnEvent.begin();
+            int previousIndex = currentPlayerIndex;
+            currentPlayerIndex = (currentPlayerIndex + 1) % players.size();
+            currentPlayer = players.get(currentPlayerIndex);
+            movesRemaining = movesPerTurn;
+            selectedPiece = null;
+            inBuildPhase = false;
+            godCardState = 0L;
 
-        // Check if the new current player has any valid moves
-        if (!boardLogic.hasValidMoves(currentPlayer)) {
-            // If the player has no valid moves, they lose
-            // The previous player (who just finished their turn) wins
-            int previousPlayerIndex = (currentPlayerIndex - 1 + players.size()) % players.size();
-            Player winner = players.get(previousPlayerIndex);
-            endGame(winner);
+            // Check if the new current player has any valid moves
+            boolean trapped = !boardLogic.hasValidMoves(currentPlayer);
+            if (trapped) {
+                // If the player has no valid moves, they lose
+                // The previous player (who just finished their turn) wins
+                int previousPlayerIndex = (currentPlayerIndex - 1 + players.size()) % players.size();
+                Player winner = players.get(previousPlayerIndex);
+                endGame(winner);
+            }
+            if (turnEvent.shouldCommit()) {
+                turnEvent.previousPlayerIndex = previousIndex;
+                turnEvent.nextPlayerIndex = currentPlayerIndex;
+                turnEvent.trapped = trapped;
+                turnEvent.commit();
+            }
+        } finally {
+            GameMetrics.recordLatency(GameMetrics.Operation.SWITCH_TO_NEXT_PLAYER, startNanos);
         }
     }
     
+    /**
+     * Gets the turn state of the current player's God Card.
+     * God Cards are shared and stateless, so whatever they must remember during
+     * a turn, such as where Demeter built first, is kept here instead.
+     * @return The card's packed turn state, 0 at the start of each turn
+     */
+    public long getGodCardState() {
+        return godCardState;
+    }
+    
+    /**
+     * Sets the turn state of the current player's God Card.
+     * @param godCardState The card's packed turn state
+     */
+    public void setGodCardState(long godCardState) {
+        this.godCardState = godCardState;
+    }
+    
     /**
      * Checks if we're in the build phase.
      * @return true if in build phase, false otherwise
@@ -205,6 +262,15 @@ public class GameState {
      * @param winner The player who won the game, or null if there's no winner (e.g., in case of a draw or early termination)
      */
     public void endGame(Player winner) {
+        if (!this.gameOver) {
+            GameMetrics.recordGameFinished();
+            GameEndEvent endEvent = new GameEndEvent();
+            if (endEvent.shouldCommit()) {
+                endEvent.winner = winner != null ? winner.getName() : null;
+                endEvent.godCard = winner != null && winner.getGodCard() != null ? winner.getGodCard().getName() : null;
+                endEvent.commit();
+            }
+        }
         this.gameOver = true;
         this.winner = winner;
         this.movesRemaining = 0;
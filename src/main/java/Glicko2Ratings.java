@@ -0,0 +1,463 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Glicko-2 ratings of a pool of entities, such as bot configurations or God
+ * Cards, updated in batches from a GameResults table.
+ *
+ * Results are rated one rating period at a time, as Glicko-2 prescribes: every
+ * entity's new rating depends only on the ratings at the start of the period.
+ * Each period's results are first gathered per entity into flat arrays by a
+ * counting sort, then the entities are updated in parallel ranges, each worker
+ * reading the old ratings and writing its own range of the new ones. Entities
+ * that play no games in a period, including periods skipped between results,
+ * only grow more uncertain.
+ *
+ * Ratings are held on the Glicko-2 scale and reported on the familiar Glicko
+ * scale, where a new entity starts at 1500 with a deviation of 350.
+ */
+public class Glicko2Ratings {
+    /** Rating of a new entity. */
+    public static final double INITIAL_RATING = 1500;
+    /** Rating deviation of a new entity. */
+    public static final double INITIAL_DEVIATION = 350;
+    /** Volatility of a new entity. */
+    public static final double INITIAL_VOLATILITY = 0.06;
+    /** Default system constant, which limits how fast volatility changes. */
+    public static final double DEFAULT_TAU = 0.5;
+
+    // Converts between the Glicko and Glicko-2 scales
+    private static final double SCALE = 173.7178;
+    private static final double CONVERGENCE = 1e-6;
+    // Below this many active entities a period is updated on the calling thread
+    private static final int PARALLEL_THRESHOLD = 4096;
+
+    private final double tau;
+    private final int threads;
+    private final List<String> names;
+    private final Map<String, Integer> indexes;
+    private double[] mu;
+    private double[] phi;
+    private double[] sigma;
+    private int[] games;
+    private double[] nextMu;
+    private double[] nextPhi;
+    private double[] nextSigma;
+    private double[] gOfPhi;
+    private int[] offsets;
+    private int[] opponents;
+    private byte[] halfPoints;
+    private int ratedResults;
+    private int lastPeriod;
+    private boolean rated;
+    private ExecutorService executor;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param tau The system constant, usually between 0.3 and 1.2
+     * @param threads The number of threads to update entities on
+     */
+    public Glicko2Ratings(double tau, int threads) {
+        this.tau = tau;
+        this.threads = Math.max(1, threads);
+        this.names = new ArrayList<>();
+        this.indexes = new HashMap<>();
+        this.mu = new double[0];
+        this.phi = new double[0];
+        this.sigma = new double[0];
+        this.games = new int[0];
+    }
+
+    /**
+     * Gets the index of an entity, adding it with the initial rating if it is new.
+     * @param name The entity's name
+     * @return The entity's index
+     */
+    public int addEntity(String name) {
+        Integer index = indexes.get(name);
+        if (index != null) return index;
+        int added = names.size();
+        names.add(name);
+        indexes.put(name, added);
+        if (added == mu.length) {
+            int capacity = Math.max(16, added * 2);
+            mu = Arrays.copyOf(mu, capacity);
+            phi = Arrays.copyOf(phi, capacity);
+            sigma = Arrays.copyOf(sigma, capacity);
+            games = Arrays.copyOf(games, capacity);
+        }
+        mu[added] = 0;
+        phi[added] = INITIAL_DEVIATION / SCALE;
+        sigma[added] = INITIAL_VOLATILITY;
+        return added;
+    }
+
+    /**
+     * Sets the rating of an entity, such as one carried over from an earlier tournament.
+     *
+     * @param entity The entity's index
+     * @param rating The rating on the Glicko scale
+     * @param deviation The rating deviation on the Glicko scale
+     * @param volatility The volatility
+     */
+    public void setRating(int entity, double rating, double deviation, double volatility) {
+        mu[entity] = (rating - INITIAL_RATING) / SCALE;
+        phi[entity] = deviation / SCALE;
+        sigma[entity] = volatility;
+    }
+
+    /**
+     * Rates the results added to a table since the last call, period by period.
+     * The same table is expected on every call, and results added since the last
+     * call must belong to later periods than those already rated.
+     *
+     * @param results The results, whose entity indexes come from addEntity()
+     * @throws IllegalArgumentException If a new result belongs to a period already
+     *         rated, or names an entity that does not exist
+     */
+    public void rate(GameResults results) {
+        int entities = names.size();
+        int end = results.size();
+        if (ratedResults < end && rated && results.getPeriod(ratedResults) <= lastPeriod) {
+            throw new IllegalArgumentException("Period " + results.getPeriod(ratedResults) + " is already rated");
+        }
+        ensureCapacity(entities);
+        int start = ratedResults;
+        while (start < end) {
+            int period = results.getPeriod(start);
+            int periodEnd = start;
+            while (periodEnd < end && results.getPeriod(periodEnd) == period) periodEnd++;
+            if (rated) {
+                // Periods without results still add uncertainty
+                for (int skipped = lastPeriod + 1; skipped < period; skipped++) {
+                    updateRange(0, entities);
+                    swap();
+                }
+            }
+            gather(results, start, periodEnd, entities);
+            updatePeriod(entities);
+            lastPeriod = period;
+            rated = true;
+            start = periodEnd;
+        }
+        ratedResults = end;
+    }
+
+    /**
+     * Gets the number of entities.
+     * @return The number of entities added
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Gets the index of an entity.
+     * @param name The entity's name
+     * @return The index, or -1 if there is no such entity
+     */
+    public int indexOf(String name) {
+        Integer index = indexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the name of an entity.
+     * @param entity The entity's index
+     * @return The name
+     */
+    public String getName(int entity) {
+        return names.get(entity);
+    }
+
+    /**
+     * Gets the rating of an entity.
+     * @param entity The entity's index
+     * @return The rating on the Glicko scale
+     */
+    public double getRating(int entity) {
+        return mu[entity] * SCALE + INITIAL_RATING;
+    }
+
+    /**
+     * Gets the rating deviation of an entity.
+     * @param entity The entity's index
+     * @return The deviation on the Glicko scale; the rating is within two
+     *         deviations of the true strength with about 95% confidence
+     */
+    public double getDeviation(int entity) {
+        return phi[entity] * SCALE;
+    }
+
+    /**
+     * Gets the volatility of an entity.
+     * @param entity The entity's index
+     * @return The volatility, the expected fluctuation of its strength per period
+     */
+    public double getVolatility(int entity) {
+        return sigma[entity];
+    }
+
+    /**
+     * Gets the number of rated games of an entity.
+     * @param entity The entity's index
+     * @return The number of games
+     */
+    public int getGames(int entity) {
+        return games[entity];
+    }
+
+    /**
+     * Gets the last period rated.
+     * @return The period, or -1 before any results have been rated
+     */
+    public int getLastPeriod() {
+        return rated ? lastPeriod : -1;
+    }
+
+    /**
+     * Prints the entities from the highest rating down, with their deviation,
+     * 95% interval, volatility and number of games.
+     * @param title The heading of the table
+     */
+    public void printTable(String title) {
+        Integer[] order = new Integer[names.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(mu[b], mu[a]));
+
+        System.out.printf("%s after period %d%n", title, getLastPeriod());
+        System.out.println("rank  name                  rating     RD   95% interval   volatility   games");
+        for (int rank = 0; rank < order.length; rank++) {
+            int entity = order[rank];
+            double rating = getRating(entity);
+            double deviation = getDeviation(entity);
+            System.out.printf("%4d  %-20s  %6.0f  %5.0f  %6.0f-%-6.0f  %10.4f  %6d%n", rank + 1, names.get(entity),
+                    rating, deviation, rating - 2 * deviation, rating + 2 * deviation, sigma[entity], games[entity]);
+        }
+    }
+
+    /**
+     * Grows the working arrays to the number of entities.
+     * @param entities The number of entities
+     */
+    private void ensureCapacity(int entities) {
+        if (nextMu != null && nextMu.length >= mu.length) return;
+        nextMu = new double[mu.length];
+        nextPhi = new double[mu.length];
+        nextSigma = new double[mu.length];
+        gOfPhi = new double[mu.length];
+        offsets = new int[mu.length + 1];
+    }
+
+    /**
+     * Gathers a period's results per entity: entity i's opponents and scores are
+     * at offsets[i] to offsets[i + 1] of the opponent and score arrays.
+     *
+     * @param results The results
+     * @param start The first result of the period
+     * @param end One past the last result of the period
+     * @param entities The number of entities
+     */
+    private void gather(GameResults results, int start, int end, int entities) {
+        Arrays.fill(offsets, 0, entities + 1, 0);
+        for (int r = start; r < end; r++) {
+            int first = results.getFirst(r);
+            int second = results.getSecond(r);
+            if (first >= entities || second >= entities) {
+                throw new IllegalArgumentException("Result " + r + " names an unknown entity");
+            }
+            offsets[first + 1]++;
+            offsets[second + 1]++;
+        }
+        for (int i = 0; i < entities; i++) offsets[i + 1] += offsets[i];
+        int entries = 2 * (end - start);
+        if (opponents == null || opponents.length < entries) {
+            opponents = new int[entries];
+            halfPoints = new byte[entries];
+        }
+        // offsets[i + 1] is now the end of entity i's entries; filling moves it down to the start
+        for (int r = end - 1; r >= start; r--) {
+            int first = results.getFirst(r);
+            int second = results.getSecond(r);
+            int points = (int) (results.getScore(r) * 2);
+            int slot = --offsets[first + 1];
+            opponents[slot] = second;
+            halfPoints[slot] = (byte) points;
+            slot = --offsets[second + 1];
+            opponents[slot] = first;
+            halfPoints[slot] = (byte) (2 - points);
+        }
+        System.arraycopy(offsets, 1, offsets, 0, entities);
+        offsets[entities] = entries;
+    }
+
+    /**
+     * Updates every entity for one gathered period, in parallel ranges when the
+     * pool is large enough.
+     * @param entities The number of entities
+     */
+    private void updatePeriod(int entities) {
+        for (int j = 0; j < entities; j++) {
+            gOfPhi[j] = g(phi[j]);
+        }
+        if (threads == 1 || entities < PARALLEL_THRESHOLD) {
+            updateRange(0, entities);
+        } else {
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "glicko2-ratings");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            int perThread = (entities + threads - 1) / threads;
+            List<Future<?>> pending = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int from = t * perThread;
+                int to = Math.min(entities, from + perThread);
+                if (from >= to) break;
+                pending.add(executor.submit(() -> updateRange(from, to)));
+            }
+            for (Future<?> future : pending) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while rating", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Rating worker failed", e.getCause());
+                }
+            }
+        }
+        for (int i = 0; i < entities; i++) {
+            games[i] += offsets[i + 1] - offsets[i];
+        }
+        // The offsets now describe an empty period, for any periods skipped next
+        Arrays.fill(offsets, 0, entities + 1, 0);
+        swap();
+    }
+
+    /**
+     * Computes the new ratings of a range of entities from the gathered period
+     * into the next arrays, reading only the current ones.
+     *
+     * @param from The first entity
+     * @param to One past the last entity
+     */
+    private void updateRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            int start = offsets[i];
+            int end = offsets[i + 1];
+            if (start == end) {
+                nextMu[i] = mu[i];
+                nextPhi[i] = Math.sqrt(phi[i] * phi[i] + sigma[i] * sigma[i]);
+                nextSigma[i] = sigma[i];
+                continue;
+            }
+            double inverseVariance = 0;
+            double improvement = 0;
+            for (int k = start; k < end; k++) {
+                int j = opponents[k];
+                double gj = gOfPhi[j];
+                double expected = 1 / (1 + Math.exp(-gj * (mu[i] - mu[j])));
+                inverseVariance += gj * gj * expected * (1 - expected);
+                improvement += gj * (halfPoints[k] * 0.5 - expected);
+            }
+            double variance = 1 / inverseVariance;
+            double delta = variance * improvement;
+            double newSigma = newVolatility(phi[i], sigma[i], variance, delta);
+            double preRating = phi[i] * phi[i] + newSigma * newSigma;
+            double newPhi = 1 / Math.sqrt(1 / preRating + inverseVariance);
+            nextMu[i] = mu[i] + newPhi * newPhi * improvement;
+            nextPhi[i] = newPhi;
+            nextSigma[i] = newSigma;
+        }
+    }
+
+    /**
+     * Finds the new volatility by the Illinois method, step 5 of the Glicko-2 algorithm.
+     *
+     * @param phi The rating deviation on the Glicko-2 scale
+     * @param sigma The current volatility
+     * @param variance The estimated variance of the rating from the period's games
+     * @param delta The estimated improvement in rating from the period's games
+     * @return The new volatility
+     */
+    private double newVolatility(double phi, double sigma, double variance, double delta) {
+        double phiSquared = phi * phi;
+        double deltaSquared = delta * delta;
+        double a = Math.log(sigma * sigma);
+        double lower = a;
+        double upper;
+        if (deltaSquared > phiSquared + variance) {
+            upper = Math.log(deltaSquared - phiSquared - variance);
+        } else {
+            int k = 1;
+            while (volatilityFunction(a - k * tau, a, phiSquared, deltaSquared, variance) < 0) k++;
+            upper = a - k * tau;
+        }
+        double fLower = volatilityFunction(lower, a, phiSquared, deltaSquared, variance);
+        double fUpper = volatilityFunction(upper, a, phiSquared, deltaSquared, variance);
+        while (Math.abs(upper - lower) > CONVERGENCE) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = volatilityFunction(c, a, phiSquared, deltaSquared, variance);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower /= 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    /**
+     * The function whose root gives the new volatility.
+     *
+     * @param x The candidate log of the squared volatility
+     * @param a The log of the current squared volatility
+     * @param phiSquared The squared rating deviation
+     * @param deltaSquared The squared estimated improvement
+     * @param variance The estimated variance
+     * @return The function's value at x
+     */
+    private double volatilityFunction(double x, double a, double phiSquared, double deltaSquared, double variance) {
+        double ex = Math.exp(x);
+        double denominator = phiSquared + variance + ex;
+        return ex * (deltaSquared - phiSquared - variance - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+    }
+
+    /**
+     * Weights an opponent's expected score by the uncertainty of its rating.
+     * @param phi The opponent's rating deviation on the Glicko-2 scale
+     * @return The weight, 1 for a certain rating and less the less certain it is
+     */
+    private static double g(double phi) {
+        return 1 / Math.sqrt(1 + 3 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    /**
+     * Makes the next ratings current.
+     */
+    private void swap() {
+        double[] swapped = mu;
+        mu = nextMu;
+        nextMu = swapped;
+        swapped = phi;
+        phi = nextPhi;
+        nextPhi = swapped;
+        swapped = sigma;
+        sigma = nextSigma;
+        nextSigma = swapped;
+    }
+}
@@ -2,8 +2,34 @@
  * Interface defining the contract for God Card abilities.
  * Each God Card implementation will provide specific behavior modifications
  * for game actions like moving and building.
+ * 
+ * God Cards are stateless, so one instance of each can be shared by any number
+ * of games and threads. Anything a card must remember during a turn is packed
+ * into the game state's God Card slot, which is cleared when the turn passes and
+ * is saved and restored along with the rest of the game state.
+ * 
+ * Each card declares through getCapabilities() which rules and hooks it
+ * actually uses. BoardLogic calls only those, and applies the standard rules
+ * itself where the card has no rule of its own.
  */
 public interface GodCard {
+    /** Capability flag: the card has its own isValidMove rule. */
+    int MOVE_RULE = 1;
+    /** Capability flag: the card has its own isValidBuild rule. */
+    int BUILD_RULE = 1 << 1;
+    /** Capability flag: the card uses beforeMove. */
+    int BEFORE_MOVE = 1 << 2;
+    /** Capability flag: the card uses afterMove. */
+    int AFTER_MOVE = 1 << 3;
+    /** Capability flag: the card uses beforeBuild. */
+    int BEFORE_BUILD = 1 << 4;
+    /** Capability flag: the card uses afterBuild. */
+    int AFTER_BUILD = 1 << 5;
+    /** Capability flag: the card may offer extra builds through hasExtraBuild. */
+    int EXTRA_BUILD = 1 << 6;
+    /** Every capability flag. */
+    int ALL_CAPABILITIES = (1 << 7) - 1;
+
     /**
      * Gets the name of the God Card.
      * @return The name of the God
@@ -16,6 +42,15 @@ public interface GodCard {
      */
     String getDescription();
 
+    /**
+     * Gets the rules and hooks this card uses. Those not listed are never called.
+     * Defaults to all of them, which is always correct but slowest.
+     * @return The capability flags of the card
+     */
+    default int getCapabilities() {
+        return ALL_CAPABILITIES;
+    }
+
     /**
      * Checks if a move is valid according to this God's rules.
      * @param boardLogic The current board logic instance
@@ -77,4 +112,15 @@ public interface GodCard {
      * @param buildCol Build target column
      */
     default void afterBuild(BoardLogic boardLogic, int workerRow, int workerCol, int buildRow, int buildCol) {}
-} 
\ No newline at end of file
+
+    /**
+     * Checks if the worker may build again before the turn ends. Called after
+     * each build; while it returns true the turn stays in the build phase, and
+     * the player either builds again or ends the turn.
+     * @param boardLogic The current board logic instance
+     * @return true if another, optional build is allowed this turn
+     */
+    default boolean hasExtraBuild(BoardLogic boardLogic) {
+        return false;
+    }
+} 
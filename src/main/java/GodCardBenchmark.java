@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures what skipping unused God Card hooks saves on the board model.
+ * Random games with a mixed roster of gods are recorded once, then replayed on
+ * fresh boards with hook elision off and on, timing only the turns. Both runs
+ * play the same actions, which must all be accepted.
+ */
+public class GodCardBenchmark {
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of games, the grid size and the
+     *             comma-separated roster of God Cards, one per player
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int gridSize = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        String[] roster = (args.length > 2 ? args[2] : "none,apollo,demeter").split(",");
+        GodCard[] godCards = new GodCard[roster.length];
+        for (int p = 0; p < roster.length; p++) {
+            godCards[p] = Position.toGodCard(Position.parseGod(roster[p]));
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<List<List<GameAction>>> recorded = new ArrayList<>();
+        int turns = 0;
+        for (int g = 0; g < games; g++) {
+            List<List<GameAction>> game = recordGame(gridSize, godCards, random);
+            recorded.add(game);
+            turns += game.size() - 1;
+        }
+
+        String[] names = {"all hooks", "elided"};
+        long[] nanos = new long[2];
+        // Alternate the two several times so neither profits from running second
+        for (int round = 0; round < 5; round++) {
+            for (int elided = 0; elided < 2; elided++) {
+                long elapsed = replay(gridSize, godCards, recorded, elided == 1);
+                if (round > 0) nanos[elided] += elapsed;
+            }
+        }
+        for (int elided = 0; elided < 2; elided++) {
+            System.out.printf("%-9s: %8.1f ns per turn%n", names[elided], nanos[elided] / 4.0 / turns);
+        }
+        System.out.printf("%d turns of %s, speed-up %.2fx%n", turns, String.join(",", roster),
+                (double) nanos[0] / Math.max(1, nanos[1]));
+    }
+
+    /**
+     * Creates a board with the God Cards assigned.
+     *
+     * @param gridSize The grid size
+     * @param godCards The card of each player
+     * @return The board
+     */
+    private static BoardLogic newBoard(int gridSize, GodCard[] godCards) {
+        BoardLogic board = new BoardLogic(new GameConfig(gridSize, godCards.length, 2, 1), new GameState());
+        for (int p = 0; p < godCards.length; p++) {
+            board.getPlayers().get(p).setGodCard(godCards[p]);
+        }
+        return board;
+    }
+
+    /**
+     * Plays a random game, choosing turns with the engine's turn generator.
+     *
+     * @param gridSize The grid size
+     * @param godCards The card of each player
+     * @param random The random source
+     * @return The placements, then the actions of each turn
+     */
+    private static List<List<GameAction>> recordGame(int gridSize, GodCard[] godCards, SplittableRandom random) {
+        BoardLogic board = newBoard(gridSize, godCards);
+        List<GameAction> placements = new ArrayList<>();
+        while (!board.getGameState().isGameStarted()) {
+            GameAction placement = GameAction.place(random.nextInt(gridSize), random.nextInt(gridSize));
+            if (board.applyAction(placement)) placements.add(placement);
+        }
+        List<List<GameAction>> game = new ArrayList<>();
+        game.add(placements);
+
+        Position position = Position.fromBoard(board);
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        while (position.getWinner() == Position.NONE && !board.getGameState().isGameOver()) {
+            int count = TurnGenerator.generate(position, turns);
+            if (count == 0) break;
+            long turn = turns[random.nextInt(count)];
+            List<GameAction> actions = ComputerPlayer.toActions(position, turn);
+            if (board.applyBatch(actions) != -1) {
+                throw new IllegalStateException("The board rejected a generated turn");
+            }
+            position.makeTurn(turn);
+            game.add(actions);
+        }
+        return game;
+    }
+
+    /**
+     * Replays recorded games on fresh boards.
+     *
+     * @param gridSize The grid size
+     * @param godCards The card of each player
+     * @param games The recorded games
+     * @param elideHooks Whether to skip unused hooks
+     * @return The time spent applying the turns
+     */
+    private static long replay(int gridSize, GodCard[] godCards, List<List<List<GameAction>>> games,
+            boolean elideHooks) {
+        long nanos = 0;
+        for (List<List<GameAction>> game : games) {
+            BoardLogic board = newBoard(gridSize, godCards);
+            board.setHookElisionEnabled(elideHooks);
+            board.applyBatch(game.get(0));
+            for (int t = 1; t < game.size(); t++) {
+                long start = System.nanoTime();
+                int illegal = board.applyBatch(game.get(t));
+                nanos += System.nanoTime() - start;
+                if (illegal != -1) {
+                    throw new IllegalStateException("A recorded turn was rejected on replay");
+                }
+            }
+        }
+        return nanos;
+    }
+}
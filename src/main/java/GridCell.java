@@ -1,21 +1,16 @@
-import javax.swing.JPanel;
-import javax.swing.border.LineBorder;
-import java.awt.BorderLayout;
-import java.awt.Color;
-import java.awt.Graphics;
-import java.awt.Graphics2D;
-import java.awt.AlphaComposite;
-
 /**
  * Represents a cell in the game grid.
- * Each cell can contain a game entity and has a visual representation.
+ * Each cell can contain a game entity and a building. Cells hold model state only;
+ * a view can observe changes through a CellListener, and a model-side index such
+ * as a MobilityIndex through a second one.
  */
 public class GridCell {
-    private final JPanel visualComponent;
     private final int row;
     private final int col;
     private GameEntity occupant;
     private int buildingLevel; // 0-4, where 4 represents a dome
+    private CellListener listener;
+    private CellListener indexListener;
 
     /**
      * Creates a new grid cell at the specified position.
@@ -24,62 +19,26 @@ public class GridCell {
      * @param col The column position (0-based)
      */
     public GridCell(int row, int col) {
-        this.visualComponent = new JPanel() {
-            @Override
-            protected void paintComponent(Graphics g) {
-                super.paintComponent(g);
-                
-                // Draw the building level with semi-transparency
-                Graphics2D g2d = (Graphics2D) g;
-                AlphaComposite alphaComposite = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.7f);
-                g2d.setComposite(alphaComposite);
-                drawBuildingLevel(g2d);
-            }
-        };
-        this.visualComponent.setBorder(new LineBorder(Color.BLACK, 1));
-        this.visualComponent.setLayout(new BorderLayout());
         this.row = row;
         this.col = col;
         this.buildingLevel = 0;
     }
 
     /**
-     * Draws the building level visualization.
-     * @param g The Graphics object to draw with
+     * Sets the listener notified when this cell changes.
+     * @param listener The listener, or null for a headless cell
      */
-    private void drawBuildingLevel(Graphics2D g) {
-        if (buildingLevel == 0) return;
-
-        int width = visualComponent.getWidth();
-        int height = visualComponent.getHeight();
-        int padding = 8;
-        
-        if (buildingLevel == 4) {
-            // Draw dome (black circle) with semi-transparency
-            g.setColor(new Color(0, 0, 0, 180));
-            int circleSize = Math.min(width, height) - 2 * padding;
-            g.fillOval(padding, padding, circleSize, circleSize);
-        } else {
-            // Draw concentric squares for levels 1-3 with semi-transparency
-            Color levelColor = new Color(100, 100, 100, 180);
-            g.setColor(levelColor);
-            for (int i = 0; i < buildingLevel; i++) {
-                int size = Math.min(width, height) - 2 * padding - (i * 12);
-                int x = padding + (i * 6);
-                int y = padding + (i * 6);
-                g.fillRect(x, y, size, size);
-                g.setColor(new Color(50, 50, 50, 180));
-                g.drawRect(x, y, size, size);
-            }
-        }
+    public void setListener(CellListener listener) {
+        this.listener = listener;
     }
 
     /**
-     * Gets the visual component of this cell.
-     * @return The JPanel that visually represents this cell
+     * Sets the model-side listener notified when this cell changes: just before
+     * the change, and after it ahead of the view.
+     * @param indexListener The listener, or null for none
      */
-    public JPanel getVisualComponent() {
-        return visualComponent;
+    public void setIndexListener(CellListener indexListener) {
+        this.indexListener = indexListener;
     }
 
     /**
@@ -100,18 +59,20 @@ public class GridCell {
 
     /**
      * Sets the occupant of this cell.
-     * This will update the visual representation of the cell.
      * 
      * @param entity The game entity to place in this cell, or null to clear the cell
      */
     public void setOccupant(GameEntity entity) {
+        if (indexListener != null) {
+            indexListener.cellChanging(this);
+        }
         this.occupant = entity;
-        visualComponent.removeAll();
-        if (entity != null) {
-            visualComponent.add(entity.getVisualComponent(), BorderLayout.CENTER);
+        if (indexListener != null) {
+            indexListener.cellChanged(this);
+        }
+        if (listener != null) {
+            listener.cellChanged(this);
         }
-        visualComponent.revalidate();
-        visualComponent.repaint();
     }
 
     /**
@@ -136,8 +97,16 @@ public class GridCell {
      */
     public void setBuildingLevel(int level) {
         if (level >= 0 && level <= 4) {
+            if (indexListener != null) {
+                indexListener.cellChanging(this);
+            }
             this.buildingLevel = level;
-            visualComponent.repaint();
+            if (indexListener != null) {
+                indexListener.cellChanged(this);
+            }
+            if (listener != null) {
+                listener.cellChanged(this);
+            }
         }
     }
 
@@ -148,4 +117,4 @@ public class GridCell {
     public boolean hasDome() {
         return buildingLevel == 4;
     }
-} 
\ No newline at end of file
+} 
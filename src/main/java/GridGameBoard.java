@@ -1,15 +1,20 @@
 import javax.swing.JPanel;
+import javax.swing.SwingWorker;
 import javax.swing.border.LineBorder;
 import javax.swing.JOptionPane;
 import java.awt.Color;
 import java.awt.GridLayout;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * Main game board class that coordinates the game logic, UI, and highlighting components.
  */
-public class GridGameBoard implements GameBoard {
+public class GridGameBoard implements GameBoard, GameBoardView {
+    private static final int ANALYSIS_TABLE_SIZE_LOG2 = 20;
+    
     private final BoardUI boardUI;
     private final BoardLogic boardLogic;
     private final BoardHighlighting boardHighlighting;
@@ -18,6 +23,11 @@ public class GridGameBoard implements GameBoard {
     private final JPanel boardPanel;
     private final JPanel turnIndicator;
     private boolean gameStarted;
+    private ComputerPlayer computerPlayer;
+    private int computerPlayerIndex = -1;
+    private boolean computerThinking;
+    private int analysisDepth;
+    private boolean analysisStarted;
     
     /**
      * Creates a new game board with the specified configuration.
@@ -34,11 +44,10 @@ public class GridGameBoard implements GameBoard {
         this.turnIndicator = new JPanel();
         
         // Initialize components
-        GridCell[][] cells = new GridCell[config.getGridSize()][config.getGridSize()];
         this.gameState = new GameState();
-        this.boardUI = new BoardUI(config, cells);
-        this.boardLogic = new BoardLogic(config, cells, gameState);
-        this.boardHighlighting = new BoardHighlighting(config, cells);
+        this.boardLogic = new BoardLogic(config, gameState);
+        this.boardUI = new BoardUI(config, boardLogic);
+        this.boardHighlighting = new BoardHighlighting(config, boardUI.getCellViews());
         
         // Initialize UI
         boardUI.initialize(this);
@@ -46,17 +55,169 @@ public class GridGameBoard implements GameBoard {
 
     @Override
     public void initialize() {
-        // Create grid cells and add click listeners
+        // Add click listeners to the cell views
         for (int i = 0; i < config.getGridSize(); i++) {
             for (int j = 0; j < config.getGridSize(); j++) {
                 CellClickListener clickListener = new CellClickListener(this, i, j);
-                GridCell cell = boardLogic.getCell(i, j);
-                cell.getVisualComponent().addMouseListener(clickListener);
+                CellView cellView = boardUI.getCellViews()[i][j];
+                cellView.getVisualComponent().addMouseListener(clickListener);
             }
         }
         
         // Update the turn indicator
         updateTurnIndicator();
+        playComputerTurnIfDue();
+    }
+
+    /**
+     * Lets the computer control one of the players.
+     * Must be called before the first piece is placed.
+     * 
+     * @param playerIndex The index of the computer-controlled player
+     * @param computerPlayer The engine that chooses its turns
+     */
+    public void setComputerPlayer(int playerIndex, ComputerPlayer computerPlayer) {
+        this.computerPlayerIndex = playerIndex;
+        this.computerPlayer = computerPlayer;
+    }
+    
+    /**
+     * Turns the engine hints for human players on or off.
+     * 
+     * @param count The number of best turns to show, or 0 to turn hints off
+     */
+    public void setHintCount(int count) {
+        boardHighlighting.setHintCount(count);
+        refreshHints();
+    }
+    
+    /**
+     * Starts hints for the current turn if a human is about to move, and removes
+     * them otherwise.
+     */
+    private void refreshHints() {
+        // Building a position reads the whole board, so skip it unless hints are on
+        if (boardHighlighting.getHintCount() > 0 && gameState.isGameStarted() && !gameState.isGameOver() && !isInBuildPhase() && !isComputerToAct()) {
+            boardHighlighting.requestHints(Position.fromBoard(boardLogic));
+        } else {
+            boardHighlighting.cancelHints();
+        }
+    }
+    
+    /**
+     * Checks if it is the computer's turn to place or play.
+     * @return true if the human should wait, false otherwise
+     */
+    public boolean isComputerToAct() {
+        if (computerPlayer == null || gameState.isGameOver()) return false;
+        if (computerThinking) return true;
+        int index = gameState.isGameStarted() ? getCurrentPlayerIndex() : getCurrentPlayerPlacementIndex();
+        return index == computerPlayerIndex;
+    }
+    
+    /**
+     * Places the computer's pieces or starts choosing its turn, if it is due to act.
+     * The turn is searched on the computer's own thread and applied back on the
+     * event dispatch thread, so the board stays responsive.
+     */
+    private void playComputerTurnIfDue() {
+        if (computerThinking || !isComputerToAct()) return;
+        if (!gameState.isGameStarted()) {
+            placeComputerPieces();
+            return;
+        }
+        if (isInBuildPhase()) return;
+        
+        Position position = Position.fromBoard(boardLogic);
+        Future<Long> turn = computerPlayer.requestTurn(position);
+        computerThinking = true;
+        new SwingWorker<Long, Void>() {
+            @Override
+            protected Long doInBackground() throws InterruptedException, ExecutionException {
+                return turn.get();
+            }
+            
+            @Override
+            protected void done() {
+                computerThinking = false;
+                try {
+                    long chosen = get();
+                    if (chosen != Turn.NONE) {
+                        applyBatch(ComputerPlayer.toActions(position, chosen));
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    JOptionPane.showMessageDialog(boardPanel, "The computer player failed: " + e.getMessage(),
+                        "Computer Player", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Turns analysis of finished games on or off. When on, once a two-player game
+     * ends every turn is searched for a better one, off the event dispatch thread,
+     * and the report is printed to standard output.
+     * 
+     * @param depth The depth to search each position to, in turns, or 0 to turn analysis off
+     */
+    public void setAnalysisDepth(int depth) {
+        this.analysisDepth = depth;
+    }
+    
+    /**
+     * Starts the analysis of the game that just ended, if analysis is on.
+     */
+    private void analyseFinishedGame() {
+        if (analysisDepth <= 0 || analysisStarted || getPlayers().size() != 2) return;
+        analysisStarted = true;
+        GameAnalyzer analyzer = new GameAnalyzer(analysisDepth, GameAnalyzer.DEFAULT_BLUNDER_THRESHOLD,
+                Runtime.getRuntime().availableProcessors(), ANALYSIS_TABLE_SIZE_LOG2);
+        // The board no longer changes once the game is over, so it is safe to read from the worker
+        new SwingWorker<List<TurnAnalysis>, Void>() {
+            @Override
+            protected List<TurnAnalysis> doInBackground() {
+                try {
+                    return analyzer.analyze(boardLogic);
+                } finally {
+                    analyzer.shutdown();
+                }
+            }
+            
+            @Override
+            protected void done() {
+                try {
+                    GameAnalyzer.printReport(get(), config.getGridSize());
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("The game analysis failed: " + e.getMessage());
+                }
+            }
+        }.execute();
+    }
+    
+    /**
+     * Places every remaining computer piece on the free cell closest to the centre.
+     */
+    private void placeComputerPieces() {
+        int size = config.getGridSize();
+        while (!gameState.isGameStarted() && getCurrentPlayerPlacementIndex() == computerPlayerIndex) {
+            int bestRow = -1;
+            int bestCol = -1;
+            int bestDistance = Integer.MAX_VALUE;
+            for (int row = 0; row < size; row++) {
+                for (int col = 0; col < size; col++) {
+                    int distance = Math.abs(2 * row - (size - 1)) + Math.abs(2 * col - (size - 1));
+                    if (getCell(row, col).getOccupant() == null && distance < bestDistance) {
+                        bestDistance = distance;
+                        bestRow = row;
+                        bestCol = col;
+                    }
+                }
+            }
+            if (bestRow < 0 || !boardLogic.placeNextPiece(bestRow, bestCol)) return;
+        }
+        updateTurnIndicator();
+        highlightValidMoves();
+        playComputerTurnIfDue();
     }
 
     /**
@@ -200,8 +361,8 @@ public class GridGameBoard implements GameBoard {
      * @param piece The piece to check
      * @return true if the piece belongs to the current player, false otherwise
      */
-    private boolean isCurrentPlayerPiece(Player piece) {
-        return getPlayerPieces(getCurrentPlayer()).contains(piece);
+    public boolean isCurrentPlayerPiece(Player piece) {
+        return boardLogic.isCurrentPlayerWorker(piece);
     }
 
     /**
@@ -284,6 +445,7 @@ public class GridGameBoard implements GameBoard {
             // Update UI
             updateTurnIndicator();
             highlightValidMoves();
+            playComputerTurnIfDue();
         }
     }
     
@@ -299,6 +461,7 @@ public class GridGameBoard implements GameBoard {
             }
             
             updateTurnIndicator();
+            refreshHints();
         }
     }
 
@@ -331,14 +494,58 @@ public class GridGameBoard implements GameBoard {
      */
     public boolean build(int workerRow, int workerCol, int buildRow, int buildCol) {
         if (boardLogic.build(workerRow, workerCol, buildRow, buildCol)) {
-            // Update the display
+            // Update the display, offering any extra build the God Card allows
+            if (isInBuildPhase()) {
+                highlightValidBuilds(workerRow, workerCol);
+            } else {
+                clearHighlights();
+            }
+            updateTurnIndicator();
+            refreshHints();
+            playComputerTurnIfDue();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Ends the current player's turn without taking an optional extra build.
+     * 
+     * @return true if the turn ended, false if no optional build was pending
+     */
+    public boolean endTurn() {
+        if (boardLogic.endTurn()) {
             clearHighlights();
             updateTurnIndicator();
+            refreshHints();
+            playComputerTurnIfDue();
             return true;
         }
         return false;
     }
 
+    /**
+     * Applies a batch of actions atomically, refreshing the display once at the end
+     * instead of after every action.
+     * 
+     * @param actions The actions to apply
+     * @return -1 if every action was applied, otherwise the index of the first illegal action
+     */
+    public int applyBatch(List<GameAction> actions) {
+        int firstIllegal = boardLogic.applyBatch(actions);
+        if (gameState.isGameOver()) {
+            clearHighlights();
+        } else if (isInBuildPhase() && getSelectedPiece() != null) {
+            highlightValidBuilds(getSelectedPiece().getRow(), getSelectedPiece().getCol());
+        } else {
+            highlightValidMoves();
+        }
+        updateTurnIndicator();
+        refreshHints();
+        playComputerTurnIfDue();
+        return firstIllegal;
+    }
+
     @Override
     public JPanel getBoardPanel() {
         return boardUI.getBoardPanel();
@@ -391,6 +598,7 @@ public class GridGameBoard implements GameBoard {
                 message,
                 "Game Over",
                 JOptionPane.INFORMATION_MESSAGE);
+            analyseFinishedGame();
         } else {
             boardUI.updateTurnIndicator(gameState, getPlayers(), getPiecesPlacedMap());
         }
@@ -413,6 +621,15 @@ public class GridGameBoard implements GameBoard {
      */
     public void highlightValidMoves() {
         boardHighlighting.highlightValidMoves(gameState, getPlayerPiecesMap());
+        if (gameState.isGameStarted() && !gameState.isGameOver()) {
+            // Only the other players' workers and their neighbours are looked at
+            long[] rows = new long[config.getGridSize()];
+            for (int player = 0; player < getPlayers().size(); player++) {
+                if (player != getCurrentPlayerIndex()) boardLogic.threatenedSquares(player, rows);
+            }
+            boardHighlighting.highlightThreats(rows);
+        }
+        refreshHints();
     }
     
     /**
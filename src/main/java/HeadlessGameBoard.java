@@ -0,0 +1,135 @@
+import java.util.List;
+
+/**
+ * Game board implementation without any user interface.
+ * Runs the full rules through BoardLogic and GameState but never creates AWT or
+ * Swing components, so it can be used by servers and simulations that have no display.
+ */
+public class HeadlessGameBoard implements GameBoard {
+    private final BoardLogic boardLogic;
+    private final GameConfig config;
+    private final GameState gameState;
+    
+    /**
+     * Creates a new headless game board with the specified configuration.
+     * 
+     * @param config The game configuration
+     */
+    public HeadlessGameBoard(GameConfig config) {
+        this.config = config;
+        this.gameState = new GameState();
+        this.boardLogic = new BoardLogic(config, gameState);
+    }
+
+    @Override
+    public void initialize() {
+        // Nothing to set up without a user interface
+    }
+
+    @Override
+    public void addEntity(GameEntity entity, int row, int col) {
+        boardLogic.addEntity(entity, row, col);
+    }
+    
+    @Override
+    public void moveEntity(GameEntity entity, int toRow, int toCol) {
+        boardLogic.moveEntity(entity, toRow, toCol);
+    }
+
+    @Override
+    public boolean isValidMove(int fromRow, int fromCol, int toRow, int toCol) {
+        return boardLogic.isValidMove(fromRow, fromCol, toRow, toCol);
+    }
+
+    /**
+     * Checks if a build action is valid.
+     * 
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @param buildRow The row to build on
+     * @param buildCol The column to build on
+     * @return true if the build is valid, false otherwise
+     */
+    public boolean isValidBuild(int workerRow, int workerCol, int buildRow, int buildCol) {
+        return boardLogic.isValidBuild(workerRow, workerCol, buildRow, buildCol);
+    }
+
+    /**
+     * Builds on a cell.
+     * 
+     * @param workerRow The row of the worker
+     * @param workerCol The column of the worker
+     * @param buildRow The row to build on
+     * @param buildCol The column to build on
+     * @return true if the build was successful, false otherwise
+     */
+    public boolean build(int workerRow, int workerCol, int buildRow, int buildCol) {
+        return boardLogic.build(workerRow, workerCol, buildRow, buildCol);
+    }
+
+    /**
+     * Applies a batch of actions atomically.
+     * 
+     * @param actions The actions to apply
+     * @return -1 if every action was applied, otherwise the index of the first illegal action
+     */
+    public int applyBatch(List<GameAction> actions) {
+        return boardLogic.applyBatch(actions);
+    }
+
+    @Override
+    public Player getCurrentPlayer() {
+        return gameState.getCurrentPlayer();
+    }
+
+    /**
+     * Gets the cell at the specified position.
+     * @param row The row position
+     * @param col The column position
+     * @return The cell at the specified position
+     */
+    public GridCell getCell(int row, int col) {
+        return boardLogic.getCell(row, col);
+    }
+
+    /**
+     * Gets the list of all players.
+     * @return The list of players
+     */
+    public List<Player> getPlayers() {
+        return boardLogic.getPlayers();
+    }
+    
+    /**
+     * Gets the pieces for a specific player.
+     * @param player The player to get pieces for
+     * @return The list of pieces for the player
+     */
+    public List<Player> getPlayerPieces(Player player) {
+        return boardLogic.getPlayerPieces(player);
+    }
+
+    /**
+     * Gets the game configuration.
+     * @return The game configuration
+     */
+    public GameConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Gets the game state.
+     * @return The game state
+     */
+    public GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * Gets the board logic that applies the rules.
+     * @return The board logic
+     */
+    public BoardLogic getBoardLogic() {
+        return boardLogic;
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * Static evaluation of an engine Position, kept up to date incrementally.
+ *
+ * Every feature is a sum of per-worker terms that only depend on the worker's
+ * own cell and its eight neighbours. The evaluator keeps each worker's terms and
+ * per-player totals, and listens to the position: a changed cell only marks the
+ * workers within one step of it as dirty, and evaluate() recomputes just those.
+ * The cost of a make/evaluate/unmake cycle therefore depends on the number of
+ * workers near the changed cells, not on the size of the grid.
+ */
+public class IncrementalEvaluator implements PositionEvaluator {
+    /** Score of a won position; losses score -WIN_SCORE. */
+    public static final int WIN_SCORE = 1_000_000;
+
+    private static final int FEATURES = EvaluationWeights.FEATURE_COUNT;
+
+    private final Position position;
+    private final EvaluationWeights weights;
+    private final int[] centrality;
+    private final int[] workerFeatures;
+    private final int[] playerFeatures;
+    private final boolean[] dirty;
+    private final int[] dirtyWorkers;
+    private int dirtyCount;
+
+    /**
+     * Creates an evaluator with the weights tuned for the position's configuration
+     * and God Cards, and attaches it to the position as its listener.
+     *
+     * @param position The position to evaluate
+     */
+    public IncrementalEvaluator(Position position) {
+        this(position, WeightTable.getDefault().get(position));
+    }
+
+    /**
+     * Creates an evaluator and attaches it to a position as its listener.
+     *
+     * @param position The position to evaluate
+     * @param weights The feature weights
+     */
+    public IncrementalEvaluator(Position position, EvaluationWeights weights) {
+        this.position = position;
+        this.weights = weights;
+        this.centrality = createCentralityTable(position.getGridSize());
+        this.workerFeatures = new int[position.getWorkerCount() * FEATURES];
+        this.playerFeatures = new int[position.getNumPlayers() * FEATURES];
+        this.dirty = new boolean[position.getWorkerCount()];
+        this.dirtyWorkers = new int[position.getWorkerCount()];
+        positionReset();
+        position.setListener(this);
+    }
+
+    /**
+     * Computes how central each cell is: 0 on the outer ring, rising by one per
+     * ring towards the middle.
+     *
+     * @param size The grid size
+     * @return The centrality of each cell index
+     */
+    private static int[] createCentralityTable(int size) {
+        int[] table = new int[size * size];
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                int distance = Math.max(Math.abs(2 * row - (size - 1)), Math.abs(2 * col - (size - 1)));
+                table[row * size + col] = (size - 1 - distance) / 2;
+            }
+        }
+        return table;
+    }
+
+    @Override
+    public void cellChanged(int cell) {
+        int size = position.getGridSize();
+        int row = cell / size;
+        int col = cell % size;
+        int rowStart = Math.max(row - 1, 0);
+        int rowEnd = Math.min(row + 1, size - 1);
+        int colStart = Math.max(col - 1, 0);
+        int colEnd = Math.min(col + 1, size - 1);
+        for (int r = rowStart; r <= rowEnd; r++) {
+            for (int c = colStart; c <= colEnd; c++) {
+                int worker = position.getWorkerAt(r * size + c);
+                if (worker != Position.NONE) markDirty(worker);
+            }
+        }
+    }
+
+    @Override
+    public void positionReset() {
+        for (int worker = 0; worker < position.getWorkerCount(); worker++) {
+            markDirty(worker);
+        }
+    }
+
+    /**
+     * Evaluates the position from the point of view of the side to move.
+     * @return The score; positive favours the side to move
+     */
+    public int evaluate() {
+        return evaluate(position.getSideToMove());
+    }
+
+    @Override
+    public int evaluate(int player) {
+        int winner = position.getWinner();
+        if (winner != Position.NONE) return winner == player ? WIN_SCORE : -WIN_SCORE;
+        flush();
+        int opponents = position.getNumPlayers() - 1;
+        long score = 0;
+        for (int f = 0; f < FEATURES; f++) {
+            score += (long) weights.get(f) * featureDifference(player, f, opponents);
+        }
+        return (int) (opponents > 1 ? score / opponents : score);
+    }
+
+    /**
+     * Gets the feature differences the score of a player is made of, so that
+     * evaluate(player) is the weighted sum of them divided by the number of opponents.
+     *
+     * @param player The player index
+     * @param differences Receives one value per feature
+     */
+    public void getFeatureDifferences(int player, int[] differences) {
+        flush();
+        int opponents = position.getNumPlayers() - 1;
+        for (int f = 0; f < FEATURES; f++) {
+            differences[f] = featureDifference(player, f, opponents);
+        }
+    }
+
+    /**
+     * Evaluates the position from scratch without using or updating the cached
+     * worker terms. Used to check the incremental updates.
+     *
+     * @param player The player index
+     * @return The same score evaluate(player) returns
+     */
+    public int evaluateFromScratch(int player) {
+        int winner = position.getWinner();
+        if (winner != Position.NONE) return winner == player ? WIN_SCORE : -WIN_SCORE;
+        int[] totals = new int[position.getNumPlayers() * FEATURES];
+        int[] terms = new int[FEATURES];
+        for (int worker = 0; worker < position.getWorkerCount(); worker++) {
+            computeTerms(worker, terms, 0);
+            int owner = position.getOwner(worker) * FEATURES;
+            for (int f = 0; f < FEATURES; f++) totals[owner + f] += terms[f];
+        }
+        int opponents = position.getNumPlayers() - 1;
+        long score = 0;
+        for (int f = 0; f < FEATURES; f++) {
+            long others = 0;
+            for (int p = 0; p < position.getNumPlayers(); p++) {
+                if (p != player) others += totals[p * FEATURES + f];
+            }
+            long own = totals[player * FEATURES + f];
+            score += weights.get(f) * (opponents > 0 ? own * opponents - others : own);
+        }
+        return (int) (opponents > 1 ? score / opponents : score);
+    }
+
+    /**
+     * Gets the difference between a player's feature total and the opponents' totals,
+     * scaled by the number of opponents so it stays an integer.
+     *
+     * @param player The player index
+     * @param feature The feature index
+     * @param opponents The number of opponents
+     * @return The scaled difference
+     */
+    private int featureDifference(int player, int feature, int opponents) {
+        int own = playerFeatures[player * FEATURES + feature];
+        if (opponents == 0) return own;
+        int others = 0;
+        for (int p = 0; p < position.getNumPlayers(); p++) {
+            if (p != player) others += playerFeatures[p * FEATURES + feature];
+        }
+        return own * opponents - others;
+    }
+
+    /**
+     * Queues a worker for recomputation.
+     * @param worker The worker id
+     */
+    private void markDirty(int worker) {
+        if (!dirty[worker]) {
+            dirty[worker] = true;
+            dirtyWorkers[dirtyCount++] = worker;
+        }
+    }
+
+    /**
+     * Recomputes the terms of every dirty worker and updates the player totals.
+     */
+    private void flush() {
+        for (int i = 0; i < dirtyCount; i++) {
+            int worker = dirtyWorkers[i];
+            dirty[worker] = false;
+            int base = worker * FEATURES;
+            int owner = position.getOwner(worker) * FEATURES;
+            for (int f = 0; f < FEATURES; f++) playerFeatures[owner + f] -= workerFeatures[base + f];
+            computeTerms(worker, workerFeatures, base);
+            for (int f = 0; f < FEATURES; f++) playerFeatures[owner + f] += workerFeatures[base + f];
+        }
+        dirtyCount = 0;
+    }
+
+    /**
+     * Computes the feature terms of one worker from its 3x3 neighbourhood.
+     *
+     * @param worker The worker id
+     * @param terms Receives the terms
+     * @param base The offset in terms to write at
+     */
+    private void computeTerms(int worker, int[] terms, int base) {
+        for (int f = 0; f < FEATURES; f++) terms[base + f] = 0;
+        int cell = position.getWorkerCell(worker);
+        if (cell == Position.NONE) return;
+        int owner = position.getOwner(worker);
+        int god = position.getGod(owner);
+        int height = position.getHeight(cell);
+
+        int climb = 0;
+        int mobility = 0;
+        int domes = 0;
+        int swaps = 0;
+        int buildable = 0;
+        int size = position.getGridSize();
+        int row = cell / size;
+        int col = cell % size;
+        for (int r = Math.max(row - 1, 0); r <= Math.min(row + 1, size - 1); r++) {
+            for (int c = Math.max(col - 1, 0); c <= Math.min(col + 1, size - 1); c++) {
+                int neighbor = r * size + c;
+                if (neighbor == cell) continue;
+                int neighborHeight = position.getHeight(neighbor);
+                if (neighborHeight == Position.DOME) {
+                    domes++;
+                    continue;
+                }
+                int occupant = position.getWorkerAt(neighbor);
+                boolean reachable = neighborHeight <= height + 1;
+                if (occupant == Position.NONE) {
+                    buildable++;
+                    if (reachable) {
+                        mobility++;
+                        if (height == 2 && neighborHeight == 3) climb++;
+                    }
+                } else if (god == Position.GOD_APOLLO && reachable && position.getOwner(occupant) != owner) {
+                    swaps++;
+                    if (height == 2 && neighborHeight == 3) climb++;
+                }
+            }
+        }
+
+        terms[base + EvaluationWeights.HEIGHT] = height;
+        terms[base + EvaluationWeights.CLIMB] = climb;
+        terms[base + EvaluationWeights.MOBILITY] = mobility;
+        terms[base + EvaluationWeights.DOME_DENIAL] = height >= 2 ? domes : 0;
+        terms[base + EvaluationWeights.CENTRALITY] = centrality[cell];
+        terms[base + EvaluationWeights.APOLLO_SWAP] = swaps;
+        terms[base + EvaluationWeights.DEMETER_BUILDS] = god == Position.GOD_DEMETER ? buildable : 0;
+        terms[base + EvaluationWeights.IMMOBILE] = mobility + swaps == 0 ? 1 : 0;
+    }
+}
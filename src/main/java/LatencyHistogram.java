@@ -0,0 +1,126 @@
+/**
+ * Fixed-memory latency histogram with log-linear buckets.
+ * Each power of two is split into 16 linear sub-buckets, which bounds the
+ * relative error of any reported percentile to about 6%. Recording is a couple
+ * of shifts and an array increment and never allocates.
+ * Instances are not thread-safe; each recording thread should own one.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts;
+    private long totalCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    /**
+     * Creates a new empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[BUCKET_COUNT];
+    }
+
+    /**
+     * Records one latency sample.
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucketIndex(nanos)]++;
+        totalCount++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) maxNanos = nanos;
+    }
+
+    /**
+     * Adds every sample of another histogram to this one.
+     * @param other The histogram to merge in
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalNanos += other.totalNanos;
+        maxNanos = Math.max(maxNanos, other.maxNanos);
+    }
+
+    /**
+     * Gets the latency at a percentile.
+     * @param percentile The percentile in the range 0-100
+     * @return The upper bound of the bucket holding that percentile, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long rank = (long) Math.ceil(totalCount * percentile / 100.0);
+        rank = Math.max(1, Math.min(rank, totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(bucketUpperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Gets the number of recorded samples.
+     * @return The sample count
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the mean latency.
+     * @return The mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMean() {
+        return totalCount == 0 ? 0 : totalNanos / totalCount;
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     * @return The maximum in nanoseconds
+     */
+    public long getMax() {
+        return maxNanos;
+    }
+
+    /**
+     * Clears every recorded sample.
+     */
+    public void reset() {
+        java.util.Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * Maps a latency to its bucket.
+     * @param nanos The latency in nanoseconds
+     * @return The bucket index
+     */
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) return (int) nanos;
+        int shift = 63 - Long.numberOfLeadingZeros(nanos) - SUB_BUCKET_BITS;
+        int subBucket = (int) (nanos >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Gets the largest latency that maps to a bucket.
+     * @param index The bucket index
+     * @return The bucket's inclusive upper bound in nanoseconds
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = (index % SUB_BUCKETS) | SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -6,9 +6,25 @@ import java.awt.*;
  * This class is responsible for creating the game window and initializing the game board.
  */
 public class Main {
+    // Time kept back on the computer's clock per turn for applying its turn on the board
+    private static final long CLOCK_OVERHEAD_NANOS = 5_000_000L;
+
     /**
      * The main entry point for the application.
      * 
+     * Set -Dsantorini.computer to a player number to let the computer play that
+     * player, -Dsantorini.thinkMillis to its time per turn, and
+     * -Dsantorini.ponder=false to stop it thinking on the opponent's time.
+     * Set -Dsantorini.clockMillis, and optionally -Dsantorini.incrementMillis,
+     * to give the computer a game clock to manage instead of a time per turn.
+     * Set -Dsantorini.hints to a number of turns to show the engine's best turns
+     * to human players.
+     * Set -Dsantorini.analyse to a search depth to print an analysis of every
+     * turn when a two-player game ends.
+     * Set -Dsantorini.gridSize and -Dsantorini.players to play on a larger board
+     * or with more players, up to GameConfig.MAX_GRID_SIZE and GameConfig.MAX_PLAYERS;
+     * a game needs at least GameConfig.MIN_PLAYERS players.
+     * 
      * @param args Command line arguments (not used)
      */
     public static void main(String[] args) {
@@ -16,8 +32,19 @@ public class Main {
         JFrame frame = createGameWindow();
         
         // Create and initialize the game board
-        GameConfig config = new GameConfig(5, 2, 2, 1); // 5x5 grid, 2 players, 2 pieces each, 1 move per turn
+        // 5x5 grid and 2 players unless overridden, 2 pieces each, 1 move per turn
+        int gridSize = Integer.getInteger("santorini.gridSize", 5);
+        int numPlayers = Integer.getInteger("santorini.players", 2);
+        if (gridSize < 2 || gridSize > GameConfig.MAX_GRID_SIZE || numPlayers < GameConfig.MIN_PLAYERS || numPlayers > GameConfig.MAX_PLAYERS
+                || numPlayers * 2 >= gridSize * gridSize) {
+            throw new IllegalArgumentException("Unsupported board: " + gridSize + "x" + gridSize
+                    + " with " + numPlayers + " players");
+        }
+        GameConfig config = new GameConfig(gridSize, numPlayers, 2, 1);
         GridGameBoard gameBoard = new GridGameBoard(config);
+        addComputerPlayer(gameBoard, config);
+        gameBoard.setHintCount(Integer.getInteger("santorini.hints", 0));
+        gameBoard.setAnalysisDepth(Integer.getInteger("santorini.analyse", 0));
         gameBoard.initialize();
         
         // Add UI components to the frame
@@ -29,6 +56,33 @@ public class Main {
         frame.setVisible(true);
     }
     
+    /**
+     * Lets the computer play one of the players if requested on the command line.
+     * 
+     * @param gameBoard The game board
+     * @param config The game configuration
+     */
+    private static void addComputerPlayer(GridGameBoard gameBoard, GameConfig config) {
+        String computer = System.getProperty("santorini.computer");
+        if (computer == null) return;
+        long thinkMillis = Long.getLong("santorini.thinkMillis", 1000);
+        Position layout = new Position(config.getGridSize(), config.getNumPlayers(), config.getPiecesPerPlayer(),
+                new int[config.getNumPlayers()]);
+        // With a clock, the computer spreads it over the game instead of thinking a fixed time per turn
+        Long clockMillis = Long.getLong("santorini.clockMillis");
+        ComputerPlayer computerPlayer;
+        if (clockMillis != null) {
+            long incrementMillis = Long.getLong("santorini.incrementMillis", 0);
+            TimeManager timeManager = new TimeManager(clockMillis * 1_000_000L, incrementMillis * 1_000_000L,
+                    CLOCK_OVERHEAD_NANOS);
+            computerPlayer = new ComputerPlayer(layout, timeManager);
+        } else {
+            computerPlayer = new ComputerPlayer(layout, thinkMillis * 1_000_000L);
+        }
+        computerPlayer.setPondering(!"false".equals(System.getProperty("santorini.ponder")));
+        gameBoard.setComputerPlayer(Integer.parseInt(computer) - 1, computerPlayer);
+    }
+    
     /**
      * Creates and configures the main game window.
      * 
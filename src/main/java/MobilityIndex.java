@@ -0,0 +1,101 @@
+import java.util.List;
+
+/**
+ * Counts the legal moves of every worker and keeps the counts up to date as
+ * cells change, so BoardLogic can tell whether a player is trapped in constant
+ * time instead of rescanning the board.
+ *
+ * Moves are checked with the owner's God Card, so for example Apollo's swaps
+ * count. Whether a worker may move from one cell to another depends only on
+ * those two cells, so when a cell changes only the workers on it and next to it
+ * need recounting. Workers are found and identified through the board's
+ * WorkerRegistry, which must see each change first.
+ */
+public class MobilityIndex implements CellListener {
+    private final BoardLogic boardLogic;
+    private final int gridSize;
+    private final NeighbourTable neighbourTable;
+    private final WorkerRegistry workers;
+    private final int[] moveCounts;
+    private final int[] playerMoveCounts;
+
+    /**
+     * Creates an index for a board, with no workers placed yet.
+     * 
+     * @param boardLogic The board whose moves are counted
+     * @param players The players, in turn order
+     * @param workers The registry of the board's workers
+     */
+    public MobilityIndex(BoardLogic boardLogic, List<Player> players, WorkerRegistry workers) {
+        this.boardLogic = boardLogic;
+        this.gridSize = boardLogic.getConfig().getGridSize();
+        this.neighbourTable = boardLogic.getNeighbourTable();
+        this.workers = workers;
+        this.moveCounts = new int[workers.getWorkerCount()];
+        this.playerMoveCounts = new int[players.size()];
+    }
+
+    @Override
+    public void cellChanged(GridCell cell) {
+        int worker = workers.getWorkerAt(cell.getRow(), cell.getCol());
+        if (worker != WorkerRegistry.NONE) recount(worker, cell.getRow(), cell.getCol());
+        int index = cell.getRow() * gridSize + cell.getCol();
+        for (int i = 0; i < neighbourTable.count(index); i++) {
+            int neighbour = neighbourTable.packedNeighbour(index, i);
+            int row = neighbour / gridSize;
+            int col = neighbour % gridSize;
+            worker = workers.getWorkerAt(row, col);
+            if (worker != WorkerRegistry.NONE) recount(worker, row, col);
+        }
+    }
+
+    /**
+     * Recounts every worker from scratch. Needed only when a God Card changes
+     * after workers have been placed.
+     */
+    public void rebuild() {
+        for (int worker = 0; worker < workers.getWorkerCount(); worker++) {
+            if (workers.getRow(worker) != WorkerRegistry.NONE) {
+                recount(worker, workers.getRow(worker), workers.getCol(worker));
+            }
+        }
+    }
+
+    /**
+     * Recounts the legal moves of one worker.
+     * 
+     * @param worker The worker's ID
+     * @param row The row the worker stands on
+     * @param col The column the worker stands on
+     */
+    private void recount(int worker, int row, int col) {
+        int owner = workers.getOwner(worker);
+        int count = 0;
+        int cell = row * gridSize + col;
+        for (int i = 0; i < neighbourTable.count(cell); i++) {
+            int target = neighbourTable.packedNeighbour(cell, i);
+            if (boardLogic.isValidMoveFor(owner, row, col, target / gridSize, target % gridSize)) count++;
+        }
+        playerMoveCounts[owner] += count - moveCounts[worker];
+        moveCounts[worker] = count;
+    }
+
+    /**
+     * Gets the number of legal moves of one worker.
+     * @param piece The worker
+     * @return The number of cells it may move to, 0 if it is not on the board
+     */
+    public int getMoveCount(Player piece) {
+        int worker = workers.getWorkerId(piece);
+        return worker != WorkerRegistry.NONE && workers.getRow(worker) != WorkerRegistry.NONE ? moveCounts[worker] : 0;
+    }
+
+    /**
+     * Gets the total number of legal moves of a player's workers.
+     * @param player The player
+     * @return The sum of the move counts of the player's workers
+     */
+    public int getPlayerMoveCount(Player player) {
+        return playerMoveCounts[workers.getPlayerIndex(player)];
+    }
+}
@@ -0,0 +1,40 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for an accepted worker move.
+ * Disabled by default; enable santorini.Move in a recording to capture it.
+ */
+@Name("santorini.Move")
+@Label("Move")
+@Category({"Santorini", "Actions"})
+@Description("An accepted worker move")
+@Enabled(false)
+@StackTrace(false)
+public class MoveActionEvent extends Event {
+    @Label("Player")
+    String player;
+
+    @Label("God Card")
+    String godCard;
+
+    @Label("From Row")
+    int fromRow;
+
+    @Label("From Column")
+    int fromCol;
+
+    @Label("To Row")
+    int toRow;
+
+    @Label("To Column")
+    int toCol;
+
+    @Label("Winning Move")
+    boolean winning;
+}
@@ -0,0 +1,201 @@
+/**
+ * Orders the turns of a search node so the ones most likely to cause a cutoff
+ * are searched first.
+ *
+ * Turns are ranked, best first, as: the transposition table's best turn, turns
+ * that win at once, builds that dome a level-3 cell next to an opposing worker
+ * on level 2, the two killer turns of the ply, and finally by a history table
+ * indexed by worker, starting cell, move direction and build direction. On large
+ * boards with many workers there are too many such keys to give each a slot, so
+ * they are hashed into a table of fixed size instead, sharing slots now and then. Builds
+ * that hand an opposing level-2 worker a fresh level-3 cell are tried last.
+ *
+ * The orderer also counts how many cutoffs happened on the first turn tried,
+ * the usual measure of ordering quality.
+ */
+public class MoveOrderer {
+    private static final int HASH_SCORE = 1 << 30;
+    private static final int WIN_SCORE = 1 << 29;
+    private static final int BLOCK_SCORE = 1 << 28;
+    private static final int KILLER_SCORE = 1 << 27;
+    private static final int GIFT_PENALTY = 1 << 26;
+    private static final int HISTORY_LIMIT = 1 << 24;
+    // Up to this many history keys get a slot each; beyond it they are hashed into this many slots
+    private static final int HISTORY_BITS = 16;
+    private static final int MAX_HISTORY_SIZE = 1 << HISTORY_BITS;
+
+    private final Position position;
+    private final int[] history;
+    private final boolean hashedHistory;
+    private final long[][] killers;
+    private long cutoffs;
+    private long firstMoveCutoffs;
+
+    /**
+     * Creates an orderer for a position.
+     *
+     * @param position The position being searched
+     * @param maxPly The deepest ply killers are kept for
+     */
+    public MoveOrderer(Position position, int maxPly) {
+        this.position = position;
+        int keys = position.getWorkerCount() * position.getCellCount() * 64;
+        this.hashedHistory = keys > MAX_HISTORY_SIZE;
+        this.history = new int[Math.min(keys, MAX_HISTORY_SIZE)];
+        this.killers = new long[maxPly + 1][2];
+        clearKillers();
+    }
+
+    /**
+     * Scores a node's turns for ordering.
+     *
+     * @param turns The generated turns
+     * @param scores Receives one ordering score per turn
+     * @param count The number of turns
+     * @param ply The distance from the root
+     * @param hashTurn The transposition table's best turn, or Turn.NONE
+     */
+    public void score(long[] turns, int[] scores, int count, int ply, long hashTurn) {
+        int side = position.getSideToMove();
+        for (int i = 0; i < count; i++) {
+            long turn = turns[i];
+            if (turn == hashTurn) {
+                scores[i] = HASH_SCORE;
+            } else if (Turn.hasFlag(turn, Turn.FLAG_WIN)) {
+                scores[i] = WIN_SCORE;
+            } else {
+                int score = history[historyIndex(turn)];
+                if (turn == killers[ply][0] || turn == killers[ply][1]) score += KILLER_SCORE;
+                score += buildScore(Turn.build(turn), side);
+                int secondBuild = Turn.secondBuild(turn);
+                if (secondBuild != Turn.NO_CELL) score += buildScore(secondBuild, side);
+                scores[i] = score;
+            }
+        }
+    }
+
+    /**
+     * Rates a build by its effect on opposing workers standing on level 2.
+     *
+     * @param cell The build cell
+     * @param side The building player
+     * @return BLOCK_SCORE for a blocking dome, minus GIFT_PENALTY for a new
+     *         level-3 cell next to an opponent, otherwise 0
+     */
+    private int buildScore(int cell, int side) {
+        int height = position.getHeight(cell);
+        if (height < 2) return 0;
+        NeighbourTable neighbours = position.getNeighbourTable();
+        for (int i = 0; i < neighbours.count(cell); i++) {
+            int neighbour = neighbours.packedNeighbour(cell, i);
+            int worker = position.getWorkerAt(neighbour);
+            if (worker != Position.NONE && position.getOwner(worker) != side && position.getHeight(neighbour) == 2) {
+                return height == 3 ? BLOCK_SCORE : -GIFT_PENALTY;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Moves the best-scored turn of the unsearched ones to the given index.
+     *
+     * @param turns The turns
+     * @param scores Their ordering scores
+     * @param index The next index to search
+     * @param count The number of turns
+     */
+    public static void pickNext(long[] turns, int[] scores, int index, int count) {
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) best = i;
+        }
+        if (best != index) {
+            long turn = turns[best];
+            turns[best] = turns[index];
+            turns[index] = turn;
+            int score = scores[best];
+            scores[best] = scores[index];
+            scores[index] = score;
+        }
+    }
+
+    /**
+     * Learns from a cutoff: the turn becomes a killer and gains history.
+     * Must be called while the position is at the node the turn was played from.
+     *
+     * @param turn The turn that caused the cutoff
+     * @param ply The distance from the root
+     * @param depth The remaining depth of the node
+     * @param index The position of the turn in the search order
+     */
+    public void recordCutoff(long turn, int ply, int depth, int index) {
+        cutoffs++;
+        if (index == 0) firstMoveCutoffs++;
+        if (Turn.hasFlag(turn, Turn.FLAG_WIN)) return;
+        if (killers[ply][0] != turn) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = turn;
+        }
+        int slot = historyIndex(turn);
+        history[slot] += depth * depth;
+        if (history[slot] > HISTORY_LIMIT) {
+            for (int i = 0; i < history.length; i++) history[i] >>= 1;
+        }
+    }
+
+    /**
+     * Gets the history table slot of a turn in the current position.
+     * @param turn The turn
+     * @return The slot index
+     */
+    private int historyIndex(long turn) {
+        NeighbourTable neighbours = position.getNeighbourTable();
+        int worker = Turn.worker(turn);
+        int from = position.getWorkerCell(worker);
+        int to = Turn.to(turn);
+        int build = Turn.build(turn);
+        // A double move is filed under its first step
+        int moveDirection = Turn.hasFlag(turn, Turn.FLAG_DOUBLE_MOVE)
+                ? Turn.viaDirection(turn) : neighbours.direction(from, to);
+        int buildDirection = build == Turn.NO_CELL ? 0 : neighbours.direction(to, build);
+        int key = ((worker * position.getCellCount() + from) * 8 + moveDirection) * 8 + buildDirection;
+        return hashedHistory ? (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - HISTORY_BITS)) : key;
+    }
+
+    /**
+     * Forgets the killers, which only make sense within one search.
+     * History is kept and aged so it carries over between searches.
+     */
+    public void newSearch() {
+        clearKillers();
+        for (int i = 0; i < history.length; i++) history[i] >>= 2;
+        cutoffs = 0;
+        firstMoveCutoffs = 0;
+    }
+
+    /**
+     * Resets every killer slot.
+     */
+    private void clearKillers() {
+        for (long[] slots : killers) {
+            slots[0] = Turn.NONE;
+            slots[1] = Turn.NONE;
+        }
+    }
+
+    /**
+     * Gets the number of cutoffs since the last newSearch().
+     * @return The cutoff count
+     */
+    public long getCutoffs() {
+        return cutoffs;
+    }
+
+    /**
+     * Gets the fraction of cutoffs caused by the first turn searched.
+     * @return The rate between 0 and 1, or 0 if there were no cutoffs
+     */
+    public double getFirstMoveCutoffRate() {
+        return cutoffs == 0 ? 0 : (double) firstMoveCutoffs / cutoffs;
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.Arrays;
+
+/**
+ * Evaluates an engine Position with an NTupleNetwork.
+ *
+ * The evaluator lays the network's tuples out on the position's grid and keeps,
+ * for every player's point of view, the current lookup index of every tuple.
+ * A changed cell only updates the few tuples that contain it, so inference is a
+ * sum of one table lookup per tuple and allocates nothing.
+ *
+ * The network is trained on afterstates: the value of a position for the player
+ * who has just moved. With two players the value for the side to move is the
+ * negated value for the opponent.
+ */
+public class NTupleEvaluator implements PositionEvaluator {
+    /** Evaluation units per unit of network output, which lies in (-1, 1). */
+    public static final int SCORE_SCALE = 10_000;
+
+    private static final int[] SQUARE_CELLS = {0, 0, 0, 1, 1, 0, 1, 1};
+
+    private final Position position;
+    private final float[] weights;
+    private final int cellCount;
+    private final int tupleCount;
+    private final int[] tupleOffsets;
+    private final int[] cellTupleStart;
+    private final int[] cellTuples;
+    private final int[] cellTupleFactors;
+    private final int[] indices;
+    private final int[] cellStates;
+
+    /**
+     * Creates an evaluator and attaches it to a position as its listener.
+     *
+     * @param position The position to evaluate
+     * @param network The network whose weights to use; shared, not copied
+     */
+    public NTupleEvaluator(Position position, NTupleNetwork network) {
+        this.position = position;
+        this.weights = network.getWeights();
+        this.cellCount = position.getCellCount();
+
+        int size = position.getGridSize();
+        int squares = size >= 2 ? (size - 1) * (size - 1) : 0;
+        int lines = size >= 3 ? 2 * size * (size - 2) : 0;
+        this.tupleCount = squares + lines;
+        this.tupleOffsets = new int[tupleCount];
+        int[] tupleCells = new int[tupleCount * 4];
+        int[] tupleSizes = new int[tupleCount];
+        int tuple = 0;
+        for (int row = 0; row + 1 < size; row++) {
+            for (int col = 0; col + 1 < size; col++) {
+                addSquare(size, row, col, tuple++, tupleCells, tupleSizes);
+            }
+        }
+        for (int across = 0; across < size; across++) {
+            for (int along = 0; along + 2 < size; along++) {
+                addLine(size, across, along, false, tuple++, tupleCells, tupleSizes);
+                addLine(size, across, along, true, tuple++, tupleCells, tupleSizes);
+            }
+        }
+
+        // Invert the tuple -> cells table into compact per-cell lists
+        this.cellTupleStart = new int[cellCount + 1];
+        for (int t = 0; t < tupleCount; t++) {
+            for (int k = 0; k < tupleSizes[t]; k++) cellTupleStart[tupleCells[t * 4 + k] + 1]++;
+        }
+        for (int cell = 0; cell < cellCount; cell++) cellTupleStart[cell + 1] += cellTupleStart[cell];
+        this.cellTuples = new int[cellTupleStart[cellCount]];
+        this.cellTupleFactors = new int[cellTuples.length];
+        int[] fill = cellTupleStart.clone();
+        for (int t = 0; t < tupleCount; t++) {
+            int factor = 1;
+            for (int k = 0; k < tupleSizes[t]; k++) {
+                int slot = fill[tupleCells[t * 4 + k]]++;
+                cellTuples[slot] = t;
+                cellTupleFactors[slot] = factor;
+                factor *= NTupleNetwork.CELL_STATES;
+            }
+        }
+
+        this.indices = new int[position.getNumPlayers() * tupleCount];
+        this.cellStates = new int[position.getNumPlayers() * cellCount];
+        positionReset();
+        position.setListener(this);
+    }
+
+    /**
+     * Adds a 2x2 square, ordering its cells as in the canonical mirror image or
+     * rotation that shares its weights.
+     *
+     * @param size The grid size
+     * @param row The top row of the square
+     * @param col The left column of the square
+     * @param tuple The tuple number
+     * @param tupleCells Receives four cells per tuple
+     * @param tupleSizes Receives the number of cells per tuple
+     */
+    private void addSquare(int size, int row, int col, int tuple, int[] tupleCells, int[] tupleSizes) {
+        boolean flipRows = row > size - 2 - row;
+        boolean flipCols = col > size - 2 - col;
+        int rowClass = Math.min(Math.min(row, size - 2 - row), NTupleNetwork.EDGE_CLASSES - 1);
+        int colClass = Math.min(Math.min(col, size - 2 - col), NTupleNetwork.EDGE_CLASSES - 1);
+        boolean transpose = rowClass > colClass;
+        int low = Math.min(rowClass, colClass);
+        int high = Math.max(rowClass, colClass);
+        int squareClass = low * (2 * NTupleNetwork.EDGE_CLASSES - low + 1) / 2 + (high - low);
+
+        for (int k = 0; k < 4; k++) {
+            int i = SQUARE_CELLS[2 * k];
+            int j = SQUARE_CELLS[2 * k + 1];
+            if (transpose) {
+                int swap = i;
+                i = j;
+                j = swap;
+            }
+            int cellRow = row + (flipRows ? 1 - i : i);
+            int cellCol = col + (flipCols ? 1 - j : j);
+            tupleCells[tuple * 4 + k] = cellRow * size + cellCol;
+        }
+        tupleSizes[tuple] = 4;
+        tupleOffsets[tuple] = NTupleNetwork.getSquareOffset(squareClass);
+    }
+
+    /**
+     * Adds a straight line of three cells, ordered from the end nearer the edge.
+     *
+     * @param size The grid size
+     * @param across The row of a horizontal line, or the column of a vertical one
+     * @param along The first column of a horizontal line, or the first row of a vertical one
+     * @param vertical Whether the line runs down a column
+     * @param tuple The tuple number
+     * @param tupleCells Receives the cells per tuple
+     * @param tupleSizes Receives the number of cells per tuple
+     */
+    private void addLine(int size, int across, int along, boolean vertical, int tuple,
+                         int[] tupleCells, int[] tupleSizes) {
+        boolean flip = along > size - 3 - along;
+        int acrossClass = Math.min(Math.min(across, size - 1 - across), NTupleNetwork.EDGE_CLASSES - 1);
+        int alongClass = Math.min(Math.min(along, size - 3 - along), NTupleNetwork.EDGE_CLASSES - 1);
+        for (int k = 0; k < 3; k++) {
+            int step = along + (flip ? 2 - k : k);
+            tupleCells[tuple * 4 + k] = vertical ? step * size + across : across * size + step;
+        }
+        tupleSizes[tuple] = 3;
+        tupleOffsets[tuple] = NTupleNetwork.getLineOffset(acrossClass * NTupleNetwork.EDGE_CLASSES + alongClass);
+    }
+
+    @Override
+    public void cellChanged(int cell) {
+        int start = cellTupleStart[cell];
+        int end = cellTupleStart[cell + 1];
+        for (int player = 0; player < position.getNumPlayers(); player++) {
+            int state = cellState(player, cell);
+            int delta = state - cellStates[player * cellCount + cell];
+            if (delta == 0) continue;
+            cellStates[player * cellCount + cell] = state;
+            int base = player * tupleCount;
+            for (int i = start; i < end; i++) {
+                indices[base + cellTuples[i]] += delta * cellTupleFactors[i];
+            }
+        }
+    }
+
+    @Override
+    public void positionReset() {
+        Arrays.fill(indices, 0);
+        Arrays.fill(cellStates, 0);
+        for (int cell = 0; cell < cellCount; cell++) {
+            cellChanged(cell);
+        }
+    }
+
+    /**
+     * Gets the state of a cell as seen by one player.
+     *
+     * @param player The player index
+     * @param cell The cell index
+     * @return The state, 0 to NTupleNetwork.CELL_STATES - 1
+     */
+    private int cellState(int player, int cell) {
+        int height = position.getHeight(cell);
+        if (height == Position.DOME) return NTupleNetwork.CELL_STATES - 1;
+        int worker = position.getWorkerAt(cell);
+        int occupant = worker == Position.NONE ? 0 : position.getOwner(worker) == player ? 1 : 2;
+        return height * 3 + occupant;
+    }
+
+    @Override
+    public int evaluate(int player) {
+        int winner = position.getWinner();
+        if (winner != Position.NONE) {
+            return winner == player ? IncrementalEvaluator.WIN_SCORE : -IncrementalEvaluator.WIN_SCORE;
+        }
+        float value;
+        if (position.getNumPlayers() == 2 && player == position.getSideToMove()) {
+            value = -getValue(1 - player);
+        } else {
+            value = getValue(player);
+        }
+        return Math.round(value * SCORE_SCALE);
+    }
+
+    /**
+     * Gets the network's afterstate value for a player.
+     * @param player The player index
+     * @return The value in (-1, 1); positive favours the player
+     */
+    public float getValue(int player) {
+        return (float) Math.tanh(getSum(player));
+    }
+
+    /**
+     * Gets the sum of the active weights for a player, before squashing.
+     * @param player The player index
+     * @return The raw network output
+     */
+    private float getSum(int player) {
+        int base = player * tupleCount;
+        float sum = 0;
+        for (int t = 0; t < tupleCount; t++) {
+            sum += weights[tupleOffsets[t] + indices[base + t]];
+        }
+        return sum;
+    }
+
+    /**
+     * Gets the indices of the weights that make up a player's value.
+     *
+     * @param player The player index
+     * @param active Receives one weight index per tuple
+     * @param offset The index in active to start writing at
+     * @return The number of indices written, getTupleCount()
+     */
+    public int getActiveWeights(int player, int[] active, int offset) {
+        int base = player * tupleCount;
+        for (int t = 0; t < tupleCount; t++) {
+            active[offset + t] = tupleOffsets[t] + indices[base + t];
+        }
+        return tupleCount;
+    }
+
+    /**
+     * Gets the number of tuples laid out on the grid.
+     * @return The tuple count
+     */
+    public int getTupleCount() {
+        return tupleCount;
+    }
+}
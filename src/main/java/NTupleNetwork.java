@@ -0,0 +1,114 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Lookup-table weights of an n-tuple network.
+ *
+ * The network looks at small groups of cells (tuples): every 2x2 square and every
+ * straight line of three cells. Each cell of a tuple is in one of CELL_STATES
+ * states (building level combined with an own or opposing worker, or a dome), and
+ * every possible combination of states has its own weight.
+ *
+ * Tuples that are mirror images or rotations of each other, and tuples far
+ * enough from the edge to look alike, share a block of weights. The number of
+ * weights therefore does not depend on the grid size, and one network can be
+ * used on every board size. All weights live in one flat float array so that
+ * self-play threads can update them without locks.
+ */
+public class NTupleNetwork {
+    /** Height 0-3 times no, own or opposing worker, plus a dome. */
+    public static final int CELL_STATES = 13;
+
+    /** Distances from the edge beyond this are treated alike. */
+    public static final int EDGE_CLASSES = 3;
+
+    /** Weight blocks of 2x2 squares: unordered pairs of edge classes. */
+    public static final int SQUARE_CLASSES = EDGE_CLASSES * (EDGE_CLASSES + 1) / 2;
+
+    /** Weight blocks of lines: edge class across and along the line. */
+    public static final int LINE_CLASSES = EDGE_CLASSES * EDGE_CLASSES;
+
+    /** Weights per 2x2 square block. */
+    public static final int SQUARE_BLOCK = CELL_STATES * CELL_STATES * CELL_STATES * CELL_STATES;
+
+    /** Weights per line block. */
+    public static final int LINE_BLOCK = CELL_STATES * CELL_STATES * CELL_STATES;
+
+    private static final int FILE_MAGIC = 0x534E544E; // "SNTN"
+
+    private final float[] weights;
+
+    /**
+     * Creates a network with all weights zero.
+     */
+    public NTupleNetwork() {
+        this.weights = new float[SQUARE_CLASSES * SQUARE_BLOCK + LINE_CLASSES * LINE_BLOCK];
+    }
+
+    /**
+     * Gets the index of the first weight of a square block.
+     * @param squareClass The block, 0 to SQUARE_CLASSES - 1
+     * @return The offset into the weights
+     */
+    public static int getSquareOffset(int squareClass) {
+        return squareClass * SQUARE_BLOCK;
+    }
+
+    /**
+     * Gets the index of the first weight of a line block.
+     * @param lineClass The block, 0 to LINE_CLASSES - 1
+     * @return The offset into the weights
+     */
+    public static int getLineOffset(int lineClass) {
+        return SQUARE_CLASSES * SQUARE_BLOCK + lineClass * LINE_BLOCK;
+    }
+
+    /**
+     * Gets the weights. The array is shared, not copied, so trainers can update it in place.
+     * @return The weights
+     */
+    public float[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Loads a network from a file.
+     *
+     * @param path The file to read
+     * @return The network
+     * @throws IOException If the file cannot be read or does not hold a network
+     */
+    public static NTupleNetwork load(Path path) throws IOException {
+        NTupleNetwork network = new NTupleNetwork();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != network.weights.length) {
+                throw new IOException(path + " does not hold a compatible n-tuple network");
+            }
+            for (int i = 0; i < network.weights.length; i++) {
+                network.weights[i] = in.readFloat();
+            }
+        }
+        return network;
+    }
+
+    /**
+     * Writes the network to a file.
+     *
+     * @param path The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(weights.length);
+            for (float weight : weights) {
+                out.writeFloat(weight);
+            }
+        }
+    }
+}
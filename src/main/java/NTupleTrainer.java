@@ -0,0 +1,236 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Trains an NTupleNetwork by TD(lambda) self-play.
+ *
+ * Every thread plays whole games with its own Position and NTupleEvaluator, picking
+ * the turn whose afterstate the network rates highest (or a random turn now and
+ * then to keep exploring). When a game ends, the afterstates of each player are
+ * moved towards their lambda-returns, working back from the result.
+ *
+ * All threads share the network's float array and update it without locks
+ * (Hogwild): updates are sparse, one weight per tuple, so lost updates from
+ * races are rare and do not stop the weights from converging.
+ */
+public class NTupleTrainer {
+    private static final int MAX_PLIES = 300;
+    private static final int REPORT_INTERVAL = 10_000;
+
+    private final NTupleNetwork network;
+    private final int gridSize;
+    private final int numPlayers;
+    private final int workersPerPlayer;
+    private final int[] gods;
+    private final double learningRate;
+    private final double lambda;
+    private final double explorationRate;
+    private final AtomicLong gamesStarted;
+    private final AtomicLong pliesPlayed;
+
+    /**
+     * Creates a trainer for one configuration and God Card pairing.
+     *
+     * @param network The network to train in place
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param workersPerPlayer The number of workers each player has
+     * @param gods The God Card identifier of each player
+     * @param learningRate The step size, shared between the tuples of a position
+     * @param lambda The trace decay
+     * @param explorationRate The fraction of turns chosen at random
+     */
+    public NTupleTrainer(NTupleNetwork network, int gridSize, int numPlayers, int workersPerPlayer, int[] gods,
+                         double learningRate, double lambda, double explorationRate) {
+        this.network = network;
+        this.gridSize = gridSize;
+        this.numPlayers = numPlayers;
+        this.workersPerPlayer = workersPerPlayer;
+        this.gods = gods.clone();
+        this.learningRate = learningRate;
+        this.lambda = lambda;
+        this.explorationRate = explorationRate;
+        this.gamesStarted = new AtomicLong();
+        this.pliesPlayed = new AtomicLong();
+    }
+
+    /**
+     * Plays training games on several threads.
+     *
+     * @param games The total number of games
+     * @param threads The number of self-play threads
+     * @throws InterruptedException If interrupted while waiting for the threads
+     */
+    public void train(long games, int threads) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            SelfPlayWorker worker = new SelfPlayWorker(0x7D0000L + i, games, start);
+            workers.add(new Thread(worker, "ntuple-trainer-" + i));
+        }
+        for (Thread worker : workers) worker.start();
+        for (Thread worker : workers) worker.join();
+    }
+
+    /**
+     * One self-play thread and its reusable buffers.
+     */
+    private final class SelfPlayWorker implements Runnable {
+        private final Position position;
+        private final NTupleEvaluator evaluator;
+        private final SplittableRandom random;
+        private final long[] turns;
+        private final int tupleCount;
+        private final int[] activeWeights;
+        private final float[] values;
+        private final int[] movers;
+        private final long games;
+        private final long start;
+
+        private SelfPlayWorker(long seed, long games, long start) {
+            this.position = new Position(gridSize, numPlayers, workersPerPlayer, gods);
+            this.evaluator = new NTupleEvaluator(position, network);
+            this.random = new SplittableRandom(seed);
+            this.turns = new long[TurnGenerator.maxTurns(position)];
+            this.tupleCount = evaluator.getTupleCount();
+            this.activeWeights = new int[MAX_PLIES * tupleCount];
+            this.values = new float[MAX_PLIES];
+            this.movers = new int[MAX_PLIES];
+            this.games = games;
+            this.start = start;
+        }
+
+        @Override
+        public void run() {
+            long game;
+            while ((game = gamesStarted.incrementAndGet()) <= games) {
+                int plies = playGame();
+                long total = pliesPlayed.addAndGet(plies);
+                if (game % REPORT_INTERVAL == 0) {
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("%d games, %.1f games/s, %.1f turns/game%n",
+                            game, game / seconds, (double) total / game);
+                }
+            }
+        }
+
+        /**
+         * Plays one game and applies its updates.
+         * @return The number of turns played
+         */
+        private int playGame() {
+            position.resetRandomly(random);
+            int plies = 0;
+            int winner = Position.NONE;
+            while (plies < MAX_PLIES) {
+                int count = TurnGenerator.generate(position, turns);
+                if (count == 0) {
+                    winner = (position.getSideToMove() + numPlayers - 1) % numPlayers;
+                    break;
+                }
+                int mover = position.getSideToMove();
+                long turn = random.nextDouble() < explorationRate ? turns[random.nextInt(count)] : chooseTurn(mover, count);
+                position.makeTurn(turn);
+                movers[plies] = mover;
+                values[plies] = evaluator.getValue(mover);
+                evaluator.getActiveWeights(mover, activeWeights, plies * tupleCount);
+                plies++;
+                if (position.getWinner() != Position.NONE) {
+                    winner = position.getWinner();
+                    break;
+                }
+            }
+            update(plies, winner);
+            return plies;
+        }
+
+        /**
+         * Picks the turn with the highest afterstate value, taking a win at once.
+         *
+         * @param mover The player to move
+         * @param count The number of generated turns
+         * @return The chosen turn
+         */
+        private long chooseTurn(int mover, int count) {
+            long best = turns[0];
+            float bestValue = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < count; i++) {
+                if (Turn.hasFlag(turns[i], Turn.FLAG_WIN)) return turns[i];
+                position.makeTurn(turns[i]);
+                float value = evaluator.getValue(mover);
+                position.unmakeTurn();
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = turns[i];
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Moves each player's afterstate values towards their lambda-returns,
+         * from the end of the game backwards.
+         *
+         * @param plies The number of turns played
+         * @param winner The winner, or Position.NONE for an unfinished game
+         */
+        private void update(int plies, int winner) {
+            float[] weights = network.getWeights();
+            double step = learningRate / tupleCount;
+            for (int player = 0; player < numPlayers; player++) {
+                double target = winner == Position.NONE ? 0 : winner == player ? 1 : -1;
+                for (int ply = plies - 1; ply >= 0; ply--) {
+                    if (movers[ply] != player) continue;
+                    double value = values[ply];
+                    float delta = (float) (step * (target - value) * (1 - value * value));
+                    int base = ply * tupleCount;
+                    for (int t = 0; t < tupleCount; t++) {
+                        weights[activeWeights[base + t]] += delta;
+                    }
+                    target = (1 - lambda) * value + lambda * target;
+                }
+            }
+        }
+    }
+
+    /**
+     * Trains a network from the command line, continuing from the output file if it exists.
+     *
+     * @param args Output file, and optionally games, grid size, players, workers per
+     *             player, comma-separated God Cards and threads
+     * @throws IOException If the network cannot be read or written
+     * @throws InterruptedException If interrupted while training
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1) {
+            System.err.println("Usage: NTupleTrainer <network> [games] [gridSize] [players] [workers] [gods] [threads]");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 200_000;
+        int gridSize = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int numPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int workersPerPlayer = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        int[] gods = new int[numPlayers];
+        if (args.length > 5) {
+            String[] names = args[5].split(",");
+            for (int p = 0; p < numPlayers; p++) {
+                gods[p] = Position.parseGod(names[p % names.length]);
+            }
+        }
+        int threads = args.length > 6 ? Integer.parseInt(args[6]) : Runtime.getRuntime().availableProcessors();
+
+        NTupleNetwork network = Files.exists(path) ? NTupleNetwork.load(path) : new NTupleNetwork();
+        NTupleTrainer trainer = new NTupleTrainer(network, gridSize, numPlayers, workersPerPlayer, gods,
+                0.1, 0.5, 0.05);
+        trainer.train(games, threads);
+        network.save(path);
+        System.out.println("Wrote " + path);
+    }
+}
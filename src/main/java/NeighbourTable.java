@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+/**
+ * Precomputed neighbourhoods of the cells of one grid size, shared by every rule
+ * check on boards of that size. Cells are indices row * gridSize + col.
+ *
+ * For each cell the table holds its neighbours in the eight directions (NONE
+ * where a direction leaves the grid), the same neighbours packed into a list,
+ * and a mask with bit d set for each direction d that stays on the grid.
+ * Adjacency is then one lookup of the offset between two cells and one test of
+ * the mask, with no division or Math.abs. On grids narrower than three cells
+ * different directions share an offset, so there the neighbours are searched.
+ *
+ * Tables are built on first use and never change, so one per grid size serves
+ * every board, position and thread.
+ */
+public final class NeighbourTable {
+    /** Marks a direction that leaves the grid. */
+    public static final int NONE = -1;
+
+    // Row and column steps of the eight directions, in the order TurnGenerator uses
+    private static final int[] ROW_STEPS = {-1, -1, -1, 0, 0, 1, 1, 1};
+    private static final int[] COL_STEPS = {-1, 0, 1, -1, 1, -1, 0, 1};
+    // Direction 8 is never set in a mask, so non-neighbouring offsets fail the mask test
+    private static final int NOT_ADJACENT = 8;
+
+    private static final NeighbourTable[] TABLES = new NeighbourTable[GameConfig.MAX_GRID_SIZE + 1];
+
+    private final int gridSize;
+    private final int[] neighbours;
+    private final int[] packed;
+    private final byte[] counts;
+    private final int[] masks;
+    private final byte[] directionOfOffset;
+
+    /**
+     * Builds the table of a grid size.
+     * @param gridSize The grid size
+     */
+    private NeighbourTable(int gridSize) {
+        this.gridSize = gridSize;
+        int cells = gridSize * gridSize;
+        this.neighbours = new int[cells * 8];
+        this.packed = new int[cells * 8];
+        this.counts = new byte[cells];
+        this.masks = new int[cells];
+        this.directionOfOffset = new byte[2 * gridSize + 3];
+        Arrays.fill(directionOfOffset, (byte) NOT_ADJACENT);
+        for (int d = 0; d < 8; d++) {
+            directionOfOffset[ROW_STEPS[d] * gridSize + COL_STEPS[d] + gridSize + 1] = (byte) d;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            int count = 0;
+            for (int d = 0; d < 8; d++) {
+                int row = cell / gridSize + ROW_STEPS[d];
+                int col = cell % gridSize + COL_STEPS[d];
+                if (row < 0 || row >= gridSize || col < 0 || col >= gridSize) {
+                    neighbours[cell * 8 + d] = NONE;
+                    continue;
+                }
+                neighbours[cell * 8 + d] = row * gridSize + col;
+                packed[cell * 8 + count++] = row * gridSize + col;
+                masks[cell] |= 1 << d;
+            }
+            counts[cell] = (byte) count;
+        }
+    }
+
+    /**
+     * Gets the shared table of a grid size, building it on first use.
+     *
+     * @param gridSize The grid size, at most GameConfig.MAX_GRID_SIZE
+     * @return The table
+     */
+    public static NeighbourTable forGridSize(int gridSize) {
+        NeighbourTable table = TABLES[gridSize];
+        if (table == null) {
+            synchronized (TABLES) {
+                table = TABLES[gridSize];
+                if (table == null) {
+                    table = new NeighbourTable(gridSize);
+                    TABLES[gridSize] = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Gets the grid size of the table.
+     * @return The number of rows and columns
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Checks whether a row and column lie on the grid.
+     *
+     * @param row The row
+     * @param col The column
+     * @return true if the cell exists
+     */
+    public boolean contains(int row, int col) {
+        // Negative values become large unsigned ones, so one comparison covers both ends
+        return Integer.compareUnsigned(row, gridSize) < 0 && Integer.compareUnsigned(col, gridSize) < 0;
+    }
+
+    /**
+     * Checks whether two cells touch, diagonals included. A cell does not touch itself.
+     *
+     * @param from A cell index
+     * @param to Another cell index
+     * @return true if they are neighbours
+     */
+    public boolean isAdjacent(int from, int to) {
+        if (gridSize < 3) return searchDirection(from, to) != NOT_ADJACENT;
+        int offset = to - from + gridSize + 1;
+        if (Integer.compareUnsigned(offset, directionOfOffset.length) >= 0) return false;
+        return (masks[from] >>> directionOfOffset[offset] & 1) != 0;
+    }
+
+    /**
+     * Checks whether two cells given by row and column are both on the grid and touch.
+     *
+     * @param fromRow The row of the first cell
+     * @param fromCol The column of the first cell
+     * @param toRow The row of the second cell
+     * @param toCol The column of the second cell
+     * @return true if both cells exist and are neighbours
+     */
+    public boolean isAdjacent(int fromRow, int fromCol, int toRow, int toCol) {
+        return contains(fromRow, fromCol) && contains(toRow, toCol)
+                && isAdjacent(fromRow * gridSize + fromCol, toRow * gridSize + toCol);
+    }
+
+    /**
+     * Gets the neighbour of a cell in one direction.
+     *
+     * @param cell The cell index
+     * @param direction The direction, 0 to 7: the rows above, beside and below, left to right
+     * @return The neighbouring cell, or NONE if the direction leaves the grid
+     */
+    public int neighbour(int cell, int direction) {
+        return neighbours[cell * 8 + direction];
+    }
+
+    /**
+     * Gets the direction from a cell to one of its neighbours.
+     *
+     * @param from The cell index
+     * @param to A neighbouring cell index
+     * @return The direction, 0 to 7, as used by neighbour()
+     */
+    public int direction(int from, int to) {
+        if (gridSize < 3) return searchDirection(from, to);
+        return directionOfOffset[to - from + gridSize + 1];
+    }
+
+    /**
+     * Finds the direction from a cell to another by trying all eight.
+     *
+     * @param from The cell index
+     * @param to Another cell index
+     * @return The direction, or NOT_ADJACENT if the cells do not touch
+     */
+    private int searchDirection(int from, int to) {
+        for (int d = 0; d < 8; d++) {
+            if (neighbours[from * 8 + d] == to) return d;
+        }
+        return NOT_ADJACENT;
+    }
+
+    /**
+     * Gets the number of neighbours of a cell.
+     * @param cell The cell index
+     * @return 3 in a corner, 5 on an edge, otherwise 8
+     */
+    public int count(int cell) {
+        return counts[cell];
+    }
+
+    /**
+     * Gets one of the neighbours of a cell, as a packed list without gaps.
+     *
+     * @param cell The cell index
+     * @param index The position in the list, below count(cell)
+     * @return The neighbouring cell
+     */
+    public int packedNeighbour(int cell, int index) {
+        return packed[cell * 8 + index];
+    }
+
+    /**
+     * Gets the directions in which a cell has neighbours.
+     * @param cell The cell index
+     * @return A mask with bit d set for each direction d that stays on the grid
+     */
+    public int mask(int cell) {
+        return masks[cell];
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.SplittableRandom;
+
+/**
+ * Counts the turn sequences of every God Card to a fixed depth (perft), the usual
+ * check of a turn generator: the counts only change when the rules do. Both
+ * players use the same card and start from the same seeded placements, so the
+ * cards can be compared by branching factor and by speed. Every unmakeTurn is
+ * checked to restore the hash it started from.
+ */
+public class Perft {
+    private static final int STARTS = 4;
+
+    /**
+     * Runs the counts.
+     *
+     * @param args Optionally the depth, the grid size and the comma-separated God
+     *             Cards to count; all of them by default
+     */
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int gridSize = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        String[] names = args.length > 2 ? args[2].split(",") : null;
+        int godCount = names != null ? names.length : Position.GOD_PROMETHEUS + 1;
+
+        System.out.println("god          depth        nodes     ms   Mnodes/s");
+        for (int g = 0; g < godCount; g++) {
+            int god = names != null ? Position.parseGod(names[g]) : g;
+            for (int d = 1; d <= depth; d++) {
+                // Once to warm up, then measured
+                count(gridSize, god, d);
+                long start = System.nanoTime();
+                long nodes = count(gridSize, god, d);
+                long nanos = System.nanoTime() - start;
+                System.out.printf("%-11s  %5d  %11d  %5d  %9.1f%n", Position.getGodName(god), d, nodes,
+                        nanos / 1_000_000, nodes * 1000.0 / Math.max(1, nanos));
+            }
+        }
+    }
+
+    /**
+     * Counts the turn sequences from each of the seeded starting placements.
+     *
+     * @param gridSize The grid size
+     * @param god The God Card of both players
+     * @param depth The number of turns
+     * @return The total number of sequences
+     */
+    private static long count(int gridSize, int god, int depth) {
+        Position position = new Position(gridSize, 2, 2, new int[] {god, god});
+        long[][] buffers = new long[depth + 1][TurnGenerator.maxTurns(position)];
+        long nodes = 0;
+        for (int start = 0; start < STARTS; start++) {
+            position.resetRandomly(new SplittableRandom(start));
+            nodes += perft(position, buffers, depth);
+        }
+        return nodes;
+    }
+
+    /**
+     * Counts the turn sequences of a given length. A won game ends a sequence
+     * early, and a trapped player has none.
+     *
+     * @param position The position; restored before returning
+     * @param buffers One turn buffer per remaining depth
+     * @param depth The number of turns still to play
+     * @return The number of sequences
+     */
+    private static long perft(Position position, long[][] buffers, int depth) {
+        if (depth == 0 || position.getWinner() != Position.NONE) return 1;
+        long[] turns = buffers[depth];
+        int count = TurnGenerator.generate(position, turns);
+        // The last turns are counted without being played
+        if (depth == 1) return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            long hash = position.getHash();
+            position.makeTurn(turns[i]);
+            nodes += perft(position, buffers, depth - 1);
+            position.unmakeTurn();
+            if (position.getHash() != hash) {
+                throw new IllegalStateException("unmakeTurn did not restore the position after "
+                        + Turn.toString(turns[i], position.getGridSize()));
+            }
+        }
+        return nodes;
+    }
+}
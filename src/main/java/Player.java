@@ -1,35 +1,35 @@
-import javax.swing.JPanel;
 import java.awt.Color;
-import java.awt.Dimension;
 
 /**
  * Represents a player in the game.
  */
 public class Player extends GameEntity {
-    private final JPanel visualComponent;
-    private final Color color;
+    private final int colorRgb;
     private final String name;
+    private Color color; // Created on first use so headless games never initialize AWT
     private GodCard godCard;
     private int row;
     private int col;
 
     /**
      * Creates a new player.
-     * @param color The player's color
+     * @param colorRgb The player's color as a 0xRRGGBB value
      * @param name The player's name
      */
-    public Player(Color color, String name) {
-        this.color = color;
+    public Player(int colorRgb, String name) {
+        this.colorRgb = colorRgb & 0xFFFFFF;
         this.name = name;
         this.godCard = null; // Players start with no God Card
-        this.visualComponent = new JPanel();
-        this.visualComponent.setBackground(color);
-        this.visualComponent.setPreferredSize(new Dimension(40, 40));
     }
 
-    @Override
-    public JPanel getVisualComponent() {
-        return visualComponent;
+    /**
+     * Creates a new player.
+     * @param color The player's color
+     * @param name The player's name
+     */
+    public Player(Color color, String name) {
+        this(color.getRGB(), name);
+        this.color = color;
     }
 
     /**
@@ -37,9 +37,17 @@ public class Player extends GameEntity {
      * @return The player's color
      */
     public Color getColor() {
+        if (color == null) {
+            color = new Color(colorRgb);
+        }
         return color;
     }
 
+    @Override
+    public int getColorRgb() {
+        return colorRgb;
+    }
+
     /**
      * Gets the player's name.
      * @return The player's name
@@ -0,0 +1,711 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Compact board used by the game engine.
+ * Cells are indexed row * gridSize + col and everything is held in primitive
+ * arrays, so a search can make and unmake millions of turns without touching the
+ * GridCell/Player object model. Workers are numbered player * workersPerPlayer + k.
+ *
+ * A position always describes the start of a turn; the placement phase is not
+ * modelled. Every cell change is reported to the PositionListener, if one is set,
+ * so derived state such as an IncrementalEvaluator can be kept up to date.
+ *
+ * Alongside the arrays the position keeps bit masks, one long per row with bit
+ * col set: one set per building level, one per player's workers and one for all
+ * workers. They let ThreatDetector answer questions about whole neighbourhoods
+ * with a few word operations.
+ */
+public class Position {
+    /** Marker for an empty cell or a worker that is not on the board. */
+    public static final int NONE = -1;
+
+    /** God Card identifiers used by the engine. */
+    public static final int GOD_NONE = 0;
+    public static final int GOD_APOLLO = 1;
+    public static final int GOD_DEMETER = 2;
+    public static final int GOD_ARTEMIS = 3;
+    public static final int GOD_ATLAS = 4;
+    public static final int GOD_HEPHAESTUS = 5;
+    public static final int GOD_MINOTAUR = 6;
+    public static final int GOD_PAN = 7;
+    public static final int GOD_PROMETHEUS = 8;
+
+    /** Building level of a cell with a dome. */
+    public static final int DOME = 4;
+
+    // Names of the GOD_* identifiers, as used in files and on the command line
+    private static final String[] GOD_NAMES = {"none", "apollo", "demeter", "artemis", "atlas",
+            "hephaestus", "minotaur", "pan", "prometheus"};
+    // Zobrist keys by grid size and player count, generated on first use and shared
+    private static final long[][][][] ZOBRIST_KEYS = new long[65][65][][];
+
+    private final int gridSize;
+    private final int numPlayers;
+    private final int workersPerPlayer;
+    private final NeighbourTable neighbourTable;
+    private final byte[] heights;
+    private final int[] workerAt;
+    private final int[] workerCell;
+    private final int[] gods;
+    private final long[] heightKeys;
+    private final long[] workerKeys;
+    private final long[] sideKeys;
+    private final long[] levelRows;
+    private final long[] playerRows;
+    private final long[] occupiedRows;
+    private int sideToMove;
+    private int winner;
+    private long hash;
+    private long[] undoStack;
+    private int undoSize;
+    private PositionListener listener;
+
+    /**
+     * Creates an empty position with no workers on the board.
+     *
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param workersPerPlayer The number of workers each player has
+     * @param gods The God Card identifier of each player
+     */
+    public Position(int gridSize, int numPlayers, int workersPerPlayer, int[] gods) {
+        if (numPlayers * workersPerPlayer > 64) {
+            throw new IllegalArgumentException("At most 64 workers are supported");
+        }
+        if (gridSize > 64) {
+            throw new IllegalArgumentException("At most 64 columns are supported");
+        }
+        this.gridSize = gridSize;
+        this.numPlayers = numPlayers;
+        this.workersPerPlayer = workersPerPlayer;
+        this.neighbourTable = NeighbourTable.forGridSize(gridSize);
+        this.heights = new byte[gridSize * gridSize];
+        this.workerAt = new int[gridSize * gridSize];
+        this.workerCell = new int[numPlayers * workersPerPlayer];
+        this.gods = gods.clone();
+        this.winner = NONE;
+        this.undoStack = new long[64];
+        this.levelRows = new long[(DOME + 1) * gridSize];
+        this.playerRows = new long[numPlayers * gridSize];
+        this.occupiedRows = new long[gridSize];
+        Arrays.fill(workerAt, NONE);
+        Arrays.fill(workerCell, NONE);
+
+        long[][] keys = zobristKeys(gridSize, numPlayers);
+        this.heightKeys = keys[0];
+        this.workerKeys = keys[1];
+        this.sideKeys = keys[2];
+        rebuild();
+    }
+
+    /**
+     * Creates a copy of another position. The listener and undo history are not copied.
+     * @param other The position to copy
+     */
+    public Position(Position other) {
+        this.gridSize = other.gridSize;
+        this.numPlayers = other.numPlayers;
+        this.workersPerPlayer = other.workersPerPlayer;
+        this.neighbourTable = other.neighbourTable;
+        this.heights = other.heights.clone();
+        this.workerAt = other.workerAt.clone();
+        this.workerCell = other.workerCell.clone();
+        this.gods = other.gods.clone();
+        this.heightKeys = other.heightKeys;
+        this.workerKeys = other.workerKeys;
+        this.sideKeys = other.sideKeys;
+        this.sideToMove = other.sideToMove;
+        this.winner = other.winner;
+        this.hash = other.hash;
+        this.levelRows = other.levelRows.clone();
+        this.playerRows = other.playerRows.clone();
+        this.occupiedRows = other.occupiedRows.clone();
+        this.undoStack = new long[64];
+    }
+
+    /**
+     * Gets the Zobrist keys of a grid size and player count, generating them on
+     * first use. A fixed seed keeps hashes comparable between positions.
+     *
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @return The height, worker and side-to-move keys; never modified
+     */
+    private static synchronized long[][] zobristKeys(int gridSize, int numPlayers) {
+        long[][] keys = ZOBRIST_KEYS[gridSize][numPlayers];
+        if (keys == null) {
+            int cells = gridSize * gridSize;
+            SplittableRandom random = new SplittableRandom(0x5A7021L);
+            keys = new long[][] {new long[cells * (DOME + 1)], new long[cells * numPlayers], new long[numPlayers]};
+            for (long[] table : keys) {
+                for (int i = 0; i < table.length; i++) table[i] = random.nextLong();
+            }
+            ZOBRIST_KEYS[gridSize][numPlayers] = keys;
+        }
+        return keys;
+    }
+
+    /**
+     * Builds a position from the board at the start of the current player's turn.
+     * Reads the board's cells without creating any, and workers from its registry.
+     *
+     * @param boardLogic The board to copy
+     * @return The engine position
+     */
+    public static Position fromBoard(BoardLogic boardLogic) {
+        GameConfig config = boardLogic.getConfig();
+        List<Player> players = boardLogic.getPlayers();
+        int[] gods = new int[players.size()];
+        for (int i = 0; i < gods.length; i++) {
+            gods[i] = godId(players.get(i).getGodCard());
+        }
+        Position position = new Position(config.getGridSize(), players.size(), config.getPiecesPerPlayer(), gods);
+        byte[] levels = new byte[position.heights.length];
+        boardLogic.copyBuildingLevels(levels);
+        // The registry numbers workers player by player, as positions do
+        WorkerRegistry workers = boardLogic.getWorkerRegistry();
+        int[] cells = new int[position.workerCell.length];
+        for (int worker = 0; worker < cells.length; worker++) {
+            int row = workers.getRow(worker);
+            cells[worker] = row == WorkerRegistry.NONE ? NONE : row * config.getGridSize() + workers.getCol(worker);
+        }
+        GameState gameState = boardLogic.getGameState();
+        Player winner = gameState.getWinner();
+        position.load(levels, 0, cells, gameState.getCurrentPlayerIndex(), winner == null ? NONE : players.indexOf(winner));
+        return position;
+    }
+
+    /**
+     * Checks whether a God Card only exists in the engine. The engine generates
+     * turns for every GOD_* identifier, but the board has cards only for Apollo
+     * and Demeter. Games on the board, and every tool that plays through it, are
+     * limited to those; the others are for engine-side tools such as the search
+     * benchmarks and self-play.
+     *
+     * @param god One of the GOD_* constants
+     * @return true if the board has no card for the god
+     */
+    public static boolean isEngineOnlyGod(int god) {
+        return god > GOD_DEMETER;
+    }
+
+    /**
+     * Maps an engine God Card identifier to the shared board card.
+     *
+     * @param god One of the GOD_* constants
+     * @return The card, or null for GOD_NONE
+     * @throws IllegalArgumentException If the god is engine-only
+     */
+    public static GodCard toGodCard(int god) {
+        if (isEngineOnlyGod(god)) {
+            throw new IllegalArgumentException("The board has no " + getGodName(god) + " card; it is engine-only");
+        }
+        if (god == GOD_APOLLO) return ApolloGodCard.INSTANCE;
+        if (god == GOD_DEMETER) return DemeterGodCard.INSTANCE;
+        return null;
+    }
+
+    /**
+     * Maps a God Card to its engine identifier. The engine-only gods have no
+     * board card, so none maps to them.
+     *
+     * @param godCard The card, or null
+     * @return One of the GOD_* constants
+     */
+    public static int godId(GodCard godCard) {
+        if (godCard instanceof ApolloGodCard) return GOD_APOLLO;
+        if (godCard instanceof DemeterGodCard) return GOD_DEMETER;
+        return GOD_NONE;
+    }
+
+    /**
+     * Gets the name of a God Card identifier.
+     * @param god One of the GOD_* constants
+     * @return The lower-case name
+     */
+    public static String getGodName(int god) {
+        return GOD_NAMES[god];
+    }
+
+    /**
+     * Parses a God Card name.
+     * @param name The name, case-insensitive
+     * @return One of the GOD_* constants
+     * @throws IllegalArgumentException If the name is unknown
+     */
+    public static int parseGod(String name) {
+        for (int god = 0; god < GOD_NAMES.length; god++) {
+            if (GOD_NAMES[god].equalsIgnoreCase(name)) return god;
+        }
+        throw new IllegalArgumentException("Unknown God Card: " + name);
+    }
+
+    /**
+     * Sets the listener notified of cell changes.
+     * @param listener The listener, or null to stop notifications
+     */
+    public void setListener(PositionListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Puts a worker on an empty cell. Used to set positions up.
+     *
+     * @param worker The worker id
+     * @param row The row position
+     * @param col The column position
+     */
+    public void placeWorker(int worker, int row, int col) {
+        int cell = row * gridSize + col;
+        workerAt[cell] = worker;
+        workerCell[worker] = cell;
+        rebuild();
+        cellChanged(cell);
+    }
+
+    /**
+     * Sets the building level of a cell. Used to set positions up.
+     *
+     * @param row The row position
+     * @param col The column position
+     * @param level The building level, DOME for a dome
+     */
+    public void setHeight(int row, int col, int level) {
+        int cell = row * gridSize + col;
+        heights[cell] = (byte) level;
+        rebuild();
+        cellChanged(cell);
+    }
+
+    /**
+     * Replaces the whole board in one step, without per-cell notifications.
+     * The listener is told through positionReset() instead, and the undo
+     * history is cleared.
+     *
+     * @param cellHeights Source of the building level of every cell
+     * @param heightsOffset Index of the first cell's level in cellHeights
+     * @param cells The cell of every worker, or NONE for workers not on the board
+     * @param side The player whose turn it is
+     * @param winningPlayer The winner, or NONE
+     */
+    public void load(byte[] cellHeights, int heightsOffset, int[] cells, int side, int winningPlayer) {
+        System.arraycopy(cellHeights, heightsOffset, heights, 0, heights.length);
+        Arrays.fill(workerAt, NONE);
+        for (int worker = 0; worker < workerCell.length; worker++) {
+            workerCell[worker] = cells[worker];
+            if (cells[worker] != NONE) workerAt[cells[worker]] = worker;
+        }
+        sideToMove = side;
+        winner = winningPlayer;
+        rebuild();
+        undoSize = 0;
+        if (listener != null) listener.positionReset();
+    }
+
+    /**
+     * Copies the board, side to move and winner of another position with the same
+     * grid size, players and workers. Works like load().
+     *
+     * @param other The position to copy
+     */
+    public void copyFrom(Position other) {
+        load(other.heights, 0, other.workerCell, other.sideToMove, other.winner);
+    }
+
+    /**
+     * Starts a fresh game: clears every building and puts each worker on a
+     * different random cell, with the first player to move.
+     *
+     * @param random The random source
+     */
+    public void resetRandomly(SplittableRandom random) {
+        int[] cells = new int[workerCell.length];
+        boolean[] taken = new boolean[heights.length];
+        for (int worker = 0; worker < cells.length; worker++) {
+            int cell;
+            do {
+                cell = random.nextInt(heights.length);
+            } while (taken[cell]);
+            taken[cell] = true;
+            cells[worker] = cell;
+        }
+        load(new byte[heights.length], 0, cells, 0, NONE);
+    }
+
+    /**
+     * Sets the player whose turn it is.
+     * @param player The player index
+     */
+    public void setSideToMove(int player) {
+        this.sideToMove = player;
+        this.hash = computeHash();
+    }
+
+    /**
+     * Plays a complete turn: the move, then any builds. A move onto level 3 wins
+     * and builds nothing, as does Pan's move down two or more levels.
+     *
+     * @param turn The encoded turn, as produced by TurnGenerator
+     */
+    public void makeTurn(long turn) {
+        int worker = Turn.worker(turn);
+        int from = workerCell[worker];
+        int to = Turn.to(turn);
+        int displaced = workerAt[to];
+        int build = Turn.build(turn);
+        int secondBuild = Turn.secondBuild(turn);
+        // Atlas's dome can cover any level, so the level it replaces is saved with the from cell
+        int domedLevel = (turn & Turn.FLAG_DOME) != 0 ? heights[build] : 0;
+        pushUndo(turn, (long) from | ((long) domedLevel << 13) | ((long) (displaced + 1) << 16)
+                | ((long) (winner + 1) << 32) | ((long) sideToMove << 48));
+
+        boolean buildFirst = (turn & Turn.FLAG_BUILD_FIRST) != 0;
+        if (buildFirst) raise(secondBuild);
+        workerAt[from] = NONE;
+        if (displaced != NONE) {
+            // Apollo swaps the displaced worker onto from; Minotaur pushes it straight on
+            int destination = (turn & Turn.FLAG_PUSH) != 0 ? 2 * to - from : from;
+            workerAt[destination] = displaced;
+            workerCell[displaced] = destination;
+            int displacedOwner = getOwner(displaced);
+            hash ^= workerKeys[to * numPlayers + displacedOwner] ^ workerKeys[destination * numPlayers + displacedOwner];
+            flipWorkerBits(displacedOwner, to, destination);
+            if (destination != from) cellChanged(destination);
+        }
+        workerAt[to] = worker;
+        workerCell[worker] = to;
+        int owner = getOwner(worker);
+        hash ^= workerKeys[from * numPlayers + owner] ^ workerKeys[to * numPlayers + owner];
+        flipWorkerBits(owner, from, to);
+        cellChanged(from);
+        cellChanged(to);
+
+        // A double move wins if its second step goes up onto level 3
+        int previous = (turn & Turn.FLAG_DOUBLE_MOVE) != 0
+                ? neighbourTable.neighbour(from, Turn.viaDirection(turn)) : from;
+        if ((heights[to] == 3 && heights[previous] < 3)
+                || (gods[owner] == GOD_PAN && heights[from] - heights[to] >= 2)) {
+            winner = sideToMove;
+        } else {
+            if ((turn & Turn.FLAG_DOME) != 0) {
+                setLevel(build, DOME);
+            } else {
+                raise(build);
+            }
+            if (secondBuild != Turn.NO_CELL && !buildFirst) {
+                raise(secondBuild);
+            }
+        }
+        hash ^= sideKeys[sideToMove];
+        sideToMove = (sideToMove + 1) % numPlayers;
+        hash ^= sideKeys[sideToMove];
+    }
+
+    /**
+     * Takes back the last turn played with makeTurn.
+     */
+    public void unmakeTurn() {
+        long savedHash = undoStack[--undoSize];
+        long saved = undoStack[--undoSize];
+        long turn = undoStack[--undoSize];
+        int worker = Turn.worker(turn);
+        int to = Turn.to(turn);
+        int from = (int) (saved & 0x1FFF);
+        int displaced = (int) ((saved >>> 16) & 0xFFFF) - 1;
+        int previousWinner = (int) ((saved >>> 32) & 0xFFFF) - 1;
+        int secondBuild = Turn.secondBuild(turn);
+        boolean buildFirst = (turn & Turn.FLAG_BUILD_FIRST) != 0;
+
+        if (winner == previousWinner) {
+            if (secondBuild != Turn.NO_CELL && !buildFirst) {
+                lower(secondBuild);
+            }
+            if ((turn & Turn.FLAG_DOME) != 0) {
+                setLevel(Turn.build(turn), (int) ((saved >>> 13) & 0x7));
+            } else {
+                lower(Turn.build(turn));
+            }
+        }
+
+        workerAt[to] = displaced;
+        if (displaced != NONE) {
+            int destination = (turn & Turn.FLAG_PUSH) != 0 ? 2 * to - from : from;
+            workerCell[displaced] = to;
+            flipWorkerBits(getOwner(displaced), destination, to);
+            if (destination != from) {
+                workerAt[destination] = NONE;
+                cellChanged(destination);
+            }
+        }
+        workerAt[from] = worker;
+        workerCell[worker] = from;
+        flipWorkerBits(getOwner(worker), to, from);
+        cellChanged(to);
+        cellChanged(from);
+        if (buildFirst) lower(secondBuild);
+
+        winner = previousWinner;
+        sideToMove = (int) (saved >>> 48);
+        hash = savedHash;
+    }
+
+    /**
+     * Adds one level to a cell.
+     * @param cell The cell index
+     */
+    private void raise(int cell) {
+        setLevel(cell, heights[cell] + 1);
+    }
+
+    /**
+     * Removes one level from a cell.
+     * @param cell The cell index
+     */
+    private void lower(int cell) {
+        setLevel(cell, heights[cell] - 1);
+    }
+
+    /**
+     * Changes the building level of a cell, moving its bit between the level masks.
+     *
+     * @param cell The cell index
+     * @param level The new level
+     */
+    private void setLevel(int cell, int level) {
+        int oldLevel = heights[cell];
+        hash ^= heightKeys[cell * (DOME + 1) + oldLevel] ^ heightKeys[cell * (DOME + 1) + level];
+        heights[cell] = (byte) level;
+        int row = cell / gridSize;
+        long bit = 1L << (cell - row * gridSize);
+        levelRows[oldLevel * gridSize + row] ^= bit;
+        levelRows[level * gridSize + row] ^= bit;
+        cellChanged(cell);
+    }
+
+    /**
+     * Moves a worker's bit between two cells in its owner's mask and the occupied mask.
+     *
+     * @param player The worker's owner
+     * @param from The cell the worker leaves
+     * @param to The cell the worker enters
+     */
+    private void flipWorkerBits(int player, int from, int to) {
+        int fromRow = from / gridSize;
+        int toRow = to / gridSize;
+        long fromBit = 1L << (from - fromRow * gridSize);
+        long toBit = 1L << (to - toRow * gridSize);
+        playerRows[player * gridSize + fromRow] ^= fromBit;
+        playerRows[player * gridSize + toRow] ^= toBit;
+        occupiedRows[fromRow] ^= fromBit;
+        occupiedRows[toRow] ^= toBit;
+    }
+
+    /**
+     * Recomputes the hash and the bit masks after a position has been set up.
+     */
+    private void rebuild() {
+        hash = computeHash();
+        Arrays.fill(levelRows, 0);
+        Arrays.fill(playerRows, 0);
+        Arrays.fill(occupiedRows, 0);
+        for (int cell = 0; cell < heights.length; cell++) {
+            int row = cell / gridSize;
+            long bit = 1L << (cell - row * gridSize);
+            levelRows[heights[cell] * gridSize + row] |= bit;
+            if (workerAt[cell] != NONE) {
+                playerRows[getOwner(workerAt[cell]) * gridSize + row] |= bit;
+                occupiedRows[row] |= bit;
+            }
+        }
+    }
+
+    /**
+     * Records a turn and the state needed to take it back.
+     *
+     * @param turn The turn
+     * @param saved The packed from cell, level under an Atlas dome, displaced worker,
+     *              winner and side to move
+     */
+    private void pushUndo(long turn, long saved) {
+        if (undoSize + 3 > undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoStack.length * 2);
+        }
+        undoStack[undoSize++] = turn;
+        undoStack[undoSize++] = saved;
+        undoStack[undoSize++] = hash;
+    }
+
+    /**
+     * Computes the Zobrist hash of the position from scratch.
+     * @return The hash of the heights, worker owners and side to move
+     */
+    private long computeHash() {
+        long result = sideKeys[sideToMove];
+        for (int cell = 0; cell < heights.length; cell++) {
+            result ^= heightKeys[cell * (DOME + 1) + heights[cell]];
+            if (workerAt[cell] != NONE) result ^= workerKeys[cell * numPlayers + getOwner(workerAt[cell])];
+        }
+        return result;
+    }
+
+    /**
+     * Notifies the listener that a cell's height or occupant changed.
+     * @param cell The cell index
+     */
+    private void cellChanged(int cell) {
+        if (listener != null) listener.cellChanged(cell);
+    }
+
+    /**
+     * Gets the cells of one row that are at a building level.
+     *
+     * @param level The building level, DOME for domes
+     * @param row The row
+     * @return A mask with bit col set for every matching cell
+     */
+    public long getLevelRow(int level, int row) {
+        return levelRows[level * gridSize + row];
+    }
+
+    /**
+     * Gets the cells of one row that hold a player's workers.
+     *
+     * @param player The player index
+     * @param row The row
+     * @return A mask with bit col set for every matching cell
+     */
+    public long getPlayerRow(int player, int row) {
+        return playerRows[player * gridSize + row];
+    }
+
+    /**
+     * Gets the cells of one row that hold any worker.
+     * @param row The row
+     * @return A mask with bit col set for every occupied cell
+     */
+    public long getOccupiedRow(int row) {
+        return occupiedRows[row];
+    }
+
+    /**
+     * Gets the size of the grid.
+     * @return The number of rows and columns
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the neighbourhoods of the cells of this position's grid size.
+     * @return The shared neighbour table
+     */
+    public NeighbourTable getNeighbourTable() {
+        return neighbourTable;
+    }
+
+    /**
+     * Gets the number of cells.
+     * @return gridSize * gridSize
+     */
+    public int getCellCount() {
+        return heights.length;
+    }
+
+    /**
+     * Gets the number of players.
+     * @return The number of players
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Gets the number of workers each player has.
+     * @return The workers per player
+     */
+    public int getWorkersPerPlayer() {
+        return workersPerPlayer;
+    }
+
+    /**
+     * Gets the total number of workers.
+     * @return numPlayers * workersPerPlayer
+     */
+    public int getWorkerCount() {
+        return workerCell.length;
+    }
+
+    /**
+     * Gets the building level of a cell.
+     * @param cell The cell index
+     * @return The level, DOME for a dome
+     */
+    public int getHeight(int cell) {
+        return heights[cell];
+    }
+
+    /**
+     * Gets the worker standing on a cell.
+     * @param cell The cell index
+     * @return The worker id, or NONE
+     */
+    public int getWorkerAt(int cell) {
+        return workerAt[cell];
+    }
+
+    /**
+     * Gets the cell a worker stands on.
+     * @param worker The worker id
+     * @return The cell index, or NONE if the worker is not on the board
+     */
+    public int getWorkerCell(int worker) {
+        return workerCell[worker];
+    }
+
+    /**
+     * Gets the player who owns a worker.
+     * @param worker The worker id
+     * @return The player index
+     */
+    public int getOwner(int worker) {
+        return worker / workersPerPlayer;
+    }
+
+    /**
+     * Gets the God Card of a player.
+     * @param player The player index
+     * @return One of the GOD_* constants
+     */
+    public int getGod(int player) {
+        return gods[player];
+    }
+
+    /**
+     * Gets the player whose turn it is.
+     * @return The player index
+     */
+    public int getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Gets the Zobrist hash of the position. Workers of the same player are
+     * interchangeable, so positions that differ only in which of them stands
+     * where share a hash.
+     *
+     * @return The hash, updated incrementally by makeTurn and unmakeTurn
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Gets the winner.
+     * @return The winning player's index, or NONE while the game is undecided
+     */
+    public int getWinner() {
+        return winner;
+    }
+}
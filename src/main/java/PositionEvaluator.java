@@ -0,0 +1,13 @@
+/**
+ * Interface for static evaluations used by the engine search.
+ * An evaluator listens to the Position it evaluates so it can keep derived
+ * state up to date as turns are made and unmade.
+ */
+public interface PositionEvaluator extends PositionListener {
+    /**
+     * Evaluates the position from the point of view of one player.
+     * @param player The player index
+     * @return The score; positive favours the player, wins score IncrementalEvaluator.WIN_SCORE
+     */
+    int evaluate(int player);
+}
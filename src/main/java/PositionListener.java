@@ -0,0 +1,15 @@
+/**
+ * Listener interface for changes to an engine Position.
+ */
+public interface PositionListener {
+    /**
+     * Called after the height or the occupant of a cell has changed.
+     * @param cell The index of the changed cell
+     */
+    void cellChanged(int cell);
+
+    /**
+     * Called after the whole position has been replaced.
+     */
+    default void positionReset() {}
+}
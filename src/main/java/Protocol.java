@@ -0,0 +1,98 @@
+/**
+ * Constants describing the binary wire protocol spoken by the game server.
+ * Every request and every response is a fixed-size frame so that frames can be
+ * decoded in place from a pooled buffer without allocating per message.
+ *
+ * Request frame layout (12 bytes, big-endian):
+ * <pre>
+ *   int   gameId
+ *   byte  opcode
+ *   byte  arg0, arg1, arg2, arg3
+ *   byte  reserved
+ *   short sequence   (echoed back in the response)
+ * </pre>
+ *
+ * Response frame layout (12 bytes, big-endian):
+ * <pre>
+ *   int   gameId
+ *   byte  status
+ *   byte  phase
+ *   byte  current player index
+ *   byte  winner index (-1 when there is no winner)
+ *   byte  reserved, reserved
+ *   short sequence
+ * </pre>
+ *
+ * A connection that spectates a game also receives feed frames for it, mixed in
+ * with its responses. They start with the same 12 bytes as a response, with a
+ * frame kind in place of the status, followed by the changed cells:
+ * <pre>
+ *   int   gameId
+ *   byte  kind       (FRAME_DELTA, FRAME_SNAPSHOT or FRAME_DROPPED)
+ *   byte  phase
+ *   byte  current player index
+ *   byte  winner index (-1 when there is no winner)
+ *   short cell count
+ *   short feed sequence (number of deltas published so far, modulo 65536)
+ *   then per cell:
+ *     short cell index (row * gridSize + col)
+ *     byte  building level (0-4, where 4 represents a dome)
+ *     byte  occupying player index (-1 when the cell is empty)
+ * </pre>
+ * A delta lists the cells one accepted action changed. A snapshot lists every
+ * cell that is built on or occupied, replacing whatever the spectator held.
+ */
+public final class Protocol {
+    /** Size in bytes of every request frame. */
+    public static final int REQUEST_FRAME_SIZE = 12;
+
+    /** Size in bytes of every response frame. */
+    public static final int RESPONSE_FRAME_SIZE = 12;
+
+    // Opcodes
+    /** Creates a game: args are grid size, players, pieces per player, moves per turn. */
+    public static final byte OP_NEW_GAME = 1;
+    /** Places the next piece of the placing player: args are row, col. */
+    public static final byte OP_PLACE = 2;
+    /** Moves a worker: args are fromRow, fromCol, toRow, toCol. */
+    public static final byte OP_MOVE = 3;
+    /** Builds with the moved worker: args are workerRow, workerCol, buildRow, buildCol. */
+    public static final byte OP_BUILD = 4;
+    /** Discards a game. */
+    public static final byte OP_CLOSE_GAME = 5;
+    /** Subscribes the connection to the game's feed, starting with a snapshot. */
+    public static final byte OP_SPECTATE = 6;
+    /** Unsubscribes the connection from the game's feed. */
+    public static final byte OP_UNSPECTATE = 7;
+
+    // Status codes
+    public static final byte STATUS_OK = 0;
+    public static final byte STATUS_ILLEGAL = 1;
+    public static final byte STATUS_UNKNOWN_GAME = 2;
+    public static final byte STATUS_GAME_EXISTS = 3;
+    public static final byte STATUS_BAD_FRAME = 4;
+    public static final byte STATUS_SERVER_FULL = 5;
+
+    // Game phases reported in responses
+    public static final byte PHASE_PLACEMENT = 0;
+    public static final byte PHASE_MOVE = 1;
+    public static final byte PHASE_BUILD = 2;
+    public static final byte PHASE_OVER = 3;
+
+    /** Size in bytes of the header of every feed frame. */
+    public static final int FEED_HEADER_SIZE = 12;
+
+    /** Size in bytes of each cell listed in a feed frame. */
+    public static final int FEED_CELL_SIZE = 4;
+
+    // Feed frame kinds, kept apart from the status codes so clients can tell frames apart
+    /** The cells changed by one accepted action. */
+    public static final byte FRAME_DELTA = 0x40;
+    /** Every built-on or occupied cell, sent on subscribing and to resync a spectator. */
+    public static final byte FRAME_SNAPSHOT = 0x41;
+    /** The last frame of a spectator that fell too far behind, or of a closed game. */
+    public static final byte FRAME_DROPPED = 0x42;
+
+    private Protocol() {
+    }
+}
@@ -0,0 +1,385 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Finds forced-win puzzles: mid-game positions where the side to move wins in
+ * exactly N of its turns, and by exactly one first turn.
+ *
+ * Positions come from seeded self-play on the board model, two players with
+ * optional God Cards, each game mixing engine turns with random ones so the
+ * positions vary. Every position from a few turns in is a candidate. A candidate
+ * is first screened by a SearchEngine search, which is quick but only a guess;
+ * those it scores as a win in exactly N turns are then verified exhaustively by
+ * ForcedWinSolver, one task per first turn, to prove that one turn wins in N,
+ * no other does, and none wins sooner.
+ *
+ * The work runs on a ForkJoinPool. The range of games is split in halves down to
+ * single games, and each verification forks its first-turn tasks, so a thread
+ * that runs out of games steals the halves and the proofs of the others rather
+ * than waiting for the longest game. Positions are deduplicated by hash in a
+ * fixed-size table, so a run of any length uses the same memory; a position is
+ * only looked at twice if its slot was taken over in between. Puzzles are written
+ * to the output as they are proved, one line each, and flushed, so an overnight
+ * run loses nothing if stopped.
+ *
+ * Each puzzle line has tab-separated columns: the grid size, the God Cards of
+ * the two players, N, the side to move, one building level digit per cell in
+ * row-major order, the cell of every worker, the winning first turn encoded as
+ * TurnGenerator encodes it, in hex, the same turn as text and the game it came from.
+ */
+public class PuzzleGenerator {
+    private static final int MIN_TURNS = 6;
+    private static final int MAX_TURNS = 200;
+    private static final int PLAY_DEPTH = 2;
+    // One turn in this many is played at random, the rest by the engine
+    private static final int RANDOM_TURN_CHANCE = 4;
+    private static final int DEDUPE_SIZE_LOG2 = 20;
+    private static final int TABLE_SIZE_LOG2 = 16;
+    private static final long REPORT_INTERVAL = 10_000;
+
+    private final int gridSize;
+    private final int[] gods;
+    private final GodCard[] godCards;
+    private final int winTurns;
+    private final long seed;
+    private final BufferedWriter out;
+    private final AtomicLongArray seen;
+    private final AtomicLong gamesPlayed;
+    private final AtomicLong candidates;
+    private final AtomicLong screened;
+    private final AtomicLong puzzles;
+    private long start;
+
+    /**
+     * Creates a generator writing to an open output.
+     *
+     * @param gridSize The grid size
+     * @param gods The God Card of each of the two players, from those the board implements
+     * @param winTurns N, the number of turns the side to move must need to win, at least 2
+     * @param seed The seed of the run
+     * @param out Where to write the puzzles
+     * @throws IllegalArgumentException If winTurns is below 2 or a god is engine-only
+     */
+    public PuzzleGenerator(int gridSize, int[] gods, int winTurns, long seed, BufferedWriter out) {
+        if (winTurns < 2) {
+            throw new IllegalArgumentException("A puzzle needs a win in at least 2 turns");
+        }
+        this.gridSize = gridSize;
+        this.gods = gods.clone();
+        this.godCards = new GodCard[gods.length];
+        for (int p = 0; p < gods.length; p++) {
+            godCards[p] = Position.toGodCard(gods[p]);
+        }
+        this.winTurns = winTurns;
+        this.seed = seed;
+        this.out = out;
+        this.seen = new AtomicLongArray(1 << DEDUPE_SIZE_LOG2);
+        this.gamesPlayed = new AtomicLong();
+        this.candidates = new AtomicLong();
+        this.screened = new AtomicLong();
+        this.puzzles = new AtomicLong();
+    }
+
+    /**
+     * Plays a range of games on a new pool and waits for them.
+     *
+     * @param firstGame The number of the first game
+     * @param games The number of games
+     * @param threads The number of threads
+     */
+    public void run(long firstGame, long games, int threads) {
+        start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            pool.invoke(new GameRange(firstGame, firstGame + games));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Plays one game and looks for puzzles in every position from MIN_TURNS on.
+     * @param game The game's number
+     */
+    private void playGame(long game) {
+        SplittableRandom random = new SplittableRandom(Fuzzer.gameSeed(seed, game));
+        BoardLogic board = new BoardLogic(new GameConfig(gridSize, 2, 2, 1), new GameState());
+        for (int p = 0; p < 2; p++) {
+            board.getPlayers().get(p).setGodCard(godCards[p]);
+        }
+        GameState state = board.getGameState();
+        while (!state.isGameStarted() && !state.isGameOver()) {
+            board.placeNextPiece(random.nextInt(gridSize), random.nextInt(gridSize));
+        }
+
+        Position work = null;
+        SearchEngine engine = null;
+        long[] turns = null;
+        for (int turn = 0; turn < MAX_TURNS && !state.isGameOver(); turn++) {
+            Position position = Position.fromBoard(board);
+            if (work == null) {
+                work = new Position(position);
+                engine = new SearchEngine(work, new IncrementalEvaluator(work), TABLE_SIZE_LOG2);
+                turns = new long[TurnGenerator.maxTurns(work)];
+            }
+            if (turn >= MIN_TURNS && firstSeen(position.getHash())) {
+                candidates.incrementAndGet();
+                work.copyFrom(position);
+                examine(engine, position, game, turn);
+            }
+
+            long chosen;
+            if (random.nextInt(RANDOM_TURN_CHANCE) == 0) {
+                int count = TurnGenerator.generate(position, turns);
+                chosen = count == 0 ? Turn.NONE : turns[random.nextInt(count)];
+            } else {
+                work.copyFrom(position);
+                chosen = engine.search(PLAY_DEPTH, 0).getTurn();
+            }
+            if (chosen == Turn.NONE) break;
+            if (board.applyBatch(ComputerPlayer.toActions(position, chosen)) != -1) {
+                throw new IllegalStateException("The board rejected turn " + Turn.toString(chosen, gridSize)
+                        + " of game " + game);
+            }
+        }
+
+        long played = gamesPlayed.incrementAndGet();
+        if (played % REPORT_INTERVAL == 0) {
+            double hours = (System.nanoTime() - start) / 3.6e12;
+            System.out.printf("%,d games, %,d positions, %,d screened in, %,d puzzles, %,.0f games per hour%n",
+                    played, candidates.get(), screened.get(), puzzles.get(), played / hours);
+        }
+    }
+
+    /**
+     * Screens a position and, if it passes, proves it is a puzzle and writes it.
+     *
+     * @param engine The engine, already set to the position
+     * @param position The position
+     * @param game The game's number
+     * @param turn The turn of the game the position is at
+     */
+    private void examine(SearchEngine engine, Position position, long game, int turn) {
+        // A win next turn is no puzzle, and needs no search to rule out
+        if (ThreatDetector.canWin(position, position.getSideToMove())) return;
+        SearchResult result = engine.search(2 * winTurns - 1, 0);
+        if (result.getScore() != SearchEngine.WIN_SCORE - (2 * winTurns - 1)) return;
+        screened.incrementAndGet();
+
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        List<FirstTurn> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(new FirstTurn(position, turns[i], winTurns));
+        }
+        ForkJoinTask.invokeAll(tasks);
+        long solution = Turn.NONE;
+        int winning = 0;
+        for (FirstTurn task : tasks) {
+            int verdict = task.join();
+            if (verdict == FirstTurn.FASTER) return;
+            if (verdict == FirstTurn.EXACT) {
+                winning++;
+                solution = task.turn;
+            }
+        }
+        if (winning == 1) write(position, solution, game, turn);
+    }
+
+    /**
+     * Writes a puzzle as one line of the output and flushes it.
+     *
+     * @param position The puzzle position
+     * @param solution The only winning first turn
+     * @param game The game it came from
+     * @param turn The turn of the game it came at
+     */
+    private void write(Position position, long solution, long game, int turn) {
+        StringBuilder line = new StringBuilder();
+        line.append(gridSize).append('\t').append(Position.getGodName(gods[0])).append(',')
+                .append(Position.getGodName(gods[1])).append('\t').append(winTurns).append('\t')
+                .append(position.getSideToMove()).append('\t');
+        for (int cell = 0; cell < position.getCellCount(); cell++) {
+            line.append(position.getHeight(cell));
+        }
+        line.append('\t');
+        for (int worker = 0; worker < position.getWorkerCount(); worker++) {
+            if (worker > 0) line.append(',');
+            line.append(position.getWorkerCell(worker));
+        }
+        line.append('\t').append(Long.toHexString(solution)).append('\t').append(Turn.toString(solution, gridSize))
+                .append('\t').append(game).append(':').append(turn).append('\n');
+        synchronized (out) {
+            try {
+                out.write(line.toString());
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        puzzles.incrementAndGet();
+    }
+
+    /**
+     * Marks a position as seen.
+     * @param hash The position's hash
+     * @return false if the position was seen before and is still remembered
+     */
+    private boolean firstSeen(long hash) {
+        // Zero marks an empty slot
+        long key = hash == 0 ? 1 : hash;
+        int slot = (int) (key ^ (key >>> 32)) & (seen.length() - 1);
+        return seen.getAndSet(slot, key) != key;
+    }
+
+    /**
+     * Gets the number of games played so far.
+     * @return The game count
+     */
+    public long getGamesPlayed() {
+        return gamesPlayed.get();
+    }
+
+    /**
+     * Gets the number of distinct positions looked at so far.
+     * @return The candidate count
+     */
+    public long getCandidates() {
+        return candidates.get();
+    }
+
+    /**
+     * Gets the number of positions the engine scored as a win in exactly N turns.
+     * @return The count of positions verified
+     */
+    public long getScreened() {
+        return screened.get();
+    }
+
+    /**
+     * Gets the number of puzzles written so far.
+     * @return The puzzle count
+     */
+    public long getPuzzles() {
+        return puzzles.get();
+    }
+
+    /**
+     * Generates puzzles from the command line.
+     *
+     * @param args The output file, then optionally the number of games, N, the
+     *             number of threads, the grid size, the comma-separated God
+     *             Cards of the two players, the seed and the first game
+     * @throws IOException If the output cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: PuzzleGenerator <output> [games] [winTurns] [threads] [gridSize] [gods] [seed]"
+                    + " [firstGame]");
+            System.exit(2);
+        }
+        Path path = Paths.get(args[0]);
+        long games = args.length > 1 ? Long.parseLong(args[1]) : 1_000;
+        int winTurns = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        int gridSize = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        String[] godNames = (args.length > 5 ? args[5] : "none,none").split(",");
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : 0x9022L;
+        long firstGame = args.length > 7 ? Long.parseLong(args[7]) : 0;
+        int[] gods = {Position.parseGod(godNames[0]), Position.parseGod(godNames[1])};
+
+        try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            out.write("# size\tgods\twinTurns\tside\theights\tworkers\tsolution\tsolutionText\tgame:turn\n");
+            PuzzleGenerator generator = new PuzzleGenerator(gridSize, gods, winTurns, seed, out);
+            long begin = System.nanoTime();
+            generator.run(firstGame, games, threads);
+            double seconds = (System.nanoTime() - begin) / 1e9;
+            System.out.printf("%,d games, %,d positions, %,d screened in, %,d puzzles in %.1f s on %d threads%n",
+                    generator.getGamesPlayed(), generator.getCandidates(), generator.getScreened(),
+                    generator.getPuzzles(), seconds, threads);
+        }
+    }
+
+    /**
+     * A range of games, split in halves until a task is a single game.
+     */
+    private final class GameRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+
+        /**
+         * Creates a range.
+         *
+         * @param from The first game
+         * @param to One past the last game
+         */
+        GameRange(long from, long to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                playGame(from);
+            } else if (to > from) {
+                long middle = from + (to - from) / 2;
+                invokeAll(new GameRange(from, middle), new GameRange(middle, to));
+            }
+        }
+    }
+
+    /**
+     * The proof of one first turn of a candidate, on its own copy of the position.
+     */
+    private static final class FirstTurn extends RecursiveTask<Integer> {
+        /** The turn does not force a win in N turns. */
+        static final int NONE = 0;
+        /** The turn forces a win in N turns and no sooner. */
+        static final int EXACT = 1;
+        /** The turn forces a win in fewer than N turns. */
+        static final int FASTER = 2;
+
+        private static final long serialVersionUID = 1L;
+
+        private final Position position;
+        private final long turn;
+        private final int winTurns;
+
+        /**
+         * Creates the task.
+         *
+         * @param position The candidate, which is copied
+         * @param turn The first turn to prove
+         * @param winTurns N
+         */
+        FirstTurn(Position position, long turn, int winTurns) {
+            this.position = new Position(position);
+            this.turn = turn;
+            this.winTurns = winTurns;
+        }
+
+        @Override
+        protected Integer compute() {
+            ForcedWinSolver solver = new ForcedWinSolver(position, winTurns);
+            if (!solver.turnForcesWin(turn, winTurns)) return NONE;
+            return solver.turnForcesWin(turn, winTurns - 1) ? FASTER : EXACT;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures how fast Glicko2Ratings rates large batches of results. Entities are
+ * given hidden strengths, results are drawn from them, and the same table is
+ * rated on one thread and on several, which must agree exactly. The correlation
+ * of the ratings with the hidden strengths shows that the batch recovers them.
+ */
+public class RatingBenchmark {
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of results, entities, periods and threads
+     */
+    public static void main(String[] args) {
+        int resultCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int entities = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int periods = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        SplittableRandom random = new SplittableRandom(7);
+        double[] strengths = new double[entities];
+        for (int i = 0; i < entities; i++) {
+            strengths[i] = random.nextGaussian() * 300;
+        }
+        GameResults results = new GameResults(resultCount);
+        for (int r = 0; r < resultCount; r++) {
+            int first = random.nextInt(entities);
+            int second = random.nextInt(entities - 1);
+            if (second >= first) second++;
+            double expected = 1 / (1 + Math.pow(10, (strengths[second] - strengths[first]) / 400));
+            results.add((int) ((long) r * periods / resultCount), first, second,
+                    random.nextDouble() < expected ? GameResults.WIN : GameResults.LOSS);
+        }
+
+        Glicko2Ratings single = null;
+        for (int t : new int[] {1, threads}) {
+            // Once to warm up, then measured
+            rate(results, entities, t);
+            long start = System.nanoTime();
+            Glicko2Ratings ratings = rate(results, entities, t);
+            long nanos = System.nanoTime() - start;
+            System.out.printf("%d threads: %d results in %d periods in %d ms, %.1f M results/s%n", t, resultCount,
+                    periods, nanos / 1_000_000, resultCount * 1000.0 / nanos);
+            if (single == null) {
+                single = ratings;
+            } else {
+                for (int i = 0; i < entities; i++) {
+                    if (ratings.getRating(i) != single.getRating(i) || ratings.getDeviation(i) != single.getDeviation(i)) {
+                        throw new IllegalStateException("Ratings differ between thread counts for entity " + i);
+                    }
+                }
+            }
+        }
+
+        double sumX = 0, sumY = 0, sumXX = 0, sumYY = 0, sumXY = 0, sumDeviation = 0;
+        for (int i = 0; i < entities; i++) {
+            double x = strengths[i];
+            double y = single.getRating(i);
+            sumX += x;
+            sumY += y;
+            sumXX += x * x;
+            sumYY += y * y;
+            sumXY += x * y;
+            sumDeviation += single.getDeviation(i);
+        }
+        double correlation = (entities * sumXY - sumX * sumY)
+                / Math.sqrt((entities * sumXX - sumX * sumX) * (entities * sumYY - sumY * sumY));
+        System.out.printf("correlation with hidden strengths %.4f, mean deviation %.1f%n", correlation,
+                sumDeviation / entities);
+    }
+
+    /**
+     * Rates a table from scratch.
+     *
+     * @param results The results
+     * @param entities The number of entities
+     * @param threads The number of threads
+     * @return The ratings
+     */
+    private static Glicko2Ratings rate(GameResults results, int entities, int threads) {
+        Glicko2Ratings ratings = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, threads);
+        for (int i = 0; i < entities; i++) {
+            ratings.addEntity("entity " + i);
+        }
+        ratings.rate(results);
+        return ratings;
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.SplittableRandom;
+
+/**
+ * Rates bot configurations and God Cards against each other with Glicko-2.
+ *
+ * Each round is one rating period of randomly paired games: two bots, each
+ * playing a random God Card, from a random placement. A bot is an alpha-beta
+ * search to a fixed depth with a set of evaluation weights. Every game is a
+ * result for the bot pool and, when the cards differ, one for the God Card pool,
+ * so the same games measure both strength and balance. The God Card ratings are
+ * printed after every round to show how they settle, and both tables at the end.
+ */
+public class RatingTournament {
+    private static final int MAX_PLIES = 300;
+
+    /**
+     * Runs the tournament.
+     *
+     * @param args Optionally the rounds, games per round, milliseconds per turn,
+     *             grid size, comma-separated God Cards and semicolon-separated
+     *             bots; a bot is a depth, optionally followed by a colon and the
+     *             comma-separated evaluation weights
+     */
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int gamesPerRound = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        long timePerTurn = (args.length > 2 ? Long.parseLong(args[2]) : 20) * 1_000_000L;
+        int gridSize = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        String[] godNames = (args.length > 4 ? args[4] : "none,apollo,demeter").split(",");
+        String[] bots = (args.length > 5 ? args[5] : "1;2;3").split(";");
+
+        int[] gods = new int[godNames.length];
+        for (int i = 0; i < gods.length; i++) {
+            gods[i] = Position.parseGod(godNames[i]);
+        }
+        int[] depths = new int[bots.length];
+        EvaluationWeights[] weights = new EvaluationWeights[bots.length];
+        for (int i = 0; i < bots.length; i++) {
+            String[] parts = bots[i].split(":");
+            depths[i] = Integer.parseInt(parts[0]);
+            weights[i] = parts.length > 1 ? parseWeights(parts[1]) : EvaluationWeights.defaults();
+        }
+
+        Glicko2Ratings botRatings = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, 1);
+        Glicko2Ratings godRatings = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, 1);
+        for (String bot : bots) botRatings.addEntity("depth " + bot);
+        for (int god : gods) godRatings.addEntity(Position.getGodName(god));
+        GameResults botResults = new GameResults(rounds * gamesPerRound);
+        GameResults godResults = new GameResults(rounds * gamesPerRound);
+
+        SplittableRandom random = new SplittableRandom(2024);
+        for (int round = 0; round < rounds; round++) {
+            for (int game = 0; game < gamesPerRound; game++) {
+                int[] bot = {random.nextInt(bots.length), random.nextInt(bots.length)};
+                int[] god = {random.nextInt(gods.length), random.nextInt(gods.length)};
+                int winner = playGame(gridSize, new int[] {gods[god[0]], gods[god[1]]}, depths, weights, bot,
+                        timePerTurn, random.nextLong());
+                double score = winner == 0 ? GameResults.WIN : winner == 1 ? GameResults.LOSS : GameResults.DRAW;
+                if (bot[0] != bot[1]) botResults.add(round, bot[0], bot[1], score);
+                if (god[0] != god[1]) godResults.add(round, god[0], god[1], score);
+            }
+            botRatings.rate(botResults);
+            godRatings.rate(godResults);
+
+            StringBuilder line = new StringBuilder("round " + (round + 1) + ":");
+            for (int g = 0; g < gods.length; g++) {
+                line.append(String.format("  %s %.0f +- %.0f", godRatings.getName(g), godRatings.getRating(g),
+                        2 * godRatings.getDeviation(g)));
+            }
+            System.out.println(line);
+        }
+        botRatings.printTable("Bots");
+        godRatings.printTable("God Cards");
+    }
+
+    /**
+     * Plays one game between two bots, each searching its own copy of the position.
+     *
+     * @param gridSize The grid size
+     * @param gods The God Card of each player
+     * @param depths The search depth of every bot
+     * @param weights The evaluation weights of every bot
+     * @param bot The bot of each player
+     * @param timePerTurn The time limit of each search in nanoseconds
+     * @param seed The seed of the starting placement
+     * @return The winning player, or Position.NONE if the game was cut short
+     */
+    private static int playGame(int gridSize, int[] gods, int[] depths, EvaluationWeights[] weights, int[] bot,
+            long timePerTurn, long seed) {
+        Position[] positions = new Position[2];
+        SearchEngine[] engines = new SearchEngine[2];
+        positions[0] = new Position(gridSize, 2, 2, gods);
+        positions[0].resetRandomly(new SplittableRandom(seed));
+        positions[1] = new Position(positions[0]);
+        for (int p = 0; p < 2; p++) {
+            engines[p] = new SearchEngine(positions[p], new IncrementalEvaluator(positions[p], weights[bot[p]]));
+        }
+
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            int side = positions[0].getSideToMove();
+            SearchResult result = engines[side].search(depths[bot[side]], timePerTurn);
+            if (result.getTurn() == Turn.NONE) return 1 - side;
+            positions[0].makeTurn(result.getTurn());
+            positions[1].makeTurn(result.getTurn());
+            if (positions[0].getWinner() != Position.NONE) return positions[0].getWinner();
+        }
+        return Position.NONE;
+    }
+
+    /**
+     * Parses a set of evaluation weights.
+     * @param list The comma-separated weights, one per feature
+     * @return The weights
+     * @throws IllegalArgumentException If the number of weights is wrong
+     */
+    private static EvaluationWeights parseWeights(String list) {
+        String[] parts = list.split(",");
+        if (parts.length != EvaluationWeights.FEATURE_COUNT) {
+            throw new IllegalArgumentException("Expected " + EvaluationWeights.FEATURE_COUNT + " weights: " + list);
+        }
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return new EvaluationWeights(values);
+    }
+}
@@ -0,0 +1,22 @@
+/**
+ * Reasons an action can be rejected by the rules.
+ * Used to break down illegal-action metrics.
+ */
+public enum RejectionReason {
+    /** The target position is outside the grid. */
+    OUT_OF_BOUNDS,
+    /** The target is not next to the worker. */
+    NOT_ADJACENT,
+    /** The target cell already holds a worker. */
+    OCCUPIED,
+    /** The target cell has a dome. */
+    DOME,
+    /** The move climbs more than one level. */
+    TOO_HIGH,
+    /** The action is not allowed in the current phase of the game or turn. */
+    WRONG_PHASE,
+    /** The acting worker does not belong to the current player. */
+    NOT_OWN_WORKER,
+    /** The standard rules allow the action but the player's God Card forbids it. */
+    GOD_RULE
+}
@@ -0,0 +1,87 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures the board's move and build rule checks as the grid grows. Each grid
+ * gets random buildings and workers, then isValidMove and isValidBuild are timed
+ * on a fixed set of random cell pairs, up to two cells apart in each direction,
+ * so some are off the board, some not adjacent and the rest go through every
+ * rule. Both checks start with the shared NeighbourTable's adjacency test.
+ */
+public class RuleCheckBenchmark {
+    private static final int PAIRS = 4096;
+    private static volatile int sink;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of timed repetitions per grid size and
+     *             comma-separated grid sizes
+     */
+    public static void main(String[] args) {
+        int repetitions = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        String[] sizes = (args.length > 1 ? args[1] : "5,8,16,64").split(",");
+
+        for (String size : sizes) {
+            int gridSize = Integer.parseInt(size);
+            SplittableRandom random = new SplittableRandom(45);
+            BoardLogic board = newBoard(gridSize, random);
+            int[] pairs = new int[PAIRS * 4];
+            for (int i = 0; i < pairs.length; i += 4) {
+                pairs[i] = random.nextInt(gridSize);
+                pairs[i + 1] = random.nextInt(gridSize);
+                pairs[i + 2] = pairs[i] + random.nextInt(5) - 2;
+                pairs[i + 3] = pairs[i + 1] + random.nextInt(5) - 2;
+            }
+            // The best repetition, as the others include compilation and interference
+            long best = Long.MAX_VALUE;
+            for (int rep = 0; rep < repetitions; rep++) {
+                best = Math.min(best, checkPairs(board, pairs));
+            }
+            System.out.printf("%2dx%-2d %6.2f ns per move and build check%n", gridSize, gridSize,
+                    (double) best / (100 * PAIRS));
+        }
+    }
+
+    /**
+     * Creates a board with two players' workers placed and random buildings on
+     * the free cells.
+     *
+     * @param gridSize The grid size
+     * @param random The source of the layout
+     * @return The board
+     */
+    private static BoardLogic newBoard(int gridSize, SplittableRandom random) {
+        BoardLogic board = new BoardLogic(new GameConfig(gridSize, 2, 2, 1), new GameState());
+        while (!board.getGameState().isGameStarted()) {
+            board.placeNextPiece(random.nextInt(gridSize), random.nextInt(gridSize));
+        }
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                int level = random.nextInt(5);
+                if (board.getCell(row, col).getOccupant() == null) board.getCell(row, col).setBuildingLevel(level);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Checks every pair as a move and as a build, a hundred times over.
+     *
+     * @param board The board
+     * @param pairs The cell pairs: from row, from column, to row, to column
+     * @return The time taken
+     */
+    private static long checkPairs(BoardLogic board, int[] pairs) {
+        long start = System.nanoTime();
+        int valid = 0;
+        for (int k = 0; k < 100; k++) {
+            for (int i = 0; i < pairs.length; i += 4) {
+                if (board.isValidMove(pairs[i], pairs[i + 1], pairs[i + 2], pairs[i + 3])) valid++;
+                if (board.isValidBuild(pairs[i], pairs[i + 1], pairs[i + 2], pairs[i + 3])) valid++;
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        sink += valid;
+        return nanos;
+    }
+}
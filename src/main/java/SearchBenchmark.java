@@ -0,0 +1,57 @@
+import java.util.SplittableRandom;
+
+/**
+ * Measures the effect of move ordering on the alpha-beta search. Each random
+ * position is searched to the same fixed depth with ordering off and on, and
+ * the nodes visited, the time taken and the first-move cutoff rate are compared.
+ */
+public class SearchBenchmark {
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of positions, the depth, the grid size
+     *             and comma-separated God Cards of two players
+     */
+    public static void main(String[] args) {
+        int positions = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int gridSize = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int[] gods = new int[2];
+        if (args.length > 3) {
+            String[] names = args[3].split(",");
+            gods[0] = Position.parseGod(names[0]);
+            gods[1] = Position.parseGod(names[names.length - 1]);
+        }
+
+        SplittableRandom random = new SplittableRandom(77);
+        long[] nodes = new long[2];
+        long[] nanos = new long[2];
+        double[] firstMoveRate = new double[2];
+        int mismatches = 0;
+        for (int p = 0; p < positions; p++) {
+            long seed = random.nextLong();
+            int[] scores = new int[2];
+            for (int ordered = 0; ordered < 2; ordered++) {
+                Position position = new Position(gridSize, 2, 2, gods);
+                position.resetRandomly(new SplittableRandom(seed));
+                SearchEngine engine = new SearchEngine(position, new IncrementalEvaluator(position));
+                engine.setOrderingEnabled(ordered == 1);
+                SearchResult result = engine.search(depth, 0);
+                nodes[ordered] += result.getNodes();
+                nanos[ordered] += result.getElapsedNanos();
+                firstMoveRate[ordered] += engine.getMoveOrderer().getFirstMoveCutoffRate();
+                scores[ordered] = result.getScore();
+            }
+            // Ordering must change only the speed of the search, never its result
+            if (scores[0] != scores[1]) mismatches++;
+        }
+
+        String[] names = {"unordered", "ordered"};
+        for (int ordered = 0; ordered < 2; ordered++) {
+            System.out.printf("%-9s: %,12d nodes, %8.1f ms, first-move cutoff rate %.3f%n", names[ordered],
+                    nodes[ordered], nanos[ordered] / 1e6, firstMoveRate[ordered] / positions);
+        }
+        System.out.printf("node reduction %.1fx, score mismatches %d%n",
+                (double) nodes[0] / Math.max(1, nodes[1]), mismatches);
+    }
+}
@@ -0,0 +1,445 @@
+/**
+ * Iterative-deepening alpha-beta search over an engine Position.
+ *
+ * Scores are always from the point of view of the player who started the search
+ * (the root player). With more than two players the search is paranoid: every
+ * other player is assumed to play against the root player, which keeps plain
+ * alpha-beta pruning valid. A search can be limited by depth, by time, by a
+ * TimeManager's share of a game clock, or stopped from another thread with stop().
+ *
+ * Results are cached in a TranspositionTable and turns are searched in the order
+ * chosen by a MoveOrderer; both persist between searches of the same engine.
+ */
+public class SearchEngine {
+    /** Score of a won position, less the number of plies needed to reach it. */
+    public static final int WIN_SCORE = IncrementalEvaluator.WIN_SCORE;
+
+    /** Deepest search supported, in turns. */
+    public static final int MAX_DEPTH = 64;
+
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int TIME_CHECK_INTERVAL = 1024;
+    private static final int DEFAULT_TABLE_SIZE_LOG2 = 18;
+
+    private final Position position;
+    private final PositionEvaluator evaluator;
+    private final long[][] turnBuffers;
+    private final int[][] scoreBuffers;
+    private final TranspositionTable table;
+    private final long[] tableEntry;
+    private final MoveOrderer orderer;
+    private boolean orderingEnabled;
+    private SearchListener listener;
+    private long[] lineTurns;
+    private int[] lineScores;
+    private int rootPlayer;
+    private long rootSalt;
+    private long nodes;
+    private volatile long deadline;
+    private TimeManager timeManager;
+    private boolean aborted;
+    private volatile boolean stopRequested;
+
+    /**
+     * Creates a search engine for a position.
+     *
+     * @param position The position to search; it is restored after every search
+     * @param evaluator The evaluator listening to the position
+     */
+    public SearchEngine(Position position, PositionEvaluator evaluator) {
+        this(position, evaluator, DEFAULT_TABLE_SIZE_LOG2);
+    }
+
+    /**
+     * Creates a search engine with a transposition table of a chosen size.
+     *
+     * @param position The position to search; it is restored after every search
+     * @param evaluator The evaluator listening to the position
+     * @param tableSizeLog2 The base-2 logarithm of the number of table entries
+     */
+    public SearchEngine(Position position, PositionEvaluator evaluator, int tableSizeLog2) {
+        this(position, evaluator, new TranspositionTable(tableSizeLog2));
+    }
+
+    /**
+     * Creates a search engine using a transposition table that may be shared
+     * with engines on other threads, so each can reuse what the others found.
+     *
+     * @param position The position to search; it is restored after every search
+     * @param evaluator The evaluator listening to the position
+     * @param table The transposition table
+     */
+    public SearchEngine(Position position, PositionEvaluator evaluator, TranspositionTable table) {
+        this.position = position;
+        this.evaluator = evaluator;
+        this.turnBuffers = new long[MAX_DEPTH + 1][TurnGenerator.maxTurns(position)];
+        this.scoreBuffers = new int[MAX_DEPTH + 1][TurnGenerator.maxTurns(position)];
+        this.table = table;
+        this.tableEntry = new long[2];
+        this.orderer = new MoveOrderer(position, MAX_DEPTH);
+        this.orderingEnabled = true;
+        this.lineTurns = new long[1];
+        this.lineScores = new int[1];
+    }
+
+    /**
+     * Turns move ordering on or off, so its effect can be measured.
+     * With ordering off, turns are searched in generation order.
+     *
+     * @param enabled Whether to order turns
+     */
+    public void setOrderingEnabled(boolean enabled) {
+        this.orderingEnabled = enabled;
+    }
+
+    /**
+     * Sets the listener told about every completed iteration, and how many of the
+     * best root turns to score exactly. Scoring more than one turn makes the
+     * search slower, since fewer root turns can be cut off.
+     *
+     * @param listener The listener, or null for none
+     * @param lineCount The number of best root turns to report, at least 1
+     */
+    public void setSearchListener(SearchListener listener, int lineCount) {
+        this.listener = listener;
+        this.lineTurns = new long[lineCount];
+        this.lineScores = new int[lineCount];
+    }
+
+    /**
+     * Searches the current position.
+     *
+     * @param maxDepth The deepest iteration to run, in turns
+     * @param timeLimitNanos The time after which to stop, or 0 for no limit
+     * @return The best turn of the deepest completed iteration
+     */
+    public SearchResult search(int maxDepth, long timeLimitNanos) {
+        long start = System.nanoTime();
+        deadline = timeLimitNanos > 0 ? start + timeLimitNanos : Long.MAX_VALUE;
+        stopRequested = false;
+        return run(maxDepth, start);
+    }
+
+    /**
+     * Searches the current position with thinking time from a game clock. The
+     * search stops at the manager's hard deadline, and between iterations when
+     * the manager judges another one not worth starting; the time used is then
+     * charged to the clock.
+     *
+     * @param maxDepth The deepest iteration to run, in turns
+     * @param timeManager The manager of the side to move's clock
+     * @return The best turn of the deepest completed iteration
+     */
+    public SearchResult search(int maxDepth, TimeManager timeManager) {
+        long start = System.nanoTime();
+        timeManager.startTurn(position, start);
+        deadline = timeManager.getHardDeadline();
+        stopRequested = false;
+        this.timeManager = timeManager;
+        try {
+            return run(maxDepth, start);
+        } finally {
+            this.timeManager = null;
+            timeManager.endTurn(System.nanoTime());
+        }
+    }
+
+    /**
+     * Searches the current position until stopped. Unlike search(), the limits are
+     * not reset first: the search honours a stop() or setDeadline() made after
+     * resetLimits() and before the call, so a controller can arm it safely from
+     * another thread. Used for pondering, where the time limit is only known once
+     * the opponent has moved.
+     *
+     * @param maxDepth The deepest iteration to run, in turns
+     * @return The best turn of the deepest completed iteration
+     */
+    public SearchResult searchUntilStopped(int maxDepth) {
+        return run(maxDepth, System.nanoTime());
+    }
+
+    /**
+     * Runs the iterative deepening loop. Clears any stop request on return.
+     *
+     * @param maxDepth The deepest iteration to run, in turns
+     * @param start The time the search started
+     * @return The best turn of the deepest completed iteration
+     */
+    private SearchResult run(int maxDepth, long start) {
+        aborted = false;
+        nodes = 0;
+        rootPlayer = position.getSideToMove();
+        // Scores depend on whose point of view they are from, so keep each player's entries apart
+        rootSalt = (rootPlayer + 1) * 0x9E3779B97F4A7C15L;
+        orderer.newSearch();
+
+        long[] rootTurns = turnBuffers[0];
+        int count = TurnGenerator.generate(position, rootTurns);
+        if (count == 0) {
+            stopRequested = false;
+            return new SearchResult(Turn.NONE, -WIN_SCORE, 0, 0, System.nanoTime() - start);
+        }
+
+        long bestTurn = rootTurns[0];
+        int bestScore = -INFINITY;
+        int completedDepth = 0;
+        for (int depth = 1; depth <= Math.min(maxDepth, MAX_DEPTH); depth++) {
+            SearchIterationEvent event = new SearchIterationEvent();
+            event.begin();
+            int lines = Math.min(lineTurns.length, count);
+            int found = 0;
+            // Only a turn that beats the worst of the best lines so far needs an exact score
+            int alpha = -INFINITY;
+            for (int i = 0; i < count; i++) {
+                position.makeTurn(rootTurns[i]);
+                int score = alphaBeta(depth - 1, 1, alpha, INFINITY);
+                position.unmakeTurn();
+                if (aborted) break;
+                if (found < lines || score > alpha) {
+                    found = insertLine(rootTurns[i], score, found, lines);
+                    if (found == lines) alpha = lineScores[lines - 1];
+                }
+            }
+            if (aborted) break;
+
+            bestTurn = lineTurns[0];
+            bestScore = lineScores[0];
+            completedDepth = depth;
+            for (int i = found - 1; i >= 0; i--) {
+                moveToFront(rootTurns, count, lineTurns[i]);
+            }
+            if (listener != null) listener.iterationCompleted(depth, lineTurns, lineScores, found);
+            if (event.shouldCommit()) {
+                event.depth = depth;
+                event.nodes = nodes;
+                event.score = bestScore;
+                event.commit();
+            }
+            if (Math.abs(bestScore) >= WIN_SCORE - MAX_DEPTH) break;
+            if (timeManager != null && !timeManager.shouldDeepen(depth, bestTurn, bestScore, System.nanoTime())) break;
+        }
+        stopRequested = false;
+        return new SearchResult(bestTurn, bestScore, completedDepth, nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Adds a root turn to the best lines of the current iteration, keeping them
+     * sorted best first. Turns with equal scores keep the order they were searched in.
+     *
+     * @param turn The root turn
+     * @param score Its exact score
+     * @param found The number of lines so far
+     * @param lines The number of lines wanted
+     * @return The new number of lines
+     */
+    private int insertLine(long turn, int score, int found, int lines) {
+        int i = found < lines ? found : lines - 1;
+        while (i > 0 && lineScores[i - 1] < score) {
+            lineTurns[i] = lineTurns[i - 1];
+            lineScores[i] = lineScores[i - 1];
+            i--;
+        }
+        lineTurns[i] = turn;
+        lineScores[i] = score;
+        return found < lines ? found + 1 : found;
+    }
+
+    /**
+     * Asks a running search to return as soon as possible. Safe to call from
+     * any thread; the search returns the best turn of its last completed iteration.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Arms the next searchUntilStopped(): sets its deadline and forgets any stop()
+     * left over from an earlier search. Safe to call from any thread, but not
+     * while a search is running.
+     *
+     * @param deadlineNanos The System.nanoTime() after which to stop
+     */
+    public void resetLimits(long deadlineNanos) {
+        deadline = deadlineNanos;
+        stopRequested = false;
+    }
+
+    /**
+     * Moves the deadline of a running search, or of the next searchUntilStopped().
+     * Safe to call from any thread.
+     *
+     * @param deadlineNanos The System.nanoTime() after which to stop
+     */
+    public void setDeadline(long deadlineNanos) {
+        deadline = deadlineNanos;
+    }
+
+    /**
+     * Gets the reply the last search expects to a turn, taken from the
+     * transposition table. Must not be called while a search is running.
+     *
+     * @param turn A legal turn of the side to move
+     * @return The expected reply, or Turn.NONE if none is known or it is no longer legal
+     */
+    public long getExpectedReply(long turn) {
+        position.makeTurn(turn);
+        long reply = Turn.NONE;
+        boolean found = table.probe(position.getHash() ^ rootSalt, tableEntry);
+        if (position.getWinner() == Position.NONE && found) {
+            long candidate = tableEntry[0];
+            long[] turns = turnBuffers[1];
+            int count = TurnGenerator.generate(position, turns);
+            for (int i = 0; i < count; i++) {
+                if (turns[i] == candidate) reply = candidate;
+            }
+        }
+        position.unmakeTurn();
+        return reply;
+    }
+
+    /**
+     * Searches below the root.
+     *
+     * @param depth The remaining depth in turns
+     * @param ply The distance from the root in turns
+     * @param alpha The score the root player is already assured of
+     * @param beta The score the opponents are already assured of
+     * @return The score of the position for the root player
+     */
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+        nodes++;
+        if ((nodes % TIME_CHECK_INTERVAL) == 0 && (stopRequested || System.nanoTime() > deadline)) {
+            aborted = true;
+        }
+        if (aborted) return 0;
+
+        int winner = position.getWinner();
+        if (winner != Position.NONE) return winner == rootPlayer ? WIN_SCORE - ply : -(WIN_SCORE - ply);
+        // A side that can step onto level 3 wins next turn, so there is nothing to search;
+        // checked before the depth test so leaves see a win one turn beyond the horizon
+        int side = position.getSideToMove();
+        if (ThreatDetector.canWin(position, side)) {
+            return side == rootPlayer ? WIN_SCORE - (ply + 1) : -(WIN_SCORE - (ply + 1));
+        }
+        if (depth == 0) return evaluator.evaluate(rootPlayer);
+
+        long key = position.getHash() ^ rootSalt;
+        long hashTurn = Turn.NONE;
+        if (table.probe(key, tableEntry)) {
+            hashTurn = tableEntry[0];
+            long packed = tableEntry[1];
+            if (TranspositionTable.getDepth(packed) >= depth) {
+                int stored = fromTableScore(TranspositionTable.getScore(packed), ply);
+                int bound = TranspositionTable.getBound(packed);
+                if (bound == TranspositionTable.EXACT
+                        || (bound == TranspositionTable.LOWER && stored >= beta)
+                        || (bound == TranspositionTable.UPPER && stored <= alpha)) {
+                    return stored;
+                }
+            }
+        }
+
+        long[] turns = turnBuffers[ply];
+        int count = TurnGenerator.generate(position, turns);
+        if (count == 0) {
+            // A trapped player loses and the player who moved last wins
+            int numPlayers = position.getNumPlayers();
+            int previous = (position.getSideToMove() + numPlayers - 1) % numPlayers;
+            return previous == rootPlayer ? WIN_SCORE - ply : -(WIN_SCORE - ply);
+        }
+        int[] scores = scoreBuffers[ply];
+        if (orderingEnabled) orderer.score(turns, scores, count, ply, hashTurn);
+
+        int alphaBefore = alpha;
+        int betaBefore = beta;
+        boolean maximizing = side == rootPlayer;
+        int best = maximizing ? -INFINITY : INFINITY;
+        long bestTurn = Turn.NONE;
+        for (int i = 0; i < count; i++) {
+            if (orderingEnabled) MoveOrderer.pickNext(turns, scores, i, count);
+            long turn = turns[i];
+            position.makeTurn(turn);
+            int score = alphaBeta(depth - 1, ply + 1, alpha, beta);
+            position.unmakeTurn();
+            if (aborted) return 0;
+            if (maximizing ? score > best : score < best) {
+                best = score;
+                bestTurn = turn;
+            }
+            if (maximizing) {
+                if (best > alpha) alpha = best;
+            } else {
+                if (best < beta) beta = best;
+            }
+            if (alpha >= beta) {
+                orderer.recordCutoff(turn, ply, depth, i);
+                break;
+            }
+        }
+
+        int bound = best <= alphaBefore ? TranspositionTable.UPPER
+                : best >= betaBefore ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+        table.store(key, bestTurn, toTableScore(best, ply), depth, bound);
+        return best;
+    }
+
+    /**
+     * Converts a win score to be relative to the stored node rather than the root,
+     * so it stays correct when the node is reached at a different ply.
+     *
+     * @param score The score relative to the root
+     * @param ply The node's distance from the root
+     * @return The score to store
+     */
+    private static int toTableScore(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_DEPTH) return score + ply;
+        if (score <= -(WIN_SCORE - MAX_DEPTH)) return score - ply;
+        return score;
+    }
+
+    /**
+     * Reverses toTableScore for a node reached at a given ply.
+     *
+     * @param score The stored score
+     * @param ply The node's distance from the root
+     * @return The score relative to the root
+     */
+    private static int fromTableScore(int score, int ply) {
+        if (score >= WIN_SCORE - MAX_DEPTH) return score - ply;
+        if (score <= -(WIN_SCORE - MAX_DEPTH)) return score + ply;
+        return score;
+    }
+
+    /**
+     * Moves a turn to the front of a list so the next iteration searches it first.
+     *
+     * @param turns The turns
+     * @param count The number of turns
+     * @param turn The turn to move
+     */
+    private static void moveToFront(long[] turns, int count, long turn) {
+        for (int i = 0; i < count; i++) {
+            if (turns[i] == turn) {
+                System.arraycopy(turns, 0, turns, 1, i);
+                turns[0] = turn;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the move orderer, whose statistics describe the last search.
+     * @return The move orderer
+     */
+    public MoveOrderer getMoveOrderer() {
+        return orderer;
+    }
+
+    /**
+     * Gets the position this engine searches.
+     * @return The position
+     */
+    public Position getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,29 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning one iteration of an iterative-deepening engine search.
+ * The event's duration is the time spent on the iteration.
+ * Disabled by default; enable santorini.SearchIteration in a recording to capture it.
+ */
+@Name("santorini.SearchIteration")
+@Label("Search Iteration")
+@Category({"Santorini", "Engine"})
+@Description("One completed depth of an engine search")
+@Enabled(false)
+@StackTrace(false)
+public class SearchIterationEvent extends Event {
+    @Label("Depth")
+    int depth;
+
+    @Label("Nodes")
+    long nodes;
+
+    @Label("Score")
+    int score;
+}
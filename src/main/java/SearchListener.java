@@ -0,0 +1,15 @@
+/**
+ * Listener told about the progress of a SearchEngine as it deepens.
+ * Called on the searching thread, between iterations.
+ */
+public interface SearchListener {
+    /**
+     * Called after each completed iteration of a search.
+     *
+     * @param depth The depth just completed, in turns
+     * @param turns The best root turns, best first; only valid during the call
+     * @param scores Their exact scores for the root player; only valid during the call
+     * @param count The number of turns reported
+     */
+    void iterationCompleted(int depth, long[] turns, int[] scores, int count);
+}
@@ -0,0 +1,67 @@
+/**
+ * Outcome of an engine search: the turn to play and how it was found.
+ */
+public final class SearchResult {
+    private final long turn;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    /**
+     * Creates a search result.
+     *
+     * @param turn The best turn found, or Turn.NONE if the side to move is trapped
+     * @param score The score of the turn for the searching player
+     * @param depth The deepest fully completed iteration
+     * @param nodes The number of nodes visited
+     * @param elapsedNanos The time the search took
+     */
+    public SearchResult(long turn, int score, int depth, long nodes, long elapsedNanos) {
+        this.turn = turn;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the best turn found.
+     * @return The encoded turn, or Turn.NONE if there is no legal turn
+     */
+    public long getTurn() {
+        return turn;
+    }
+
+    /**
+     * Gets the score of the best turn.
+     * @return The score for the searching player
+     */
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Gets the deepest fully completed iteration.
+     * @return The depth in turns
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Gets the number of nodes visited.
+     * @return The node count
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Gets the time the search took.
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
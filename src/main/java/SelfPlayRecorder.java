@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+
+/**
+ * Plays games between greedy engine players and stores every position reached,
+ * labelled with the eventual winner, as training data for the weight tuner.
+ * Workers are placed at random and a fraction of the turns are random so the
+ * data covers more than the greedy players' favourite lines.
+ */
+public class SelfPlayRecorder {
+    private static final int MAX_PLIES = 300;
+    private static final double RANDOM_TURN_RATE = 0.1;
+
+    private final Position position;
+    private final IncrementalEvaluator evaluator;
+    private final SplittableRandom random;
+    private final long[] turns;
+    private final byte[] gameRecords;
+    private final int recordSize;
+
+    /**
+     * Creates a recorder for one configuration and God Card pairing.
+     *
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param workersPerPlayer The number of workers each player has
+     * @param gods The God Card identifier of each player
+     * @param seed The random seed
+     */
+    public SelfPlayRecorder(int gridSize, int numPlayers, int workersPerPlayer, int[] gods, long seed) {
+        this.position = new Position(gridSize, numPlayers, workersPerPlayer, gods);
+        this.evaluator = new IncrementalEvaluator(position);
+        this.random = new SplittableRandom(seed);
+        this.turns = new long[TurnGenerator.maxTurns(position)];
+        this.recordSize = TrainingDataWriter.getRecordSize(gridSize, position.getWorkerCount());
+        this.gameRecords = new byte[MAX_PLIES * recordSize];
+    }
+
+    /**
+     * Plays one game and appends its positions to the writer.
+     *
+     * @param writer The training data writer
+     * @throws IOException If the records cannot be written
+     */
+    public void playGame(TrainingDataWriter writer) throws IOException {
+        position.resetRandomly(random);
+        int plies = 0;
+        int winner = Position.NONE;
+        while (plies < MAX_PLIES) {
+            int count = TurnGenerator.generate(position, turns);
+            if (count == 0) {
+                // A trapped player loses and the player who moved last wins, as in GameState
+                winner = (position.getSideToMove() + position.getNumPlayers() - 1) % position.getNumPlayers();
+                break;
+            }
+            TrainingDataWriter.encode(position, gameRecords, plies * recordSize);
+            plies++;
+            position.makeTurn(random.nextDouble() < RANDOM_TURN_RATE ? turns[random.nextInt(count)] : chooseGreedy(count));
+            if (position.getWinner() != Position.NONE) {
+                winner = position.getWinner();
+                break;
+            }
+        }
+        for (int ply = 0; ply < plies; ply++) {
+            writer.write(gameRecords, ply * recordSize, winner);
+        }
+    }
+
+    /**
+     * Picks the generated turn with the best static evaluation for the mover,
+     * breaking ties at random.
+     *
+     * @param count The number of generated turns
+     * @return The chosen turn
+     */
+    private long chooseGreedy(int count) {
+        int mover = position.getSideToMove();
+        long best = Turn.NONE;
+        int bestScore = Integer.MIN_VALUE;
+        int ties = 0;
+        for (int i = 0; i < count; i++) {
+            position.makeTurn(turns[i]);
+            int score = evaluator.evaluate(mover);
+            position.unmakeTurn();
+            if (score > bestScore) {
+                best = turns[i];
+                bestScore = score;
+                ties = 1;
+            } else if (score == bestScore && random.nextInt(++ties) == 0) {
+                best = turns[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Records self-play games from the command line.
+     *
+     * @param args Output file, number of games, and optionally grid size, players,
+     *             workers per player, comma-separated God Cards and seed
+     * @throws IOException If the output file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SelfPlayRecorder <output> <games> [gridSize] [players] [workers] [gods] [seed]");
+            return;
+        }
+        int games = Integer.parseInt(args[1]);
+        int gridSize = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int numPlayers = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+        int workersPerPlayer = args.length > 4 ? Integer.parseInt(args[4]) : 2;
+        int[] gods = new int[numPlayers];
+        if (args.length > 5) {
+            String[] names = args[5].split(",");
+            for (int p = 0; p < numPlayers; p++) {
+                gods[p] = Position.parseGod(names[p % names.length]);
+            }
+        }
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+
+        SelfPlayRecorder recorder = new SelfPlayRecorder(gridSize, numPlayers, workersPerPlayer, gods, seed);
+        try (TrainingDataWriter writer = new TrainingDataWriter(Paths.get(args[0]), gridSize, numPlayers,
+                workersPerPlayer, gods)) {
+            for (int game = 0; game < games; game++) {
+                recorder.playGame(writer);
+            }
+            System.out.printf("Recorded %d positions from %d games%n", writer.getRecordCount(), games);
+        }
+    }
+}
@@ -0,0 +1,275 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local load generator for the game server.
+ * Each client thread opens one connection and plays a batch of random legal
+ * games over it, pipelining one request per game and timing every action from
+ * send to response. Legal actions are chosen from a local mirror of each game
+ * so the server is exercised with real play rather than rejected requests.
+ * Sustained actions per second and the p50/p99 round-trip latency are printed at the end.
+ */
+public class ServerLoadTest {
+    private static final int[][] DIRECTIONS = {
+        {-1, -1}, {-1, 0}, {-1, 1}, {0, -1}, {0, 1}, {1, -1}, {1, 0}, {1, 1}
+    };
+
+    private final String host;
+    private final int port;
+    private final int gamesPerConnection;
+    private final long durationNanos;
+    private final AtomicInteger nextGameId;
+    private final AtomicLong mismatches;
+
+    /**
+     * Creates a new load test.
+     *
+     * @param host The server host
+     * @param port The server port
+     * @param gamesPerConnection The number of games each connection plays concurrently
+     * @param durationSeconds How long to generate load for
+     */
+    public ServerLoadTest(String host, int port, int gamesPerConnection, int durationSeconds) {
+        this.host = host;
+        this.port = port;
+        this.gamesPerConnection = gamesPerConnection;
+        this.durationNanos = durationSeconds * 1_000_000_000L;
+        this.nextGameId = new AtomicInteger(1);
+        this.mismatches = new AtomicLong();
+    }
+
+    /**
+     * Runs the load test with the given number of connections and prints a report.
+     *
+     * @param connections The number of client connections
+     * @throws InterruptedException If interrupted while waiting for the clients
+     */
+    public void run(int connections) throws InterruptedException {
+        List<LatencyHistogram> histograms = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histograms.add(histogram);
+            long seed = 0x5EED0000L + i;
+            Thread thread = new Thread(() -> runClient(histogram, seed), "load-client-" + i);
+            threads.add(thread);
+        }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+        long elapsed = System.nanoTime() - start;
+
+        LatencyHistogram total = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) total.add(histogram);
+
+        System.out.printf("connections=%d games/connection=%d actions=%d mismatches=%d%n",
+                connections, gamesPerConnection, total.getCount(), mismatches.get());
+        System.out.printf("actions/s=%.0f p50=%.1fus p99=%.1fus max=%.1fus%n",
+                total.getCount() * 1e9 / elapsed,
+                total.getPercentile(50) / 1000.0,
+                total.getPercentile(99) / 1000.0,
+                total.getMax() / 1000.0);
+    }
+
+    /**
+     * Plays games over one connection until the test duration elapses.
+     *
+     * @param histogram The histogram to record round-trip latencies into
+     * @param seed The random seed for this client
+     */
+    private void runClient(LatencyHistogram histogram, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        GameSession[] games = new GameSession[gamesPerConnection];
+        byte[] expectedPhase = new byte[gamesPerConnection];
+        long[] sentAt = new long[gamesPerConnection];
+        boolean[] isAction = new boolean[gamesPerConnection];
+        ByteBuffer out = ByteBuffer.allocateDirect(gamesPerConnection * Protocol.REQUEST_FRAME_SIZE);
+        ByteBuffer in = ByteBuffer.allocateDirect(gamesPerConnection * Protocol.RESPONSE_FRAME_SIZE);
+
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port))) {
+            channel.socket().setTcpNoDelay(true);
+            long deadline = System.nanoTime() + durationNanos;
+
+            while (System.nanoTime() < deadline) {
+                out.clear();
+                for (int g = 0; g < games.length; g++) {
+                    isAction[g] = writeNextRequest(games, g, random, out, expectedPhase);
+                    sentAt[g] = System.nanoTime();
+                }
+                out.flip();
+                while (out.hasRemaining()) channel.write(out);
+
+                in.clear();
+                int frame = 0;
+                while (frame < games.length) {
+                    if (channel.read(in) < 0) return;
+                    long now = System.nanoTime();
+                    while (frame < games.length && in.position() >= (frame + 1) * Protocol.RESPONSE_FRAME_SIZE) {
+                        int base = frame * Protocol.RESPONSE_FRAME_SIZE;
+                        byte status = in.get(base + 4);
+                        byte phase = in.get(base + 5);
+                        if (status != Protocol.STATUS_OK || phase != expectedPhase[frame]) {
+                            mismatches.incrementAndGet();
+                            games[frame] = null;
+                        }
+                        if (isAction[frame]) histogram.record(now - sentAt[frame]);
+                        frame++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(Thread.currentThread().getName() + " failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the next request for one game slot: a new game if the slot is empty,
+     * a close if its game has finished, otherwise a random legal action. The action
+     * is applied to the local mirror first so its expected phase is known.
+     *
+     * @param games The mirrored games of this connection
+     * @param slot The game slot to advance
+     * @param random The random source
+     * @param out The buffer to write the request frame to
+     * @param expectedPhase The expected response phase per slot
+     * @return true if the request is a game action, false if it creates or closes a game
+     */
+    private boolean writeNextRequest(GameSession[] games, int slot, SplittableRandom random,
+                                     ByteBuffer out, byte[] expectedPhase) {
+        GameSession game = games[slot];
+        if (game != null && game.getPhase() == Protocol.PHASE_OVER) {
+            writeFrame(out, game.getGameId(), Protocol.OP_CLOSE_GAME, 0, 0, 0, 0);
+            games[slot] = null;
+            expectedPhase[slot] = -1;
+            return false;
+        }
+        if (game == null) {
+            game = new GameSession(nextGameId.getAndIncrement(), new GameConfig(5, 2, 2, 1));
+            games[slot] = game;
+            expectedPhase[slot] = game.getPhase();
+            writeFrame(out, game.getGameId(), Protocol.OP_NEW_GAME, 5, 2, 2, 1);
+            return false;
+        }
+
+        int startPosition = out.position();
+        BoardLogic logic = game.getBoardLogic();
+        int size = game.getConfig().getGridSize();
+        byte phase = game.getPhase();
+        if (phase == Protocol.PHASE_PLACEMENT) {
+            int start = random.nextInt(size * size);
+            for (int i = 0; i < size * size; i++) {
+                int cell = (start + i) % (size * size);
+                int row = cell / size;
+                int col = cell % size;
+                if (logic.getCell(row, col).getOccupant() == null && game.place(row, col)) {
+                    writeFrame(out, game.getGameId(), Protocol.OP_PLACE, row, col, 0, 0);
+                    break;
+                }
+            }
+        } else if (phase == Protocol.PHASE_MOVE) {
+            List<Player> pieces = logic.getPlayerPieces(game.getGameState().getCurrentPlayer());
+            int firstPiece = random.nextInt(pieces.size());
+            int firstDirection = random.nextInt(DIRECTIONS.length);
+            search:
+            for (int p = 0; p < pieces.size(); p++) {
+                Player piece = pieces.get((firstPiece + p) % pieces.size());
+                for (int d = 0; d < DIRECTIONS.length; d++) {
+                    int[] direction = DIRECTIONS[(firstDirection + d) % DIRECTIONS.length];
+                    int fromRow = piece.getRow();
+                    int fromCol = piece.getCol();
+                    int toRow = fromRow + direction[0];
+                    int toCol = fromCol + direction[1];
+                    if (logic.isValidMove(fromRow, fromCol, toRow, toCol) && game.move(fromRow, fromCol, toRow, toCol)) {
+                        writeFrame(out, game.getGameId(), Protocol.OP_MOVE, fromRow, fromCol, toRow, toCol);
+                        break search;
+                    }
+                }
+            }
+        } else {
+            Player worker = game.getGameState().getSelectedPiece();
+            int firstDirection = random.nextInt(DIRECTIONS.length);
+            for (int d = 0; d < DIRECTIONS.length; d++) {
+                int[] direction = DIRECTIONS[(firstDirection + d) % DIRECTIONS.length];
+                int buildRow = worker.getRow() + direction[0];
+                int buildCol = worker.getCol() + direction[1];
+                if (logic.isValidBuild(worker.getRow(), worker.getCol(), buildRow, buildCol)
+                        && game.build(worker.getRow(), worker.getCol(), buildRow, buildCol)) {
+                    writeFrame(out, game.getGameId(), Protocol.OP_BUILD,
+                            worker.getRow(), worker.getCol(), buildRow, buildCol);
+                    break;
+                }
+            }
+        }
+        if (out.position() == startPosition) {
+            // No legal action could be found; drop the game so the slot starts over
+            writeFrame(out, game.getGameId(), Protocol.OP_CLOSE_GAME, 0, 0, 0, 0);
+            games[slot] = null;
+            expectedPhase[slot] = -1;
+            return false;
+        }
+        expectedPhase[slot] = game.getPhase();
+        return true;
+    }
+
+    /**
+     * Writes one request frame.
+     *
+     * @param out The buffer to write to
+     * @param gameId The game id
+     * @param opcode The opcode
+     * @param arg0 The first argument
+     * @param arg1 The second argument
+     * @param arg2 The third argument
+     * @param arg3 The fourth argument
+     */
+    private static void writeFrame(ByteBuffer out, int gameId, byte opcode, int arg0, int arg1, int arg2, int arg3) {
+        out.putInt(gameId);
+        out.put(opcode);
+        out.put((byte) arg0);
+        out.put((byte) arg1);
+        out.put((byte) arg2);
+        out.put((byte) arg3);
+        out.put((byte) 0);
+        out.putShort((short) 0);
+    }
+
+    /**
+     * Runs the load test against an in-process server.
+     *
+     * @param args Optional connections, games per connection and duration in seconds
+     * @throws Exception If the server cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int gamesPerConnection = args.length > 1 ? Integer.parseInt(args[1]) : 256;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int port = 7078;
+
+        GameServer server = new GameServer(port, connections * gamesPerConnection * 2);
+        Thread serverThread = new Thread(() -> {
+            try {
+                server.run();
+            } catch (IOException e) {
+                System.err.println("Server failed: " + e.getMessage());
+            }
+        }, "game-server");
+        serverThread.start();
+        Thread.sleep(500);
+
+        new ServerLoadTest("localhost", port, gamesPerConnection, durationSeconds).run(connections);
+        server.stop();
+        serverThread.join();
+
+        LatencyHistogram serverLatency = server.getTotalLatency();
+        System.out.printf("server-side processing: p50=%.1fus p99=%.1fus%n",
+                serverLatency.getPercentile(50) / 1000.0, serverLatency.getPercentile(99) / 1000.0);
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Open-addressing hash table from game id to game session.
+ * Keys are stored as primitive ints so lookups on the request path never box.
+ */
+public class SessionTable {
+    private static final float MAX_LOAD = 0.5f;
+
+    private int[] keys;
+    private GameSession[] values;
+    private int size;
+
+    /**
+     * Creates a new session table.
+     *
+     * @param expectedSessions The number of sessions to size the table for
+     */
+    public SessionTable(int expectedSessions) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSessions / MAX_LOAD)) - 1) << 1;
+        this.keys = new int[capacity];
+        this.values = new GameSession[capacity];
+    }
+
+    /**
+     * Gets the session for a game id.
+     *
+     * @param gameId The game id
+     * @return The session, or null if no such game exists
+     */
+    public GameSession get(int gameId) {
+        int mask = keys.length - 1;
+        for (int i = mix(gameId) & mask; values[i] != null; i = (i + 1) & mask) {
+            if (keys[i] == gameId) return values[i];
+        }
+        return null;
+    }
+
+    /**
+     * Adds a session unless one already exists for its game id.
+     *
+     * @param session The session to add
+     * @return true if the session was added, false if the game id is taken
+     */
+    public boolean add(GameSession session) {
+        if (size + 1 > keys.length * MAX_LOAD) resize();
+
+        int gameId = session.getGameId();
+        int mask = keys.length - 1;
+        int i = mix(gameId) & mask;
+        while (values[i] != null) {
+            if (keys[i] == gameId) return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = gameId;
+        values[i] = session;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the session for a game id.
+     *
+     * @param gameId The game id
+     * @return The removed session, or null if no such game exists
+     */
+    public GameSession remove(int gameId) {
+        int mask = keys.length - 1;
+        int i = mix(gameId) & mask;
+        while (values[i] != null && keys[i] != gameId) {
+            i = (i + 1) & mask;
+        }
+        GameSession removed = values[i];
+        if (removed == null) return null;
+
+        // Backward-shift the rest of the probe run so lookups never need tombstones
+        int hole = i;
+        for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        values[hole] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Gets the number of sessions in the table.
+     * @return The number of sessions
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the table capacity and rehashes every session.
+     */
+    private void resize() {
+        int[] oldKeys = keys;
+        GameSession[] oldValues = values;
+        keys = new int[oldKeys.length << 1];
+        values = new GameSession[oldValues.length << 1];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != null) add(oldValues[i]);
+        }
+    }
+
+    /**
+     * Spreads the bits of a game id so sequential ids do not cluster.
+     * @param key The game id
+     * @return The mixed hash
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,134 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Measures what spectators cost a game. Random games are recorded once, then
+ * replayed action by action through a GameSession whose feed has from none to
+ * ten thousand subscribers. Applying and publishing the actions is timed apart
+ * from copying the frames out to the subscribers, which happens once per game
+ * into a buffer standing in for each spectator's connection: the first should
+ * not grow with the number of spectators, the second grows with it linearly.
+ */
+public class SpectatorBenchmark {
+    private static final int[] SPECTATOR_COUNTS = {0, 1, 10, 100, 1000, 10_000};
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of games and the grid size
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int gridSize = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        SplittableRandom random = new SplittableRandom(42);
+        List<List<GameAction>> recorded = new ArrayList<>();
+        long actions = 0;
+        for (int g = 0; g < games; g++) {
+            List<GameAction> game = recordGame(gridSize, random);
+            recorded.add(game);
+            actions += game.size();
+        }
+
+        System.out.println("spectators  publish ns/action  deliver ns/action/spectator");
+        // The first round warms up and is not printed
+        for (int round = 0; round < 2; round++) {
+            for (int spectators : SPECTATOR_COUNTS) {
+                long[] nanos = replay(gridSize, recorded, spectators);
+                if (round == 0) continue;
+                System.out.printf("%10d  %17.1f  %27.1f%n", spectators, (double) nanos[0] / actions,
+                        spectators == 0 ? 0.0 : (double) nanos[1] / actions / spectators);
+            }
+        }
+    }
+
+    /**
+     * Plays a random game, choosing turns with the engine's turn generator.
+     *
+     * @param gridSize The grid size
+     * @param random The random source
+     * @return The placements and the actions of every turn, in order
+     */
+    private static List<GameAction> recordGame(int gridSize, SplittableRandom random) {
+        BoardLogic board = new BoardLogic(new GameConfig(gridSize, 2, 2, 1), new GameState());
+        List<GameAction> game = new ArrayList<>();
+        while (!board.getGameState().isGameStarted()) {
+            GameAction placement = GameAction.place(random.nextInt(gridSize), random.nextInt(gridSize));
+            if (board.applyAction(placement)) game.add(placement);
+        }
+
+        Position position = Position.fromBoard(board);
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        while (position.getWinner() == Position.NONE && !board.getGameState().isGameOver()) {
+            int count = TurnGenerator.generate(position, turns);
+            if (count == 0) break;
+            long turn = turns[random.nextInt(count)];
+            List<GameAction> actions = ComputerPlayer.toActions(position, turn);
+            if (board.applyBatch(actions) != -1) {
+                throw new IllegalStateException("The board rejected a generated turn");
+            }
+            position.makeTurn(turn);
+            game.addAll(actions);
+        }
+        return game;
+    }
+
+    /**
+     * Replays recorded games, each with a fresh feed and subscribers.
+     *
+     * @param gridSize The grid size
+     * @param games The recorded games
+     * @param spectators The number of subscribers, or 0 to leave the feed closed
+     * @return The time spent applying and publishing actions, then the time spent delivering frames
+     */
+    private static long[] replay(int gridSize, List<List<GameAction>> games, int spectators) {
+        long[] nanos = new long[2];
+        ByteBuffer connection = ByteBuffer.allocate(64 * 1024);
+        List<SpectatorFeed.Subscriber> subscribers = new ArrayList<>();
+        for (List<GameAction> game : games) {
+            GameSession session = new GameSession(1, new GameConfig(gridSize, 2, 2, 1));
+            subscribers.clear();
+            for (int s = 0; s < spectators; s++) {
+                subscribers.add(session.openFeed().subscribe(null));
+            }
+
+            long start = System.nanoTime();
+            for (GameAction action : game) {
+                if (!apply(session, action)) {
+                    throw new IllegalStateException("A recorded action was rejected on replay");
+                }
+            }
+            nanos[0] += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (SpectatorFeed.Subscriber subscriber : subscribers) {
+                connection.clear();
+                subscriber.drain(connection);
+            }
+            nanos[1] += System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    /**
+     * Applies one action through the session's single-action methods, as the server does.
+     *
+     * @param session The game
+     * @param action The action
+     * @return true if the action was accepted
+     */
+    private static boolean apply(GameSession session, GameAction action) {
+        switch (action.getType()) {
+            case PLACE:
+                return session.place(action.getToRow(), action.getToCol());
+            case MOVE:
+                return session.move(action.getFromRow(), action.getFromCol(), action.getToRow(), action.getToCol());
+            case BUILD:
+                return session.build(action.getFromRow(), action.getFromCol(), action.getToRow(), action.getToCol());
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,416 @@
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Live feed of one game for any number of spectators.
+ *
+ * Each accepted action is encoded once, as a delta frame listing the cells it
+ * changed and the phase, current player and winner after it, into a ring of
+ * bytes shared by every subscriber. A subscriber is only a read position in the
+ * ring, so publishing costs the same with one spectator or ten thousand; the
+ * bytes are copied to each spectator's connection when it has room for them.
+ *
+ * The ring holds the most recent frames only. A subscriber whose position has
+ * been overwritten is resynced with a snapshot of the whole board, which is
+ * encoded once per published state however many subscribers need it. One that
+ * falls behind again and again is dropped.
+ *
+ * The feed keeps its own copy of the board's cells, so snapshots never touch
+ * the board. It is not thread-safe; it belongs to the thread applying the game's
+ * actions, which on the server is the selector thread.
+ */
+public class SpectatorFeed implements CellListener {
+    /** Default capacity of the ring in bytes. */
+    public static final int DEFAULT_CAPACITY = 16 * 1024;
+    /** Default number of resyncs without keeping up after which a subscriber is dropped. */
+    public static final int DEFAULT_MAX_RESYNCS = 3;
+
+    private final GameSession session;
+    private final int gridSize;
+    private final byte[] ring;
+    private final int mask;
+    private final int maxResyncs;
+    private final byte[] levels;
+    private final byte[] owners;
+    private final int[] pendingCells;
+    private final boolean[] isPending;
+    private final List<Subscriber> subscribers;
+    private int pendingCount;
+    private long head; // Bytes written since the feed opened
+    private long tail; // Start of the oldest frame still in the ring
+    private int sequence;
+    private byte[] snapshot;
+    private int snapshotSequence;
+    private boolean queued;
+    private boolean closed;
+
+    /**
+     * Creates a feed of a game's current state. The caller must route the
+     * board's cell changes to it and publish after every accepted action.
+     *
+     * @param session The game
+     * @param capacity The capacity of the ring in bytes, a power of two
+     * @param maxResyncs The number of resyncs without keeping up after which a subscriber is dropped
+     */
+    public SpectatorFeed(GameSession session, int capacity, int maxResyncs) {
+        if (Integer.bitCount(capacity) != 1 || capacity < Protocol.FEED_HEADER_SIZE) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.session = session;
+        this.gridSize = session.getConfig().getGridSize();
+        this.ring = new byte[capacity];
+        this.mask = capacity - 1;
+        this.maxResyncs = maxResyncs;
+        this.levels = new byte[gridSize * gridSize];
+        this.owners = new byte[gridSize * gridSize];
+        this.pendingCells = new int[gridSize * gridSize];
+        this.isPending = new boolean[gridSize * gridSize];
+        this.subscribers = new ArrayList<>();
+        this.snapshotSequence = -1;
+
+        BoardLogic board = session.getBoardLogic();
+        for (int row = 0; row < gridSize; row++) {
+            for (int col = 0; col < gridSize; col++) {
+                levels[row * gridSize + col] = (byte) board.getCell(row, col).getBuildingLevel();
+                owners[row * gridSize + col] = (byte) getOwnerAt(row, col);
+            }
+        }
+    }
+
+    @Override
+    public void cellChanged(GridCell cell) {
+        int index = cell.getRow() * gridSize + cell.getCol();
+        if (!isPending[index]) {
+            isPending[index] = true;
+            pendingCells[pendingCount++] = index;
+        }
+    }
+
+    /**
+     * Encodes the cells changed since the last publish, with the game's phase,
+     * current player and winner, as one delta frame for every subscriber.
+     */
+    public void publish() {
+        if (closed) return;
+        BoardLogic board = session.getBoardLogic();
+        int size = Protocol.FEED_HEADER_SIZE + pendingCount * Protocol.FEED_CELL_SIZE;
+        makeRoom(size);
+        sequence++;
+        long position = writeHeader(Protocol.FRAME_DELTA, pendingCount);
+        for (int i = 0; i < pendingCount; i++) {
+            int index = pendingCells[i];
+            isPending[index] = false;
+            GridCell cell = board.getCell(index / gridSize, index % gridSize);
+            levels[index] = (byte) cell.getBuildingLevel();
+            owners[index] = (byte) getOwnerAt(cell.getRow(), cell.getCol());
+            position = putShort(position, index);
+            ring[(int) position++ & mask] = levels[index];
+            ring[(int) position++ & mask] = owners[index];
+        }
+        pendingCount = 0;
+        if (size > ring.length) {
+            // Too big to keep: nobody can read it, so everyone resyncs
+            tail = head + size;
+        }
+        head += size;
+    }
+
+    /**
+     * Forgets the cells changed since the last publish, after an action was
+     * rejected and the board restored.
+     */
+    public void discardPending() {
+        for (int i = 0; i < pendingCount; i++) {
+            isPending[pendingCells[i]] = false;
+        }
+        pendingCount = 0;
+    }
+
+    /**
+     * Adds a subscriber. Its first frame is a snapshot of the game.
+     * @param attachment An object to keep with the subscriber, such as its connection
+     * @return The subscriber
+     */
+    public Subscriber subscribe(Object attachment) {
+        Subscriber subscriber = new Subscriber(attachment, closed ? -1 : subscribers.size());
+        if (closed) {
+            subscriber.closed = true;
+        } else {
+            subscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    /**
+     * Ends the feed. Every subscriber is sent a dropped frame on its next drain.
+     */
+    public void close() {
+        closed = true;
+        for (Subscriber subscriber : subscribers) {
+            subscriber.closed = true;
+        }
+    }
+
+    /**
+     * Gets the number of subscribers.
+     * @return The number of subscribers not yet dropped or unsubscribed
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * Gets one of the subscribers. Draining a subscriber may drop it, which moves
+     * the last subscriber into its place, so iterate from the last to the first.
+     * @param index The index, below getSubscriberCount()
+     * @return The subscriber
+     */
+    public Subscriber getSubscriber(int index) {
+        return subscribers.get(index);
+    }
+
+    /**
+     * Gets the number of deltas published.
+     * @return The sequence number of the latest delta
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets the game of the feed.
+     * @return The game session
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
+    /**
+     * Marks the feed as waiting to be delivered.
+     * @return true if it was not marked already
+     */
+    public boolean markQueued() {
+        if (queued) return false;
+        queued = true;
+        return true;
+    }
+
+    /**
+     * Clears the mark set by markQueued().
+     */
+    public void clearQueued() {
+        queued = false;
+    }
+
+    /**
+     * Gets the player occupying a cell.
+     *
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The index of the player whose worker stands there, or -1 if the cell is empty
+     */
+    private int getOwnerAt(int row, int col) {
+        WorkerRegistry workers = session.getBoardLogic().getWorkerRegistry();
+        int worker = workers.getWorkerAt(row, col);
+        return worker == WorkerRegistry.NONE ? -1 : workers.getOwner(worker);
+    }
+
+    /**
+     * Drops the oldest frames until a frame of the given size fits after the newest.
+     * @param size The size of the frame in bytes
+     */
+    private void makeRoom(int size) {
+        while (tail < head && head + size - tail > ring.length) {
+            tail += frameSize(tail);
+        }
+    }
+
+    /**
+     * Writes a frame header at the head of the ring.
+     *
+     * @param kind The frame kind
+     * @param cellCount The number of cells that follow
+     * @return The ring position just after the header
+     */
+    private long writeHeader(byte kind, int cellCount) {
+        long position = head;
+        position = putShort(position, session.getGameId() >>> 16);
+        position = putShort(position, session.getGameId());
+        ring[(int) position++ & mask] = kind;
+        ring[(int) position++ & mask] = session.getPhase();
+        ring[(int) position++ & mask] = (byte) session.getActingPlayerIndex();
+        ring[(int) position++ & mask] = (byte) session.getWinnerIndex();
+        position = putShort(position, cellCount);
+        return putShort(position, sequence);
+    }
+
+    /**
+     * Writes a big-endian short into the ring, wrapping at its end.
+     *
+     * @param position The ring position
+     * @param value The value, of which the low 16 bits are written
+     * @return The ring position after the short
+     */
+    private long putShort(long position, int value) {
+        ring[(int) position & mask] = (byte) (value >>> 8);
+        ring[(int) (position + 1) & mask] = (byte) value;
+        return position + 2;
+    }
+
+    /**
+     * Gets the size of the frame starting at a ring position.
+     * @param position The ring position of the frame's header
+     * @return The size of the frame in bytes
+     */
+    private int frameSize(long position) {
+        int cellCount = (ring[(int) (position + 8) & mask] & 0xFF) << 8 | ring[(int) (position + 9) & mask] & 0xFF;
+        return Protocol.FEED_HEADER_SIZE + cellCount * Protocol.FEED_CELL_SIZE;
+    }
+
+    /**
+     * Gets a snapshot frame of the current state, encoding it only if the state
+     * has changed since the last one.
+     * @return The frame
+     */
+    private byte[] getSnapshot() {
+        if (snapshot != null && snapshotSequence == sequence) return snapshot;
+        int cellCount = 0;
+        for (int index = 0; index < levels.length; index++) {
+            if (levels[index] != 0 || owners[index] != -1) cellCount++;
+        }
+        ByteBuffer frame = ByteBuffer.allocate(Protocol.FEED_HEADER_SIZE + cellCount * Protocol.FEED_CELL_SIZE);
+        frame.putInt(session.getGameId());
+        frame.put(Protocol.FRAME_SNAPSHOT);
+        frame.put(session.getPhase());
+        frame.put((byte) session.getActingPlayerIndex());
+        frame.put((byte) session.getWinnerIndex());
+        frame.putShort((short) cellCount);
+        frame.putShort((short) sequence);
+        for (int index = 0; index < levels.length; index++) {
+            if (levels[index] != 0 || owners[index] != -1) {
+                frame.putShort((short) index);
+                frame.put(levels[index]);
+                frame.put(owners[index]);
+            }
+        }
+        snapshot = frame.array();
+        snapshotSequence = sequence;
+        return snapshot;
+    }
+
+    /**
+     * One spectator's read position in the feed.
+     */
+    public final class Subscriber {
+        private final Object attachment;
+        private int index; // Position in the feed's subscriber list
+        private long cursor;
+        private boolean needsSnapshot;
+        private int resyncs; // Resyncs since the subscriber last kept up for a whole ring
+        private long resyncedAt; // Head of the ring at the last snapshot
+        private boolean closed;
+
+        /**
+         * Creates a subscriber that starts with a snapshot.
+         *
+         * @param attachment The object to keep with the subscriber
+         * @param index The subscriber's position in the feed's list
+         */
+        private Subscriber(Object attachment, int index) {
+            this.attachment = attachment;
+            this.index = index;
+            this.needsSnapshot = true;
+        }
+
+        /**
+         * Copies as many whole frames as fit into a buffer, starting with a
+         * snapshot if the subscriber is new or has fallen out of the ring. A
+         * subscriber that falls out of the ring too many times without once
+         * keeping up for a whole ring's worth of frames in between is dropped
+         * instead, as is every subscriber of a closed feed; it is sent a dropped
+         * frame if there is room for one.
+         *
+         * @param out The buffer to append the frames to
+         * @return false if the subscriber has been dropped and will get no more frames
+         */
+        public boolean drain(ByteBuffer out) {
+            if (!closed && !needsSnapshot && cursor < tail) {
+                needsSnapshot = true;
+                closed = ++resyncs > maxResyncs;
+            }
+            if (closed) {
+                if (out.remaining() >= Protocol.FEED_HEADER_SIZE) {
+                    out.putInt(session.getGameId());
+                    out.put(Protocol.FRAME_DROPPED);
+                    out.put(session.getPhase());
+                    out.put((byte) session.getActingPlayerIndex());
+                    out.put((byte) session.getWinnerIndex());
+                    out.putShort((short) 0);
+                    out.putShort((short) sequence);
+                }
+                unsubscribe();
+                return false;
+            }
+            if (needsSnapshot) {
+                byte[] frame = getSnapshot();
+                if (out.remaining() < frame.length) return true;
+                out.put(frame);
+                cursor = head;
+                resyncedAt = head;
+                needsSnapshot = false;
+            }
+            while (cursor < head) {
+                int size = frameSize(cursor);
+                if (out.remaining() < size) return true;
+                int offset = (int) cursor & mask;
+                int first = Math.min(size, ring.length - offset);
+                out.put(ring, offset, first);
+                out.put(ring, 0, size - first);
+                cursor += size;
+            }
+            if (cursor - resyncedAt >= ring.length) {
+                resyncs = 0;
+            }
+            return true;
+        }
+
+        /**
+         * Checks whether the subscriber has frames it has not been sent.
+         * @return true if a drain would write something
+         */
+        public boolean hasPending() {
+            return closed || needsSnapshot || cursor < head;
+        }
+
+        /**
+         * Removes the subscriber from the feed. It gets no more frames.
+         */
+        public void unsubscribe() {
+            closed = true;
+            if (index < 0) return;
+            Subscriber last = subscribers.remove(subscribers.size() - 1);
+            if (last != this) {
+                subscribers.set(index, last);
+                last.index = index;
+            }
+            index = -1;
+        }
+
+        /**
+         * Gets the object kept with the subscriber.
+         * @return The attachment given when subscribing
+         */
+        public Object getAttachment() {
+            return attachment;
+        }
+
+        /**
+         * Gets the feed of the subscriber.
+         * @return The feed
+         */
+        public SpectatorFeed getFeed() {
+            return SpectatorFeed.this;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe latency histogram for hot paths.
+ * Samples are spread over several stripes chosen by thread, so concurrent
+ * recorders almost never touch the same cache lines; stripes are only summed
+ * when the histogram is read. Buckets match LatencyHistogram's log-linear layout.
+ */
+public class StripedLatencyHistogram {
+    private static final int BUCKETS = LatencyHistogram.bucketIndex(Long.MAX_VALUE) + 1;
+    private static final int COUNT_SLOT = BUCKETS;
+    private static final int SUM_SLOT = BUCKETS + 1;
+    private static final int MAX_SLOT = BUCKETS + 2;
+    private static final int SLOTS = BUCKETS + 3;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    /**
+     * Creates a histogram with one stripe per available processor, rounded up to a power of two.
+     */
+    public StripedLatencyHistogram() {
+        int stripeCount = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1));
+        this.stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(SLOTS);
+        }
+        this.stripeMask = stripeCount - 1;
+    }
+
+    /**
+     * Records one latency sample.
+     * @param nanos The latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & stripeMask];
+        stripe.getAndIncrement(LatencyHistogram.bucketIndex(nanos));
+        stripe.getAndIncrement(COUNT_SLOT);
+        stripe.getAndAdd(SUM_SLOT, nanos);
+        if (nanos > stripe.get(MAX_SLOT)) {
+            stripe.accumulateAndGet(MAX_SLOT, nanos, Math::max);
+        }
+    }
+
+    /**
+     * Gets the number of recorded samples.
+     * @return The sample count
+     */
+    public long getCount() {
+        return sum(COUNT_SLOT);
+    }
+
+    /**
+     * Gets the mean latency.
+     * @return The mean in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : sum(SUM_SLOT) / count;
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     * @return The maximum in nanoseconds
+     */
+    public long getMax() {
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            max = Math.max(max, stripe.get(MAX_SLOT));
+        }
+        return max;
+    }
+
+    /**
+     * Gets the latency at a percentile.
+     * @param percentile The percentile in the range 0-100
+     * @return The upper bound of the bucket holding that percentile, in nanoseconds
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = stripe.get(i);
+                counts[i] += count;
+                total += count;
+            }
+        }
+        if (total == 0) return 0;
+
+        long rank = Math.max(1, Math.min(total, (long) Math.ceil(total * percentile / 100.0)));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.bucketUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * Clears every recorded sample.
+     */
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < SLOTS; i++) {
+                stripe.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Sums one slot over all stripes.
+     * @param slot The slot index
+     * @return The total
+     */
+    private long sum(int slot) {
+        long total = 0;
+        for (AtomicLongArray stripe : stripes) {
+            total += stripe.get(slot);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,276 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fits evaluation weights to game results with Texel-style logistic regression.
+ *
+ * The probability that the side to move wins is modelled as sigmoid(K * score),
+ * where score is the static evaluation, and the weights are chosen to minimise
+ * the mean squared error against the recorded results (1 win, 0.5 draw, 0 loss).
+ * K is fitted first with the starting weights; the weights are then improved with
+ * Adam, one pass over the data per epoch.
+ *
+ * The data file is streamed in fixed-size chunks and every chunk is split across
+ * worker threads. Each worker decodes records straight into its own reusable
+ * Position and accumulates into its own primitive arrays, so memory use does not
+ * grow with the number of positions and no objects are created per position.
+ */
+public class TexelTuner {
+    private static final int CHUNK_BYTES = 8 << 20;
+    private static final int K_CANDIDATES = 32;
+    private static final double K_MIN = 1e-4;
+    private static final double K_MAX = 1e-1;
+    private static final double LEARNING_RATE = 1.0;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+
+    private final TrainingDataReader reader;
+    private final ExecutorService executor;
+    private final Worker[] workers;
+    private final byte[] chunk;
+    private double k;
+
+    /**
+     * Creates a tuner for one training data file.
+     *
+     * @param reader The training data to fit
+     * @param threads The number of worker threads
+     */
+    public TexelTuner(TrainingDataReader reader, int threads) {
+        this.reader = reader;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "texel-tuner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker();
+        }
+        this.chunk = new byte[CHUNK_BYTES];
+    }
+
+    /**
+     * Finds the scaling constant K that best fits the data with the given weights.
+     *
+     * @param weights The weights to evaluate with
+     * @return The mean squared error at the chosen K
+     * @throws IOException If the data cannot be read
+     */
+    public double fitScale(double[] weights) throws IOException {
+        double[] candidates = new double[K_CANDIDATES];
+        for (int i = 0; i < K_CANDIDATES; i++) {
+            candidates[i] = K_MIN * Math.pow(K_MAX / K_MIN, (double) i / (K_CANDIDATES - 1));
+        }
+        double[] losses = pass(weights, candidates, false);
+        int best = 0;
+        for (int i = 1; i < K_CANDIDATES; i++) {
+            if (losses[i] < losses[best]) best = i;
+        }
+        k = candidates[best];
+        return losses[best];
+    }
+
+    /**
+     * Improves weights in place with Adam.
+     *
+     * @param weights The starting weights, updated with the fitted weights
+     * @param epochs The number of passes over the data
+     * @throws IOException If the data cannot be read
+     */
+    public void tune(double[] weights, int epochs) throws IOException {
+        int features = EvaluationWeights.FEATURE_COUNT;
+        double[] firstMoment = new double[features];
+        double[] secondMoment = new double[features];
+        for (int epoch = 1; epoch <= epochs; epoch++) {
+            long start = System.nanoTime();
+            double[] result = pass(weights, new double[] {k}, true);
+            for (int f = 0; f < features; f++) {
+                double gradient = result[1 + f];
+                firstMoment[f] = BETA1 * firstMoment[f] + (1 - BETA1) * gradient;
+                secondMoment[f] = BETA2 * secondMoment[f] + (1 - BETA2) * gradient * gradient;
+                double corrected1 = firstMoment[f] / (1 - Math.pow(BETA1, epoch));
+                double corrected2 = secondMoment[f] / (1 - Math.pow(BETA2, epoch));
+                weights[f] -= LEARNING_RATE * corrected1 / (Math.sqrt(corrected2) + 1e-12);
+            }
+            System.out.printf("epoch %d: mse=%.6f (%.1fs)%n", epoch, result[0], (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /**
+     * Streams the whole file once, splitting each chunk across the workers.
+     *
+     * @param weights The weights to evaluate with
+     * @param scales The K values to measure the error at
+     * @param gradient Whether to also compute the gradient at scales[0]
+     * @return The mean squared error per K, or, with gradient, the error followed by
+     *         the mean gradient of every weight
+     * @throws IOException If the data cannot be read
+     */
+    private double[] pass(double[] weights, double[] scales, boolean gradient) throws IOException {
+        int width = gradient ? 1 + EvaluationWeights.FEATURE_COUNT : scales.length;
+        for (Worker worker : workers) {
+            worker.reset(width);
+        }
+        reader.rewind();
+        long total = 0;
+        int records;
+        List<Future<?>> pending = new ArrayList<>(workers.length);
+        while ((records = reader.readChunk(chunk)) > 0) {
+            int perWorker = (records + workers.length - 1) / workers.length;
+            pending.clear();
+            for (int i = 0; i < workers.length; i++) {
+                int start = i * perWorker;
+                int end = Math.min(records, start + perWorker);
+                if (start >= end) break;
+                Worker worker = workers[i];
+                pending.add(executor.submit(() -> worker.process(start, end, weights, scales, gradient)));
+            }
+            for (Future<?> future : pending) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while tuning", e);
+                } catch (ExecutionException e) {
+                    throw new IOException("Tuning worker failed", e.getCause());
+                }
+            }
+            total += records;
+        }
+        double[] sums = new double[width];
+        for (Worker worker : workers) {
+            for (int i = 0; i < width; i++) sums[i] += worker.sums[i];
+        }
+        for (int i = 0; i < width; i++) sums[i] /= Math.max(1, total);
+        return sums;
+    }
+
+    /**
+     * Per-thread state: a reusable position and evaluator, scratch arrays and the
+     * running sums of the current pass.
+     */
+    private final class Worker {
+        private final Position position;
+        private final IncrementalEvaluator evaluator;
+        private final int[] workerCells;
+        private final int[] differences;
+        private double[] sums;
+
+        private Worker() {
+            this.position = new Position(reader.getGridSize(), reader.getNumPlayers(),
+                    reader.getWorkersPerPlayer(), reader.getGods());
+            this.evaluator = new IncrementalEvaluator(position, EvaluationWeights.defaults());
+            this.workerCells = new int[position.getWorkerCount()];
+            this.differences = new int[EvaluationWeights.FEATURE_COUNT];
+            this.sums = new double[0];
+        }
+
+        private void reset(int width) {
+            if (sums.length != width) sums = new double[width];
+            Arrays.fill(sums, 0);
+        }
+
+        /**
+         * Accumulates the error, and optionally the gradient, of a range of records.
+         *
+         * @param start The first record of the chunk to process
+         * @param end One past the last record to process
+         * @param weights The weights to evaluate with
+         * @param scales The K values to measure the error at
+         * @param gradient Whether to accumulate the gradient at scales[0]
+         */
+        private void process(int start, int end, double[] weights, double[] scales, boolean gradient) {
+            int opponents = Math.max(1, position.getNumPlayers() - 1);
+            for (int record = start; record < end; record++) {
+                reader.decode(chunk, record, position, workerCells);
+                int side = position.getSideToMove();
+                int winner = reader.getWinner(chunk, record);
+                double result = winner == Position.NONE ? 0.5 : winner == side ? 1.0 : 0.0;
+
+                evaluator.getFeatureDifferences(side, differences);
+                double score = 0;
+                for (int f = 0; f < differences.length; f++) {
+                    score += weights[f] * differences[f];
+                }
+                score /= opponents;
+
+                if (!gradient) {
+                    for (int i = 0; i < scales.length; i++) {
+                        double error = sigmoid(scales[i] * score) - result;
+                        sums[i] += error * error;
+                    }
+                    continue;
+                }
+                double predicted = sigmoid(scales[0] * score);
+                double error = predicted - result;
+                sums[0] += error * error;
+                double slope = 2 * error * predicted * (1 - predicted) * scales[0] / opponents;
+                for (int f = 0; f < differences.length; f++) {
+                    sums[1 + f] += slope * differences[f];
+                }
+            }
+        }
+    }
+
+    /**
+     * The logistic function.
+     * @param x The input
+     * @return 1 / (1 + e^-x)
+     */
+    private static double sigmoid(double x) {
+        return 1.0 / (1.0 + Math.exp(-x));
+    }
+
+    /**
+     * Tunes the weights for one training data file and stores them in the weight file.
+     *
+     * @param args Training data file, and optionally the weight file, epochs and threads
+     * @throws IOException If a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TexelTuner <training data> [weight file] [epochs] [threads]");
+            return;
+        }
+        Path dataPath = Paths.get(args[0]);
+        Path weightPath = Paths.get(args.length > 1 ? args[1] : WeightTable.DEFAULT_PATH);
+        int epochs = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        WeightTable table = WeightTable.load(weightPath);
+        try (TrainingDataReader reader = new TrainingDataReader(dataPath)) {
+            Position shape = new Position(reader.getGridSize(), reader.getNumPlayers(),
+                    reader.getWorkersPerPlayer(), reader.getGods());
+            EvaluationWeights start = table.get(shape);
+            double[] weights = new double[EvaluationWeights.FEATURE_COUNT];
+            for (int f = 0; f < weights.length; f++) {
+                weights[f] = start.get(f);
+            }
+            System.out.printf("%d positions, %d threads%n", reader.getRecordCount(), threads);
+
+            TexelTuner tuner = new TexelTuner(reader, threads);
+            double before = tuner.fitScale(weights);
+            System.out.printf("K=%.6f mse=%.6f%n", tuner.k, before);
+            tuner.tune(weights, epochs);
+
+            int[] tuned = new int[weights.length];
+            for (int f = 0; f < weights.length; f++) {
+                tuned[f] = (int) Math.round(weights[f]);
+                System.out.printf("  %-14s %5d -> %5d%n", EvaluationWeights.getFeatureName(f), start.get(f), tuned[f]);
+            }
+            table.put(reader.getGridSize(), reader.getNumPlayers(), reader.getWorkersPerPlayer(),
+                    reader.getGods(), new EvaluationWeights(tuned));
+            table.save(weightPath);
+            System.out.println("Wrote " + weightPath);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Finds immediate wins in an engine Position without generating turns.
+ *
+ * A player wins by moving a worker from level 2 onto level 3, so a win is only
+ * possible next to a worker standing on level 2. For such a worker the winning
+ * cells are the level-3 cells of its 3x3 neighbourhood that it may enter, found
+ * with one AND per row of the Position's bit masks: three word operations per
+ * worker, whatever the grid size. Pan also wins by stepping down two or more
+ * levels, from level 2 or 3, onto a free cell of the neighbourhood.
+ *
+ * Artemis's second step and Minotaur's push onto an occupied level-3 cell are
+ * not looked for, so for those gods a win may be missed but is never reported
+ * where there is none.
+ */
+public final class ThreatDetector {
+    private ThreatDetector() {
+    }
+
+    /**
+     * Checks whether a player could win by moving next.
+     *
+     * @param position The position
+     * @param player The player
+     * @return true if one of the player's workers can make a winning move
+     */
+    public static boolean canWin(Position position, int player) {
+        int first = player * position.getWorkersPerPlayer();
+        for (int worker = first; worker < first + position.getWorkersPerPlayer(); worker++) {
+            int cell = position.getWorkerCell(worker);
+            if (cell == Position.NONE) continue;
+            int height = position.getHeight(cell);
+            if (!canWinFrom(position, player, height)) continue;
+            int size = position.getGridSize();
+            int row = cell / size;
+            long window = window(cell - row * size);
+            for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+                if ((winningCells(position, player, height, r) & window) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Writes every winning move of a player, encoded as TurnGenerator encodes them.
+     *
+     * @param position The position
+     * @param player The player
+     * @param turns The output buffer, at least 8 per worker long
+     * @return The number of winning moves written
+     */
+    public static int winningMoves(Position position, int player, long[] turns) {
+        int size = position.getGridSize();
+        int first = player * position.getWorkersPerPlayer();
+        int count = 0;
+        for (int worker = first; worker < first + position.getWorkersPerPlayer(); worker++) {
+            int cell = position.getWorkerCell(worker);
+            if (cell == Position.NONE) continue;
+            int height = position.getHeight(cell);
+            if (!canWinFrom(position, player, height)) continue;
+            int row = cell / size;
+            long window = window(cell - row * size);
+            for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+                long targets = winningCells(position, player, height, r) & window;
+                while (targets != 0) {
+                    int to = r * size + Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    long flags = position.getWorkerAt(to) != Position.NONE ? Turn.FLAG_SWAP : 0;
+                    turns[count++] = Turn.encode(worker, to, Turn.NO_CELL, Turn.NO_CELL, flags | Turn.FLAG_WIN);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Marks the cells a player could win on by moving next.
+     *
+     * @param position The position
+     * @param player The player
+     * @param rows Receives the cells: bit col of rows[row] is set for each one,
+     *             in addition to any bits already set
+     * @return The number of cells newly marked
+     */
+    public static int threatenedSquares(Position position, int player, long[] rows) {
+        int size = position.getGridSize();
+        int first = player * position.getWorkersPerPlayer();
+        int count = 0;
+        for (int worker = first; worker < first + position.getWorkersPerPlayer(); worker++) {
+            int cell = position.getWorkerCell(worker);
+            if (cell == Position.NONE) continue;
+            int height = position.getHeight(cell);
+            if (!canWinFrom(position, player, height)) continue;
+            int row = cell / size;
+            long window = window(cell - row * size);
+            for (int r = Math.max(0, row - 1); r <= Math.min(size - 1, row + 1); r++) {
+                long added = winningCells(position, player, height, r) & window & ~rows[r];
+                rows[r] |= added;
+                count += Long.bitCount(added);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the side to move is lost whatever it does: it cannot win at
+     * once, and every legal turn leaves the next player a winning move (or it has
+     * no legal turn at all). Stops at the first turn that is safe, which is usually
+     * the first one tried.
+     *
+     * @param position The position; restored before returning
+     * @return true if the side to move loses by the next player's turn
+     */
+    public static boolean isForcedLoss(Position position) {
+        if (position.getWinner() != Position.NONE) return false;
+        int side = position.getSideToMove();
+        if (canWin(position, side)) return false;
+        int next = (side + 1) % position.getNumPlayers();
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        for (int i = 0; i < count; i++) {
+            position.makeTurn(turns[i]);
+            // A turn that wins at once, such as Pan's drop, is always safe
+            boolean lost = position.getWinner() == Position.NONE && canWin(position, next);
+            position.unmakeTurn();
+            if (!lost) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a worker's level lets it win by moving next.
+     *
+     * @param position The position
+     * @param player The worker's owner
+     * @param height The level the worker stands on
+     * @return true for level 2, and for Pan also level 3
+     */
+    private static boolean canWinFrom(Position position, int player, int height) {
+        return height == 2 || (height == 3 && position.getGod(player) == Position.GOD_PAN);
+    }
+
+    /**
+     * Gets the cells of one row that a player's worker on a level may win on by
+     * stepping onto them.
+     *
+     * @param position The position
+     * @param player The moving player
+     * @param height The level the worker stands on, 2 or 3
+     * @param row The row
+     * @return A mask with bit col set for every such cell
+     */
+    private static long winningCells(Position position, int player, int height, int row) {
+        long cells = height == 2 ? enterableLevel3(position, player, row) : 0;
+        if (position.getGod(player) == Position.GOD_PAN) {
+            long low = height == 3 ? position.getLevelRow(0, row) | position.getLevelRow(1, row)
+                    : position.getLevelRow(0, row);
+            cells |= low & ~position.getOccupiedRow(row);
+        }
+        return cells;
+    }
+
+    /**
+     * Gets the level-3 cells of one row that a player's worker may step onto:
+     * empty ones, and for Apollo also those held by an opponent.
+     *
+     * @param position The position
+     * @param player The moving player
+     * @param row The row
+     * @return A mask with bit col set for every such cell
+     */
+    private static long enterableLevel3(Position position, int player, int row) {
+        long blocked = position.getGod(player) == Position.GOD_APOLLO
+                ? position.getPlayerRow(player, row) : position.getOccupiedRow(row);
+        return position.getLevelRow(3, row) & ~blocked;
+    }
+
+    /**
+     * Gets a column and its two neighbours as a row mask. Bits that fall off the
+     * grid are harmless, since no level mask has them set.
+     *
+     * @param col The column
+     * @return The mask
+     */
+    private static long window(int col) {
+        long bit = 1L << col;
+        return bit | (bit << 1) | (bit >>> 1);
+    }
+}
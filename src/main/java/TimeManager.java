@@ -0,0 +1,241 @@
+/**
+ * Splits one player's game clock into per-turn thinking time for a SearchEngine.
+ *
+ * At the start of each turn the manager sets two deadlines. The soft deadline is
+ * the time the turn should take: the remaining clock, less a safety overhead,
+ * spread over the turns the game is expected to last, then scaled by the phase
+ * of the game. The hard deadline is the most the turn may ever take: twice the
+ * soft budget, but never more than twice a per-move target set from the starting
+ * clock, so the longest turns stay as short late in the game, with plenty of
+ * clock saved up, as early on. It is also never more than a fixed share of what
+ * is left.
+ *
+ * The search checks the hard deadline every thousand or so nodes, as it already
+ * does for a plain time limit, so the only cost inside the search is a clock
+ * read now and then. The soft deadline is only consulted between iterations:
+ * after each one the manager decides whether another is worth starting, using
+ * how stable the search has been. A best turn that keeps changing or a score that
+ * swings stretches the soft budget; a best turn that has held for several
+ * iterations shrinks it. An iteration that could not finish before the hard
+ * deadline, judged by how much longer each iteration took than the last, is not
+ * started at all, since an unfinished iteration is thrown away.
+ *
+ * Expected game length comes from the buildings on the board: measured over
+ * self-play on 5x5 and 7x7 boards, a player has about 18 turns left before
+ * anything is built, one fewer for every two or three levels built, and rarely
+ * fewer than 8 until the end is in sight. Domes count as four levels, so a board
+ * crowded with them reads as a late game, where each turn gets a larger share.
+ * The first turns after placement get less than their share, as little is at
+ * stake yet, and turns where the opponent threatens to win get more.
+ */
+public class TimeManager {
+    private static final int OPENING_TURNS_TO_GO = 18;
+    private static final int MIN_TURNS_TO_GO = 8;
+    // Levels built per turn fewer to go, from the self-play measurements above
+    private static final double LEVELS_PER_TURN = 2.4;
+    private static final int OPENING_LEVELS = 4;
+    private static final double OPENING_FACTOR = 0.7;
+    private static final double THREAT_FACTOR = 1.5;
+    private static final double INCREMENT_SHARE = 0.8;
+    private static final double HARD_FACTOR = 2.0;
+    // The per-move target is the starting clock spread over this many turns
+    private static final int TARGET_TURNS = 40;
+    private static final double MAX_SHARE = 0.25;
+    private static final double STABLE_FACTOR = 0.6;
+    private static final double CHANGE_FACTOR = 0.5;
+    private static final double MAX_STABILITY_FACTOR = 2.0;
+    // A change in score of more than this, in evaluation units, counts as a swing
+    private static final int SWING = 150;
+    private static final int STABLE_ITERATIONS = 3;
+    private static final double DEFAULT_GROWTH = 3.0;
+    private static final long MIN_BUDGET_NANOS = 1_000_000L;
+
+    private final long targetNanos;
+    private final long incrementNanos;
+    private final long overheadNanos;
+    private long remainingNanos;
+    private long turnStart;
+    private long softBudget;
+    private long hardBudget;
+    private long hardDeadline;
+    private long lastBestTurn;
+    private int lastScore;
+    private int stableIterations;
+    private double instability;
+    private long lastIterationEnd;
+    private long lastIterationNanos;
+    private double growth;
+    private boolean turnRunning;
+
+    /**
+     * Creates a manager for one player's clock.
+     *
+     * @param totalNanos The time on the clock at the start of the game
+     * @param incrementNanos The time added to the clock after each turn
+     * @param overheadNanos The time to keep back per turn for everything but the
+     *                      search, such as sending the turn to the server
+     */
+    public TimeManager(long totalNanos, long incrementNanos, long overheadNanos) {
+        this.remainingNanos = totalNanos;
+        this.targetNanos = totalNanos / TARGET_TURNS;
+        this.incrementNanos = incrementNanos;
+        this.overheadNanos = overheadNanos;
+    }
+
+    /**
+     * Sets the deadlines of a turn about to be searched.
+     *
+     * @param position The position to search
+     * @param now The System.nanoTime() the turn started at
+     */
+    public void startTurn(Position position, long now) {
+        turnStart = now;
+        turnRunning = true;
+        lastBestTurn = Turn.NONE;
+        stableIterations = 0;
+        instability = 0;
+        lastIterationEnd = now;
+        lastIterationNanos = 0;
+        growth = DEFAULT_GROWTH;
+
+        int turnsToGo = estimateTurnsToGo(position);
+        long available = Math.max(0, remainingNanos - overheadNanos * turnsToGo);
+        double budget = (double) available / turnsToGo + incrementNanos * INCREMENT_SHARE;
+        budget *= getPhaseFactor(position);
+
+        long ceiling = Math.max(0, (long) (remainingNanos * MAX_SHARE) - overheadNanos);
+        softBudget = Math.min(ceiling, Math.max(MIN_BUDGET_NANOS, (long) budget));
+        // However much clock has been saved, no single turn may run past a few targets
+        double hard = Math.min(budget, targetNanos) * HARD_FACTOR;
+        hardBudget = Math.min(ceiling, Math.max(MIN_BUDGET_NANOS, (long) hard));
+        softBudget = Math.min(softBudget, hardBudget);
+        hardDeadline = now + hardBudget;
+    }
+
+    /**
+     * Records a completed iteration and decides whether to start the next.
+     *
+     * @param depth The depth just completed
+     * @param bestTurn The best turn found
+     * @param score Its score
+     * @param now The System.nanoTime() the iteration ended at
+     * @return true if another iteration is expected to be worth its time and to
+     *         finish before the hard deadline
+     */
+    public boolean shouldDeepen(int depth, long bestTurn, int score, long now) {
+        long iterationNanos = now - lastIterationEnd;
+        if (depth > 2 && lastIterationNanos > 0) {
+            // Each iteration takes a roughly constant multiple of the one before
+            growth = Math.max(1.5, (double) iterationNanos / lastIterationNanos);
+        }
+        lastIterationNanos = iterationNanos;
+        lastIterationEnd = now;
+
+        // Instability decays, so only recent changes keep stretching the budget
+        instability *= 0.5;
+        if (lastBestTurn != Turn.NONE && bestTurn != lastBestTurn) {
+            instability += 1;
+            stableIterations = 0;
+        } else if (lastBestTurn != Turn.NONE && Math.abs(score - lastScore) > SWING) {
+            instability += 0.5;
+            stableIterations = 0;
+        } else {
+            stableIterations++;
+        }
+        lastBestTurn = bestTurn;
+        lastScore = score;
+
+        long elapsed = now - turnStart;
+        if (elapsed + (long) (iterationNanos * growth) > hardBudget) return false;
+        return elapsed < getSoftBudget();
+    }
+
+    /**
+     * Charges the time of the turn to the clock and adds the increment.
+     * @param now The System.nanoTime() the turn ended at
+     */
+    public void endTurn(long now) {
+        if (!turnRunning) return;
+        turnRunning = false;
+        remainingNanos += incrementNanos - (now - turnStart);
+    }
+
+    /**
+     * Sets the time left on the clock, for a clock kept elsewhere such as by a server.
+     * @param remainingNanos The time left
+     */
+    public void setRemaining(long remainingNanos) {
+        this.remainingNanos = remainingNanos;
+    }
+
+    /**
+     * Gets the time left on the clock.
+     * @return The time left, negative if the clock has run out
+     */
+    public long getRemaining() {
+        return remainingNanos;
+    }
+
+    /**
+     * Gets the time the current turn should take, as stretched or shrunk by the
+     * stability of the search so far.
+     * @return The soft budget in nanoseconds, never beyond the hard budget
+     */
+    public long getSoftBudget() {
+        double factor = stableIterations >= STABLE_ITERATIONS ? STABLE_FACTOR
+                : Math.min(MAX_STABILITY_FACTOR, 1 + CHANGE_FACTOR * instability);
+        return Math.min(hardBudget, (long) (softBudget * factor));
+    }
+
+    /**
+     * Gets the most the current turn may take.
+     * @return The hard budget in nanoseconds
+     */
+    public long getHardBudget() {
+        return hardBudget;
+    }
+
+    /**
+     * Gets the time after which the current turn's search must stop.
+     * @return The System.nanoTime() of the hard deadline
+     */
+    public long getHardDeadline() {
+        return hardDeadline;
+    }
+
+    /**
+     * Estimates how many more turns the side to move will play.
+     * @param position The position
+     * @return The estimate, at least MIN_TURNS_TO_GO
+     */
+    private static int estimateTurnsToGo(Position position) {
+        int levels = countLevels(position);
+        return Math.max(MIN_TURNS_TO_GO, (int) Math.round(OPENING_TURNS_TO_GO - levels / LEVELS_PER_TURN));
+    }
+
+    /**
+     * Weights a turn by the phase of the game.
+     * @param position The position
+     * @return Less than 1 in the opening, more than 1 when the opponent threatens to win, otherwise 1
+     */
+    private static double getPhaseFactor(Position position) {
+        int side = position.getSideToMove();
+        for (int player = 0; player < position.getNumPlayers(); player++) {
+            if (player != side && ThreatDetector.canWin(position, player)) return THREAT_FACTOR;
+        }
+        return countLevels(position) < OPENING_LEVELS ? OPENING_FACTOR : 1.0;
+    }
+
+    /**
+     * Counts the levels built on the board, a dome counting as four.
+     * @param position The position
+     * @return The total height of every cell
+     */
+    private static int countLevels(Position position) {
+        int levels = 0;
+        for (int cell = 0; cell < position.getCellCount(); cell++) {
+            levels += position.getHeight(cell);
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,168 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plays many clocked bot games at once on a shared thread pool, as a server
+ * hosting them would, to see how well turn times are kept under control.
+ *
+ * In every game a bot whose time comes from a TimeManager plays one that spends
+ * an equal fixed share of its starting clock on every turn, colours alternating.
+ * Both charge their turns to the same kind of clock. The wall-clock time of every
+ * search is recorded per bot, along with how far it ran past the time it was
+ * given, how often a clock ran out and who won.
+ */
+public class TimeManagerBenchmark {
+    private static final int MAX_PLIES = 300;
+    // The fixed bot's clock is spread evenly over this many turns
+    private static final int FIXED_TURNS = 20;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optionally the number of games, milliseconds on each clock,
+     *             milliseconds of increment, threads and grid size
+     * @throws InterruptedException If interrupted while waiting for the games
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        long clock = (args.length > 1 ? Long.parseLong(args[1]) : 400) * 1_000_000L;
+        long increment = (args.length > 2 ? Long.parseLong(args[2]) : 10) * 1_000_000L;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 2 * Runtime.getRuntime().availableProcessors();
+        int gridSize = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+
+        String[] names = {"managed", "fixed"};
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        SplittableRandom random = new SplittableRandom(48);
+        // A few games first so the searches are compiled before anything is recorded
+        runGames(executor, 2 * threads, gridSize, clock, increment, random, new Stats());
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        runGames(executor, games, gridSize, clock, increment, random, stats);
+        executor.shutdown();
+
+        System.out.printf("%d games of %d+%d ms on %d threads in %.1f s%n", games, clock / 1_000_000,
+                increment / 1_000_000, threads, (System.nanoTime() - start) / 1e9);
+        System.out.println("bot      turns  mean depth  p50 ms  p99 ms  max ms  p99 overrun ms  flags  wins");
+        for (int b = 0; b < 2; b++) {
+            StripedLatencyHistogram latencies = stats.latencies[b];
+            long turns = latencies.getCount();
+            System.out.printf("%-7s  %5d  %10.2f  %6.1f  %6.1f  %6.1f  %14.2f  %5d  %4d%n", names[b], turns,
+                    (double) stats.depths[b].get() / Math.max(1, turns), latencies.getPercentile(50) / 1e6,
+                    latencies.getPercentile(99) / 1e6, latencies.getMax() / 1e6,
+                    stats.overruns[b].getPercentile(99) / 1e6, stats.flags[b].get(), stats.wins[b].get());
+        }
+    }
+
+    /**
+     * Plays a batch of games on the pool and waits for them all.
+     *
+     * @param executor The pool
+     * @param games The number of games
+     * @param gridSize The grid size
+     * @param clock The time on each clock at the start
+     * @param increment The time added to a clock after each turn
+     * @param random The source of each game's seed
+     * @param stats Where to record the games
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private static void runGames(ExecutorService executor, int games, int gridSize, long clock, long increment,
+            SplittableRandom random, Stats stats) throws InterruptedException {
+        List<Future<?>> pending = new ArrayList<>();
+        for (int game = 0; game < games; game++) {
+            long seed = random.nextLong();
+            int managedPlayer = game % 2;
+            pending.add(executor.submit(() -> playGame(gridSize, clock, increment, seed, managedPlayer, stats)));
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("A game failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Plays one game between the managed and the fixed bot.
+     *
+     * @param gridSize The grid size
+     * @param clock The time on each clock at the start
+     * @param increment The time added to a clock after each turn
+     * @param seed The seed of the starting placement and God Cards
+     * @param managedPlayer The player the managed bot plays
+     * @param stats Where to record the game
+     */
+    private static void playGame(int gridSize, long clock, long increment, long seed, int managedPlayer,
+            Stats stats) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] gods = {random.nextInt(Position.GOD_DEMETER + 1), random.nextInt(Position.GOD_DEMETER + 1)};
+        Position[] positions = new Position[2];
+        positions[0] = new Position(gridSize, 2, 2, gods);
+        positions[0].resetRandomly(random);
+        positions[1] = new Position(positions[0]);
+        SearchEngine[] engines = new SearchEngine[2];
+        for (int p = 0; p < 2; p++) {
+            engines[p] = new SearchEngine(positions[p], new IncrementalEvaluator(positions[p]), 16);
+        }
+        TimeManager timeManager = new TimeManager(clock, increment, 0);
+        long fixedRemaining = clock;
+        long fixedBudget = clock / FIXED_TURNS;
+
+        int winner = Position.NONE;
+        for (int ply = 0; ply < MAX_PLIES && winner == Position.NONE; ply++) {
+            int side = positions[0].getSideToMove();
+            int bot = side == managedPlayer ? 0 : 1;
+            long before = System.nanoTime();
+            SearchResult result;
+            long limit;
+            if (bot == 0) {
+                result = engines[side].search(SearchEngine.MAX_DEPTH, timeManager);
+                limit = timeManager.getHardBudget();
+            } else {
+                limit = fixedBudget;
+                result = engines[side].search(SearchEngine.MAX_DEPTH, limit);
+            }
+            long elapsed = System.nanoTime() - before;
+            stats.latencies[bot].record(elapsed);
+            stats.overruns[bot].record(Math.max(0, elapsed - limit));
+            stats.depths[bot].addAndGet(result.getDepth());
+            if (bot == 1) fixedRemaining += increment - elapsed;
+
+            if ((bot == 0 ? timeManager.getRemaining() : fixedRemaining) < 0) {
+                stats.flags[bot].incrementAndGet();
+                winner = 1 - side;
+                break;
+            }
+            if (result.getTurn() == Turn.NONE) {
+                winner = 1 - side;
+                break;
+            }
+            positions[0].makeTurn(result.getTurn());
+            positions[1].makeTurn(result.getTurn());
+            winner = positions[0].getWinner();
+        }
+        if (winner != Position.NONE) {
+            stats.wins[winner == managedPlayer ? 0 : 1].incrementAndGet();
+        }
+    }
+
+    /**
+     * The measurements of a batch of games, each indexed by bot, managed first.
+     */
+    private static class Stats {
+        // Search time per turn, and time past each search's limit
+        final StripedLatencyHistogram[] latencies = {new StripedLatencyHistogram(), new StripedLatencyHistogram()};
+        final StripedLatencyHistogram[] overruns = {new StripedLatencyHistogram(), new StripedLatencyHistogram()};
+        final AtomicLong[] wins = {new AtomicLong(), new AtomicLong()};
+        // Clocks run out
+        final AtomicLong[] flags = {new AtomicLong(), new AtomicLong()};
+        // Total completed depth
+        final AtomicLong[] depths = {new AtomicLong(), new AtomicLong()};
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the records of a training data file in fixed-size chunks, so files
+ * with tens of millions of positions can be processed in bounded memory.
+ * See TrainingDataWriter for the file format.
+ */
+public class TrainingDataReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final int gridSize;
+    private final int numPlayers;
+    private final int workersPerPlayer;
+    private final int[] gods;
+    private final int recordSize;
+    private final long dataStart;
+
+    /**
+     * Opens a file and reads its header.
+     *
+     * @param path The file to read
+     * @throws IOException If the file cannot be read or is not a training data file
+     */
+    public TrainingDataReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readFully(header);
+        if (header.getInt() != TrainingDataWriter.MAGIC) {
+            channel.close();
+            throw new IOException(path + " is not a training data file");
+        }
+        if (header.get() != TrainingDataWriter.VERSION) {
+            channel.close();
+            throw new IOException(path + " has an unsupported format version");
+        }
+        this.gridSize = header.get();
+        this.numPlayers = header.get();
+        this.workersPerPlayer = header.get();
+        ByteBuffer godBytes = ByteBuffer.allocate(numPlayers);
+        readFully(godBytes);
+        this.gods = new int[numPlayers];
+        for (int i = 0; i < numPlayers; i++) {
+            gods[i] = godBytes.get();
+        }
+        this.recordSize = TrainingDataWriter.getRecordSize(gridSize, numPlayers * workersPerPlayer);
+        this.dataStart = channel.position();
+    }
+
+    /**
+     * Fills a buffer from the channel.
+     * @param buffer The buffer to fill, flipped for reading afterwards
+     * @throws IOException If the file ends first
+     */
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Truncated training data header");
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Reads the next chunk of whole records.
+     *
+     * @param buffer The destination; a multiple of getRecordSize() bytes is filled
+     * @return The number of records read, 0 at the end of the file
+     * @throws IOException If the file cannot be read
+     */
+    public int readChunk(byte[] buffer) throws IOException {
+        int capacity = buffer.length / recordSize * recordSize;
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, capacity);
+        while (target.hasRemaining()) {
+            if (channel.read(target) < 0) break;
+        }
+        return target.position() / recordSize;
+    }
+
+    /**
+     * Seeks back to the first record, so the file can be streamed again.
+     * @throws IOException If the file cannot be repositioned
+     */
+    public void rewind() throws IOException {
+        channel.position(dataStart);
+    }
+
+    /**
+     * Loads one record of a chunk into a position.
+     *
+     * @param chunk The chunk filled by readChunk
+     * @param record The index of the record within the chunk
+     * @param position The position to load into; must match the file's configuration
+     * @param workerCells Scratch space of at least one int per worker
+     */
+    public void decode(byte[] chunk, int record, Position position, int[] workerCells) {
+        int offset = record * recordSize;
+        int cells = gridSize * gridSize;
+        int workerOffset = offset + cells;
+        for (int worker = 0; worker < workerCells.length; worker++) {
+            int index = workerOffset + 2 * worker;
+            workerCells[worker] = (short) (((chunk[index] & 0xFF) << 8) | (chunk[index + 1] & 0xFF));
+        }
+        int side = chunk[offset + recordSize - 2];
+        position.load(chunk, offset, workerCells, side, Position.NONE);
+    }
+
+    /**
+     * Gets the winner stored with one record of a chunk.
+     *
+     * @param chunk The chunk filled by readChunk
+     * @param record The index of the record within the chunk
+     * @return The winning player, or -1 for a draw
+     */
+    public int getWinner(byte[] chunk, int record) {
+        return chunk[record * recordSize + recordSize - 1];
+    }
+
+    /**
+     * Gets the size of one record.
+     * @return The record size in bytes
+     */
+    public int getRecordSize() {
+        return recordSize;
+    }
+
+    /**
+     * Gets the size of the grid.
+     * @return The grid size
+     */
+    public int getGridSize() {
+        return gridSize;
+    }
+
+    /**
+     * Gets the number of players.
+     * @return The number of players
+     */
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /**
+     * Gets the number of workers each player has.
+     * @return The workers per player
+     */
+    public int getWorkersPerPlayer() {
+        return workersPerPlayer;
+    }
+
+    /**
+     * Gets the God Card of each player.
+     * @return The God Card identifiers
+     */
+    public int[] getGods() {
+        return gods.clone();
+    }
+
+    /**
+     * Gets the number of records in the file.
+     * @return The record count
+     * @throws IOException If the file size cannot be read
+     */
+    public long getRecordCount() throws IOException {
+        return (channel.size() - dataStart) / recordSize;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes engine positions labelled with the game result to a training data file.
+ *
+ * A file holds positions of one configuration and God Card pairing. It starts
+ * with a header: the magic number, a version byte, the grid size, the number of
+ * players, the workers per player and one God Card identifier per player. Every
+ * record after it has the same size: one building level byte per cell, one short
+ * cell index per worker (-1 when off the board), the side to move and the
+ * winner (-1 for a drawn or abandoned game).
+ */
+public class TrainingDataWriter implements AutoCloseable {
+    /** Magic number at the start of every training data file. */
+    public static final int MAGIC = 0x534E5444; // "SNTD"
+
+    /** Current file format version. */
+    public static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private final int cellCount;
+    private final int workerCount;
+    private long recordCount;
+
+    /**
+     * Creates a file and writes its header.
+     *
+     * @param path The file to create
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param workersPerPlayer The number of workers each player has
+     * @param gods The God Card identifier of each player
+     * @throws IOException If the file cannot be written
+     */
+    public TrainingDataWriter(Path path, int gridSize, int numPlayers, int workersPerPlayer, int[] gods)
+            throws IOException {
+        OutputStream file = Files.newOutputStream(path);
+        this.out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16));
+        this.cellCount = gridSize * gridSize;
+        this.workerCount = numPlayers * workersPerPlayer;
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(gridSize);
+        out.writeByte(numPlayers);
+        out.writeByte(workersPerPlayer);
+        for (int god : gods) {
+            out.writeByte(god);
+        }
+    }
+
+    /**
+     * Gets the size of one record for a configuration.
+     *
+     * @param gridSize The size of the grid
+     * @param workerCount The total number of workers
+     * @return The record size in bytes
+     */
+    public static int getRecordSize(int gridSize, int workerCount) {
+        return gridSize * gridSize + 2 * workerCount + 2;
+    }
+
+    /**
+     * Encodes a position as a record without its trailing winner byte, so it can
+     * be held until the game it comes from has ended.
+     *
+     * @param position The position
+     * @param buffer The buffer to encode into
+     * @param offset The index to start writing at
+     * @return The number of bytes written, getRecordSize() - 1
+     */
+    public static int encode(Position position, byte[] buffer, int offset) {
+        int index = offset;
+        for (int cell = 0; cell < position.getCellCount(); cell++) {
+            buffer[index++] = (byte) position.getHeight(cell);
+        }
+        for (int worker = 0; worker < position.getWorkerCount(); worker++) {
+            int cell = position.getWorkerCell(worker);
+            buffer[index++] = (byte) (cell >> 8);
+            buffer[index++] = (byte) cell;
+        }
+        buffer[index++] = (byte) position.getSideToMove();
+        return index - offset;
+    }
+
+    /**
+     * Appends a record produced by encode() once the game's winner is known.
+     *
+     * @param record The buffer holding the encoded position
+     * @param offset The index of the record's first byte
+     * @param winner The player who went on to win the game, or -1
+     * @throws IOException If the record cannot be written
+     */
+    public void write(byte[] record, int offset, int winner) throws IOException {
+        out.write(record, offset, cellCount + 2 * workerCount + 1);
+        out.writeByte(winner);
+        recordCount++;
+    }
+
+    /**
+     * Gets the number of records written so far.
+     * @return The record count
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, indexed by Position hash.
+ * Entries live in parallel primitive arrays; a slot is overwritten when the new
+ * result comes from a search at least as deep, or belongs to a different position.
+ *
+ * One table can be shared by engines searching on several threads without
+ * locking. Each slot stores its key XORed with the entry's turn and data, so a
+ * slot read while another thread is half way through storing into it fails the
+ * key check and reads as empty, rather than giving one position's score to another.
+ */
+public class TranspositionTable {
+    /** The stored score is exact. */
+    public static final int EXACT = 0;
+    /** The stored score is a lower bound: the search failed high. */
+    public static final int LOWER = 1;
+    /** The stored score is an upper bound: the search failed low. */
+    public static final int UPPER = 2;
+
+    private final long[] keys;
+    private final long[] turns;
+    private final long[] data;
+    private final int mask;
+
+    /**
+     * Creates an empty table.
+     * @param sizeLog2 The base-2 logarithm of the number of entries
+     */
+    public TranspositionTable(int sizeLog2) {
+        int size = 1 << sizeLog2;
+        this.keys = new long[size];
+        this.turns = new long[size];
+        this.data = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Looks up a position. The entry is copied out in one go, so it stays
+     * consistent even if another thread stores into its slot afterwards.
+     *
+     * @param key The position's hash
+     * @param entry Receives the best turn at index 0 and the packed score, depth
+     *              and bound at index 1, read with getScore, getDepth and getBound
+     * @return true if the position is stored
+     */
+    public boolean probe(long key, long[] entry) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        long turn = turns[slot];
+        long packed = data[slot];
+        if (packed == 0 || (keys[slot] ^ turn ^ packed) != key) return false;
+        entry[0] = turn;
+        entry[1] = packed;
+        return true;
+    }
+
+    /**
+     * Stores a search result.
+     *
+     * @param key The position's hash
+     * @param turn The best turn found, or Turn.NONE
+     * @param score The score
+     * @param depth The remaining depth the score was searched to
+     * @param bound EXACT, LOWER or UPPER
+     */
+    public void store(long key, long turn, int score, int depth, int bound) {
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        long stored = data[slot];
+        if (stored != 0 && (keys[slot] ^ turns[slot] ^ stored) == key && getDepth(stored) > depth) return;
+        // The top bit marks the slot as used, so a zero key can be stored too
+        long packed = (1L << 63) | ((long) bound << 40) | ((long) (depth & 0xFF) << 32) | (score & 0xFFFFFFFFL);
+        keys[slot] = key ^ turn ^ packed;
+        turns[slot] = turn;
+        data[slot] = packed;
+    }
+
+    /**
+     * Gets the score of an entry.
+     * @param packed The packed entry filled in by probe
+     * @return The score
+     */
+    public static int getScore(long packed) {
+        return (int) packed;
+    }
+
+    /**
+     * Gets the depth of an entry.
+     * @param packed The packed entry filled in by probe
+     * @return The remaining depth the score was searched to
+     */
+    public static int getDepth(long packed) {
+        return (int) ((packed >>> 32) & 0xFF);
+    }
+
+    /**
+     * Gets the bound type of an entry.
+     * @param packed The packed entry filled in by probe
+     * @return EXACT, LOWER or UPPER
+     */
+    public static int getBound(long packed) {
+        return (int) ((packed >>> 40) & 0x3);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        Arrays.fill(data, 0);
+    }
+}
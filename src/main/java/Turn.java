@@ -0,0 +1,165 @@
+/**
+ * Encoding of a complete engine turn in a single long.
+ * A turn names the worker that moves, the cell it moves to, and the cells it
+ * builds on afterwards. Cells are indices row * gridSize + col. God Cards that
+ * bend the order or shape of a turn mark it with flags, which say how to read
+ * the cell fields.
+ *
+ * Bit layout:
+ * <pre>
+ *   bits  0-5   worker id
+ *   bits  6-18  destination cell
+ *   bits 19-31  build cell (NO_CELL for a winning move)
+ *   bits 32-44  second build cell (NO_CELL unless the God Card grants one)
+ *   bits 45-47  direction of the first step of a double move
+ *   bits 48-63  flags
+ * </pre>
+ */
+public final class Turn {
+    /** Marker for an unused cell field. */
+    public static final int NO_CELL = 0x1FFF;
+
+    /** No turn; also returned when a search has no legal turn to play. */
+    public static final long NONE = -1L;
+
+    /** The move steps up onto level 3 and wins; nothing is built. */
+    public static final long FLAG_WIN = 1L << 48;
+    /** The move swaps places with an opponent worker (Apollo). */
+    public static final long FLAG_SWAP = 1L << 49;
+    /** The move pushes the opponent worker on the destination one cell further (Minotaur). */
+    public static final long FLAG_PUSH = 1L << 50;
+    /** The build puts a dome on the build cell whatever its level (Atlas). */
+    public static final long FLAG_DOME = 1L << 51;
+    /** The second build is made before the move rather than after it (Prometheus). */
+    public static final long FLAG_BUILD_FIRST = 1L << 52;
+    /** The worker reaches the destination in two steps (Artemis); see viaDirection(). */
+    public static final long FLAG_DOUBLE_MOVE = 1L << 53;
+
+    private static final int CELL_BITS = 13;
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+    private static final int TO_SHIFT = 6;
+    private static final int BUILD_SHIFT = TO_SHIFT + CELL_BITS;
+    private static final int SECOND_BUILD_SHIFT = BUILD_SHIFT + CELL_BITS;
+    private static final int VIA_SHIFT = SECOND_BUILD_SHIFT + CELL_BITS;
+
+    private Turn() {
+    }
+
+    /**
+     * Packs a turn.
+     *
+     * @param worker The worker id
+     * @param to The destination cell
+     * @param build The build cell, or NO_CELL
+     * @param secondBuild The second build cell, or NO_CELL
+     * @param flags Any FLAG_* bits
+     * @return The encoded turn
+     */
+    public static long encode(int worker, int to, int build, int secondBuild, long flags) {
+        return worker
+                | ((long) to << TO_SHIFT)
+                | ((long) build << BUILD_SHIFT)
+                | ((long) secondBuild << SECOND_BUILD_SHIFT)
+                | flags;
+    }
+
+    /**
+     * Gets the moving worker.
+     * @param turn The encoded turn
+     * @return The worker id
+     */
+    public static int worker(long turn) {
+        return (int) (turn & 0x3F);
+    }
+
+    /**
+     * Gets the destination cell.
+     * @param turn The encoded turn
+     * @return The cell index
+     */
+    public static int to(long turn) {
+        return (int) ((turn >>> TO_SHIFT) & CELL_MASK);
+    }
+
+    /**
+     * Gets the build cell.
+     * @param turn The encoded turn
+     * @return The cell index, or NO_CELL
+     */
+    public static int build(long turn) {
+        return (int) ((turn >>> BUILD_SHIFT) & CELL_MASK);
+    }
+
+    /**
+     * Gets the second build cell.
+     * @param turn The encoded turn
+     * @return The cell index, or NO_CELL
+     */
+    public static int secondBuild(long turn) {
+        return (int) ((turn >>> SECOND_BUILD_SHIFT) & CELL_MASK);
+    }
+
+    /**
+     * Packs the flag and first step of a double move, to be passed to encode().
+     * @param direction The direction of the first step, 0 to 7, as used by NeighbourTable.neighbour()
+     * @return FLAG_DOUBLE_MOVE with the direction
+     */
+    public static long doubleMove(int direction) {
+        return FLAG_DOUBLE_MOVE | ((long) direction << VIA_SHIFT);
+    }
+
+    /**
+     * Gets the direction of the first step of a double move.
+     * @param turn The encoded turn, flagged FLAG_DOUBLE_MOVE
+     * @return The direction, 0 to 7, from the worker's cell to the cell it passes through
+     */
+    public static int viaDirection(long turn) {
+        return (int) ((turn >>> VIA_SHIFT) & 0x7);
+    }
+
+    /**
+     * Checks whether a turn carries a flag.
+     * @param turn The encoded turn
+     * @param flag The FLAG_* bit
+     * @return true if the flag is set
+     */
+    public static boolean hasFlag(long turn, long flag) {
+        return (turn & flag) != 0;
+    }
+
+    /**
+     * Formats a turn for logs and reports.
+     * @param turn The encoded turn
+     * @param gridSize The grid size, to convert cells to coordinates
+     * @return A readable description
+     */
+    public static String toString(long turn, int gridSize) {
+        if (turn == NONE) return "none";
+        StringBuilder text = new StringBuilder();
+        text.append('w').append(worker(turn));
+        if (hasFlag(turn, FLAG_BUILD_FIRST)) text.append(" build ").append(cellName(secondBuild(turn), gridSize));
+        if (hasFlag(turn, FLAG_DOUBLE_MOVE)) text.append(" d").append(viaDirection(turn));
+        text.append("->").append(cellName(to(turn), gridSize));
+        if (hasFlag(turn, FLAG_SWAP)) text.append(" swap");
+        if (hasFlag(turn, FLAG_PUSH)) text.append(" push");
+        if (hasFlag(turn, FLAG_WIN)) {
+            text.append(" wins");
+        } else {
+            text.append(hasFlag(turn, FLAG_DOME) ? " dome " : " build ").append(cellName(build(turn), gridSize));
+            if (secondBuild(turn) != NO_CELL && !hasFlag(turn, FLAG_BUILD_FIRST)) {
+                text.append(" + ").append(cellName(secondBuild(turn), gridSize));
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Formats a cell index as row,col.
+     * @param cell The cell index
+     * @param gridSize The grid size
+     * @return The coordinates
+     */
+    private static String cellName(int cell, int gridSize) {
+        return "(" + cell / gridSize + "," + cell % gridSize + ")";
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * The verdict on one turn of a finished game: what was played, what the engine
+ * would have played, and how much the difference cost.
+ */
+public final class TurnAnalysis {
+    private final int turnNumber;
+    private final int player;
+    private final long playedTurn;
+    private final long bestTurn;
+    private final int bestScore;
+    private final int playedScore;
+    private final boolean blunder;
+
+    /**
+     * Creates a turn analysis.
+     *
+     * @param turnNumber The number of the turn in the game, from 1
+     * @param player The player who took the turn
+     * @param playedTurn The turn played, or Turn.NONE if the engine has no turn that matches it
+     * @param bestTurn The best turn found
+     * @param bestScore The score of the best turn for the player
+     * @param playedScore The score of the played turn for the player
+     * @param blunder Whether the turn lost enough to count as a blunder
+     */
+    public TurnAnalysis(int turnNumber, int player, long playedTurn, long bestTurn, int bestScore, int playedScore,
+            boolean blunder) {
+        this.turnNumber = turnNumber;
+        this.player = player;
+        this.playedTurn = playedTurn;
+        this.bestTurn = bestTurn;
+        this.bestScore = bestScore;
+        this.playedScore = playedScore;
+        this.blunder = blunder;
+    }
+
+    /**
+     * Gets the number of the turn in the game.
+     * @return The turn number, from 1
+     */
+    public int getTurnNumber() {
+        return turnNumber;
+    }
+
+    /**
+     * Gets the player who took the turn.
+     * @return The player index
+     */
+    public int getPlayer() {
+        return player;
+    }
+
+    /**
+     * Gets the turn that was played.
+     * @return The encoded turn, or Turn.NONE if the engine has no turn that matches it
+     */
+    public long getPlayedTurn() {
+        return playedTurn;
+    }
+
+    /**
+     * Gets the best turn found.
+     * @return The encoded turn
+     */
+    public long getBestTurn() {
+        return bestTurn;
+    }
+
+    /**
+     * Gets the score of the best turn.
+     * @return The score for the player who took the turn
+     */
+    public int getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Gets the score of the played turn.
+     * @return The score for the player who took the turn
+     */
+    public int getPlayedScore() {
+        return playedScore;
+    }
+
+    /**
+     * Gets how much worse the played turn scored than the best one.
+     * @return The score loss, 0 if the best turn was played
+     */
+    public int getLoss() {
+        if (playedTurn == bestTurn) return 0;
+        return Math.max(0, bestScore - playedScore);
+    }
+
+    /**
+     * Checks whether the turn lost enough to count as a blunder, which includes
+     * any turn that let a forced win slip.
+     * @return true if the turn is a blunder
+     */
+    public boolean isBlunder() {
+        return blunder;
+    }
+}
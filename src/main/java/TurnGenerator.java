@@ -0,0 +1,292 @@
+/**
+ * Generates the legal turns of the side to move in an engine Position.
+ * Follows the same rules as BoardLogic: move one step onto a cell at most one
+ * level higher, then build next to the new cell. Apollo may also move into a
+ * cell held by an opponent worker and swap places with it; Demeter may build a
+ * second time on a different cell.
+ *
+ * The gods that only exist in the engine are generated here too, each as a
+ * whole turn so a search never sees half of one:
+ * <ul>
+ *   <li>Artemis may take a second step, not back to where she started. A cell
+ *       reachable both ways is generated once, as the single step.</li>
+ *   <li>Atlas may put a dome on the build cell whatever its level.</li>
+ *   <li>Hephaestus may build a second block, not a dome, on the same cell.</li>
+ *   <li>Minotaur may move into an opponent's cell if the cell beyond it, in the
+ *       same direction, is free; the opponent is pushed there.</li>
+ *   <li>Pan also wins by moving down two or more levels.</li>
+ *   <li>Prometheus may build before moving as well as after, if he then does not
+ *       move up. When both builds could be made in either order, both orders
+ *       are generated.</li>
+ * </ul>
+ * Nothing is allocated per call, so generation costs the same for every god
+ * apart from the extra turns it writes.
+ */
+public final class TurnGenerator {
+    // The most turns a worker can have, by God Card: 8 moves of up to 8 builds, with
+    // 28 Demeter build pairs, 8 Atlas domes or 8 Hephaestus double builds added per
+    // move; 24 Artemis destinations, each also possibly a win; and 8 Prometheus
+    // first builds, each followed by 8 moves and 8 builds
+    private static final int[] MAX_TURNS_PER_WORKER = {
+            8 * 8, 8 * 8, 8 * (8 + 28), 24 * (8 + 1), 8 * 16, 8 * 16, 8 * 8, 8 * 8, 8 * 8 + 8 * 8 * 8};
+
+    private TurnGenerator() {
+    }
+
+    /**
+     * Gets a buffer size large enough for every turn of any player in a position.
+     * @param position The position
+     * @return The maximum number of turns generate() can produce
+     */
+    public static int maxTurns(Position position) {
+        int perWorker = 0;
+        for (int player = 0; player < position.getNumPlayers(); player++) {
+            perWorker = Math.max(perWorker, MAX_TURNS_PER_WORKER[position.getGod(player)]);
+        }
+        return position.getWorkersPerPlayer() * perWorker;
+    }
+
+    /**
+     * Writes the legal turns of the side to move into a buffer.
+     * A winning move is emitted once, flagged FLAG_WIN, with no builds.
+     *
+     * @param position The position
+     * @param turns The buffer, at least maxTurns(position) long
+     * @return The number of turns written; 0 means the side to move is trapped
+     */
+    public static int generate(Position position, long[] turns) {
+        NeighbourTable neighbours = position.getNeighbourTable();
+        int player = position.getSideToMove();
+        int god = position.getGod(player);
+        int first = player * position.getWorkersPerPlayer();
+        int count = 0;
+        for (int worker = first; worker < first + position.getWorkersPerPlayer(); worker++) {
+            int from = position.getWorkerCell(worker);
+            if (from == Position.NONE) continue;
+            if (god == Position.GOD_ARTEMIS) {
+                count = generateArtemis(position, worker, from, turns, count);
+                continue;
+            }
+            int fromHeight = position.getHeight(from);
+            for (int d = 0; d < 8; d++) {
+                int to = neighbours.neighbour(from, d);
+                if (to == Position.NONE) continue;
+                int toHeight = position.getHeight(to);
+                if (toHeight == Position.DOME || toHeight > fromHeight + 1) continue;
+                int occupant = position.getWorkerAt(to);
+                int vacated = from;
+                int filled = Position.NONE;
+                long flags = 0;
+                if (occupant != Position.NONE) {
+                    if (position.getOwner(occupant) == player) continue;
+                    if (god == Position.GOD_APOLLO) {
+                        vacated = Position.NONE;
+                        flags = Turn.FLAG_SWAP;
+                    } else if (god == Position.GOD_MINOTAUR) {
+                        filled = neighbours.neighbour(to, d);
+                        if (filled == Position.NONE || position.getHeight(filled) == Position.DOME
+                                || position.getWorkerAt(filled) != Position.NONE) continue;
+                        flags = Turn.FLAG_PUSH;
+                    } else {
+                        continue;
+                    }
+                }
+                if ((toHeight == 3 && fromHeight < 3)
+                        || (god == Position.GOD_PAN && fromHeight - toHeight >= 2)) {
+                    turns[count++] = Turn.encode(worker, to, Turn.NO_CELL, Turn.NO_CELL, flags | Turn.FLAG_WIN);
+                    continue;
+                }
+                count = generateBuilds(position, worker, to, vacated, filled, Position.NONE, god, flags,
+                        turns, count);
+            }
+            if (god == Position.GOD_PROMETHEUS) {
+                count = generatePrometheus(position, worker, from, turns, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether the side to move has at least one legal turn.
+     * @param position The position
+     * @return true if the side to move is not trapped
+     */
+    public static boolean hasTurn(Position position) {
+        long[] turns = new long[maxTurns(position)];
+        return generate(position, turns) > 0;
+    }
+
+    /**
+     * Appends every build that can follow a move.
+     *
+     * @param position The position before the move
+     * @param worker The moving worker
+     * @param to The cell the worker moves to
+     * @param vacated The cell the move left empty, or Position.NONE after a swap
+     * @param filled The cell a pushed worker was moved onto, or Position.NONE
+     * @param firstBuild The cell Prometheus built on before moving, or Position.NONE
+     * @param god The mover's God Card
+     * @param flags The move's flags
+     * @param turns The output buffer
+     * @param count The number of turns already in the buffer
+     * @return The new number of turns in the buffer
+     */
+    private static int generateBuilds(Position position, int worker, int to, int vacated, int filled,
+                                      int firstBuild, int god, long flags, long[] turns, int count) {
+        NeighbourTable neighbours = position.getNeighbourTable();
+        int secondBuild = firstBuild == Position.NONE ? Turn.NO_CELL : firstBuild;
+        for (int d = 0; d < 8; d++) {
+            int build = neighbours.neighbour(to, d);
+            if (!isBuildable(position, build, vacated, filled)) continue;
+            int height = position.getHeight(build);
+            if (build == firstBuild && height == 3) continue;
+            turns[count++] = Turn.encode(worker, to, build, secondBuild, flags);
+            if (god == Position.GOD_DEMETER) {
+                for (int e = d + 1; e < 8; e++) {
+                    int other = neighbours.neighbour(to, e);
+                    if (isBuildable(position, other, vacated, filled)) {
+                        turns[count++] = Turn.encode(worker, to, build, other, flags);
+                    }
+                }
+            } else if (god == Position.GOD_ATLAS && height < 3) {
+                // A dome on level 3 is the ordinary build, already written
+                turns[count++] = Turn.encode(worker, to, build, Turn.NO_CELL, flags | Turn.FLAG_DOME);
+            } else if (god == Position.GOD_HEPHAESTUS && height < 2) {
+                turns[count++] = Turn.encode(worker, to, build, build, flags);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Appends every turn of an Artemis worker. The cells reachable in one step
+     * are marked in a 5x5 window around the worker, so a cell reachable in one
+     * step or two is written once, and a cell reachable in two ways is written
+     * for the first of them.
+     *
+     * @param position The position
+     * @param worker The worker
+     * @param from The worker's cell
+     * @param turns The output buffer
+     * @param count The number of turns already in the buffer
+     * @return The new number of turns in the buffer
+     */
+    private static int generateArtemis(Position position, int worker, int from, long[] turns, int count) {
+        NeighbourTable neighbours = position.getNeighbourTable();
+        int size = position.getGridSize();
+        int fromHeight = position.getHeight(from);
+        // Bit (dr + 2) * 5 + (dc + 2) of each mask stands for the cell dr rows and dc columns away
+        int reached = 0;
+        int won = 0;
+        for (int d = 0; d < 8; d++) {
+            int via = neighbours.neighbour(from, d);
+            if (!canStep(position, fromHeight, via)) continue;
+            int bit = windowBit(size, from, via);
+            if (position.getHeight(via) == 3 && fromHeight < 3) {
+                won |= bit;
+                turns[count++] = Turn.encode(worker, via, Turn.NO_CELL, Turn.NO_CELL, Turn.FLAG_WIN);
+            } else {
+                reached |= bit;
+                count = generateBuilds(position, worker, via, from, Position.NONE, Position.NONE,
+                        Position.GOD_ARTEMIS, 0, turns, count);
+            }
+        }
+        for (int d = 0; d < 8; d++) {
+            int via = neighbours.neighbour(from, d);
+            // A step that wins ends the turn, so it has no second step
+            if (!canStep(position, fromHeight, via)) continue;
+            int viaHeight = position.getHeight(via);
+            if (viaHeight == 3 && fromHeight < 3) continue;
+            for (int e = 0; e < 8; e++) {
+                int to = neighbours.neighbour(via, e);
+                if (to == from || !canStep(position, viaHeight, to)) continue;
+                int bit = windowBit(size, from, to);
+                if (position.getHeight(to) == 3 && viaHeight < 3) {
+                    if ((won & bit) != 0) continue;
+                    won |= bit;
+                    turns[count++] = Turn.encode(worker, to, Turn.NO_CELL, Turn.NO_CELL,
+                            Turn.doubleMove(d) | Turn.FLAG_WIN);
+                } else {
+                    if ((reached & bit) != 0) continue;
+                    reached |= bit;
+                    count = generateBuilds(position, worker, to, from, Position.NONE, Position.NONE,
+                            Position.GOD_ARTEMIS, Turn.doubleMove(d), turns, count);
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Appends the turns in which a Prometheus worker builds before moving. The
+     * move may then not go up, so it never wins, and a first build on level 3
+     * domes the cell, which can then be neither entered nor built on again.
+     *
+     * @param position The position
+     * @param worker The worker
+     * @param from The worker's cell
+     * @param turns The output buffer
+     * @param count The number of turns already in the buffer
+     * @return The new number of turns in the buffer
+     */
+    private static int generatePrometheus(Position position, int worker, int from, long[] turns, int count) {
+        NeighbourTable neighbours = position.getNeighbourTable();
+        int fromHeight = position.getHeight(from);
+        for (int b = 0; b < 8; b++) {
+            int firstBuild = neighbours.neighbour(from, b);
+            if (!isBuildable(position, firstBuild, Position.NONE, Position.NONE)) continue;
+            for (int d = 0; d < 8; d++) {
+                int to = neighbours.neighbour(from, d);
+                if (to == Position.NONE || position.getWorkerAt(to) != Position.NONE) continue;
+                int toHeight = position.getHeight(to) + (to == firstBuild ? 1 : 0);
+                if (toHeight > fromHeight) continue;
+                count = generateBuilds(position, worker, to, from, Position.NONE, firstBuild,
+                        Position.GOD_PROMETHEUS, Turn.FLAG_BUILD_FIRST, turns, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks whether a worker may step onto a cell under the standard rules.
+     *
+     * @param position The position
+     * @param fromHeight The level the worker stands on
+     * @param cell The cell, or Position.NONE if off the board
+     * @return true if the cell is on the board, free, not domed and at most one level up
+     */
+    private static boolean canStep(Position position, int fromHeight, int cell) {
+        if (cell == Position.NONE) return false;
+        int height = position.getHeight(cell);
+        return height != Position.DOME && height <= fromHeight + 1 && position.getWorkerAt(cell) == Position.NONE;
+    }
+
+    /**
+     * Gets the bit of a cell in the 5x5 window centred on another.
+     *
+     * @param gridSize The grid size
+     * @param centre The centre cell
+     * @param cell A cell at most two rows and columns away
+     * @return The bit
+     */
+    private static int windowBit(int gridSize, int centre, int cell) {
+        int dr = cell / gridSize - centre / gridSize;
+        int dc = cell % gridSize - centre % gridSize;
+        return 1 << ((dr + 2) * 5 + dc + 2);
+    }
+
+    /**
+     * Checks whether a cell can be built on once the move has been made.
+     *
+     * @param position The position before the move
+     * @param cell The cell, or Position.NONE if off the board
+     * @param vacated The cell the move left empty, or Position.NONE
+     * @param filled The cell a pushed worker was moved onto, or Position.NONE
+     * @return true if the cell is on the board, free and not domed
+     */
+    private static boolean isBuildable(Position position, int cell, int vacated, int filled) {
+        if (cell == Position.NONE || position.getHeight(cell) == Position.DOME) return false;
+        if (cell == vacated) return true;
+        return cell != filled && position.getWorkerAt(cell) == Position.NONE;
+    }
+}
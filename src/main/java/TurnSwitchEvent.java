@@ -0,0 +1,28 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning GameState.switchToNextPlayer, including the trap check.
+ * Disabled by default; enable santorini.TurnSwitch in a recording to capture it.
+ */
+@Name("santorini.TurnSwitch")
+@Label("Turn Switch")
+@Category({"Santorini", "Game"})
+@Description("The turn passed to the next player")
+@Enabled(false)
+@StackTrace(false)
+public class TurnSwitchEvent extends Event {
+    @Label("Previous Player")
+    int previousPlayerIndex;
+
+    @Label("Next Player")
+    int nextPlayerIndex;
+
+    @Label("Next Player Trapped")
+    boolean trapped;
+}
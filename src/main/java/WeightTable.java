@@ -0,0 +1,176 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluation weights tuned per game configuration and God Card pairing.
+ *
+ * The table is a text file with one line per entry:
+ * <pre>
+ *   gridSize numPlayers workersPerPlayer god,god,... weight weight ...
+ * </pre>
+ * Blank lines and lines starting with # are ignored. The engine loads the file
+ * named by -Dsantorini.weights (santorini-weights.txt by default) once at start
+ * and falls back to EvaluationWeights.defaults() for anything not listed.
+ */
+public class WeightTable {
+    /** System property naming the weight file the engine loads. */
+    public static final String PATH_PROPERTY = "santorini.weights";
+
+    /** Weight file used when the property is not set. */
+    public static final String DEFAULT_PATH = "santorini-weights.txt";
+
+    private final Map<String, EvaluationWeights> entries;
+
+    /**
+     * Creates an empty table.
+     */
+    public WeightTable() {
+        this.entries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Gets the table the engine was started with.
+     * @return The table loaded from the configured weight file
+     */
+    public static WeightTable getDefault() {
+        return DefaultHolder.TABLE;
+    }
+
+    /**
+     * Loads a table from a file.
+     *
+     * @param path The file to read
+     * @return The table, empty if the file does not exist
+     * @throws IOException If the file cannot be read or is malformed
+     */
+    public static WeightTable load(Path path) throws IOException {
+        WeightTable table = new WeightTable();
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(path);
+        } catch (NoSuchFileException e) {
+            return table;
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\\s+");
+            if (fields.length != 4 + EvaluationWeights.FEATURE_COUNT) {
+                throw new IOException(path + ":" + (i + 1) + ": expected "
+                        + (4 + EvaluationWeights.FEATURE_COUNT) + " fields");
+            }
+            try {
+                String[] godNames = fields[3].split(",");
+                int[] gods = new int[godNames.length];
+                for (int p = 0; p < gods.length; p++) {
+                    gods[p] = Position.parseGod(godNames[p]);
+                }
+                int[] weights = new int[EvaluationWeights.FEATURE_COUNT];
+                for (int f = 0; f < weights.length; f++) {
+                    weights[f] = Integer.parseInt(fields[4 + f]);
+                }
+                table.put(Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]),
+                        gods, new EvaluationWeights(weights));
+            } catch (IllegalArgumentException e) {
+                throw new IOException(path + ":" + (i + 1) + ": " + e.getMessage(), e);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Writes the table to a file.
+     *
+     * @param path The file to write
+     * @throws IOException If the file cannot be written
+     */
+    public void save(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("# gridSize numPlayers workersPerPlayer gods");
+            for (int f = 0; f < EvaluationWeights.FEATURE_COUNT; f++) {
+                writer.write(' ');
+                writer.write(EvaluationWeights.getFeatureName(f));
+            }
+            writer.newLine();
+            for (Map.Entry<String, EvaluationWeights> entry : entries.entrySet()) {
+                writer.write(entry.getKey());
+                for (int f = 0; f < EvaluationWeights.FEATURE_COUNT; f++) {
+                    writer.write(' ');
+                    writer.write(Integer.toString(entry.getValue().get(f)));
+                }
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Gets the weights for a position's configuration and God Cards.
+     * @param position The position
+     * @return The tuned weights, or the defaults if none were tuned
+     */
+    public EvaluationWeights get(Position position) {
+        int[] gods = new int[position.getNumPlayers()];
+        for (int p = 0; p < gods.length; p++) {
+            gods[p] = position.getGod(p);
+        }
+        EvaluationWeights weights = entries.get(key(position.getGridSize(), position.getNumPlayers(),
+                position.getWorkersPerPlayer(), gods));
+        return weights != null ? weights : EvaluationWeights.defaults();
+    }
+
+    /**
+     * Adds or replaces the weights of a configuration and God Card pairing.
+     *
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param workersPerPlayer The number of workers each player has
+     * @param gods The God Card identifier of each player
+     * @param weights The weights
+     */
+    public void put(int gridSize, int numPlayers, int workersPerPlayer, int[] gods, EvaluationWeights weights) {
+        entries.put(key(gridSize, numPlayers, workersPerPlayer, gods), weights);
+    }
+
+    /**
+     * Builds the key of an entry, which is also the start of its line in the file.
+     *
+     * @param gridSize The size of the grid
+     * @param numPlayers The number of players
+     * @param workersPerPlayer The number of workers each player has
+     * @param gods The God Card identifier of each player
+     * @return The key
+     */
+    private static String key(int gridSize, int numPlayers, int workersPerPlayer, int[] gods) {
+        StringBuilder key = new StringBuilder();
+        key.append(gridSize).append(' ').append(numPlayers).append(' ').append(workersPerPlayer).append(' ');
+        for (int p = 0; p < gods.length; p++) {
+            if (p > 0) key.append(',');
+            key.append(Position.getGodName(gods[p]));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Loads the default table on first use.
+     */
+    private static final class DefaultHolder {
+        private static final WeightTable TABLE = loadDefault();
+
+        private static WeightTable loadDefault() {
+            Path path = Paths.get(System.getProperty(PATH_PROPERTY, DEFAULT_PATH));
+            try {
+                return load(path);
+            } catch (IOException e) {
+                System.err.println("Ignoring weight file: " + e.getMessage());
+                return new WeightTable();
+            }
+        }
+    }
+}
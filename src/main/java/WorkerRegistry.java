@@ -0,0 +1,156 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers the workers of a board densely from 0, player by player in turn order,
+ * and keeps their positions and owners in primitive arrays, so ownership,
+ * position and "which worker is here" lookups are single array reads.
+ *
+ * The Player pieces remain the view of the workers used by the UI. The registry
+ * follows them by listening to the cells: whenever a cell's occupant changes,
+ * the worker that left it is taken off the board and the one that arrived is put
+ * on it.
+ */
+public class WorkerRegistry implements CellListener {
+    /** Marks no worker, and the position of a worker that is off the board. */
+    public static final int NONE = -1;
+
+    private final int gridSize;
+    private final Player[] pieces;
+    private final int[] owners;
+    private final int[] rows;
+    private final int[] cols;
+    private final int[] workerAt;
+    private final Map<GameEntity, Integer> workerIds;
+    private final Map<Player, Integer> playerIndexes;
+
+    /**
+     * Creates a registry with every worker off the board.
+     *
+     * @param gridSize The size of the grid
+     * @param players The players, in turn order
+     * @param playerPieces The map of players to their pieces
+     */
+    public WorkerRegistry(int gridSize, List<Player> players, Map<Player, List<Player>> playerPieces) {
+        this.gridSize = gridSize;
+        this.workerIds = new IdentityHashMap<>();
+        this.playerIndexes = new IdentityHashMap<>();
+        int workerCount = 0;
+        for (Player player : players) workerCount += playerPieces.get(player).size();
+        this.pieces = new Player[workerCount];
+        this.owners = new int[workerCount];
+        this.rows = new int[workerCount];
+        this.cols = new int[workerCount];
+        this.workerAt = new int[gridSize * gridSize];
+        Arrays.fill(rows, NONE);
+        Arrays.fill(cols, NONE);
+        Arrays.fill(workerAt, NONE);
+
+        int worker = 0;
+        for (int p = 0; p < players.size(); p++) {
+            playerIndexes.put(players.get(p), p);
+            for (Player piece : playerPieces.get(players.get(p))) {
+                workerIds.put(piece, worker);
+                pieces[worker] = piece;
+                owners[worker++] = p;
+            }
+        }
+    }
+
+    @Override
+    public void cellChanged(GridCell cell) {
+        int index = cell.getRow() * gridSize + cell.getCol();
+        int worker = getWorkerId(cell.getOccupant());
+        int previous = workerAt[index];
+        if (previous == worker) return;
+        if (previous != NONE && rows[previous] == cell.getRow() && cols[previous] == cell.getCol()) {
+            rows[previous] = NONE;
+            cols[previous] = NONE;
+        }
+        if (worker != NONE) {
+            if (rows[worker] != NONE && workerAt[rows[worker] * gridSize + cols[worker]] == worker) {
+                workerAt[rows[worker] * gridSize + cols[worker]] = NONE;
+            }
+            rows[worker] = cell.getRow();
+            cols[worker] = cell.getCol();
+        }
+        workerAt[index] = worker;
+    }
+
+    /**
+     * Gets the number of workers.
+     * @return The number of workers on and off the board
+     */
+    public int getWorkerCount() {
+        return pieces.length;
+    }
+
+    /**
+     * Gets the ID of a worker.
+     * @param entity The entity
+     * @return The worker's ID, or NONE if the entity is not one of the workers
+     */
+    public int getWorkerId(GameEntity entity) {
+        Integer worker = entity != null ? workerIds.get(entity) : null;
+        return worker != null ? worker : NONE;
+    }
+
+    /**
+     * Gets the worker standing on a cell.
+     *
+     * @param row The row of the cell
+     * @param col The column of the cell
+     * @return The worker's ID, or NONE if the cell has no worker
+     */
+    public int getWorkerAt(int row, int col) {
+        return workerAt[row * gridSize + col];
+    }
+
+    /**
+     * Gets the owner of a worker.
+     * @param worker The worker's ID
+     * @return The index of the owning player in turn order
+     */
+    public int getOwner(int worker) {
+        return owners[worker];
+    }
+
+    /**
+     * Gets the row of a worker.
+     * @param worker The worker's ID
+     * @return The row, or NONE if the worker is off the board
+     */
+    public int getRow(int worker) {
+        return rows[worker];
+    }
+
+    /**
+     * Gets the column of a worker.
+     * @param worker The worker's ID
+     * @return The column, or NONE if the worker is off the board
+     */
+    public int getCol(int worker) {
+        return cols[worker];
+    }
+
+    /**
+     * Gets the piece that shows a worker.
+     * @param worker The worker's ID
+     * @return The piece
+     */
+    public Player getPiece(int worker) {
+        return pieces[worker];
+    }
+
+    /**
+     * Gets the turn-order index of a player.
+     * @param player The player
+     * @return The player's index, or NONE if it is not a player of this board
+     */
+    public int getPlayerIndex(Player player) {
+        Integer index = playerIndexes.get(player);
+        return index != null ? index : NONE;
+    }
+}
@@ -0,0 +1,58 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that Apollo's swap follows the usual height rule: up at most one
+ * level, down any number.
+ */
+public class ApolloGodCardTest {
+    @Test
+    public void swapDownSeveralLevelsIsAllowed() {
+        BoardLogic board = newGame(3, 0);
+        assertTrue(board.isValidMoveFor(0, 2, 2, 2, 3));
+        assertTrue(board.moveWorker(2, 2, 2, 3));
+
+        WorkerRegistry workers = board.getWorkerRegistry();
+        assertEquals(0, workers.getOwner(workers.getWorkerAt(2, 3)));
+        assertEquals(1, workers.getOwner(workers.getWorkerAt(2, 2)));
+    }
+
+    @Test
+    public void swapUpOneLevelIsAllowed() {
+        BoardLogic board = newGame(1, 2);
+        assertTrue(board.isValidMoveFor(0, 2, 2, 2, 3));
+    }
+
+    @Test
+    public void swapUpTwoLevelsIsRejected() {
+        BoardLogic board = newGame(0, 2);
+        assertFalse(board.isValidMoveFor(0, 2, 2, 2, 3));
+        assertFalse(board.moveWorker(2, 2, 2, 3));
+    }
+
+    /**
+     * Starts a 5x5 game where the first player holds Apollo and has a worker at
+     * (2,2) next to an opponent's worker at (2,3).
+     *
+     * @param fromLevel The building level under the Apollo worker
+     * @param toLevel The building level under the opponent's worker
+     * @return The board, with the Apollo player to move
+     */
+    private static BoardLogic newGame(int fromLevel, int toLevel) {
+        BoardLogic board = new BoardLogic(new GameConfig(5, 2, 2, 1), new GameState());
+        board.getPlayers().get(0).setGodCard(ApolloGodCard.INSTANCE);
+        // The first player places both workers, then the second
+        board.placeNextPiece(2, 2);
+        board.placeNextPiece(0, 0);
+        board.placeNextPiece(2, 3);
+        board.placeNextPiece(4, 4);
+        board.getCell(2, 2).setBuildingLevel(fromLevel);
+        board.getCell(2, 3).setBuildingLevel(toLevel);
+        assertTrue(board.getGameState().isGameStarted());
+        assertEquals(0, board.getGameState().getCurrentPlayerIndex());
+        return board;
+    }
+}
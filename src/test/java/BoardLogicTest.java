@@ -0,0 +1,151 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that BoardLogic.applyBatch applies a batch completely or not at all.
+ */
+public class BoardLogicTest {
+    private static final int GRID_SIZE = 5;
+    private static final GodCard[] GOD_CARDS = {null, ApolloGodCard.INSTANCE, DemeterGodCard.INSTANCE};
+
+    @Test
+    public void failedBatchRestoresTheBoard() {
+        SplittableRandom random = new SplittableRandom(39);
+        int batches = 0;
+        for (int game = 0; game < 100; game++) {
+            BoardLogic board = newGame(random);
+            while (!board.getGameState().isGameOver()) {
+                List<GameAction> turn = randomTurn(board, random);
+                if (turn == null) break;
+                // Every prefix of the turn followed by an illegal action must leave no trace
+                for (int cut = 0; cut <= turn.size(); cut++) {
+                    List<GameAction> batch = new ArrayList<>(turn.subList(0, cut));
+                    batch.add(GameAction.place(0, 0));
+                    String before = describe(board);
+                    assertEquals(cut, board.applyBatch(batch));
+                    assertEquals(before, describe(board));
+                    batches++;
+                }
+                assertEquals(-1, board.applyBatch(turn));
+            }
+        }
+        assertTrue(batches > 1000);
+    }
+
+    @Test
+    public void successfulBatchIsRecordedInTheHistory() {
+        SplittableRandom random = new SplittableRandom(40);
+        BoardLogic board = newGame(random);
+        int historySize = board.getHistory().size();
+        List<GameAction> turn = randomTurn(board, random);
+        int player = board.getGameState().getCurrentPlayerIndex();
+
+        assertEquals(-1, board.applyBatch(turn));
+        assertEquals(turn, board.getHistory().subList(historySize, board.getHistory().size()));
+        assertTrue(board.getGameState().isGameOver() || board.getGameState().getCurrentPlayerIndex() != player);
+    }
+
+    @Test
+    public void innerBatchIsUndoneWithTheOuterBatch() {
+        SplittableRandom random = new SplittableRandom(41);
+        int innerBatches = 0;
+        for (int game = 0; game < 100; game++) {
+            BoardLogic board = newGame(random);
+            GameState state = board.getGameState();
+            while (!state.isGameOver()) {
+                List<GameAction> turn = randomTurn(board, random);
+                if (turn == null) break;
+                List<GameAction> outer = new ArrayList<>(turn);
+                outer.add(GameAction.place(0, 0));
+                String before = describe(board);
+
+                // Once the worker has moved, a listener builds with it as a batch of its own
+                boolean[] fired = {false};
+                board.setChangeListener(cell -> {
+                    if (fired[0] || !state.isInBuildPhase()) return;
+                    fired[0] = true;
+                    GameAction move = turn.get(0);
+                    for (int row = 0; row < GRID_SIZE; row++) {
+                        for (int col = 0; col < GRID_SIZE; col++) {
+                            if (board.isValidBuild(move.getToRow(), move.getToCol(), row, col)) {
+                                board.applyBatch(List.of(GameAction.build(move.getToRow(), move.getToCol(), row, col)));
+                                return;
+                            }
+                        }
+                    }
+                });
+                board.applyBatch(outer);
+                board.setChangeListener(null);
+                if (fired[0]) innerBatches++;
+
+                assertEquals(before, describe(board));
+                assertEquals(-1, board.applyBatch(turn));
+            }
+        }
+        assertTrue(innerBatches > 100);
+    }
+
+    /**
+     * Starts a game with random God Cards and placements.
+     * @param random The source of the cards and placements
+     * @return The board, ready for the first turn
+     */
+    private static BoardLogic newGame(SplittableRandom random) {
+        BoardLogic board = new BoardLogic(new GameConfig(GRID_SIZE, 2, 2, 1), new GameState());
+        for (Player player : board.getPlayers()) {
+            player.setGodCard(GOD_CARDS[random.nextInt(GOD_CARDS.length)]);
+        }
+        while (!board.getGameState().isGameStarted()) {
+            board.placeNextPiece(random.nextInt(GRID_SIZE), random.nextInt(GRID_SIZE));
+        }
+        return board;
+    }
+
+    /**
+     * Chooses a random legal turn of the player to move.
+     *
+     * @param board The board
+     * @param random The source of the choice
+     * @return The turn's actions, or null if the player has no legal turn
+     */
+    private static List<GameAction> randomTurn(BoardLogic board, SplittableRandom random) {
+        Position position = Position.fromBoard(board);
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        return count == 0 ? null : ComputerPlayer.toActions(position, turns[random.nextInt(count)]);
+    }
+
+    /**
+     * Describes everything an action can change: cells, workers, history and game state.
+     * @param board The board
+     * @return The description
+     */
+    private static String describe(BoardLogic board) {
+        StringBuilder text = new StringBuilder();
+        WorkerRegistry workers = board.getWorkerRegistry();
+        for (int row = 0; row < GRID_SIZE; row++) {
+            for (int col = 0; col < GRID_SIZE; col++) {
+                GridCell cell = board.getCell(row, col);
+                text.append(cell.getBuildingLevel()).append(cell.hasDome() ? "D" : "")
+                        .append('/').append(workers.getWorkerAt(row, col)).append(' ');
+            }
+        }
+        for (int worker = 0; worker < workers.getWorkerCount(); worker++) {
+            Player piece = workers.getPiece(worker);
+            text.append(piece.getRow()).append(',').append(piece.getCol()).append(' ');
+        }
+        for (Player player : board.getPlayers()) {
+            text.append(board.getPiecesPlaced(player)).append(board.hasValidMoves(player) ? "+" : "-");
+        }
+        GameState state = board.getGameState();
+        text.append(board.getHistory()).append(state.getCurrentPlayerIndex()).append(state.isInBuildPhase())
+                .append(state.isGameOver()).append(state.getGodCardState());
+        return text.toString();
+    }
+}
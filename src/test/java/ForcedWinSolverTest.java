@@ -0,0 +1,121 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests ForcedWinSolver on hand-built positions and against a brute-force
+ * check of one-turn wins on random ones.
+ */
+public class ForcedWinSolverTest {
+    @Test
+    public void findsAWinInOne() {
+        Position position = newPosition(new int[][] {{2, 2}, {0, 0}, {4, 4}, {4, 0}});
+        position.setHeight(2, 2, 2);
+        position.setHeight(2, 3, 3);
+        ForcedWinSolver solver = new ForcedWinSolver(position, 2);
+        assertTrue(solver.forcesWin(1));
+        assertTrue(solver.forcesWin(2));
+    }
+
+    @Test
+    public void findsNoWinOnAFlatBoard() {
+        ForcedWinSolver solver = new ForcedWinSolver(newPosition(new int[][] {{2, 2}, {0, 0}, {4, 4}, {4, 0}}), 2);
+        assertFalse(solver.forcesWin(1));
+        assertFalse(solver.forcesWin(2));
+    }
+
+    @Test
+    public void findsAWinInTwo() {
+        // Climbing to level 2 threatens level 3, which the defenders are too far away to stop
+        Position position = newPosition(new int[][] {{2, 2}, {0, 0}, {4, 0}, {4, 1}});
+        position.setHeight(2, 2, 1);
+        position.setHeight(2, 3, 2);
+        position.setHeight(2, 4, 3);
+        ForcedWinSolver solver = new ForcedWinSolver(position, 2);
+        assertFalse(solver.forcesWin(1));
+        assertTrue(solver.forcesWin(2));
+
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        int climbs = 0;
+        for (int i = 0; i < count; i++) {
+            if (Turn.to(turns[i]) != 2 * 5 + 3) continue;
+            boolean blocksItself = Turn.build(turns[i]) == 2 * 5 + 4;
+            assertEquals(!blocksItself, solver.turnForcesWin(turns[i], 2));
+            climbs++;
+        }
+        assertTrue(climbs > 0);
+    }
+
+    @Test
+    public void agreesWithBruteForceAndRestoresThePosition() {
+        SplittableRandom random = new SplittableRandom(36);
+        int wins = 0;
+        for (int game = 0; game < 200; game++) {
+            Position position = new Position(5, 2, 2, new int[2]);
+            position.resetRandomly(random);
+            for (int cell = 0; cell < position.getCellCount(); cell++) {
+                if (position.getWorkerAt(cell) == Position.NONE) {
+                    position.setHeight(cell / 5, cell % 5, random.nextInt(4));
+                }
+            }
+            ForcedWinSolver solver = new ForcedWinSolver(position, 2);
+            long hash = position.getHash();
+
+            boolean inOne = solver.forcesWin(1);
+            assertEquals(winsInOne(position), inOne);
+            assertEquals(hash, position.getHash());
+            boolean inTwo = solver.forcesWin(2);
+            assertEquals(hash, position.getHash());
+            assertTrue(!inOne || inTwo);
+            if (inOne) wins++;
+        }
+        assertTrue(wins > 0);
+    }
+
+    @Test
+    public void rejectsMoreThanTwoPlayers() {
+        Position position = new Position(5, 3, 2, new int[3]);
+        assertThrows(IllegalArgumentException.class, () -> new ForcedWinSolver(position, 1));
+    }
+
+    /**
+     * Checks by trying every turn whether the side to move wins at once, by
+     * climbing to level 3 or by leaving the opponent without a legal turn.
+     *
+     * @param position The position
+     * @return true if some turn wins
+     */
+    private static boolean winsInOne(Position position) {
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        long[] replies = new long[turns.length];
+        int count = TurnGenerator.generate(position, turns);
+        for (int i = 0; i < count; i++) {
+            if (Turn.hasFlag(turns[i], Turn.FLAG_WIN)) return true;
+            position.makeTurn(turns[i]);
+            boolean trapped = TurnGenerator.generate(position, replies) == 0;
+            position.unmakeTurn();
+            if (trapped) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Creates a flat 5x5 board without God Cards, with the first player to move.
+     * @param workers The row and column of each worker, two per player
+     * @return The position
+     */
+    private static Position newPosition(int[][] workers) {
+        Position position = new Position(5, 2, 2, new int[2]);
+        for (int worker = 0; worker < workers.length; worker++) {
+            position.placeWorker(worker, workers[worker][0], workers[worker][1]);
+        }
+        position.setSideToMove(0);
+        return position;
+    }
+}
@@ -0,0 +1,67 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that GameMetrics counts every operation, times only sampled outermost
+ * ones, and keeps the records of threads that have ended.
+ */
+public class GameMetricsTest {
+    @Test
+    public void nestedOperationsAreCountedButNotTimed() throws InterruptedException {
+        assumeTrue(GameMetrics.ENABLED);
+        GameMetrics metrics = GameMetrics.get();
+        metrics.reset();
+
+        // A fresh thread, so its first call of each operation is timed
+        runOnNewThread(() -> {
+            long build = GameMetrics.startTimer(GameMetrics.Operation.BUILD);
+            long moves = GameMetrics.startTimer(GameMetrics.Operation.HAS_VALID_MOVES);
+            GameMetrics.recordLatency(GameMetrics.Operation.HAS_VALID_MOVES, moves);
+            GameMetrics.recordLatency(GameMetrics.Operation.BUILD, build);
+        });
+
+        assertEquals(1L, metrics.getOperationCounts().get("BUILD"));
+        assertEquals(1L, metrics.getOperationCounts().get("HAS_VALID_MOVES"));
+        assertEquals(1, metrics.getLatency(GameMetrics.Operation.BUILD).getCount());
+        assertEquals(0, metrics.getLatency(GameMetrics.Operation.HAS_VALID_MOVES).getCount());
+    }
+
+    @Test
+    public void endedThreadsAreMergedWithSampledTimings() throws InterruptedException {
+        assumeTrue(GameMetrics.ENABLED);
+        GameMetrics metrics = GameMetrics.get();
+        metrics.reset();
+
+        int calls = 3 * GameMetrics.SAMPLE_INTERVAL + 1;
+        Runnable moves = () -> {
+            for (int i = 0; i < calls; i++) {
+                long startNanos = GameMetrics.startTimer(GameMetrics.Operation.MOVE_ENTITY);
+                GameMetrics.recordLatency(GameMetrics.Operation.MOVE_ENTITY, startNanos);
+            }
+            GameMetrics.recordGameFinished();
+        };
+        runOnNewThread(moves);
+        runOnNewThread(moves);
+
+        // Each thread times its first call and then one in every SAMPLE_INTERVAL
+        assertEquals(2L * calls, metrics.getOperationCounts().get("MOVE_ENTITY"));
+        assertEquals(2 * 4, metrics.getLatency(GameMetrics.Operation.MOVE_ENTITY).getCount());
+        assertEquals(2, metrics.getGamesFinished());
+        // Reading again after the threads are retired gives the same totals
+        assertEquals(2L * calls, metrics.getOperationCounts().get("MOVE_ENTITY"));
+    }
+
+    /**
+     * Runs a task on a new thread and waits for the thread to end.
+     *
+     * @param task The task
+     * @throws InterruptedException If interrupted while waiting
+     */
+    private static void runOnNewThread(Runnable task) throws InterruptedException {
+        Thread thread = new Thread(task);
+        thread.start();
+        thread.join();
+    }
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests Glicko2Ratings against Glickman's worked example and checks that the
+ * parallel update gives the serial results.
+ */
+public class Glicko2RatingsTest {
+    @Test
+    public void matchesTheWorkedExample() {
+        Glicko2Ratings ratings = new Glicko2Ratings(0.5, 1);
+        int player = ratings.addEntity("player");
+        ratings.setRating(player, 1500, 200, 0.06);
+        int[] opponents = {ratings.addEntity("a"), ratings.addEntity("b"), ratings.addEntity("c")};
+        ratings.setRating(opponents[0], 1400, 30, 0.06);
+        ratings.setRating(opponents[1], 1550, 100, 0.06);
+        ratings.setRating(opponents[2], 1700, 300, 0.06);
+
+        GameResults results = new GameResults(3);
+        results.add(1, player, opponents[0], GameResults.WIN);
+        results.add(1, player, opponents[1], GameResults.LOSS);
+        results.add(1, player, opponents[2], GameResults.LOSS);
+        ratings.rate(results);
+
+        assertEquals(1464.06, ratings.getRating(player), 0.01);
+        assertEquals(151.52, ratings.getDeviation(player), 0.01);
+        assertEquals(0.05999, ratings.getVolatility(player), 0.00001);
+        assertEquals(3, ratings.getGames(player));
+    }
+
+    @Test
+    public void idleAndSkippedPeriodsWidenTheDeviation() {
+        Glicko2Ratings ratings = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, 1);
+        int first = ratings.addEntity("first");
+        int second = ratings.addEntity("second");
+        int idle = ratings.addEntity("idle");
+        for (int entity = 0; entity < 3; entity++) {
+            ratings.setRating(entity, 1500, 50, 0.06);
+        }
+
+        GameResults results = new GameResults(2);
+        results.add(1, first, second, GameResults.DRAW);
+        ratings.rate(results);
+        double idleDeviation = ratings.getDeviation(idle);
+        assertTrue(idleDeviation > 50);
+        assertEquals(1500, ratings.getRating(idle), 1e-9);
+
+        double secondDeviation = ratings.getDeviation(second);
+        results.add(2, first, idle, GameResults.WIN);
+        ratings.rate(results);
+        double afterOne = ratings.getDeviation(second);
+        results.add(5, first, idle, GameResults.WIN);
+        ratings.rate(results);
+        assertTrue(afterOne > secondDeviation);
+        // Periods 3 and 4 have no results but still count
+        assertTrue(ratings.getDeviation(second) > afterOne);
+        assertEquals(5, ratings.getLastPeriod());
+    }
+
+    @Test
+    public void parallelUpdateMatchesSerial() {
+        Glicko2Ratings serial = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, 1);
+        Glicko2Ratings parallel = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, 4);
+        int entities = 10_000;
+        for (int entity = 0; entity < entities; entity++) {
+            serial.addEntity("e" + entity);
+            parallel.addEntity("e" + entity);
+        }
+        SplittableRandom random = new SplittableRandom(30);
+        double[] scores = {GameResults.WIN, GameResults.DRAW, GameResults.LOSS};
+        GameResults results = new GameResults(3 * entities);
+        for (int period = 1; period <= 3; period++) {
+            for (int game = 0; game < entities; game++) {
+                int first = random.nextInt(entities);
+                int second = (first + 1 + random.nextInt(entities - 1)) % entities;
+                results.add(period, first, second, scores[random.nextInt(3)]);
+            }
+        }
+        serial.rate(results);
+        parallel.rate(results);
+
+        for (int entity = 0; entity < entities; entity++) {
+            assertEquals(serial.getRating(entity), parallel.getRating(entity), 0.0);
+            assertEquals(serial.getDeviation(entity), parallel.getDeviation(entity), 0.0);
+            assertEquals(serial.getVolatility(entity), parallel.getVolatility(entity), 0.0);
+        }
+    }
+
+    @Test
+    public void ratingAPeriodAgainIsRejected() {
+        Glicko2Ratings ratings = new Glicko2Ratings(Glicko2Ratings.DEFAULT_TAU, 1);
+        int first = ratings.addEntity("first");
+        int second = ratings.addEntity("second");
+        GameResults results = new GameResults(1);
+        results.add(2, first, second, GameResults.WIN);
+        ratings.rate(results);
+
+        // A late result for a period already rated cannot be taken back into it
+        results.add(2, second, first, GameResults.WIN);
+        assertThrows(IllegalArgumentException.class, () -> ratings.rate(results));
+    }
+}
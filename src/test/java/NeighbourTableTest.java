@@ -0,0 +1,60 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests NeighbourTable against row and column arithmetic on every small grid
+ * size and the largest one.
+ */
+public class NeighbourTableTest {
+    @Test
+    public void adjacencyMatchesRowAndColumnDistance() {
+        for (int gridSize : new int[] {1, 2, 3, 4, 5, 8, GameConfig.MAX_GRID_SIZE}) {
+            NeighbourTable table = NeighbourTable.forGridSize(gridSize);
+            for (int fromRow = -1; fromRow <= gridSize; fromRow++) {
+                for (int fromCol = -1; fromCol <= gridSize; fromCol++) {
+                    for (int toRow = fromRow - 2; toRow <= fromRow + 2; toRow++) {
+                        for (int toCol = fromCol - 2; toCol <= fromCol + 2; toCol++) {
+                            boolean expected = onGrid(gridSize, fromRow, fromCol) && onGrid(gridSize, toRow, toCol)
+                                    && (fromRow != toRow || fromCol != toCol)
+                                    && Math.abs(fromRow - toRow) <= 1 && Math.abs(fromCol - toCol) <= 1;
+                            assertEquals(expected, table.isAdjacent(fromRow, fromCol, toRow, toCol),
+                                    gridSize + "x" + gridSize + ": (" + fromRow + "," + fromCol + ") to ("
+                                            + toRow + "," + toCol + ")");
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void neighboursAndDirectionsAgree() {
+        for (int gridSize : new int[] {1, 2, 3, 5, GameConfig.MAX_GRID_SIZE}) {
+            NeighbourTable table = NeighbourTable.forGridSize(gridSize);
+            for (int cell = 0; cell < gridSize * gridSize; cell++) {
+                int found = 0;
+                for (int d = 0; d < 8; d++) {
+                    int neighbour = table.neighbour(cell, d);
+                    assertEquals(neighbour != NeighbourTable.NONE, (table.mask(cell) >>> d & 1) != 0);
+                    if (neighbour == NeighbourTable.NONE) continue;
+                    assertEquals(neighbour, table.packedNeighbour(cell, found++));
+                    assertEquals(d, table.direction(cell, neighbour));
+                }
+                assertEquals(found, table.count(cell));
+            }
+        }
+    }
+
+    /**
+     * Checks whether a row and column lie on a grid.
+     *
+     * @param gridSize The grid size
+     * @param row The row
+     * @param col The column
+     * @return true if the cell exists
+     */
+    private static boolean onGrid(int gridSize, int row, int col) {
+        return row >= 0 && row < gridSize && col >= 0 && col < gridSize;
+    }
+}
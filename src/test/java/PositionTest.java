@@ -0,0 +1,202 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that Position.makeTurn and unmakeTurn keep every derived field in step
+ * with the board, and that unmaking restores the position exactly.
+ */
+public class PositionTest {
+    private static final int MAX_PLIES = 60;
+
+    @Test
+    public void unmakeRestoresEveryField() {
+        SplittableRandom random = new SplittableRandom(31);
+        for (int game = 0; game < 50; game++) {
+            Position position = new Position(5, 2, 2, new int[2]);
+            position.resetRandomly(random);
+            playRandomGame(position, random);
+        }
+    }
+
+    @Test
+    public void unmakeRestoresEveryFieldForEveryGod() {
+        SplittableRandom random = new SplittableRandom(43);
+        for (int god = Position.GOD_NONE; god <= Position.GOD_PROMETHEUS; god++) {
+            for (int game = 0; game < 10; game++) {
+                Position position = new Position(5, 2, 2, new int[] {god, (god + game) % (Position.GOD_PROMETHEUS + 1)});
+                position.resetRandomly(random);
+                playRandomGame(position, random);
+            }
+        }
+    }
+
+    @Test
+    public void unmakeRestoresEveryFieldWithThreePlayers() {
+        SplittableRandom random = new SplittableRandom(32);
+        for (int game = 0; game < 20; game++) {
+            Position position = new Position(7, 3, 2,
+                    new int[] {Position.GOD_APOLLO, Position.GOD_DEMETER, Position.GOD_MINOTAUR});
+            position.resetRandomly(random);
+            playRandomGame(position, random);
+        }
+    }
+
+    @Test
+    public void unmakingAWholeLineReturnsToTheRoot() {
+        SplittableRandom random = new SplittableRandom(33);
+        Position position = new Position(6, 2, 2, new int[2]);
+        position.resetRandomly(random);
+        long[] root = snapshot(position);
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int played = 0;
+        while (played < MAX_PLIES && position.getWinner() == Position.NONE) {
+            int count = TurnGenerator.generate(position, turns);
+            if (count == 0) break;
+            position.makeTurn(turns[random.nextInt(count)]);
+            played++;
+        }
+        assertTrue(played > 0);
+        for (int i = 0; i < played; i++) {
+            position.unmakeTurn();
+        }
+        assertArrayEquals(root, snapshot(position));
+    }
+
+    @Test
+    public void winningTurnSetsAndUnmakeClearsTheWinner() {
+        Position position = new Position(5, 2, 2, new int[2]);
+        position.placeWorker(0, 2, 2);
+        position.placeWorker(1, 0, 0);
+        position.placeWorker(2, 4, 4);
+        position.placeWorker(3, 4, 0);
+        position.setHeight(2, 2, 2);
+        position.setHeight(2, 3, 3);
+        position.setSideToMove(0);
+
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        int count = TurnGenerator.generate(position, turns);
+        long win = Turn.NONE;
+        for (int i = 0; i < count; i++) {
+            if (Turn.hasFlag(turns[i], Turn.FLAG_WIN)) win = turns[i];
+        }
+        assertEquals(2 * 5 + 3, Turn.to(win));
+        position.makeTurn(win);
+        assertEquals(0, position.getWinner());
+        position.unmakeTurn();
+        assertEquals(Position.NONE, position.getWinner());
+    }
+
+    @Test
+    public void fromBoardCopiesTheBoardWithoutCreatingCells() throws ReflectiveOperationException {
+        int size = GameConfig.MAX_GRID_SIZE;
+        BoardLogic board = new BoardLogic(new GameConfig(size, 2, 2, 1), new GameState());
+        board.placeNextPiece(0, 0);
+        board.placeNextPiece(40, 50);
+        board.placeNextPiece(63, 63);
+        board.placeNextPiece(1, 1);
+        board.getCell(0, 1).setBuildingLevel(3);
+        board.getCell(41, 50).setBuildingLevel(4);
+        int created = countChunks(board);
+
+        Position position = Position.fromBoard(board);
+        assertEquals(created, countChunks(board), "fromBoard created cells");
+        for (int cell = 0; cell < position.getCellCount(); cell++) {
+            assertEquals(board.getCell(cell / size, cell % size).getBuildingLevel(), position.getHeight(cell));
+        }
+        WorkerRegistry workers = board.getWorkerRegistry();
+        for (int worker = 0; worker < position.getWorkerCount(); worker++) {
+            assertEquals(workers.getRow(worker) * size + workers.getCol(worker), position.getWorkerCell(worker));
+        }
+        assertEquals(board.getGameState().getCurrentPlayerIndex(), position.getSideToMove());
+        assertArrayEquals(snapshot(rebuild(position)), snapshot(position));
+    }
+
+    /**
+     * Plays random turns, checking each one against a position rebuilt from
+     * scratch after it is made and against the position before it once unmade.
+     *
+     * @param position The position to play in
+     * @param random The source of the turns
+     */
+    private static void playRandomGame(Position position, SplittableRandom random) {
+        long[] turns = new long[TurnGenerator.maxTurns(position)];
+        for (int ply = 0; ply < MAX_PLIES && position.getWinner() == Position.NONE; ply++) {
+            int count = TurnGenerator.generate(position, turns);
+            if (count == 0) return;
+            long[] before = snapshot(position);
+            for (int i = 0; i < count; i++) {
+                position.makeTurn(turns[i]);
+                assertArrayEquals(snapshot(rebuild(position)), snapshot(position),
+                        "Incremental state differs from a rebuild");
+                position.unmakeTurn();
+                assertArrayEquals(before, snapshot(position), "Unmake did not restore the position");
+            }
+            position.makeTurn(turns[random.nextInt(count)]);
+        }
+    }
+
+    /**
+     * Builds a position with the same board whose hash and bit masks are
+     * computed from scratch rather than kept up to date turn by turn.
+     * @param position The position
+     * @return The rebuilt position
+     */
+    private static Position rebuild(Position position) {
+        Position rebuilt = new Position(position);
+        rebuilt.copyFrom(position);
+        return rebuilt;
+    }
+
+    /**
+     * Counts the chunks of cells a board has created.
+     * @param board The board
+     * @return The number of chunks
+     */
+    private static int countChunks(BoardLogic board) throws ReflectiveOperationException {
+        Field field = BoardLogic.class.getDeclaredField("chunks");
+        field.setAccessible(true);
+        int count = 0;
+        for (Object chunk : (Object[]) field.get(board)) {
+            if (chunk != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Captures everything a position exposes.
+     * @param position The position
+     * @return The heights, workers, bit masks, side to move, winner and hash
+     */
+    private static long[] snapshot(Position position) {
+        int size = position.getGridSize();
+        int cells = position.getCellCount();
+        long[] state = new long[2 * cells + position.getWorkerCount() + (5 + position.getNumPlayers() + 1) * size + 3];
+        int index = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            state[index++] = position.getHeight(cell);
+            state[index++] = position.getWorkerAt(cell);
+        }
+        for (int worker = 0; worker < position.getWorkerCount(); worker++) {
+            state[index++] = position.getWorkerCell(worker);
+        }
+        for (int row = 0; row < size; row++) {
+            for (int level = 0; level <= Position.DOME; level++) {
+                state[index++] = position.getLevelRow(level, row);
+            }
+            for (int player = 0; player < position.getNumPlayers(); player++) {
+                state[index++] = position.getPlayerRow(player, row);
+            }
+            state[index++] = position.getOccupiedRow(row);
+        }
+        state[index++] = position.getSideToMove();
+        state[index++] = position.getWinner();
+        state[index] = position.getHash();
+        return state;
+    }
+}
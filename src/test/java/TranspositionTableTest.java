@@ -0,0 +1,110 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests TranspositionTable's entries, whose keys are stored XORed with their
+ * turn and data so that a torn entry reads as empty.
+ */
+public class TranspositionTableTest {
+    private static final long KEY = 0x1234_5678_9ABC_DEF0L;
+    private static final long TURN = 0x0000_7123_4567_89ABL;
+
+    @Test
+    public void probeReturnsWhatWasStored() {
+        TranspositionTable table = new TranspositionTable(4);
+        long[] entry = new long[2];
+        assertFalse(table.probe(KEY, entry));
+
+        table.store(KEY, TURN, -12345, 17, TranspositionTable.LOWER);
+        assertTrue(table.probe(KEY, entry));
+        assertEquals(TURN, entry[0]);
+        assertEquals(-12345, TranspositionTable.getScore(entry[1]));
+        assertEquals(17, TranspositionTable.getDepth(entry[1]));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.getBound(entry[1]));
+    }
+
+    @Test
+    public void otherKeyInTheSameSlotMisses() {
+        TranspositionTable table = new TranspositionTable(4);
+        long other = KEY ^ (1L << 40);
+        table.store(KEY, TURN, 5, 3, TranspositionTable.EXACT);
+        assertFalse(table.probe(other, new long[2]));
+    }
+
+    @Test
+    public void tornEntryReadsAsEmpty() throws ReflectiveOperationException {
+        TranspositionTable table = new TranspositionTable(4);
+        long[] entry = new long[2];
+        int slot = (int) (KEY ^ (KEY >>> 32)) & 15;
+
+        // Another thread has written the turn or the data of its own entry but not yet the key
+        table.store(KEY, TURN, 5, 3, TranspositionTable.EXACT);
+        array(table, "turns")[slot] = TURN + 1;
+        assertFalse(table.probe(KEY, entry));
+
+        table.store(KEY, TURN, 5, 3, TranspositionTable.EXACT);
+        array(table, "data")[slot] ^= 1;
+        assertFalse(table.probe(KEY, entry));
+    }
+
+    @Test
+    public void deeperEntryIsKeptUnlessTheKeyDiffers() {
+        TranspositionTable table = new TranspositionTable(4);
+        long[] entry = new long[2];
+        table.store(KEY, TURN, 5, 6, TranspositionTable.EXACT);
+        table.store(KEY, TURN + 1, 7, 5, TranspositionTable.UPPER);
+        assertTrue(table.probe(KEY, entry));
+        assertEquals(6, TranspositionTable.getDepth(entry[1]));
+        assertEquals(TURN, entry[0]);
+
+        table.store(KEY, TURN + 1, 7, 6, TranspositionTable.UPPER);
+        assertTrue(table.probe(KEY, entry));
+        assertEquals(TURN + 1, entry[0]);
+
+        long other = KEY ^ (1L << 40);
+        table.store(other, Turn.NONE, 0, 1, TranspositionTable.EXACT);
+        assertFalse(table.probe(KEY, entry));
+        assertTrue(table.probe(other, entry));
+        assertEquals(Turn.NONE, entry[0]);
+    }
+
+    @Test
+    public void zeroKeyAndZeroEntryCanBeStored() {
+        TranspositionTable table = new TranspositionTable(4);
+        long[] entry = new long[2];
+        assertFalse(table.probe(0, entry));
+        table.store(0, 0, 0, 0, TranspositionTable.EXACT);
+        assertTrue(table.probe(0, entry));
+        assertEquals(0, TranspositionTable.getScore(entry[1]));
+    }
+
+    @Test
+    public void clearRemovesEveryEntry() {
+        TranspositionTable table = new TranspositionTable(4);
+        for (long key = 0; key < 16; key++) {
+            table.store(key, TURN, 1, 1, TranspositionTable.EXACT);
+        }
+        table.clear();
+        for (long key = 0; key < 16; key++) {
+            assertFalse(table.probe(key, new long[2]));
+        }
+    }
+
+    /**
+     * Gets one of the table's arrays, to tamper with a slot.
+     *
+     * @param table The table
+     * @param name The array's field name
+     * @return The array
+     */
+    private static long[] array(TranspositionTable table, String name) throws ReflectiveOperationException {
+        Field field = TranspositionTable.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return (long[]) field.get(table);
+    }
+}